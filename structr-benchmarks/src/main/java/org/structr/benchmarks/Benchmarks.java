@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.UUID;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.GraphObject;
+import org.structr.core.GraphObjectMap;
+import org.structr.core.Services;
+import org.structr.core.entity.Person;
+import org.structr.core.property.DoubleProperty;
+import org.structr.core.property.IntProperty;
+import org.structr.core.property.Property;
+import org.structr.module.JarConfigurationProvider;
+
+/**
+ * Shared fixtures for the benchmarks. Initializes the service layer
+ * without any services, so that the configuration provider is available
+ * but no database or network connection is needed, and creates in-memory
+ * graph objects.
+ */
+public final class Benchmarks {
+
+	public static final Property<Integer> position = new IntProperty("position");
+	public static final Property<Double> score     = new DoubleProperty("score");
+
+	private static boolean initialized             = false;
+
+	private Benchmarks() {}
+
+	public static synchronized void initialize() {
+
+		if (!initialized) {
+
+			try {
+
+				final File basePath     = Files.createTempDirectory("structr-benchmarks").toFile();
+				final Properties config = Services.getBaseConfiguration();
+
+				config.setProperty(Services.TESTING,             "true");
+				config.setProperty(Services.CONFIGURED_SERVICES, "");
+				config.setProperty(Services.CONFIGURATION,       JarConfigurationProvider.class.getName());
+				config.setProperty(Services.BASE_PATH,           basePath.getAbsolutePath());
+				config.setProperty(Services.TMP_PATH,            basePath.getAbsolutePath());
+				config.setProperty(Services.FILES_PATH,          new File(basePath, "files").getAbsolutePath());
+
+				Services.getInstanceForTesting(config);
+
+				initialized = true;
+
+			} catch (IOException ioex) {
+				throw new IllegalStateException(ioex);
+			}
+		}
+	}
+
+	/**
+	 * Creates the given number of in-memory objects with random
+	 * property values. The same seed always yields the same objects.
+	 *
+	 * @param count
+	 * @param seed
+	 * @return a list of graph objects
+	 */
+	public static List<GraphObject> createObjects(final int count, final long seed) {
+
+		final List<GraphObject> objects = new ArrayList<>(count);
+		final Random random             = new Random(seed);
+
+		for (int i=0; i<count; i++) {
+
+			final GraphObjectMap map = new GraphObjectMap();
+
+			try {
+
+				map.setProperty(GraphObject.id,      new UUID(random.nextLong(), random.nextLong()).toString().replaceAll("\\-", ""));
+				map.setProperty(GraphObject.type,    Person.class.getSimpleName());
+				map.setProperty(Person.name,         "Person " + random.nextInt(count * 10));
+				map.setProperty(Person.eMail,        "person" + i + "@example.com");
+				map.setProperty(Person.birthday,     new Date(random.nextInt(Integer.MAX_VALUE) * 1000L));
+				map.setProperty(Person.newsletter,   random.nextBoolean());
+				map.setProperty(position,            random.nextInt(count));
+				map.setProperty(score,               random.nextDouble());
+
+			} catch (FrameworkException fex) {
+				throw new IllegalStateException(fex);
+			}
+
+			objects.add(map);
+		}
+
+		return objects;
+	}
+}
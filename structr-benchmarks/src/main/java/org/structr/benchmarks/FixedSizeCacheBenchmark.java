@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.structr.api.util.FixedSizeCache;
+
+/**
+ * Lookups, insertions with eviction and contended lookups on the
+ * FixedSizeCache used for nodes and relationships.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FixedSizeCacheBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int size;
+
+	private FixedSizeCache<Long, Object> cache = null;
+	private final Object value                 = new Object();
+	private long counter                       = 0L;
+
+	@Setup
+	public void setup() {
+
+		cache = new FixedSizeCache<>(size);
+
+		for (long i=0; i<size; i++) {
+			cache.put(i, value);
+		}
+	}
+
+	@Benchmark
+	public Object getHit() {
+		return cache.get(counter++ % size);
+	}
+
+	@Benchmark
+	public Object getMiss() {
+		return cache.get(-1L - (counter++ % size));
+	}
+
+	@Benchmark
+	public void putEvicting() {
+		cache.put(size + counter++, value);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Object getHitContended() {
+		return cache.get(Thread.currentThread().getId() % size);
+	}
+}
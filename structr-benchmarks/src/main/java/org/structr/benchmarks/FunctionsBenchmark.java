@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.structr.common.SecurityContext;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.GraphObject;
+import org.structr.core.function.Functions;
+import org.structr.schema.action.ActionContext;
+
+/**
+ * Parsing and evaluation of StructrScript expressions against an
+ * in-memory object.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FunctionsBenchmark {
+
+	@Param({
+		"concat('Hello', ' ', 'World')",
+		"if(gt(this.position, 5), upper(this.name), lower(this.name))",
+		"join(merge(split('a,b,c,d,e,f,g,h'), split('i,j,k')), '-')",
+		"round(add(mult(this.score, 100), 0.5), 2)"
+	})
+	public String expression;
+
+	private ActionContext actionContext = null;
+	private GraphObject entity          = null;
+
+	@Setup
+	public void setup() {
+
+		Benchmarks.initialize();
+
+		actionContext = new ActionContext(SecurityContext.getSuperUserInstance());
+		entity        = Benchmarks.createObjects(1, 42L).get(0);
+	}
+
+	@Benchmark
+	public Object evaluate() throws FrameworkException {
+		return Functions.evaluate(actionContext, entity, expression);
+	}
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.structr.common.GraphObjectComparator;
+import org.structr.core.GraphObject;
+import org.structr.core.entity.Person;
+import org.structr.core.property.PropertyKey;
+
+/**
+ * Sorting of in-memory objects by string, integer and date keys. Each
+ * invocation sorts a fresh copy of the unsorted list, so the copy is
+ * part of the measured time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GraphObjectComparatorBenchmark {
+
+	@Param({ "100", "10000" })
+	public int count;
+
+	@Param({ "name", "position", "birthday" })
+	public String sortKey;
+
+	private List<GraphObject> objects            = null;
+	private GraphObjectComparator ascending      = null;
+	private GraphObjectComparator descending     = null;
+
+	@Setup
+	public void setup() {
+
+		Benchmarks.initialize();
+
+		final PropertyKey key = getSortKey();
+
+		objects    = Benchmarks.createObjects(count, 42L);
+		ascending  = new GraphObjectComparator(key, false);
+		descending = new GraphObjectComparator(key, true);
+	}
+
+	@Benchmark
+	public List<GraphObject> sortAscending() {
+
+		final List<GraphObject> copy = new ArrayList<>(objects);
+
+		Collections.sort(copy, ascending);
+
+		return copy;
+	}
+
+	@Benchmark
+	public List<GraphObject> sortDescending() {
+
+		final List<GraphObject> copy = new ArrayList<>(objects);
+
+		Collections.sort(copy, descending);
+
+		return copy;
+	}
+
+	// ----- private methods -----
+	private PropertyKey getSortKey() {
+
+		switch (sortKey) {
+
+			case "position":
+				return Benchmarks.position;
+
+			case "birthday":
+				return Person.birthday;
+
+			default:
+				return Person.name;
+		}
+	}
+}
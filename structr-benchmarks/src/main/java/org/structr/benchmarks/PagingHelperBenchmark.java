@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.structr.common.PagingHelper;
+import org.structr.core.GraphObject;
+import org.structr.core.entity.Person;
+
+/**
+ * Paging of in-memory result lists by page number, by offset id and
+ * with sorting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PagingHelperBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int count;
+
+	@Param({ "20" })
+	public int pageSize;
+
+	private List<GraphObject> objects = null;
+	private String offsetId           = null;
+	private int lastPage              = 1;
+
+	@Setup
+	public void setup() {
+
+		Benchmarks.initialize();
+
+		objects  = Benchmarks.createObjects(count, 42L);
+		offsetId = objects.get(count / 2).getUuid();
+		lastPage = count / pageSize;
+	}
+
+	@Benchmark
+	public List<? extends GraphObject> firstPage() {
+		return PagingHelper.subList(objects, pageSize, 1, null);
+	}
+
+	@Benchmark
+	public List<? extends GraphObject> lastPage() {
+		return PagingHelper.subList(objects, pageSize, lastPage, null);
+	}
+
+	@Benchmark
+	public List<? extends GraphObject> offsetId() {
+		return PagingHelper.subList(objects, pageSize, 1, offsetId);
+	}
+
+	@Benchmark
+	public List<? extends GraphObject> sortedFirstPage() {
+		return PagingHelper.sortedSubList(objects, Person.name, false, pageSize, 1, null);
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.structr.common.SecurityContext;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.entity.Person;
+import org.structr.core.property.PropertyMap;
+
+/**
+ * Conversion of property maps between the input (JSON), Java and
+ * database representations, as done for every create and update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PropertyMapBenchmark {
+
+	private SecurityContext securityContext = null;
+	private Map<String, Object> input       = null;
+	private Map<String, Object> database    = null;
+	private PropertyMap properties          = null;
+
+	@Setup
+	public void setup() throws FrameworkException {
+
+		Benchmarks.initialize();
+
+		securityContext = SecurityContext.getSuperUserInstance();
+		input           = new LinkedHashMap<>();
+
+		input.put("type",       "Person");
+		input.put("name",       "Tester");
+		input.put("firstName",  "Test");
+		input.put("lastName",   "Tester");
+		input.put("eMail",      "tester@example.com");
+		input.put("street",     "Main Street 1");
+		input.put("city",       "Frankfurt");
+		input.put("country",    "Germany");
+		input.put("birthday",   "1980-01-01T12:00:00+0000");
+		input.put("newsletter", true);
+
+		properties = PropertyMap.inputTypeToJavaType(securityContext, Person.class, input);
+		database   = PropertyMap.javaTypeToDatabaseType(securityContext, Person.class, properties);
+	}
+
+	@Benchmark
+	public PropertyMap inputTypeToJavaType() throws FrameworkException {
+		return PropertyMap.inputTypeToJavaType(securityContext, Person.class, input);
+	}
+
+	@Benchmark
+	public Map<String, Object> javaTypeToInputType() throws FrameworkException {
+		return PropertyMap.javaTypeToInputType(securityContext, Person.class, properties);
+	}
+
+	@Benchmark
+	public Map<String, Object> javaTypeToDatabaseType() throws FrameworkException {
+		return PropertyMap.javaTypeToDatabaseType(securityContext, Person.class, properties);
+	}
+
+	@Benchmark
+	public PropertyMap databaseTypeToJavaType() throws FrameworkException {
+		return PropertyMap.databaseTypeToJavaType(securityContext, Person.class, database);
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.structr.common.PropertyView;
+import org.structr.common.SecurityContext;
+import org.structr.core.GraphObject;
+import org.structr.core.Result;
+import org.structr.core.StaticValue;
+import org.structr.rest.serialization.StreamingJsonWriter;
+
+/**
+ * JSON serialization of result sets with in-memory objects, written to
+ * a writer that only counts characters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StreamingWriterBenchmark {
+
+	@Param({ "10", "1000" })
+	public int count;
+
+	@Param({ "false", "true" })
+	public boolean indent;
+
+	private SecurityContext securityContext = null;
+	private StreamingJsonWriter jsonWriter  = null;
+	private Result result                   = null;
+
+	@Setup
+	public void setup() {
+
+		Benchmarks.initialize();
+
+		final List<GraphObject> objects = Benchmarks.createObjects(count, 42L);
+
+		securityContext = SecurityContext.getSuperUserInstance();
+		jsonWriter      = new StreamingJsonWriter(new StaticValue<>(PropertyView.Public), indent, 3);
+		result          = new Result(objects, objects.size(), true, false);
+	}
+
+	@Benchmark
+	public void stream(final Blackhole blackhole) throws IOException {
+
+		final CountingWriter writer = new CountingWriter();
+
+		jsonWriter.stream(securityContext, writer, result, null);
+
+		blackhole.consume(writer.count);
+	}
+
+	// ----- nested classes -----
+	private static class CountingWriter extends Writer {
+
+		private long count = 0L;
+
+		@Override
+		public void write(final char[] buf, final int off, final int len) {
+			count += len;
+		}
+
+		@Override
+		public void write(final int c) {
+			count++;
+		}
+
+		@Override
+		public void write(final String str, final int off, final int len) {
+			count += len;
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
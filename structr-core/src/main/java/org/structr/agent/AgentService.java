@@ -32,6 +32,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.metrics.MetricsRegistry;
 import org.structr.api.service.Command;
 import org.structr.api.service.RunnableService;
 import org.structr.api.service.StructrServices;
@@ -67,6 +68,8 @@ public class AgentService extends Thread implements RunnableService {
 		supportedCommands.add(ProcessTaskCommand.class);
 
 		super.setDaemon(true);
+
+		MetricsRegistry.getInstance().gauge("structr_agent_queue_depth", "Number of tasks waiting to be assigned to an agent", () -> taskQueue.size());
 	}
 
 	//~--- methods --------------------------------------------------------
@@ -25,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.core.GraphObject;
 import org.structr.core.Result;
+import org.structr.core.property.PropertyKey;
 
 //~--- classes ----------------------------------------------------------------
 
@@ -112,6 +113,34 @@ public class PagingHelper {
 
 	}
 
+	/**
+	 * Sort the given list and return a single page of it. If the page is
+	 * near the beginning of the list, only the elements up to the end of
+	 * the page are sorted.
+	 *
+	 * @param <T>
+	 * @param list
+	 * @param sortKey
+	 * @param sortDescending
+	 * @param pageSize
+	 * @param page
+	 * @param offsetId
+	 * @return subList
+	 */
+	public static <T extends GraphObject> List<? extends GraphObject> sortedSubList(final List<T> list, final PropertyKey sortKey, final boolean sortDescending, int pageSize, int page, String offsetId) {
+
+		final long count = (long)pageSize * (long)page;
+
+		if (sortKey != null && page > 0 && pageSize > 0 && StringUtils.isBlank(offsetId) && count < list.size() / 2) {
+
+			return subList(SortHelper.first(list, sortKey, sortDescending, (int)count), pageSize, page, offsetId);
+		}
+
+		SortHelper.sort(list, sortKey, sortDescending);
+
+		return subList(list, pageSize, page, offsetId);
+	}
+
 	/**
 	 * Return a single page of the result with the given paging parameters.
 	 *
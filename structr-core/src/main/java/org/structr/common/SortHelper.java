@@ -0,0 +1,225 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.PriorityQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.core.GraphObject;
+import org.structr.core.property.PropertyKey;
+
+/**
+ * Sorting of graph objects by a property key.
+ *
+ * Unlike sorting with a {@link GraphObjectComparator}, the comparable
+ * value of each object is extracted exactly once before sorting, which
+ * matters for converted, function and related-node properties. Large
+ * lists are sorted in parallel (only the extracted values are compared
+ * in other threads), and if only the first elements are needed, they
+ * are selected with a bounded heap. The order is the same as with a
+ * {@link GraphObjectComparator}, and sorting is stable.
+ *
+ *
+ */
+public class SortHelper {
+
+	private static final Logger logger          = LoggerFactory.getLogger(SortHelper.class.getName());
+	private static final int PARALLEL_THRESHOLD = 8192;
+
+	/**
+	 * Sorts the given list in place.
+	 *
+	 * @param <T>
+	 * @param list
+	 * @param sortKey
+	 * @param sortDescending
+	 */
+	public static <T extends GraphObject> void sort(final List<T> list, final PropertyKey sortKey, final boolean sortDescending) {
+
+		if (sortKey == null || list.size() < 2) {
+			return;
+		}
+
+		final SortEntry<T>[] entries = extract(list, sortKey);
+		final Comparator<SortEntry> comparator = getComparator(sortDescending);
+
+		if (entries.length >= PARALLEL_THRESHOLD) {
+
+			Arrays.parallelSort(entries, comparator);
+
+		} else {
+
+			Arrays.sort(entries, comparator);
+		}
+
+		final ListIterator<T> iterator = list.listIterator();
+		for (final SortEntry<T> entry : entries) {
+
+			iterator.next();
+			iterator.set(entry.obj);
+		}
+	}
+
+	/**
+	 * Returns the first <code>count</code> elements of the given list in
+	 * sort order, without sorting the whole list.
+	 *
+	 * @param <T>
+	 * @param list
+	 * @param sortKey
+	 * @param sortDescending
+	 * @param count
+	 * @return the first elements in sort order
+	 */
+	public static <T extends GraphObject> List<T> first(final List<T> list, final PropertyKey sortKey, final boolean sortDescending, final int count) {
+
+		if (sortKey == null) {
+			return list.subList(0, Math.min(count, list.size()));
+		}
+
+		final Comparator<SortEntry> comparator = getComparator(sortDescending).thenComparingInt(e -> e.index);
+		final PriorityQueue<SortEntry<T>> heap = new PriorityQueue<>(count + 1, comparator.reversed());
+		int index                              = 0;
+
+		for (final T obj : list) {
+
+			final SortEntry<T> entry = new SortEntry<>(obj, getComparable(obj, sortKey), index++);
+
+			if (heap.size() < count) {
+
+				heap.add(entry);
+
+			} else if (count > 0 && comparator.compare(entry, heap.peek()) < 0) {
+
+				heap.poll();
+				heap.add(entry);
+			}
+		}
+
+		final SortEntry<T>[] entries = heap.toArray(new SortEntry[heap.size()]);
+		Arrays.sort(entries, comparator);
+
+		final List<T> result = new ArrayList<>(entries.length);
+		for (final SortEntry<T> entry : entries) {
+			result.add(entry.obj);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Compares two comparable values like {@link GraphObjectComparator}:
+	 * null values are sorted after all other values in ascending order
+	 * and before all other values in descending order.
+	 *
+	 * @param c1
+	 * @param c2
+	 * @param sortDescending
+	 * @return the comparison result
+	 */
+	public static int compare(final Comparable c1, final Comparable c2, final boolean sortDescending) {
+
+		if (c1 == null || c2 == null) {
+
+			if (c1 == null && c2 == null) {
+
+				return 0;
+
+			} else if (c1 == null) {
+
+				return sortDescending ? -1 : 1;
+
+			} else {
+
+				return sortDescending ? 1 : -1;
+			}
+		}
+
+		try {
+
+			return sortDescending ? c2.compareTo(c1) : c1.compareTo(c2);
+
+		} catch (Throwable t) {
+
+			logger.warn("Cannot compare {} of type {} to {} of type {}.", new Object[] {
+				c1, c1.getClass().getSimpleName(),
+				c2, c2.getClass().getSimpleName()
+			});
+		}
+
+		return 0;
+	}
+
+	// ----- private methods -----
+	private static <T extends GraphObject> SortEntry<T>[] extract(final List<T> list, final PropertyKey sortKey) {
+
+		final SortEntry<T>[] entries = new SortEntry[list.size()];
+		int index                    = 0;
+
+		for (final T obj : list) {
+
+			entries[index] = new SortEntry<>(obj, getComparable(obj, sortKey), index);
+			index++;
+		}
+
+		return entries;
+	}
+
+	private static Comparable getComparable(final GraphObject obj, final PropertyKey sortKey) {
+
+		if (obj == null) {
+			throw new NullPointerException();
+		}
+
+		try {
+
+			return obj.getComparableProperty(sortKey);
+
+		} catch (Throwable t) {
+
+			logger.warn("Cannot get comparable value of property {} of {}: {}", new Object[] { sortKey, obj.getUuid(), t.getMessage() });
+		}
+
+		return null;
+	}
+
+	private static Comparator<SortEntry> getComparator(final boolean sortDescending) {
+		return (e1, e2) -> compare(e1.key, e2.key, sortDescending);
+	}
+
+	// ----- nested classes -----
+	private static class SortEntry<T> {
+
+		private T obj          = null;
+		private Comparable key = null;
+		private int index      = 0;
+
+		public SortEntry(final T obj, final Comparable key, final int index) {
+
+			this.obj   = obj;
+			this.key   = key;
+			this.index = index;
+		}
+	}
+}
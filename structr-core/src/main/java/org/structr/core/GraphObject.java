@@ -72,7 +72,6 @@ public interface GraphObject {
 	public static final Property<Boolean> visibleToAuthenticatedUsers = new BooleanProperty("visibleToAuthenticatedUsers").passivelyIndexed();
 	public static final Property<Date>    visibilityStartDate         = new ISO8601DateProperty("visibilityStartDate");
 	public static final Property<Date>    visibilityEndDate           = new ISO8601DateProperty("visibilityEndDate");
-	public static final Property<String>  structrChangeLog            = new StringProperty("structrChangeLog").unvalidated().readOnly();
 
 	// ----- methods common to both types -----
 	/**
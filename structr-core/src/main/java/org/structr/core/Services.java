@@ -36,6 +36,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import javax.management.JMException;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.commons.lang3.RandomStringUtils;
@@ -43,6 +44,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.api.DatabaseService;
+import org.structr.api.metrics.MetricsRegistry;
 import org.structr.api.service.Command;
 import org.structr.api.service.InitializationCallback;
 import org.structr.api.service.RunnableService;
@@ -53,6 +55,7 @@ import org.structr.common.Permission;
 import org.structr.common.Permissions;
 import org.structr.common.SecurityContext;
 import org.structr.core.app.StructrApp;
+import org.structr.core.graph.ChangelogStore;
 import org.structr.core.graph.NodeService;
 import org.structr.module.JarConfigurationProvider;
 import org.structr.schema.ConfigurationProvider;
@@ -79,6 +82,10 @@ public class Services implements StructrServices {
 	public static final String FILES_PATH                                = "files.path";
 	public static final String DATA_EXCHANGE_PATH                        = "data.exchange.path";
 	public static final String LOG_DATABASE_PATH                         = "log.database.path";
+	public static final String CHANGELOG_PATH                            = "changelog.path";
+	public static final String MAINTENANCE_STATE_PATH                    = "maintenance.state.path";
+	public static final String MAINTENANCE_THREADS                       = "maintenance.threads";
+	public static final String MINIFICATION_CACHE_PATH                   = "minification.cache.path";
 	public static final String FOREIGN_TYPE                              = "foreign.type.key";
 	public static final String LOG_SERVICE_INTERVAL                      = "structr.logging.interval";
 	public static final String LOG_SERVICE_THRESHOLD                     = "structr.logging.threshold";
@@ -328,6 +335,14 @@ public class Services implements StructrServices {
 		logger.info("{} service(s) processed", serviceCache.size());
 		registeredServiceClasses.clear();
 
+		// make metrics available via JMX
+		try {
+			MetricsRegistry.getInstance().registerMBean();
+
+		} catch (JMException jex) {
+			logger.warn("Unable to register metrics MBean: {}", jex.getMessage());
+		}
+
 		logger.info("Registering shutdown hook.");
 
 		// register shutdown hook
@@ -446,6 +461,9 @@ public class Services implements StructrServices {
 
 			serviceCache.clear();
 
+			// write pending changelog entries
+			ChangelogStore.shutdownInstance();
+
 			// shut down configuration provider
 			configuration.shutdown();
 
@@ -19,6 +19,7 @@
 package org.structr.core.app;
 
 import java.io.Closeable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import org.structr.agent.Task;
@@ -61,6 +62,7 @@ public interface App extends Closeable {
 	public GraphObject get(final String uuid) throws FrameworkException;
 	public NodeInterface getNodeById(final String uuid) throws FrameworkException;
 	public RelationshipInterface getRelationshipById(final String uuid) throws FrameworkException;
+	public Map<String, NodeInterface> getNodesByIds(final Collection<String> uuids) throws FrameworkException;
 	public <T extends GraphObject> List<T> get(final Class<T> type) throws FrameworkException;
 	public <T extends GraphObject> T get(final Class<T> type, final String uuid) throws FrameworkException;
 
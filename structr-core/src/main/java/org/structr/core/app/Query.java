@@ -37,6 +37,7 @@ public interface Query<T extends GraphObject> extends Iterable<T> {
 
 	public Result<T> getResult() throws FrameworkException;
 	public List<T> getAsList() throws FrameworkException;
+	public Iterable<T> getResultStream() throws FrameworkException;
 	public T getFirst() throws FrameworkException;
 
 	// ----- builder methods -----
@@ -63,6 +64,7 @@ public interface Query<T extends GraphObject> extends Iterable<T> {
 	public Query<T> location(final String street, final String postalCode, final String city, final String country, final double distance);
 	public Query<T> location(final String street, final String postalCode, final String city, final String state, final String country, final double distance);
 	public Query<T> location(final String street, final String house, final String postalCode, final String city, final String state, final String country, final double distance);
+	public Query<T> location(final double latitude, final double longitude, final double distance);
 	public <P> Query<T> and(final PropertyKey<P> key, final P value);
 	public <P> Query<T> and(final PropertyKey<P> key, final P value, final boolean exact);
 	public <P> Query<T> and(final PropertyMap attributes);
@@ -20,7 +20,11 @@ package org.structr.core.app;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -29,8 +33,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.structr.agent.AgentService;
 import org.structr.agent.Task;
 import org.structr.api.DatabaseService;
+import org.structr.api.NativeResult;
 import org.structr.api.NotFoundException;
 import org.structr.api.graph.GraphProperties;
+import org.structr.api.graph.Node;
 import org.structr.api.service.Command;
 import org.structr.api.service.Service;
 import org.structr.api.util.FixedSizeCache;
@@ -69,6 +75,7 @@ import org.structr.schema.ConfigurationProvider;
  */
 public class StructrApp implements App {
 
+	private static final int BULK_LOOKUP_BATCH_SIZE         = 1000;
 	private static FixedSizeCache<String, Long> nodeUuidMap = null;
 	private static FixedSizeCache<String, Long> relUuidMap  = null;
 	private static final URI schemaBaseURI                  = URI.create("https://structr.org/v1.1/#");
@@ -210,6 +217,62 @@ public class StructrApp implements App {
 		return null;
 	}
 
+	/**
+	 * Resolves the nodes with the given UUIDs in batches of up to 1000
+	 * UUIDs per database query. UUIDs that cannot be resolved are not
+	 * contained in the resulting map, which is ordered like the input
+	 * collection.
+	 *
+	 * @param uuids the UUIDs to resolve
+	 * @return a map of UUIDs to nodes
+	 * @throws FrameworkException
+	 */
+	@Override
+	public Map<String, NodeInterface> getNodesByIds(final Collection<String> uuids) throws FrameworkException {
+
+		final Map<String, NodeInterface> result = new LinkedHashMap<>();
+
+		if (uuids == null || uuids.isEmpty()) {
+			return result;
+		}
+
+		final Map<String, NodeInterface> nodes = new HashMap<>();
+		final NodeFactory factory              = new NodeFactory(securityContext);
+		final List<String> batch               = new ArrayList<>(BULK_LOOKUP_BATCH_SIZE);
+
+		for (final String uuid : new LinkedHashSet<>(uuids)) {
+
+			if (uuid != null) {
+
+				batch.add(uuid);
+
+				if (batch.size() == BULK_LOOKUP_BATCH_SIZE) {
+
+					resolveNodes(factory, batch, nodes);
+					batch.clear();
+				}
+			}
+		}
+
+		if (!batch.isEmpty()) {
+			resolveNodes(factory, batch, nodes);
+		}
+
+		cacheNodeIds(nodes);
+
+		// preserve input order
+		for (final String uuid : uuids) {
+
+			final NodeInterface node = nodes.get(uuid);
+			if (node != null) {
+
+				result.put(uuid, node);
+			}
+		}
+
+		return result;
+	}
+
 	@Override
 	public RelationshipInterface getRelationshipById(final String uuid) throws FrameworkException {
 
@@ -510,6 +573,41 @@ public class StructrApp implements App {
 		return nodeUuidMap.get(uuid);
 	}
 
+	private void resolveNodes(final NodeFactory factory, final List<String> uuids, final Map<String, NodeInterface> nodes) throws FrameworkException {
+
+		final Map<String, Object> parameters = new HashMap<>();
+		parameters.put("ids", uuids);
+
+		try (final NativeResult result = getDatabaseService().execute("MATCH (n:NodeInterface) WHERE n.id IN {ids} RETURN n", parameters)) {
+
+			while (result.hasNext()) {
+
+				final Object value = result.next().get("n");
+				if (value instanceof Node) {
+
+					final NodeInterface node = (NodeInterface)factory.instantiate((Node)value, true, false);
+					if (node != null) {
+
+						nodes.put(node.getUuid(), node);
+					}
+				}
+			}
+		}
+	}
+
+	private synchronized void cacheNodeIds(final Map<String, NodeInterface> nodes) {
+
+		if (nodeUuidMap == null) {
+
+			final int cacheSize = Services.parseInt(StructrApp.getConfigurationValue(Services.APPLICATION_UUID_CACHE_SIZE), 100000);
+			nodeUuidMap = new FixedSizeCache<>(cacheSize);
+		}
+
+		for (final NodeInterface node : nodes.values()) {
+			nodeUuidMap.put(node.getUuid(), node.getId());
+		}
+	}
+
 	private synchronized Long getRelFromCache(final String uuid) {
 
 		if (relUuidMap == null) {
@@ -52,6 +52,7 @@ import org.structr.api.graph.Relationship;
 import org.structr.api.graph.RelationshipType;
 import org.structr.api.index.Index;
 import org.structr.api.util.FixedSizeCache;
+import org.structr.api.util.GeoHash;
 import org.structr.api.util.Iterables;
 import org.structr.cmis.CMISInfo;
 import org.structr.cmis.common.CMISExtensionsData;
@@ -1469,12 +1470,20 @@ public abstract class AbstractNode implements NodeInterface, AccessControllable,
 	@Override
 	public final void addToIndex() {
 
+		boolean hasCoordinates = false;
+
 		for (PropertyKey key : StructrApp.getConfiguration().getPropertySet(entityType, PropertyView.All)) {
 
 			if (key.isIndexed()) {
 
 				key.index(this, this.getProperty(key));
 			}
+
+			hasCoordinates |= GeoHash.isCoordinate(key.dbName());
+		}
+
+		if (hasCoordinates) {
+			updateGeoHash();
 		}
 	}
 
@@ -1502,12 +1511,53 @@ public abstract class AbstractNode implements NodeInterface, AccessControllable,
 	@Override
 	public final void indexPassiveProperties() {
 
+		boolean hasCoordinates = false;
+
 		for (PropertyKey key : StructrApp.getConfiguration().getPropertySet(entityType, PropertyView.All)) {
 
 			if (key.isPassivelyIndexed()) {
 
 				key.index(this, this.getProperty(key));
 			}
+
+			hasCoordinates |= GeoHash.isCoordinate(key.dbName());
+		}
+
+		if (hasCoordinates) {
+			updateGeoHash();
+		}
+	}
+
+	/**
+	 * Stores the geohash of the coordinates of this node in all precisions
+	 * so that distance searches can be narrowed down to the nodes in the
+	 * grid cells that cover the search circle.
+	 */
+	public void updateGeoHash() {
+
+		if (dbNode == null) {
+			return;
+		}
+
+		final Object latitude  = dbNode.hasProperty(GeoHash.LATITUDE)  ? dbNode.getProperty(GeoHash.LATITUDE)  : null;
+		final Object longitude = dbNode.hasProperty(GeoHash.LONGITUDE) ? dbNode.getProperty(GeoHash.LONGITUDE) : null;
+
+		for (final int precision : GeoHash.PRECISIONS) {
+
+			final String name = GeoHash.getPropertyName(precision);
+
+			if (latitude instanceof Number && longitude instanceof Number) {
+
+				final String hash = GeoHash.encode(((Number)latitude).doubleValue(), ((Number)longitude).doubleValue(), precision);
+
+				if (!dbNode.hasProperty(name) || !hash.equals(dbNode.getProperty(name))) {
+					dbNode.setProperty(name, hash);
+				}
+
+			} else if (dbNode.hasProperty(name)) {
+
+				dbNode.removeProperty(name);
+			}
 		}
 	}
 
@@ -23,23 +23,32 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.TreeMap;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.common.AccessControllable;
+import org.structr.common.Permission;
+import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
 import org.structr.core.app.App;
 import org.structr.core.app.StructrApp;
+import org.structr.core.graph.ChangelogStore;
 import org.structr.schema.action.ActionContext;
 import org.structr.schema.action.Function;
 
 public class ChangelogFunction extends Function<Object, Object> {
 
-	public static final String ERROR_MESSAGE_CHANGLOG = "Usage: ${changelog(entity[, resolve=false])}. Example: ${changelog(current)}";
-	public static final String ERROR_MESSAGE_CHANGLOG_JS = "Usage: ${{Structr.changelog(entity[, resolve=false])}}. Example: ${{Structr.changelog(Structr.get('current'))}}";
+	public static final String ERROR_MESSAGE_CHANGLOG = "Usage: ${changelog(entity[, resolve=false[, from[, to]]])}. Example: ${changelog(current)}";
+	public static final String ERROR_MESSAGE_CHANGLOG_JS = "Usage: ${{Structr.changelog(entity[, resolve=false[, from[, to]]])}}. Example: ${{Structr.changelog(Structr.get('current'))}}";
 
-	private static final Logger logger = LoggerFactory.getLogger(ChangelogFunction.class.getName());
+	private static final Logger logger                  = LoggerFactory.getLogger(ChangelogFunction.class.getName());
+	private static final String LEGACY_CHANGELOG_KEY    = "structrChangeLog";
 
 
 	@Override
@@ -50,77 +59,114 @@ public class ChangelogFunction extends Function<Object, Object> {
 	@Override
 	public Object apply(final ActionContext ctx, final Object caller, final Object[] sources) throws FrameworkException {
 
-		if (arrayHasMinLengthAndMaxLengthAndAllElementsNotNull(sources, 1, 2)) {
+		if (arrayHasMinLengthAndMaxLengthAndAllElementsNotNull(sources, 1, 4)) {
 
-			final App app = StructrApp.getInstance();
+			final SecurityContext securityContext = ctx.getSecurityContext();
+			final App app                         = StructrApp.getInstance(securityContext);
+			final List list                       = new ArrayList();
 
-			GraphObject dataObject;
+			GraphObject dataObject = null;
+			String uuid            = null;
 
 			if (sources[0] instanceof GraphObject) {
+
 				dataObject = (GraphObject)sources[0];
+				uuid       = dataObject.getUuid();
+
+			} else if (sources[0] instanceof String) {
+
+				uuid       = (String)sources[0];
+				dataObject = app.get(uuid);
+
+				// only admin users can access the changelog of deleted entities
+				if (dataObject == null && !isSuperUser(securityContext)) {
+					return list;
+				}
+
 			} else {
-				logger.warn("First parameter must be of type GraphObject: \"{}\"", sources[0]);
+
+				logger.warn("First parameter must be of type GraphObject or String: \"{}\"", sources[0]);
 				return usage(ctx.isJavaScriptContext());
 			}
 
-			final String changelog = dataObject.getProperty(GraphObject.structrChangeLog);
-			final List list = new ArrayList();
+			if (dataObject instanceof AccessControllable && !isSuperUser(securityContext) && !((AccessControllable)dataObject).isGranted(Permission.read, securityContext)) {
+				return list;
+			}
 
-			if (changelog != null) {
+			final long from            = sources.length >= 3 ? toTimestamp(sources[2], Long.MIN_VALUE) : Long.MIN_VALUE;
+			final long to              = sources.length >= 4 ? toTimestamp(sources[3], Long.MAX_VALUE) : Long.MAX_VALUE;
+			final List<String> entries = new LinkedList<>();
 
-				final String[] entries = changelog.split("\n");
+			// entries that were stored in the node before the changelog store was introduced
+			if (dataObject != null && dataObject.getPropertyContainer() != null && dataObject.getPropertyContainer().hasProperty(LEGACY_CHANGELOG_KEY)) {
 
-				if (entries.length > 0) {
+				final Object legacyChangelog = dataObject.getPropertyContainer().getProperty(LEGACY_CHANGELOG_KEY);
+				if (legacyChangelog != null) {
 
-					final boolean resolveTargets = (sources.length >= 2 && Boolean.TRUE.equals(sources[1]));
-					final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
-					final JsonParser parser = new JsonParser();
+					entries.addAll(Arrays.asList(legacyChangelog.toString().split("\n")));
+				}
+			}
+
+			entries.addAll(ChangelogStore.getInstance().read(uuid, from, to));
 
-					for (String entry : entries) {
+			if (!entries.isEmpty()) {
 
-						final JsonObject jsonObj          = parser.parse(entry).getAsJsonObject();
-						final String verb                 = jsonObj.get("verb").getAsString();
-						final TreeMap<String, Object> obj = new TreeMap<>();
+				final boolean resolveTargets = (sources.length >= 2 && Boolean.TRUE.equals(sources[1]));
+				final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+				final JsonParser parser = new JsonParser();
 
-						obj.put("verb", verb);
-						obj.put("time", jsonObj.get("time").getAsLong());
-						obj.put("userId", jsonObj.get("userId").getAsString());
-						obj.put("userName", jsonObj.get("userName").getAsString());
+				for (String entry : entries) {
+
+					if (StringUtils.isBlank(entry)) {
+						continue;
+					}
 
-						if (verb.equals("create") || verb.equals("delete")) {
+					final JsonObject jsonObj          = parser.parse(entry).getAsJsonObject();
+					final String verb                 = jsonObj.get("verb").getAsString();
+					final long time                   = jsonObj.get("time").getAsLong();
+					final TreeMap<String, Object> obj = new TreeMap<>();
 
-							obj.put("target", jsonObj.get("target").getAsString());
+					if (time < from || time > to) {
+						continue;
+					}
 
-							if (resolveTargets) {
-								obj.put("targetObj", app.getNodeById(jsonObj.get("target").getAsString()));
-							}
+					obj.put("verb", verb);
+					obj.put("time", time);
+					obj.put("userId", jsonObj.get("userId").getAsString());
+					obj.put("userName", jsonObj.get("userName").getAsString());
 
-							list.add(obj);
+					if (verb.equals("create") || verb.equals("delete")) {
 
-						} else if (verb.equals("link") || verb.equals("unlink")) {
+						obj.put("target", jsonObj.get("target").getAsString());
 
-							obj.put("rel", jsonObj.get("rel").getAsString());
-							obj.put("target", jsonObj.get("target").getAsString());
+						if (resolveTargets) {
+							obj.put("targetObj", app.getNodeById(jsonObj.get("target").getAsString()));
+						}
 
-							if (resolveTargets) {
-								obj.put("targetObj", app.getNodeById(jsonObj.get("target").getAsString()));
-							}
+						list.add(obj);
 
-							list.add(obj);
+					} else if (verb.equals("link") || verb.equals("unlink")) {
 
-						} else if (verb.equals("change")) {
+						obj.put("rel", jsonObj.get("rel").getAsString());
+						obj.put("target", jsonObj.get("target").getAsString());
 
-							obj.put("key", jsonObj.get("key").getAsString());
-							obj.put("prev", gson.toJson(jsonObj.get("prev")));
-							obj.put("val", gson.toJson(jsonObj.get("val")));
+						if (resolveTargets) {
+							obj.put("targetObj", app.getNodeById(jsonObj.get("target").getAsString()));
+						}
 
-							list.add(obj);
+						list.add(obj);
 
-						} else {
+					} else if (verb.equals("change")) {
 
-							logger.warn("Unknown verb in changelog: \"{}\"", verb);
+						obj.put("key", jsonObj.get("key").getAsString());
+						obj.put("prev", gson.toJson(jsonObj.get("prev")));
+						obj.put("val", gson.toJson(jsonObj.get("val")));
 
-						}
+						list.add(obj);
+
+					} else {
+
+						logger.warn("Unknown verb in changelog: \"{}\"", verb);
 
 					}
 
@@ -140,6 +186,34 @@ public class ChangelogFunction extends Function<Object, Object> {
 
 	}
 
+	// ----- private methods -----
+	private boolean isSuperUser(final SecurityContext securityContext) {
+		return securityContext == null || securityContext.isSuperUser();
+	}
+
+	private long toTimestamp(final Object value, final long defaultValue) {
+
+		if (value instanceof Date) {
+			return ((Date)value).getTime();
+		}
+
+		if (value instanceof Number) {
+			return ((Number)value).longValue();
+		}
+
+		if (value != null) {
+
+			try {
+				return Long.parseLong(value.toString());
+
+			} catch (NumberFormatException nfex) {
+				logger.warn("Unable to parse changelog time range parameter \"{}\"", value);
+			}
+		}
+
+		return defaultValue;
+	}
+
 	@Override
 	public String usage(boolean inJavaScriptContext) {
 		return (inJavaScriptContext ? ERROR_MESSAGE_CHANGLOG_JS : ERROR_MESSAGE_CHANGLOG);
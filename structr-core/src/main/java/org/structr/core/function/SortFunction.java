@@ -19,10 +19,9 @@
 package org.structr.core.function;
 
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import org.structr.common.GraphObjectComparator;
+import org.structr.common.SortHelper;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
 import org.structr.core.app.StructrApp;
@@ -77,7 +76,7 @@ public class SortFunction extends Function<Object, Object> {
 						if (key != null) {
 
 							List<GraphObject> sortCollection = (List<GraphObject>)list;
-							Collections.sort(sortCollection, new GraphObjectComparator(key, descending));
+							SortHelper.sort(sortCollection, key, descending);
 
 							return sortCollection;
 						}
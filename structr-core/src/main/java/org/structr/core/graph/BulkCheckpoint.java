@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.core.graph;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * Resumable state of a partitioned bulk graph operation. Completed id
+ * ranges are merged and written to a small state file after each
+ * partition, together with a fingerprint of the collected ids, so that
+ * a checkpoint is only used for the same set of objects it was created
+ * for.
+ */
+class BulkCheckpoint {
+
+	private static final String FINGERPRINT_PREFIX = "fingerprint=";
+
+	private final TreeMap<Long, Long> ranges       = new TreeMap<>();
+	private final String fingerprint;
+	private final File file;
+
+	BulkCheckpoint(final File file, final String fingerprint) {
+
+		this.fingerprint = fingerprint;
+		this.file        = file;
+	}
+
+	/**
+	 * Loads the completed ranges from the state file.
+	 *
+	 * @return whether a state file with a matching fingerprint was found
+	 * @throws IOException
+	 */
+	synchronized boolean load() throws IOException {
+
+		ranges.clear();
+
+		if (!file.exists()) {
+			return false;
+		}
+
+		try (final BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+
+			final String header = reader.readLine();
+			if (header == null || !header.equals(FINGERPRINT_PREFIX + fingerprint)) {
+				return false;
+			}
+
+			String line = null;
+
+			while ((line = reader.readLine()) != null) {
+
+				final int pos = line.indexOf('-');
+				if (pos > 0) {
+
+					ranges.put(Long.valueOf(line.substring(0, pos)), Long.valueOf(line.substring(pos + 1)));
+				}
+			}
+		}
+
+		return true;
+	}
+
+	synchronized boolean contains(final long id) {
+
+		final Entry<Long, Long> range = ranges.floorEntry(id);
+
+		return range != null && id <= range.getValue();
+	}
+
+	/**
+	 * Marks the given id range (inclusive) as completed and writes the
+	 * state file.
+	 *
+	 * @param from
+	 * @param to
+	 * @throws IOException
+	 */
+	synchronized void complete(final long from, final long to) throws IOException {
+
+		long start = from;
+		long end   = to;
+
+		// merge with the preceding range
+		final Entry<Long, Long> lower = ranges.floorEntry(from);
+		if (lower != null && lower.getValue() >= from - 1) {
+
+			start = lower.getKey();
+			end   = Math.max(end, lower.getValue());
+
+			ranges.remove(lower.getKey());
+		}
+
+		// merge with the following range
+		final Entry<Long, Long> higher = ranges.ceilingEntry(from);
+		if (higher != null && higher.getKey() <= end + 1) {
+
+			end = Math.max(end, higher.getValue());
+
+			ranges.remove(higher.getKey());
+		}
+
+		ranges.put(start, end);
+
+		write();
+	}
+
+	synchronized int size() {
+		return ranges.size();
+	}
+
+	synchronized void delete() {
+
+		ranges.clear();
+		file.delete();
+	}
+
+	// ----- private methods -----
+	private void write() throws IOException {
+
+		final File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+
+		final File tmp = new File(file.getAbsolutePath() + ".tmp");
+
+		try (final Writer writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+
+			writer.write(FINGERPRINT_PREFIX);
+			writer.write(fingerprint);
+			writer.write("\n");
+
+			for (final Map.Entry<Long, Long> range : ranges.entrySet()) {
+
+				writer.write(range.getKey().toString());
+				writer.write("-");
+				writer.write(range.getValue().toString());
+				writer.write("\n");
+			}
+		}
+
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
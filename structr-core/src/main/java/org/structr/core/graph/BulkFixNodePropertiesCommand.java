@@ -141,6 +141,11 @@ public class BulkFixNodePropertiesCommand extends NodeServiceCommand implements
 								}
 							}
 						}
+
+						@Override
+						public boolean isPartitionSafe() {
+							return true;
+						}
 					});
 
 					logger.info("Fixed {} nodes", nodeCount);
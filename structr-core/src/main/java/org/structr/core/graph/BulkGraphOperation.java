@@ -58,4 +58,17 @@ public abstract class BulkGraphOperation<T> {
 	public boolean doNotifications() {
 		return false;
 	}
+
+	/**
+	 * Indicates whether this operation can be executed concurrently on
+	 * disjoint sets of nodes or relationships, each in its own
+	 * transaction. Partition-safe operations are executed by multiple
+	 * worker threads, and interrupted runs continue from their last
+	 * checkpoint.
+	 *
+	 * @return whether this operation is partition-safe
+	 */
+	public boolean isPartitionSafe() {
+		return false;
+	}
 }
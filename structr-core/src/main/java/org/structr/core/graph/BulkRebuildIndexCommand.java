@@ -117,6 +117,11 @@ public class BulkRebuildIndexCommand extends NodeServiceCommand implements Maint
 			public void handleTransactionFailure(SecurityContext securityContext, Throwable t) {
 				logger.warn("Unable to index node: {}", t.getMessage());
 			}
+
+			@Override
+			public boolean isPartitionSafe() {
+				return true;
+			}
 		});
 
 		info("Done with (re-)indexing {} nodes", count);
@@ -165,6 +170,11 @@ public class BulkRebuildIndexCommand extends NodeServiceCommand implements Maint
 			public void handleTransactionFailure(SecurityContext securityContext, Throwable t) {
 				logger.warn("Unable to index relationship: {}", t.getMessage());
 			}
+
+			@Override
+			public boolean isPartitionSafe() {
+				return true;
+			}
 		});
 
 		info("Done with (re-)indexing {} relationships", count);
@@ -124,6 +124,11 @@ public class BulkSetUuidCommand extends NodeServiceCommand implements Maintenanc
 				public boolean doValidation() {
 					return false;
 				}
+
+				@Override
+				public boolean isPartitionSafe() {
+					return true;
+				}
 			});
 
 			info("Done with setting UUID on {} nodes", count);
@@ -189,6 +194,11 @@ public class BulkSetUuidCommand extends NodeServiceCommand implements Maintenanc
 				public boolean doValidation() {
 					return false;
 				}
+
+				@Override
+				public boolean isPartitionSafe() {
+					return true;
+				}
 			});
 
 			info("Done with setting UUID on {} relationships", count);
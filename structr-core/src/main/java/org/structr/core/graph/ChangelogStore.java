@@ -0,0 +1,649 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.core.graph;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.core.Services;
+import org.structr.core.app.StructrApp;
+
+/**
+ * Append-only, segmented storage for the changelog of graph objects.
+ *
+ * Changelog entries are queued after a transaction has been committed and
+ * written to disk in batches by a background thread. Each segment file
+ * is accompanied by an index file that contains the time range of the
+ * segment and the offsets of all entries per entity uuid, so reading the
+ * changelog of a single entity only touches the segments that contain
+ * entries for it.
+ *
+ *
+ */
+public class ChangelogStore {
+
+	private static final Logger logger                = LoggerFactory.getLogger(ChangelogStore.class.getName());
+	private static final long MAX_SEGMENT_SIZE        = 16 * 1024 * 1024;
+	private static final int MAX_BATCH_SIZE           = 1000;
+	private static final String SEGMENT_PREFIX        = "changelog-";
+	private static final String SEGMENT_SUFFIX        = ".log";
+	private static final String INDEX_SUFFIX          = ".idx";
+	private static ChangelogStore instance            = null;
+
+	private final BlockingQueue<ChangelogEntry> queue = new LinkedBlockingQueue<>();
+	private final List<Segment> segments              = new ArrayList<>();
+	private Thread writerThread                       = null;
+	private File directory                            = null;
+	private OutputStream out                          = null;
+	private Segment current                           = null;
+	private volatile boolean running                  = true;
+
+	private ChangelogStore(final File directory) {
+
+		this.directory = directory;
+
+		directory.mkdirs();
+
+		loadSegments();
+
+		writerThread = new Thread(new WriterThread(), "ChangelogStoreWriter");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	public static synchronized ChangelogStore getInstance() {
+
+		if (instance == null) {
+
+			String path = StructrApp.getConfigurationValue(Services.CHANGELOG_PATH);
+			if (StringUtils.isBlank(path)) {
+
+				path = StructrApp.getConfigurationValue(Services.BASE_PATH, ".") + "/changelog";
+			}
+
+			instance = new ChangelogStore(new File(path));
+		}
+
+		return instance;
+	}
+
+	public static synchronized void shutdownInstance() {
+
+		if (instance != null) {
+
+			instance.shutdown();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Queues the given changelog entries of the entity with the given
+	 * uuid to be written asynchronously. The changelog consists of one
+	 * JSON object per line.
+	 *
+	 * @param uuid
+	 * @param changeLog
+	 */
+	public void append(final String uuid, final String changeLog) {
+
+		if (uuid != null && StringUtils.isNotBlank(changeLog)) {
+
+			queue.add(new ChangelogEntry(uuid, changeLog));
+		}
+	}
+
+	/**
+	 * Returns all changelog entries of the entity with the given uuid
+	 * that were recorded in the given time range (inclusive), in the
+	 * order they were recorded.
+	 *
+	 * @param uuid
+	 * @param from the start of the time range in milliseconds
+	 * @param to the end of the time range in milliseconds
+	 *
+	 * @return a list of JSON strings
+	 */
+	public synchronized List<String> read(final String uuid, final long from, final long to) {
+
+		final List<String> result = new LinkedList<>();
+
+		// make sure that all pending entries are visible
+		flush();
+
+		for (final Segment segment : segments) {
+
+			if (segment.overlaps(from, to)) {
+
+				final List<long[]> positions = segment.getIndex().get(uuid);
+				if (positions != null) {
+
+					try (final RandomAccessFile file = new RandomAccessFile(segment.file, "r")) {
+
+						for (final long[] position : positions) {
+
+							final byte[] buf = new byte[(int)position[1]];
+
+							file.seek(position[0]);
+							file.readFully(buf);
+
+							final Record record = Record.parse(new String(buf, StandardCharsets.UTF_8));
+							if (record != null && record.time >= from && record.time <= to) {
+
+								result.add(record.data);
+							}
+						}
+
+					} catch (IOException ioex) {
+						logger.warn("Unable to read changelog segment {}: {}", segment.file.getName(), ioex.getMessage());
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Writes all pending entries to disk.
+	 */
+	public synchronized void flush() {
+
+		final List<ChangelogEntry> batch = new ArrayList<>();
+
+		queue.drainTo(batch);
+
+		write(batch);
+	}
+
+	// ----- private methods -----
+	private synchronized void shutdown() {
+
+		running = false;
+
+		writerThread.interrupt();
+
+		flush();
+
+		if (current != null) {
+			current.writeIndex();
+		}
+
+		closeOutput();
+	}
+
+	private synchronized void write(final List<ChangelogEntry> batch) {
+
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		try {
+
+			for (final ChangelogEntry entry : batch) {
+
+				for (final String line : entry.changeLog.split("\n")) {
+
+					if (StringUtils.isNotBlank(line)) {
+
+						final long time    = Record.extractTime(line, entry.timestamp);
+						final byte[] bytes = new Record(time, entry.uuid, line).toString().getBytes(StandardCharsets.UTF_8);
+
+						if (current == null || current.size + bytes.length > MAX_SEGMENT_SIZE) {
+							rollSegment();
+						}
+
+						out.write(bytes);
+						current.add(entry.uuid, time, bytes.length);
+					}
+				}
+			}
+
+			out.flush();
+
+		} catch (IOException ioex) {
+			logger.warn("Unable to write changelog: {}", ioex.getMessage());
+		}
+	}
+
+	private void rollSegment() throws IOException {
+
+		if (current != null) {
+
+			current.writeIndex();
+			current.seal();
+
+			closeOutput();
+		}
+
+		final int number = segments.isEmpty() ? 0 : segments.get(segments.size() - 1).number + 1;
+
+		current = new Segment(new File(directory, SEGMENT_PREFIX + StringUtils.leftPad(Integer.toString(number), 10, "0") + SEGMENT_SUFFIX), number);
+		current.hardIndex = current.createIndex();
+
+		segments.add(current);
+
+		out = new BufferedOutputStream(new FileOutputStream(current.file, true));
+	}
+
+	private void closeOutput() {
+
+		if (out != null) {
+
+			try {
+				out.close();
+
+			} catch (IOException ioex) {
+				logger.warn("Unable to close changelog segment: {}", ioex.getMessage());
+			}
+
+			out = null;
+		}
+	}
+
+	private void loadSegments() {
+
+		final File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+		if (files != null) {
+
+			Arrays.sort(files);
+
+			for (final File file : files) {
+
+				final String name = file.getName();
+
+				try {
+
+					final int number      = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+					final Segment segment = new Segment(file, number);
+
+					segment.loadTimeRange();
+					segments.add(segment);
+
+				} catch (NumberFormatException nfex) {
+					logger.warn("Ignoring invalid changelog segment file {}", name);
+				}
+			}
+		}
+
+		// continue writing to the last segment if it is not full yet
+		if (!segments.isEmpty()) {
+
+			final Segment last = segments.get(segments.size() - 1);
+			if (last.file.length() < MAX_SEGMENT_SIZE) {
+
+				try {
+
+					last.hardIndex = last.getIndex();
+					current        = last;
+					out            = new BufferedOutputStream(new FileOutputStream(last.file, true));
+
+				} catch (IOException ioex) {
+					logger.warn("Unable to open changelog segment {}: {}", last.file.getName(), ioex.getMessage());
+				}
+			}
+		}
+	}
+
+	// ----- nested classes -----
+	private class WriterThread implements Runnable {
+
+		@Override
+		public void run() {
+
+			while (running) {
+
+				try {
+
+					final ChangelogEntry first = queue.poll(1, TimeUnit.SECONDS);
+					if (first != null) {
+
+						final List<ChangelogEntry> batch = new ArrayList<>();
+
+						batch.add(first);
+						queue.drainTo(batch, MAX_BATCH_SIZE);
+
+						write(batch);
+					}
+
+				} catch (InterruptedException iex) {
+					// shutdown requested
+				} catch (Throwable t) {
+					logger.warn("Unable to write changelog batch: {}", t.getMessage());
+				}
+			}
+		}
+	}
+
+	private static class ChangelogEntry {
+
+		private long timestamp   = System.currentTimeMillis();
+		private String uuid      = null;
+		private String changeLog = null;
+
+		public ChangelogEntry(final String uuid, final String changeLog) {
+
+			this.uuid      = uuid;
+			this.changeLog = changeLog;
+		}
+	}
+
+	private static class Record {
+
+		private static final String TIME_KEY = "\"time\":";
+
+		private long time   = 0L;
+		private String uuid = null;
+		private String data = null;
+
+		public Record(final long time, final String uuid, final String data) {
+
+			this.time = time;
+			this.uuid = uuid;
+			this.data = data;
+		}
+
+		@Override
+		public String toString() {
+			return time + "\t" + uuid + "\t" + data + "\n";
+		}
+
+		public static Record parse(final String line) {
+
+			final String[] parts = StringUtils.stripEnd(line, "\n").split("\t", 3);
+			if (parts.length == 3) {
+
+				try {
+					return new Record(Long.parseLong(parts[0]), parts[1], parts[2]);
+
+				} catch (NumberFormatException nfex) {
+					logger.warn("Invalid changelog record: {}", line);
+				}
+			}
+
+			return null;
+		}
+
+		public static long extractTime(final String json, final long defaultValue) {
+
+			final int pos = json.indexOf(TIME_KEY);
+			if (pos >= 0) {
+
+				final int start = pos + TIME_KEY.length();
+				int end         = start;
+
+				while (end < json.length() && Character.isDigit(json.charAt(end))) {
+					end++;
+				}
+
+				if (end > start) {
+					return Long.parseLong(json.substring(start, end));
+				}
+			}
+
+			return defaultValue;
+		}
+	}
+
+	private static class Segment {
+
+		private SoftReference<Map<String, List<long[]>>> index = null;
+		private Map<String, List<long[]>> hardIndex            = null;
+		private long minTime                                   = Long.MAX_VALUE;
+		private long maxTime                                   = Long.MIN_VALUE;
+		private long size                                      = 0L;
+		private File file                                      = null;
+		private int number                                     = 0;
+
+		public Segment(final File file, final int number) {
+
+			this.file   = file;
+			this.number = number;
+			this.size   = file.length();
+		}
+
+		public boolean overlaps(final long from, final long to) {
+			return minTime <= to && maxTime >= from;
+		}
+
+		public void add(final String uuid, final long time, final int length) {
+
+			List<long[]> positions = hardIndex.get(uuid);
+			if (positions == null) {
+
+				positions = new ArrayList<>(4);
+				hardIndex.put(uuid, positions);
+			}
+
+			positions.add(new long[] { size, length });
+
+			minTime  = Math.min(minTime, time);
+			maxTime  = Math.max(maxTime, time);
+			size    += length;
+		}
+
+		public Map<String, List<long[]>> getIndex() {
+
+			if (hardIndex != null) {
+				return hardIndex;
+			}
+
+			Map<String, List<long[]>> map = index != null ? index.get() : null;
+			if (map == null) {
+
+				map = loadIndex();
+				if (map == null) {
+
+					map = scan();
+
+					writeIndex(map);
+				}
+
+				index = new SoftReference<>(map);
+			}
+
+			return map;
+		}
+
+		public Map<String, List<long[]>> createIndex() {
+			return new LinkedHashMap<>();
+		}
+
+		public void seal() {
+
+			// index of sealed segments can be released if memory is low
+			index     = new SoftReference<>(hardIndex);
+			hardIndex = null;
+		}
+
+		public void loadTimeRange() {
+
+			final File indexFile = getIndexFile();
+			if (indexFile.exists()) {
+
+				try (final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+
+					final String[] header = reader.readLine().split(" ");
+
+					// index is only valid if the segment has not been modified after the index was written
+					if (Long.parseLong(header[2]) == file.length()) {
+
+						minTime = Long.parseLong(header[0]);
+						maxTime = Long.parseLong(header[1]);
+
+						return;
+					}
+
+				} catch (Throwable t) {
+					logger.warn("Unable to read changelog index {}, rebuilding", indexFile.getName());
+				}
+			}
+
+			// index missing or outdated
+			getIndex();
+		}
+
+		public void writeIndex() {
+			writeIndex(hardIndex);
+		}
+
+		// ----- private methods -----
+		private File getIndexFile() {
+			return new File(file.getParentFile(), file.getName() + INDEX_SUFFIX);
+		}
+
+		private void writeIndex(final Map<String, List<long[]>> map) {
+
+			if (map == null) {
+				return;
+			}
+
+			try (final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(getIndexFile()), StandardCharsets.UTF_8))) {
+
+				writer.write(minTime + " " + maxTime + " " + size + "\n");
+
+				for (final Map.Entry<String, List<long[]>> entry : map.entrySet()) {
+
+					writer.write(entry.getKey());
+
+					for (final long[] position : entry.getValue()) {
+						writer.write(" " + position[0] + ":" + position[1]);
+					}
+
+					writer.write("\n");
+				}
+
+			} catch (IOException ioex) {
+				logger.warn("Unable to write changelog index {}: {}", getIndexFile().getName(), ioex.getMessage());
+			}
+		}
+
+		private Map<String, List<long[]>> loadIndex() {
+
+			final File indexFile = getIndexFile();
+			if (indexFile.exists()) {
+
+				final Map<String, List<long[]>> map = createIndex();
+
+				try (final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+
+					final String[] header = reader.readLine().split(" ");
+
+					// index is only valid if the segment has not been modified after the index was written
+					if (Long.parseLong(header[2]) != file.length()) {
+						return null;
+					}
+
+					String line = reader.readLine();
+					while (line != null) {
+
+						final String[] parts         = line.split(" ");
+						final List<long[]> positions = new ArrayList<>(parts.length - 1);
+
+						for (int i=1; i<parts.length; i++) {
+
+							final int pos = parts[i].indexOf(":");
+
+							positions.add(new long[] { Long.parseLong(parts[i].substring(0, pos)), Long.parseLong(parts[i].substring(pos+1)) });
+						}
+
+						map.put(parts[0], positions);
+
+						line = reader.readLine();
+					}
+
+					return map;
+
+				} catch (Throwable t) {
+					logger.warn("Unable to read changelog index {}, rebuilding", indexFile.getName());
+				}
+			}
+
+			return null;
+		}
+
+		private Map<String, List<long[]>> scan() {
+
+			final Map<String, List<long[]>> map = createIndex();
+
+			// reset time range
+			minTime = Long.MAX_VALUE;
+			maxTime = Long.MIN_VALUE;
+
+			try (final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+
+				long offset = 0L;
+				String line = reader.readLine();
+
+				while (line != null) {
+
+					final int length    = (line + "\n").getBytes(StandardCharsets.UTF_8).length;
+					final Record record = Record.parse(line);
+
+					if (record != null) {
+
+						List<long[]> positions = map.get(record.uuid);
+						if (positions == null) {
+
+							positions = new ArrayList<>(4);
+							map.put(record.uuid, positions);
+						}
+
+						positions.add(new long[] { offset, length });
+
+						minTime = Math.min(minTime, record.time);
+						maxTime = Math.max(maxTime, record.time);
+					}
+
+					offset += length;
+					line    = reader.readLine();
+				}
+
+				size = offset;
+
+			} catch (IOException ioex) {
+				logger.warn("Unable to scan changelog segment {}: {}", file.getName(), ioex.getMessage());
+			}
+
+			return map;
+		}
+	}
+}
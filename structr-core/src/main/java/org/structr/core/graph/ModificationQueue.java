@@ -41,7 +41,10 @@ import org.structr.core.GraphObject;
 import org.structr.core.Services;
 import org.structr.core.app.StructrApp;
 import org.structr.core.entity.Principal;
+import org.structr.core.entity.Relation;
+import org.structr.core.property.AbstractAggregateProperty;
 import org.structr.core.property.PropertyKey;
+import org.structr.core.property.RelationProperty;
 
 /**
  *
@@ -149,32 +152,84 @@ public class ModificationQueue {
 		}
 	}
 
-	public void updateAuditLog() {
+	/**
+	 * Updates the stored values of all materialized aggregate properties
+	 * that depend on the objects modified in this queue. Aggregates are
+	 * recomputed once per affected node, regardless of the number of
+	 * modifications that caused the update.
+	 */
+	public void updateMaterializedProperties() {
 
-		if (auditLogEnabled && !modificationEvents.isEmpty()) {
+		final NodeFactory<NodeInterface> factory = new NodeFactory<>(SecurityContext.getSuperUserInstance());
+		final Map<Long, NodeInterface> affectedNodes  = new LinkedHashMap<>();
 
-			for (final ModificationEvent ev: modificationEvents) {
+		for (final GraphObjectModificationState state : modifications.values()) {
 
-				if (!ev.isDeleted()) {
+			if (!state.isNode() || state.isDeleted()) {
+				continue;
+			}
+
+			final NodeInterface node = (NodeInterface)state.getGraphObject();
 
-					try {
-						final GraphObject obj = ev.getGraphObject();
-						if (obj != null) {
+			// the modified node itself (includes relationship changes because both end nodes are marked as modified)
+			if (!AbstractAggregateProperty.getMaterializedProperties(node.getClass()).isEmpty()) {
+				affectedNodes.put(node.getId(), node);
+			}
 
-							final String existingLog = obj.getProperty(GraphObject.structrChangeLog);
-							final String newLog      = ev.getChangeLog();
-							final String newValue    = existingLog != null ? existingLog + newLog : newLog;
+			// nodes that aggregate one of the modified values over a relationship
+			final Set<PropertyKey> modifiedKeys = new LinkedHashSet<>();
 
-							obj.unlockSystemPropertiesOnce();
-							obj.setProperty(GraphObject.structrChangeLog, newValue);
-						}
+			modifiedKeys.addAll(state.getModifiedProperties().keySet());
+			modifiedKeys.addAll(state.getNewProperties().keySet());
 
-					} catch (Throwable t) {
-						logger.warn("", t);
+			for (final PropertyKey key : modifiedKeys) {
+
+				for (final AbstractAggregateProperty aggregate : AbstractAggregateProperty.getDependentProperties(key)) {
+
+					final Relation relation = ((RelationProperty)aggregate.getCollectionProperty()).getRelation();
+					if (relation != null && (relation.getSourceType().isAssignableFrom(node.getClass()) || relation.getTargetType().isAssignableFrom(node.getClass()))) {
+
+						final NodeInterface relatedNode = factory.instantiate(node.getNode());
+						if (relatedNode != null) {
+
+							for (final Object rel : relatedNode.getRelationships(relation.getClass())) {
+
+								final NodeInterface otherNode = ((RelationshipInterface)rel).getOtherNode(relatedNode);
+								if (otherNode != null && !isDeleted(otherNode.getNode()) && AbstractAggregateProperty.getMaterializedProperties(otherNode.getClass()).contains(aggregate)) {
+
+									affectedNodes.put(otherNode.getId(), otherNode);
+								}
+							}
+						}
 					}
 				}
 			}
 		}
+
+		for (final NodeInterface affectedNode : affectedNodes.values()) {
+
+			final NodeInterface node = factory.instantiate(affectedNode.getNode());
+			if (node != null) {
+
+				for (final AbstractAggregateProperty aggregate : AbstractAggregateProperty.getMaterializedProperties(node.getClass())) {
+
+					aggregate.updateMaterializedValue(node.getSecurityContext(), node);
+				}
+			}
+		}
+	}
+
+	public void updateAuditLog() {
+
+		if (auditLogEnabled && !modificationEvents.isEmpty()) {
+
+			final ChangelogStore store = ChangelogStore.getInstance();
+
+			for (final ModificationEvent ev: modificationEvents) {
+
+				store.append(ev.getUuid(), ev.getChangeLog());
+			}
+		}
 	}
 
 	public void clear() {
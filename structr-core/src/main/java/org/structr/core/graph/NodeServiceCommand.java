@@ -18,19 +18,28 @@
  */
 package org.structr.core.graph;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.UUID;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.DatabaseService;
 import org.structr.api.Predicate;
 import org.structr.api.service.Command;
 import org.structr.common.Filter;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
+import org.structr.core.GraphObject;
+import org.structr.core.Services;
 import org.structr.core.app.App;
 import org.structr.core.app.StructrApp;
 import org.structr.util.Writable;
@@ -44,6 +53,7 @@ public abstract class NodeServiceCommand extends Command {
 
 	private static final Logger logger                        = LoggerFactory.getLogger(NodeServiceCommand.class.getName());
 	private static final ArrayBlockingQueue<String> uuidQueue = new ArrayBlockingQueue<>(100000);
+	private static final long PROGRESS_INTERVAL               = TimeUnit.SECONDS.toMillis(10);
 
 	protected SecurityContext securityContext = null;
 	private Writable logWritable              = null;
@@ -74,6 +84,9 @@ public abstract class NodeServiceCommand extends Command {
 	}
 	/**
 	 * Executes the given operation on all nodes in the given list.
+	 * Partition-safe operations without a condition are executed in
+	 * parallel, see {@link #partitionedBulkGraphOperation}, unless there
+	 * is an open transaction on the current thread.
 	 *
 	 * @param <T>
 	 * @param securityContext
@@ -86,6 +99,10 @@ public abstract class NodeServiceCommand extends Command {
 	 */
 	public <T> long bulkGraphOperation(final SecurityContext securityContext, final Iterator<T> iterator, final long commitCount, String description, final BulkGraphOperation<T> operation, boolean validation) {
 
+		if (operation.isPartitionSafe() && operation.getCondition() == null && !TransactionCommand.inTransaction()) {
+			return partitionedBulkGraphOperation(securityContext, iterator, commitCount, description, operation);
+		}
+
 		final Predicate<Long> condition = operation.getCondition();
 		final App app                   = StructrApp.getInstance(securityContext);
 		final boolean doValidation      = operation.doValidation();
@@ -136,6 +153,245 @@ public abstract class NodeServiceCommand extends Command {
 		return objectCount;
 	}
 
+	/**
+	 * Executes the given operation on all nodes or relationships in the
+	 * given list, using the number of worker threads configured in
+	 * maintenance.threads.
+	 *
+	 * The ids of all objects are collected and sorted first, and then
+	 * split into partitions of commitCount objects, each of which is
+	 * processed in its own transaction. Completed id ranges are recorded
+	 * in a state file named after the description, so an interrupted run
+	 * continues where it stopped when it is started again for the same
+	 * set of objects.
+	 *
+	 * @param <T>
+	 * @param securityContext
+	 * @param iterator the iterator that provides the nodes or relationships to operate on
+	 * @param commitCount the maximum number of objects per transaction
+	 * @param description
+	 * @param operation the operation to execute
+	 * @return the number of objects in partitions that were committed
+	 */
+	public <T> long partitionedBulkGraphOperation(final SecurityContext securityContext, final Iterator<T> iterator, final long commitCount, final String description, final BulkGraphOperation<T> operation) {
+
+		final App app             = StructrApp.getInstance(securityContext);
+		final int threads         = Math.max(1, Services.parseInt(StructrApp.getConfigurationValue(Services.MAINTENANCE_THREADS), Runtime.getRuntime().availableProcessors()));
+		final int partitionSize   = (int)Math.max(1L, Math.min(commitCount, Integer.MAX_VALUE));
+		BulkCheckpoint checkpoint = null;
+		boolean nodes             = true;
+		long[] ids                = new long[1024];
+		int count                 = 0;
+
+		// collect ids
+		try (final Tx tx = app.tx()) {
+
+			Boolean collectNodes = null;
+
+			while (iterator.hasNext()) {
+
+				final T obj = iterator.next();
+
+				if (obj instanceof NodeInterface || obj instanceof RelationshipInterface) {
+
+					final boolean isNode = obj instanceof NodeInterface;
+
+					if (collectNodes == null) {
+						collectNodes = isNode;
+					}
+
+					if (collectNodes == isNode) {
+
+						if (count == ids.length) {
+							ids = Arrays.copyOf(ids, ids.length * 2);
+						}
+
+						ids[count++] = ((GraphObject)obj).getId();
+
+						continue;
+					}
+				}
+
+				operation.handleThrowable(securityContext, new IllegalArgumentException("Unable to process " + obj + " in partitioned bulk operation"), obj);
+			}
+
+			nodes = !Boolean.FALSE.equals(collectNodes);
+
+			tx.success();
+
+		} catch (Throwable t) {
+
+			operation.handleTransactionFailure(securityContext, t);
+			return 0L;
+		}
+
+		Arrays.parallelSort(ids, 0, count);
+
+		// skip completed ranges of an interrupted run
+		if (description != null) {
+
+			long hash = 17L;
+
+			for (int i=0; i<count; i++) {
+				hash = 31L * hash + ids[i];
+			}
+
+			checkpoint = new BulkCheckpoint(getCheckpointFile(description), count + ":" + Long.toHexString(hash) + ":" + (nodes ? "nodes" : "relationships"));
+
+			try {
+
+				if (checkpoint.load()) {
+
+					final int total = count;
+
+					count = 0;
+
+					for (int i=0; i<total; i++) {
+
+						if (!checkpoint.contains(ids[i])) {
+							ids[count++] = ids[i];
+						}
+					}
+
+					info("{}: resuming from checkpoint, {} of {} objects already processed", description, total - count, total);
+				}
+
+			} catch (IOException ioex) {
+
+				warn("{}: unable to read checkpoint: {}", description, ioex.getMessage());
+			}
+		}
+
+		final boolean doValidation          = operation.doValidation();
+		final boolean doCallbacks           = operation.doCallbacks();
+		final boolean doNotifications       = operation.doNotifications();
+		final int partitionCount            = (count + partitionSize - 1) / partitionSize;
+		final AtomicInteger nextPartition   = new AtomicInteger(0);
+		final AtomicInteger failed          = new AtomicInteger(0);
+		final Progress progress             = new Progress(description, count);
+		final ExecutorService executor      = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, partitionCount)));
+		final BulkCheckpoint state          = checkpoint;
+		final boolean isNodes               = nodes;
+		final long[] partitionIds           = ids;
+		final int total                     = count;
+
+		if (description != null) {
+			info("{}: processing {} objects in {} partitions with {} threads", description, total, partitionCount, Math.min(threads, partitionCount));
+		}
+
+		for (int i=0; i<threads && i<partitionCount; i++) {
+
+			executor.submit(() -> {
+
+				final App workerApp                  = StructrApp.getInstance(securityContext);
+				final DatabaseService graphDb        = workerApp.getDatabaseService();
+				final NodeFactory nodeFactory        = new NodeFactory(securityContext);
+				final RelationshipFactory relFactory = new RelationshipFactory(securityContext);
+				int partition                        = 0;
+
+				while (!Thread.currentThread().isInterrupted() && (partition = nextPartition.getAndIncrement()) < partitionCount) {
+
+					final int start = partition * partitionSize;
+					final int end   = Math.min(total, start + partitionSize);
+					boolean success = false;
+
+					try (final Tx tx = workerApp.tx(doValidation, doCallbacks, doNotifications)) {
+
+						for (int j=start; j<end; j++) {
+
+							T obj = null;
+
+							try {
+
+								obj = (T)(isNodes ? nodeFactory.instantiate(graphDb.getNodeById(partitionIds[j])) : relFactory.instantiate(graphDb.getRelationshipById(partitionIds[j])));
+								if (obj != null) {
+
+									operation.handleGraphObject(securityContext, obj);
+								}
+
+							} catch (Throwable t) {
+
+								operation.handleThrowable(securityContext, t, obj);
+							}
+						}
+
+						tx.success();
+						success = true;
+
+					} catch (Throwable t) {
+
+						// partition is not marked as completed and will be retried by the next run
+						success = false;
+
+						failed.incrementAndGet();
+						operation.handleTransactionFailure(securityContext, t);
+					}
+
+					if (state != null && success) {
+
+						try {
+							// ranges include the gap to the previous partition, which contains no collected ids
+							state.complete(start == 0 ? 0L : partitionIds[start - 1] + 1, partitionIds[end - 1]);
+
+						} catch (IOException ioex) {
+
+							warn("{}: unable to write checkpoint: {}", description, ioex.getMessage());
+						}
+					}
+
+					if (success) {
+
+						progress.add(end - start);
+
+					} else {
+
+						progress.addFailed(end - start);
+					}
+				}
+			});
+		}
+
+		executor.shutdown();
+
+		try {
+
+			while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+				progress.report();
+			}
+
+		} catch (InterruptedException iex) {
+
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+
+		final boolean complete = failed.get() == 0 && nextPartition.get() >= partitionCount && !Thread.currentThread().isInterrupted();
+
+		if (state != null) {
+
+			if (complete) {
+
+				state.delete();
+
+			} else {
+
+				warn("{}: {} partitions failed and {} partitions were not processed, run again to continue from the checkpoint", description, failed.get(), partitionCount - Math.min(partitionCount, nextPartition.get()));
+			}
+		}
+
+		if (description != null) {
+
+			if (failed.get() > 0) {
+
+				warn("{}: {} objects in {} partitions were rolled back", description, progress.getFailed(), failed.get());
+			}
+
+			info("{}: {} objects processed", description, progress.get());
+		}
+
+		return progress.get();
+	}
+
 	/**
 	 * Executes the given transaction until the stop condition evaluates to
 	 * <b>true</b>.
@@ -191,6 +447,17 @@ public abstract class NodeServiceCommand extends Command {
 	}
 
 	// ----- protected methods -----
+	protected File getCheckpointFile(final String description) {
+
+		String path = StructrApp.getConfigurationValue(Services.MAINTENANCE_STATE_PATH);
+		if (StringUtils.isBlank(path)) {
+
+			path = StructrApp.getConfigurationValue(Services.BASE_PATH, ".") + "/maintenance";
+		}
+
+		return new File(path, description.replaceAll("[^a-zA-Z0-9_\\-]", "_") + ".state");
+	}
+
 	protected void info(final String msg, final Object... data) {
 
 		logger.info(msg, data);
@@ -232,6 +499,58 @@ public abstract class NodeServiceCommand extends Command {
 		}
 	}
 
+	// ----- nested classes -----
+	private class Progress {
+
+		private final AtomicLong count      = new AtomicLong(0L);
+		private final AtomicLong failed     = new AtomicLong(0L);
+		private final long startTime        = System.currentTimeMillis();
+		private final AtomicLong lastReport = new AtomicLong(startTime);
+		private final String description;
+		private final long total;
+
+		public Progress(final String description, final long total) {
+
+			this.description = description;
+			this.total       = total;
+		}
+
+		public void add(final long delta) {
+
+			count.addAndGet(delta);
+
+			final long now  = System.currentTimeMillis();
+			final long last = lastReport.get();
+
+			if (now - last >= PROGRESS_INTERVAL && lastReport.compareAndSet(last, now)) {
+				report();
+			}
+		}
+
+		public void addFailed(final long delta) {
+			failed.addAndGet(delta);
+		}
+
+		public void report() {
+
+			if (description != null) {
+
+				final long current = count.get();
+				final long seconds = Math.max(1L, (System.currentTimeMillis() - startTime) / 1000L);
+
+				info("{}: {} of {} objects processed, {} failed, {} objects/s", description, current, total, failed.get(), current / seconds);
+			}
+		}
+
+		public long get() {
+			return count.get();
+		}
+
+		public long getFailed() {
+			return failed.get();
+		}
+	}
+
 	// create uuid producer that fills the queue
 	static {
 
@@ -20,14 +20,17 @@ package org.structr.core.graph;
 
 
 import java.util.Collection;
-import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.api.DatabaseService;
 import org.structr.api.NotInTransactionException;
 import org.structr.api.graph.Node;
 import org.structr.api.graph.Relationship;
+import org.structr.api.metrics.Counter;
+import org.structr.api.metrics.Histogram;
+import org.structr.api.metrics.MetricsRegistry;
 import org.structr.common.error.ErrorBuffer;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.StructrTransactionListener;
@@ -57,12 +60,14 @@ import org.structr.core.property.PropertyKey;
 public class TransactionCommand extends NodeServiceCommand implements AutoCloseable {
 
 	private static final Logger logger                                  = LoggerFactory.getLogger(TransactionCommand.class.getName());
-	private static final Set<StructrTransactionListener> listeners      = new LinkedHashSet<>();
+	private static final Set<StructrTransactionListener> listeners      = new CopyOnWriteArraySet<>();
 	private static final ThreadLocal<ModificationQueue> queues          = new ThreadLocal<>();
 	private static final ThreadLocal<ErrorBuffer> buffers               = new ThreadLocal<>();
 	private static final ThreadLocal<TransactionCommand> currentCommand = new ThreadLocal<>();
 	private static final ThreadLocal<TransactionReference> transactions = new ThreadLocal<>();
 	private static final MultiSemaphore                    semaphore    = new MultiSemaphore();
+	private static final Histogram transactionDuration                  = MetricsRegistry.getInstance().histogram("structr_transaction_duration_seconds", "Duration of top-level transactions");
+	private static final Counter transactionRetries                     = MetricsRegistry.getInstance().counter("structr_transaction_retries_total", "Number of transactions that were retried after a transient database error");
 
 	public TransactionCommand beginTx() {
 
@@ -106,6 +111,9 @@ public class TransactionCommand extends NodeServiceCommand implements AutoClosea
 				throw new FrameworkException(422, "Unable to commit transaction, validation failed", errorBuffer);
 			}
 
+			// 1.5: update materialized aggregate properties of affected nodes
+			modificationQueue.updateMaterializedProperties();
+
 			// 2. fetch all types of entities modified in this tx
 			Set<String> synchronizationKeys = modificationQueue.getSynchronizationKeys();
 
@@ -165,6 +173,8 @@ public class TransactionCommand extends NodeServiceCommand implements AutoClosea
 
 					// release semaphores as the transaction is now finished
 					semaphore.release(synchronizationKeys);	// careful: this can be null
+
+					transactionDuration.record(System.nanoTime() - tx.getStartTime());
 				}
 
 			} else {
@@ -359,6 +369,14 @@ public class TransactionCommand extends NodeServiceCommand implements AutoClosea
 		}
 	}
 
+	/**
+	 * Records that a transaction is being retried because it failed with
+	 * a RetryException.
+	 */
+	public static void countRetry() {
+		transactionRetries.increment();
+	}
+
 	public static void registerTransactionListener(final StructrTransactionListener listener) {
 		listeners.add(listener);
 	}
@@ -27,6 +27,7 @@ import org.structr.core.TransactionSource;
  */
 public class TransactionReference implements Transaction {
 
+	private final long startTime     = System.nanoTime();
 	private TransactionSource source = null;
 	private Transaction tx           = null;
 	private int referenceCount       = 0;
@@ -64,6 +65,13 @@ public class TransactionReference implements Transaction {
 		return source;
 	}
 
+	/**
+	 * @return the value of System.nanoTime() when this transaction was started
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
 	// ----- interface Transaction -----
 	@Override
 	public void failure() {
@@ -23,6 +23,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.structr.api.RetryException;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
+import org.structr.core.StructrCacheListener;
 import org.structr.core.StructrTransactionListener;
 import org.structr.core.TransactionSource;
 import org.structr.core.app.StructrApp;
@@ -78,7 +79,9 @@ public class Tx implements AutoCloseable {
 
 		if (success && guard.compareAndSet(false, true)) {
 
-			boolean retry  = true;
+			boolean auditLogWritten = false;
+			boolean retry           = true;
+
 			while (retry) {
 
 				retry = false;
@@ -86,27 +89,42 @@ public class Tx implements AutoCloseable {
 				// experimental
 				try (final Tx tx = begin()) {
 
-					if (doCallbacks && modificationQueue != null) {
-
-						modificationQueue.doOuterCallbacks(securityContext);
+					if (modificationQueue != null) {
 
 						// notify listeners if desired, and allow this setting to be overriden locally AND remotely
-						if ( (securityContext == null) ? doNotifications : doNotifications && securityContext.isDoTransactionNotifications() ) {
+						final boolean notify = (securityContext == null) ? doNotifications : doNotifications && securityContext.isDoTransactionNotifications();
+
+						if (doCallbacks) {
+							modificationQueue.doOuterCallbacks(securityContext);
+						}
+
+						final Collection<ModificationEvent> modificationEvents = modificationQueue.getModificationEvents();
+						for (final StructrTransactionListener listener : TransactionCommand.getTransactionListeners()) {
 
-							final Collection<ModificationEvent> modificationEvents = modificationQueue.getModificationEvents();
-							for (final StructrTransactionListener listener : TransactionCommand.getTransactionListeners()) {
+							// caches must see every committed change, regardless of the callback and notification settings
+							if ((doCallbacks && notify) || listener instanceof StructrCacheListener) {
 
 								listener.afterCommit(securityContext, modificationEvents, cmd.getSource());
 							}
 						}
 
-						modificationQueue.updateAuditLog();
-						modificationQueue.clear();
+						if (doCallbacks) {
+
+							// the changelog store is not transactional, so write the entries only once
+							if (!auditLogWritten) {
+
+								modificationQueue.updateAuditLog();
+								auditLogWritten = true;
+							}
+
+							modificationQueue.clear();
+						}
 					}
 
 					tx.success();
 
 				} catch (RetryException rex) {
+					TransactionCommand.countRetry();
 					retry = true;
 				}
 			}
@@ -42,6 +42,7 @@ public abstract class SearchAttribute<T> extends NodeAttribute<T> implements Pre
 	private Occurrence occur           = null;
 	private PropertyKey sortKey        = null;
 	private boolean sortDescending     = false;
+	private boolean defaultSortKey     = true;
 
 	public abstract boolean includeInResult(GraphObject entity);
 
@@ -85,6 +86,17 @@ public abstract class SearchAttribute<T> extends NodeAttribute<T> implements Pre
 		this.sortKey = sortKey;
 	}
 
+	/**
+	 * Controls whether the query is sorted by name when no sort key
+	 * is set. Disabling the default sort key allows the index to
+	 * choose the order, e.g. by distance for spatial queries.
+	 *
+	 * @param defaultSortKey
+	 */
+	public void useDefaultSortKey(final boolean defaultSortKey) {
+		this.defaultSortKey = defaultSortKey;
+	}
+
 	public void sortDescending(final boolean sortDescending) {
 		this.sortDescending = sortDescending;
 	}
@@ -125,6 +137,10 @@ public abstract class SearchAttribute<T> extends NodeAttribute<T> implements Pre
 			return sortKey.dbName();
 		}
 
+		if (!defaultSortKey) {
+			return null;
+		}
+
 		return "name";
 	}
 
@@ -31,8 +31,11 @@ import org.slf4j.LoggerFactory;
 import org.structr.api.Predicate;
 import org.structr.api.graph.PropertyContainer;
 import org.structr.api.index.Index;
+import org.structr.api.metrics.Histogram;
+import org.structr.api.metrics.MetricFamily;
+import org.structr.api.metrics.MetricsRegistry;
 import org.structr.api.search.Occurrence;
-import org.structr.common.GraphObjectComparator;
+import org.structr.api.util.Iterables;
 import org.structr.common.PagingHelper;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
@@ -64,6 +67,7 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 
 	private static final Map<String, Set<String>> subtypeMapForType = new LinkedHashMap<>();
 	private static final Set<String> baseTypes                      = new LinkedHashSet<>();
+	private static final MetricFamily<Histogram> searchDuration     = MetricsRegistry.getInstance().histograms("structr_search_duration_seconds", "Duration of searches, including filtering, sorting and paging", "kind");
 
 	public static final String LOCATION_SEARCH_KEYWORD    = "location";
 	public static final String STATE_SEARCH_KEYWORD       = "state";
@@ -108,18 +112,7 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 		boolean hasGraphSources      = false;
 		boolean hasSpatialSource     = false;
 
-		if (securityContext.getUser(false) == null) {
-
-			rootGroup.add(new PropertySearchAttribute(GraphObject.visibleToPublicUsers, true, Occurrence.REQUIRED, true));
-
-		}
-
-		// special handling of deleted and hidden flags
-		if (!includeDeletedAndHidden && !isRelationshipSearch()) {
-
-			rootGroup.add(new PropertySearchAttribute(NodeInterface.hidden,  true, Occurrence.FORBIDDEN, true));
-			rootGroup.add(new PropertySearchAttribute(NodeInterface.deleted, true, Occurrence.FORBIDDEN, true));
-		}
+		addDefaultSearchAttributes();
 
 		// At this point, all search attributes are ready
 		final List<SourceSearchAttribute> sources    = new ArrayList<>();
@@ -159,11 +152,14 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 			if (attr instanceof DistanceSearchAttribute) {
 
 				final DistanceSearchAttribute distanceSearch = (DistanceSearchAttribute) attr;
-				final GeoCodingResult coords                 = GeoHelper.geocode(distanceSearch);
 
-				if (coords != null) {
+				if (distanceSearch.getCoords() == null) {
+
+					final GeoCodingResult coords = GeoHelper.geocode(distanceSearch);
+					if (coords != null) {
 
-					distanceSearch.setCoords(coords.toArray());
+						distanceSearch.setCoords(coords.toArray());
+					}
 				}
 
 				hasSpatialSource = true;
@@ -198,6 +194,11 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 
 				rootGroup.setSortKey(sortKey);
 				rootGroup.sortDescending(sortDescending);
+
+			} else if (hasSpatialSource) {
+
+				// spatial results are sorted by distance
+				rootGroup.useDefaultSortKey(false);
 			}
 
 			// do query
@@ -251,11 +252,8 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 				}
 			}
 
-			// sort list
-			Collections.sort(finalResult, new GraphObjectComparator(sortKey, sortDescending));
-
-			// return paged final result
-			return new Result(PagingHelper.subList(finalResult, pageSize, page, offsetId), resultCount, true, false);
+			// sort list and return paged final result
+			return new Result(PagingHelper.sortedSubList(finalResult, sortKey, sortDescending, pageSize, page, offsetId), resultCount, true, false);
 
 		} else {
 
@@ -264,6 +262,43 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 		}
 	}
 
+	private void addDefaultSearchAttributes() {
+
+		if (securityContext.getUser(false) == null) {
+
+			rootGroup.add(new PropertySearchAttribute(GraphObject.visibleToPublicUsers, true, Occurrence.REQUIRED, true));
+
+		}
+
+		// special handling of deleted and hidden flags
+		if (!includeDeletedAndHidden && !isRelationshipSearch()) {
+
+			rootGroup.add(new PropertySearchAttribute(NodeInterface.hidden,  true, Occurrence.FORBIDDEN, true));
+			rootGroup.add(new PropertySearchAttribute(NodeInterface.deleted, true, Occurrence.FORBIDDEN, true));
+		}
+	}
+
+	/**
+	 * Indicates whether the given group can be answered by the index
+	 * alone, i.e. without merging graph sources, geocoding or filtering
+	 * the intermediate result in memory.
+	 */
+	private boolean isStreamable(final SearchAttributeGroup group) {
+
+		for (final SearchAttribute attr : group.getSearchAttributes()) {
+
+			if (attr instanceof SourceSearchAttribute || attr instanceof EmptySearchAttribute || attr instanceof DistanceSearchAttribute) {
+				return false;
+			}
+
+			if (attr instanceof SearchAttributeGroup && !isStreamable((SearchAttributeGroup)attr)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
 	private Set<GraphObject> mergeSources(List<SourceSearchAttribute> sources) {
 
 		final Set<GraphObject> mergedResult = new LinkedHashSet<>();
@@ -305,7 +340,16 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 
 	@Override
 	public Result<T> getResult() throws FrameworkException {
-		return doSearch();
+
+		final long start = System.nanoTime();
+
+		try {
+			return doSearch();
+
+		} finally {
+
+			searchDuration.get(isRelationshipSearch() ? "relationship" : "node").record(System.nanoTime() - start);
+		}
 	}
 
 	@Override
@@ -313,6 +357,35 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 		return getResult().getResults();
 	}
 
+	/**
+	 * Returns the search result as a lazy iterable that instantiates the
+	 * objects as they come off the database cursor. Queries that need
+	 * paging or in-memory post-processing fall back to {@link #getAsList()}.
+	 *
+	 * @return the (lazily evaluated) search result
+	 * @throws FrameworkException
+	 */
+	@Override
+	public Iterable<T> getResultStream() throws FrameworkException {
+
+		if (page != 1 || pageSize != Integer.MAX_VALUE || offsetId != null || !isStreamable(rootGroup)) {
+			return getAsList();
+		}
+
+		final Factory<S, T> factory = getFactory(securityContext, includeDeletedAndHidden, publicOnly, pageSize, page, offsetId);
+
+		addDefaultSearchAttributes();
+
+		if (sortKey != null && !doNotSort) {
+
+			rootGroup.setSortKey(sortKey);
+			rootGroup.sortDescending(sortDescending);
+		}
+
+		// factory returns null for objects that are not readable in the current security context
+		return Iterables.filter(obj -> obj != null, Iterables.map(factory, getIndex().query(rootGroup)));
+	}
+
 	@Override
 	public T getFirst() throws FrameworkException {
 
@@ -466,6 +539,18 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 		return this;
 	}
 
+	@Override
+	public org.structr.core.app.Query<T> location(final double latitude, final double longitude, final double distance) {
+
+		final DistanceSearchAttribute distanceSearch = new DistanceSearchAttribute(null, null, null, null, null, null, distance, Occurrence.REQUIRED);
+
+		// coordinates are known, no geocoding needed
+		distanceSearch.setCoords(new Double[] { latitude, longitude });
+
+		currentGroup.getSearchAttributes().add(distanceSearch);
+		return this;
+	}
+
 	@Override
 	public <P> org.structr.core.app.Query<T> and(final PropertyKey<P> key, final P value) {
 
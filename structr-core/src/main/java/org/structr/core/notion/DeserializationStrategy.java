@@ -18,6 +18,9 @@
  */
 package org.structr.core.notion;
 
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
@@ -35,5 +38,28 @@ public interface DeserializationStrategy<S, T extends NodeInterface> {
 
 	public T deserialize(final SecurityContext securityContext, Class<T> type, S source, final Object context) throws FrameworkException;
 
+	/**
+	 * Deserializes a collection of input objects. Implementations can
+	 * override this method to resolve all objects at once instead of
+	 * one by one.
+	 *
+	 * @param securityContext
+	 * @param type
+	 * @param sources
+	 * @param context
+	 * @return a list of deserialized objects
+	 * @throws FrameworkException
+	 */
+	public default List<T> deserializeAll(final SecurityContext securityContext, final Class<T> type, final Collection<S> sources, final Object context) throws FrameworkException {
+
+		final List<T> list = new LinkedList<>();
+
+		for (final S source : sources) {
+			list.add(deserialize(securityContext, type, source, context));
+		}
+
+		return list;
+	}
+
 	public void setRelationProperty(final RelationProperty<S> parentProperty);
 }
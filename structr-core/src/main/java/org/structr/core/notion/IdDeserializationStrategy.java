@@ -18,7 +18,10 @@
  */
 package org.structr.core.notion;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -63,6 +66,44 @@ public class IdDeserializationStrategy<S, T extends NodeInterface> implements De
 
 		final App app = StructrApp.getInstance(securityContext);
 
+		return deserialize(securityContext, app, new PrefetchedNodes(app), type, source);
+	}
+
+	@Override
+	public List<T> deserializeAll(final SecurityContext securityContext, final Class<T> type, final Collection<S> sources, final Object context) throws FrameworkException {
+
+		final App app           = StructrApp.getInstance(securityContext);
+		final Set<String> uuids = new LinkedHashSet<>();
+		final List<T> list      = new LinkedList<>();
+
+		// collect all UUIDs first and resolve them in one go
+		for (final S source : sources) {
+
+			if (source instanceof Map) {
+
+				final Object id = ((Map)source).get(GraphObject.id.jsonName());
+				if (id != null) {
+
+					uuids.add(id.toString());
+				}
+
+			} else if (source != null && !type.isAssignableFrom(source.getClass())) {
+
+				uuids.add(source.toString());
+			}
+		}
+
+		final PrefetchedNodes nodes = new PrefetchedNodes(app, uuids);
+
+		for (final S source : sources) {
+			list.add(deserialize(securityContext, app, nodes, type, source));
+		}
+
+		return list;
+	}
+
+	private T deserialize(final SecurityContext securityContext, final App app, final PrefetchedNodes nodes, final Class<T> type, final S source) throws FrameworkException {
+
 		if (source != null) {
 
 			if (source instanceof Map) {
@@ -94,7 +135,7 @@ public class IdDeserializationStrategy<S, T extends NodeInterface> implements De
 				// If property map contains the uuid, search only for uuid
 				if (convertedProperties.containsKey(GraphObject.id)) {
 
-					relatedNode = (T) app.getNodeById(convertedProperties.get(GraphObject.id));
+					relatedNode = (T) nodes.getNodeById(convertedProperties.get(GraphObject.id));
 					if (relatedNode != null) {
 
 						if ( !SearchCommand.isTypeAssignableFromOtherType(type, relatedNode.getClass()) ) {
@@ -215,7 +256,7 @@ public class IdDeserializationStrategy<S, T extends NodeInterface> implements De
 			} else {
 
 				// interpret source as a raw ID string and fetch entity
-				final GraphObject obj = app.getNodeById(source.toString());
+				final GraphObject obj = nodes.getNodeById(source.toString());
 
 				if (obj != null && !type.isAssignableFrom(obj.getClass())) {
 					throw new FrameworkException(422, "Node type mismatch", new TypeToken(obj.getClass().getSimpleName(), null, type.getSimpleName()));
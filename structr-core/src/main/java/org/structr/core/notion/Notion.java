@@ -140,14 +140,8 @@ public abstract class Notion<S extends NodeInterface, T> {
 					return Collections.EMPTY_LIST;
 				}
 
-				List<S> list = new LinkedList<>();
-				for (T t : s) {
-
-					list.add(deserializationStrategy.deserialize(securityContext, type, t, context));
-
-				}
-
-				return list;
+				// resolve the whole collection at once
+				return deserializationStrategy.deserializeAll(securityContext, type, s, context);
 			}
 		};
 	}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.core.notion;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.app.App;
+import org.structr.core.graph.NodeInterface;
+
+/**
+ * A set of nodes that were resolved with a single bulk lookup. Lookups
+ * for UUIDs that were not part of the bulk lookup or could not be
+ * resolved are delegated to the given app.
+ *
+ *
+ */
+class PrefetchedNodes {
+
+	private final Map<String, NodeInterface> nodes = new HashMap<>();
+	private App app                                = null;
+
+	public PrefetchedNodes(final App app) {
+		this.app = app;
+	}
+
+	public PrefetchedNodes(final App app, final Collection<String> uuids) throws FrameworkException {
+
+		this.app = app;
+
+		if (!uuids.isEmpty()) {
+			nodes.putAll(app.getNodesByIds(uuids));
+		}
+	}
+
+	public NodeInterface getNodeById(final String uuid) throws FrameworkException {
+
+		final NodeInterface node = nodes.get(uuid);
+		if (node != null) {
+
+			return node;
+		}
+
+		return app.getNodeById(uuid);
+	}
+}
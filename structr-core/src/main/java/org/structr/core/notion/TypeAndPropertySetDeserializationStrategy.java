@@ -44,7 +44,8 @@ import org.structr.core.property.RelationProperty;
  */
 public class TypeAndPropertySetDeserializationStrategy<S, T extends NodeInterface> implements DeserializationStrategy<S, T> {
 
-	private static final Logger logger = LoggerFactory.getLogger(TypeAndPropertySetDeserializationStrategy.class.getName());
+	private static final Logger logger        = LoggerFactory.getLogger(TypeAndPropertySetDeserializationStrategy.class.getName());
+	private static final Pattern UUID_PATTERN = Pattern.compile("[a-fA-F0-9]{32}");
 
 	protected RelationProperty relationProperty = null;
 	protected PropertyKey[] propertyKeys        = null;
@@ -69,28 +70,66 @@ public class TypeAndPropertySetDeserializationStrategy<S, T extends NodeInterfac
 	@Override
 	public T deserialize(final SecurityContext securityContext, final Class<T> type, final S source, final Object context) throws FrameworkException {
 
+		final App app = StructrApp.getInstance(securityContext);
+
+		return deserialize(securityContext, app, new PrefetchedNodes(app), type, source);
+	}
+
+	@Override
+	public List<T> deserializeAll(final SecurityContext securityContext, final Class<T> type, final Collection<S> sources, final Object context) throws FrameworkException {
+
+		final App app           = StructrApp.getInstance(securityContext);
+		final Set<String> uuids = new LinkedHashSet<>();
+		final List<T> list      = new LinkedList<>();
+
+		// collect all UUIDs first and resolve them in one go
+		for (final S source : sources) {
+
+			if (source instanceof Map) {
+
+				final Object id = ((Map)source).get(GraphObject.id.jsonName());
+				if (id != null) {
+
+					uuids.add(id.toString());
+				}
+
+			} else if (source instanceof String && UUID_PATTERN.matcher((String)source).matches()) {
+
+				uuids.add((String)source);
+			}
+		}
+
+		final PrefetchedNodes nodes = new PrefetchedNodes(app, uuids);
+
+		for (final S source : sources) {
+			list.add(deserialize(securityContext, app, nodes, type, source));
+		}
+
+		return list;
+	}
+
+	private T deserialize(final SecurityContext securityContext, final App app, final PrefetchedNodes nodes, final Class<T> type, final S source) throws FrameworkException {
+
 		if (source instanceof Map) {
 
 			PropertyMap attributes = PropertyMap.inputTypeToJavaType(securityContext, type, (Map)source);
-			return deserialize(securityContext, type, attributes);
+			return deserialize(securityContext, app, nodes, type, attributes);
 		}
 
 		if (source != null && type.isAssignableFrom(source.getClass())) {
 			return (T) source;
 		}
 
-		if (source != null && source instanceof String && Pattern.matches("[a-fA-F0-9]{32}", (String) source)) {
+		if (source != null && source instanceof String && UUID_PATTERN.matcher((String) source).matches()) {
 
-			return (T) getTypedResult(new Result(StructrApp.getInstance(securityContext).getNodeById((String) source), false), type);
+			return (T) getTypedResult(new Result(nodes.getNodeById((String) source), false), type);
 
 		}
 
 		return null;
 	}
 
-	private T deserialize(final SecurityContext securityContext, Class<T> type, final PropertyMap attributes) throws FrameworkException {
-
-		final App app = StructrApp.getInstance(securityContext);
+	private T deserialize(final SecurityContext securityContext, final App app, final PrefetchedNodes nodes, Class<T> type, final PropertyMap attributes) throws FrameworkException {
 
 		if (attributes != null) {
 
@@ -99,7 +138,7 @@ public class TypeAndPropertySetDeserializationStrategy<S, T extends NodeInterfac
 			// Check if properties contain the UUID attribute
 			if (attributes.containsKey(GraphObject.id)) {
 
-				result = new Result(app.getNodeById(attributes.get(GraphObject.id)), false);
+				result = new Result(nodes.getNodeById(attributes.get(GraphObject.id)), false);
 
 			} else {
 
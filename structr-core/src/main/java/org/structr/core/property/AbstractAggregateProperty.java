@@ -0,0 +1,253 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.core.property;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.structr.api.Predicate;
+import org.structr.api.graph.PropertyContainer;
+import org.structr.common.PropertyView;
+import org.structr.common.SecurityContext;
+import org.structr.core.GraphObject;
+import org.structr.core.app.StructrApp;
+
+/**
+ * Abstract base class for read-only properties that aggregate the values
+ * of other properties, e.g. sums or element counts.
+ *
+ * By default, the aggregated value is computed on every read. Aggregate
+ * properties can be switched to materialized mode using {@link #materialized()},
+ * which causes the value to be stored on the node and updated at the end
+ * of every transaction that modifies the node itself or one of the
+ * related nodes the value depends on. Materialized values are indexed
+ * and can be used for sorting in the database.
+ *
+ *
+ * @param <T>
+ */
+public abstract class AbstractAggregateProperty<T> extends AbstractReadOnlyProperty<T> {
+
+	private static final Map<PropertyKey, Set<AbstractAggregateProperty>> dependentProperties = new ConcurrentHashMap<>();
+	private static final Map<Class, Set<AbstractAggregateProperty>> materializedProperties    = new ConcurrentHashMap<>();
+
+	private boolean materialized = false;
+
+	public AbstractAggregateProperty(final String name) {
+		super(name);
+	}
+
+	public AbstractAggregateProperty(final String name, final T defaultValue) {
+		super(name, defaultValue);
+	}
+
+	/**
+	 * Computes the aggregated value for the given object.
+	 *
+	 * @param securityContext
+	 * @param obj
+	 * @param predicate
+	 *
+	 * @return the aggregated value
+	 */
+	public abstract T computeValue(final SecurityContext securityContext, final GraphObject obj, final Predicate<GraphObject> predicate);
+
+	/**
+	 * Returns the collection property whose elements are aggregated by this
+	 * property, or null if this property only aggregates local values.
+	 *
+	 * @return the collection property or null
+	 */
+	public abstract PropertyKey getCollectionProperty();
+
+	/**
+	 * Returns the property of the related elements whose values are
+	 * aggregated by this property, or null if the aggregated value does
+	 * not depend on properties of related elements.
+	 *
+	 * @return the value property or null
+	 */
+	public abstract PropertyKey getValueProperty();
+
+	/**
+	 * Use this method to mark an aggregate property as being materialized.
+	 * Materialized properties are stored in the database and updated in
+	 * the transaction that modifies the values they depend on.
+	 *
+	 * @return the Property to satisfy the builder pattern
+	 */
+	public AbstractAggregateProperty<T> materialized() {
+
+		this.materialized = true;
+
+		passivelyIndexed();
+
+		return this;
+	}
+
+	public boolean isMaterialized() {
+		return materialized;
+	}
+
+	@Override
+	public T getProperty(final SecurityContext securityContext, final GraphObject obj, final boolean applyConverter) {
+		return getProperty(securityContext, obj, applyConverter, null);
+	}
+
+	@Override
+	public T getProperty(final SecurityContext securityContext, final GraphObject obj, final boolean applyConverter, final Predicate<GraphObject> predicate) {
+
+		if (materialized && obj != null) {
+
+			final PropertyContainer propertyContainer = obj.getPropertyContainer();
+			if (propertyContainer != null && propertyContainer.hasProperty(dbName())) {
+
+				return convertStoredValue(propertyContainer.getProperty(dbName()));
+			}
+		}
+
+		return computeValue(securityContext, obj, predicate);
+	}
+
+	/**
+	 * Computes the aggregated value for the given object and stores it
+	 * in the database. This method is called by the modification queue
+	 * and must only be called inside of a transaction.
+	 *
+	 * @param securityContext
+	 * @param obj
+	 */
+	public void updateMaterializedValue(final SecurityContext securityContext, final GraphObject obj) {
+
+		final PropertyContainer propertyContainer = obj.getPropertyContainer();
+		if (propertyContainer != null) {
+
+			final T value = computeValue(securityContext, obj, null);
+			if (value != null) {
+
+				propertyContainer.setProperty(dbName(), value);
+
+			} else if (propertyContainer.hasProperty(dbName())) {
+
+				propertyContainer.removeProperty(dbName());
+			}
+		}
+	}
+
+	@Override
+	public void registrationCallback(final Class type) {
+
+		super.registrationCallback(type);
+
+		if (materialized) {
+
+			final PropertyKey valueProperty = getValueProperty();
+			if (valueProperty != null && getCollectionProperty() instanceof RelationProperty) {
+
+				Set<AbstractAggregateProperty> dependents = dependentProperties.get(valueProperty);
+				if (dependents == null) {
+
+					dependents = Collections.newSetFromMap(new ConcurrentHashMap<>());
+					dependentProperties.put(valueProperty, dependents);
+				}
+
+				dependents.add(this);
+			}
+
+			// type hierarchy may have changed
+			materializedProperties.clear();
+		}
+	}
+
+	// ----- public static methods -----
+	/**
+	 * Returns all materialized aggregate properties whose value depends on
+	 * the given property key of a related element.
+	 *
+	 * @param key
+	 * @return the dependent properties
+	 */
+	public static Set<AbstractAggregateProperty> getDependentProperties(final PropertyKey key) {
+
+		final Set<AbstractAggregateProperty> dependents = dependentProperties.get(key);
+		if (dependents != null) {
+
+			return dependents;
+		}
+
+		return Collections.emptySet();
+	}
+
+	/**
+	 * Returns all materialized aggregate properties of the given type.
+	 *
+	 * @param type
+	 * @return the materialized properties
+	 */
+	public static Set<AbstractAggregateProperty> getMaterializedProperties(final Class type) {
+
+		Set<AbstractAggregateProperty> properties = materializedProperties.get(type);
+		if (properties == null) {
+
+			properties = new LinkedHashSet<>();
+
+			for (final PropertyKey key : StructrApp.getConfiguration().getPropertySet(type, PropertyView.All)) {
+
+				if (key instanceof AbstractAggregateProperty && ((AbstractAggregateProperty)key).isMaterialized()) {
+
+					properties.add((AbstractAggregateProperty)key);
+				}
+			}
+
+			materializedProperties.put(type, properties);
+		}
+
+		return properties;
+	}
+
+	// ----- private methods -----
+	private T convertStoredValue(final Object value) {
+
+		if (value instanceof Number) {
+
+			final Number number   = (Number)value;
+			final Class valueType = valueType();
+
+			if (Integer.class.equals(valueType)) {
+				return (T)Integer.valueOf(number.intValue());
+			}
+
+			if (Long.class.equals(valueType)) {
+				return (T)Long.valueOf(number.longValue());
+			}
+
+			if (Double.class.equals(valueType)) {
+				return (T)Double.valueOf(number.doubleValue());
+			}
+
+			if (Float.class.equals(valueType)) {
+				return (T)Float.valueOf(number.floatValue());
+			}
+		}
+
+		return (T)value;
+	}
+}
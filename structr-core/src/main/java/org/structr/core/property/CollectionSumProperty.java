@@ -29,7 +29,7 @@ import org.structr.core.graph.NodeInterface;
  *
  *
  */
-public class CollectionSumProperty<T extends NodeInterface, S extends Number> extends AbstractReadOnlyProperty<S> {
+public class CollectionSumProperty<T extends NodeInterface, S extends Number> extends AbstractAggregateProperty<S> {
 
 	private Property<List<T>> collectionKey = null;
 	private Property<S> valueKey            = null;
@@ -64,12 +64,17 @@ public class CollectionSumProperty<T extends NodeInterface, S extends Number> ex
 	}
 
 	@Override
-	public S getProperty(SecurityContext securityContext, GraphObject obj, boolean applyConverter) {
-		return getProperty(securityContext, obj, applyConverter, null);
+	public PropertyKey getCollectionProperty() {
+		return collectionKey;
 	}
 
 	@Override
-	public S getProperty(SecurityContext securityContext, GraphObject obj, boolean applyConverter, final Predicate<GraphObject> pred) {
+	public PropertyKey getValueProperty() {
+		return valueKey;
+	}
+
+	@Override
+	public S computeValue(final SecurityContext securityContext, final GraphObject obj, final Predicate<GraphObject> pred) {
 
 		Integer intSum    = 0;
 		Long    longSum   = 0L;
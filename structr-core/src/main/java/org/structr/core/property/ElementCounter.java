@@ -32,7 +32,7 @@ import org.structr.core.converter.PropertyConverter;
  *
  *
  */
-public class ElementCounter extends AbstractReadOnlyProperty<Integer> {
+public class ElementCounter extends AbstractAggregateProperty<Integer> {
 
 	private Property<? extends Iterable> collectionProperty = null;
 
@@ -43,12 +43,7 @@ public class ElementCounter extends AbstractReadOnlyProperty<Integer> {
 	}
 
 	@Override
-	public Integer getProperty(SecurityContext securityContext, GraphObject obj, boolean applyConverter) {
-		return getProperty(securityContext, obj, applyConverter, null);
-	}
-
-	@Override
-	public Integer getProperty(SecurityContext securityContext, GraphObject obj, boolean applyConverter, final Predicate<GraphObject> predicate) {
+	public Integer computeValue(final SecurityContext securityContext, final GraphObject obj, final Predicate<GraphObject> predicate) {
 
 		int count = 0;
 
@@ -78,6 +73,16 @@ public class ElementCounter extends AbstractReadOnlyProperty<Integer> {
 		return count;
 	}
 
+	@Override
+	public PropertyKey getCollectionProperty() {
+		return collectionProperty;
+	}
+
+	@Override
+	public PropertyKey getValueProperty() {
+		return null;
+	}
+
 	@Override
 	public Class relatedType() {
 		return null;
@@ -30,7 +30,7 @@ import org.structr.core.GraphObject;
  *
  *
  */
-public class IntegerSumProperty extends AbstractReadOnlyProperty<Integer> {
+public class IntegerSumProperty extends AbstractAggregateProperty<Integer> {
 
 	private List<Property<Integer>> sumProperties = new LinkedList<>();
 
@@ -57,12 +57,17 @@ public class IntegerSumProperty extends AbstractReadOnlyProperty<Integer> {
 	}
 
 	@Override
-	public Integer getProperty(SecurityContext securityContext, GraphObject obj, boolean applyConverter) {
-		return getProperty(securityContext, obj, applyConverter, null);
+	public PropertyKey getCollectionProperty() {
+		return null;
+	}
+
+	@Override
+	public PropertyKey getValueProperty() {
+		return null;
 	}
 
 	@Override
-	public Integer getProperty(SecurityContext securityContext, GraphObject obj, boolean applyConverter, final Predicate<GraphObject> predicate) {
+	public Integer computeValue(final SecurityContext securityContext, final GraphObject obj, final Predicate<GraphObject> predicate) {
 
 		int sum = 0;
 
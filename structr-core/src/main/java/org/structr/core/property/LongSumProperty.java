@@ -28,7 +28,7 @@ import org.structr.core.GraphObject;
  *
  *
  */
-public class LongSumProperty extends AbstractReadOnlyProperty<Long> {
+public class LongSumProperty extends AbstractAggregateProperty<Long> {
 
 	private EndNodes<?, ?> collectionProperty = null;
 	private Property<Long> valueProperty                = null;
@@ -53,12 +53,17 @@ public class LongSumProperty extends AbstractReadOnlyProperty<Long> {
 	}
 
 	@Override
-	public Long getProperty(SecurityContext securityContext, GraphObject obj, boolean applyConverter) {
-		return getProperty(securityContext, obj, applyConverter, null);
+	public PropertyKey getCollectionProperty() {
+		return collectionProperty;
 	}
 
 	@Override
-	public Long getProperty(SecurityContext securityContext, GraphObject obj, boolean applyConverter, final Predicate<GraphObject> predicate) {
+	public PropertyKey getValueProperty() {
+		return valueProperty;
+	}
+
+	@Override
+	public Long computeValue(final SecurityContext securityContext, final GraphObject obj, final Predicate<GraphObject> predicate) {
 
 		List<? extends GraphObject> collection = obj.getProperty(collectionProperty);
 		if (collection != null) {
@@ -37,6 +37,9 @@ import org.mozilla.javascript.Undefined;
 import org.renjin.script.RenjinScriptEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.metrics.Histogram;
+import org.structr.api.metrics.MetricFamily;
+import org.structr.api.metrics.MetricsRegistry;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
 import org.structr.core.entity.AbstractNode;
@@ -51,8 +54,9 @@ import org.structr.schema.parser.DatePropertyParser;
  */
 public class Scripting {
 
-	private static final Logger logger                  = LoggerFactory.getLogger(Scripting.class.getName());
-	private static final Pattern ScriptEngineExpression = Pattern.compile("^\\$\\{(\\w+)\\{(.*)\\}\\}$", Pattern.DOTALL);
+	private static final Logger logger                              = LoggerFactory.getLogger(Scripting.class.getName());
+	private static final Pattern ScriptEngineExpression             = Pattern.compile("^\\$\\{(\\w+)\\{(.*)\\}\\}$", Pattern.DOTALL);
+	private static final MetricFamily<Histogram> evaluationDuration = MetricsRegistry.getInstance().histograms("structr_script_evaluation_duration_seconds", "Duration of script evaluations per scripting engine", "engine");
 
 	public static String replaceVariables(final ActionContext actionContext, final GraphObject entity, final Object rawValue) throws FrameworkException {
 
@@ -156,25 +160,43 @@ public class Scripting {
 
 		actionContext.setJavaScriptContext(isJavascript);
 
+		final long start = System.nanoTime();
+
 		if (isScriptEngine) {
 
-			return evaluateScript(actionContext, entity, engine, source);
+			try {
+				return evaluateScript(actionContext, entity, engine, source);
+
+			} finally {
+				evaluationDuration.get(engine).record(System.nanoTime() - start);
+			}
 
 		} else if (isJavascript) {
 
-			return evaluateJavascript(actionContext, entity, source, methodName);
+			try {
+				return evaluateJavascript(actionContext, entity, source, methodName);
+
+			} finally {
+				evaluationDuration.get("JavaScript").record(System.nanoTime() - start);
+			}
 
 		} else {
 
-			Object extractedValue = Functions.evaluate(actionContext, entity, source);
-			final String value    = extractedValue != null ? extractedValue.toString() : "";
-			final String output   = actionContext.getOutput();
+			try {
 
-			if (StringUtils.isEmpty(value) && output != null && !output.isEmpty()) {
-				extractedValue = output;
-			}
+				Object extractedValue = Functions.evaluate(actionContext, entity, source);
+				final String value    = extractedValue != null ? extractedValue.toString() : "";
+				final String output   = actionContext.getOutput();
 
-			return extractedValue;
+				if (StringUtils.isEmpty(value) && output != null && !output.isEmpty()) {
+					extractedValue = output;
+				}
+
+				return extractedValue;
+
+			} finally {
+				evaluationDuration.get("StructrScript").record(System.nanoTime() - start);
+			}
 		}
 	}
 
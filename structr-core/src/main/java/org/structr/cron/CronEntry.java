@@ -312,8 +312,29 @@ public class CronEntry implements Delayed {
 	//~--- get methods ----------------------------------------------------
 
 	public long getDelayToNextExecutionInMillis() {
+		return getNextExecutionTime(GregorianCalendar.getInstance()) - System.currentTimeMillis();
+	}
+
+	/**
+	 * Returns the time of the first execution strictly after the given
+	 * time, in milliseconds.
+	 *
+	 * @param after
+	 * @return the time of the next execution
+	 */
+	public long getNextExecutionTimeAfter(final long after) {
+
+		final Calendar now = GregorianCalendar.getInstance();
+
+		now.setTimeInMillis(after);
+		now.set(Calendar.MILLISECOND, 0);
+		now.add(Calendar.SECOND, 1);
+
+		return getNextExecutionTime(now);
+	}
+
+	private long getNextExecutionTime(final Calendar now) {
 
-		Calendar now       = GregorianCalendar.getInstance();
 		int nowSeconds     = now.get(Calendar.SECOND);
 		int nowMinutes     = now.get(Calendar.MINUTE);
 		int nowHours       = now.get(Calendar.HOUR_OF_DAY);
@@ -383,7 +404,7 @@ public class CronEntry implements Delayed {
 			throw new IllegalArgumentException("Unable to determine next cron date for task " + name + ", aborting.");
 		}
 
-		return now.getTimeInMillis() - System.currentTimeMillis();
+		return now.getTimeInMillis();
 	}
 
 	public CronField getSeconds() {
@@ -19,9 +19,17 @@
 package org.structr.cron;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.agent.Task;
@@ -37,20 +45,48 @@ import org.structr.schema.action.Actions;
  * A service that keeps track of registered tasks and runs
  * them at their scheduled time.
  *
+ * Due tasks are dispatched to a bounded pool of worker threads, so a long
+ * running task doesn't delay other tasks. The concurrency policy of each
+ * task controls what happens if a task is due while it is still running,
+ * the misfire policy controls what happens if executions were missed.
+ *
  *
  */
 public class CronService extends Thread implements RunnableService {
 
 	private static final Logger logger           = LoggerFactory.getLogger(CronService.class.getName());
 
-	public static final String   TASKS             = "CronService.tasks";
-	public static final String   EXPRESSION_SUFFIX = ".cronExpression";
-	public static final TimeUnit GRANULARITY_UNIT  = TimeUnit.SECONDS;
-	public static final long     GRANULARITY       = 1;
-	public static final int      NUM_FIELDS        = 6;
+	public static final String   TASKS              = "CronService.tasks";
+	public static final String   THREADS            = "CronService.threads";
+	public static final String   EXPRESSION_SUFFIX  = ".cronExpression";
+	public static final String   CONCURRENCY_SUFFIX = ".concurrencyPolicy";
+	public static final String   MISFIRE_SUFFIX     = ".misfirePolicy";
+	public static final TimeUnit GRANULARITY_UNIT   = TimeUnit.SECONDS;
+	public static final long     GRANULARITY        = 1;
+	public static final int      NUM_FIELDS         = 6;
+
+	private static final int     QUEUE_CAPACITY     = 1000;
+
+	/**
+	 * What to do when a task is due while its previous execution is
+	 * still running: skip the execution, run it once after the current
+	 * execution has finished, or run it in parallel.
+	 */
+	public enum ConcurrencyPolicy {
+		SKIP, QUEUE, PARALLEL
+	}
+
+	/**
+	 * What to do when one or more executions were missed, e.g. because
+	 * the system was suspended: run the task once, or skip it.
+	 */
+	public enum MisfirePolicy {
+		FIRE, SKIP
+	}
 
-	private LinkedList<CronEntry> cronEntries = new LinkedList<>();
-	private boolean doRun = false;
+	private final List<CronJob> cronJobs   = new LinkedList<>();
+	private ThreadPoolExecutor executor    = null;
+	private boolean doRun                  = false;
 
 	public CronService() {
 		super("CronService");
@@ -70,46 +106,76 @@ public class CronService extends Thread implements RunnableService {
 		// sleep 5 seconds more
 		try { Thread.sleep(5000); } catch(InterruptedException iex) { }
 
-		while (doRun) {
-
-			// sleep for some time
-			try { Thread.sleep(GRANULARITY_UNIT.toMillis(GRANULARITY)); } catch(InterruptedException iex) { }
+		final long granularity = GRANULARITY_UNIT.toMillis(GRANULARITY);
 
-			for (CronEntry entry : cronEntries) {
+		for (final CronJob job : cronJobs) {
+			job.nextExecution = job.entry.getNextExecutionTimeAfter(System.currentTimeMillis());
+		}
 
-				if (entry.getDelayToNextExecutionInMillis() < GRANULARITY_UNIT.toMillis(GRANULARITY)) {
+		while (doRun) {
 
-					final String taskClassName = entry.getName();
-					final Class taskClass      = instantiate(taskClassName);
+			final long now  = System.currentTimeMillis();
+			long nextWakeup = Long.MAX_VALUE;
 
-					try {
+			for (final CronJob job : cronJobs) {
 
-						if (taskClass != null) {
+				if (job.nextExecution <= now) {
 
-							Task task = (Task)taskClass.newInstance();
+					final boolean missed = now - job.nextExecution > granularity;
 
-							logger.debug("Starting task {}", taskClassName);
-							StructrApp.getInstance().processTasks(task);
+					job.nextExecution = job.entry.getNextExecutionTimeAfter(now);
 
-						} else {
+					if (missed) {
 
-							try (final Tx tx = StructrApp.getInstance().tx()) {
+						logger.info("Missed execution of cron task {}, misfire policy is {}", job.getName(), job.misfirePolicy);
 
-								// check for schema method with the given name
-								Actions.call(taskClassName, Collections.EMPTY_MAP);
+						job.statistics.missed();
 
-								tx.success();
-							}
+						if (MisfirePolicy.SKIP.equals(job.misfirePolicy)) {
+							continue;
 						}
-
-					} catch (Throwable t) {
-						logger.warn("Exception while executing cron task {}: {}", taskClassName, t.getMessage());
 					}
+
+					dispatch(job);
 				}
+
+				nextWakeup = Math.min(nextWakeup, job.nextExecution);
+			}
+
+			// sleep until the next task is due, shutdown() interrupts the sleep
+			final long delay = nextWakeup - System.currentTimeMillis();
+			if (delay > 0) {
+
+				try { Thread.sleep(delay); } catch(InterruptedException iex) { }
 			}
 		}
 	}
 
+	/**
+	 * Returns the execution statistics of all cron tasks.
+	 *
+	 * @return a map of statistics by task name
+	 */
+	public Map<String, Map<String, Object>> getStatistics() {
+
+		final Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+
+		for (final CronJob job : cronJobs) {
+
+			final Map<String, Object> data = job.statistics.toMap();
+
+			synchronized (job) {
+				data.put("running", job.running);
+			}
+
+			data.put("nextExecution", job.nextExecution);
+
+			statistics.put(job.getName(), data);
+		}
+
+		return statistics;
+	}
+
 	// ----- interface RunnableService -----
 	@Override
 	public void startService() throws Exception {
@@ -119,7 +185,7 @@ public class CronService extends Thread implements RunnableService {
 
 	@Override
 	public void stopService() {
-		this.doRun = false;
+		shutdown();
 	}
 
 	@Override
@@ -139,7 +205,9 @@ public class CronService extends Thread implements RunnableService {
 	@Override
 	public void initialize(final StructrServices services, final Properties config) throws ClassNotFoundException, InstantiationException, IllegalAccessException {
 
+		final int threads     = Math.max(1, NumberUtils.toInt(config.getProperty(THREADS), 4));
 		final String taskList = config.getProperty(TASKS, "");
+
 		if (taskList != null) {
 
 			for(String task : taskList.split("[ \\t]+")) {
@@ -150,9 +218,14 @@ public class CronService extends Thread implements RunnableService {
 					CronEntry entry = CronEntry.parse(task, expression);
 					if(entry != null) {
 
-						logger.info("Adding cron entry {} for {}", new Object[]{ entry, task });
+						final CronJob job = new CronJob(entry);
+
+						job.concurrencyPolicy = getPolicy(ConcurrencyPolicy.class, config.getProperty(task.concat(CONCURRENCY_SUFFIX)), ConcurrencyPolicy.SKIP);
+						job.misfirePolicy     = getPolicy(MisfirePolicy.class, config.getProperty(task.concat(MISFIRE_SUFFIX)), MisfirePolicy.FIRE);
 
-						cronEntries.add(entry);
+						logger.info("Adding cron entry {} for {}, concurrency policy {}, misfire policy {}", new Object[]{ entry, task, job.concurrencyPolicy, job.misfirePolicy });
+
+						cronJobs.add(job);
 
 					} else {
 
@@ -165,6 +238,16 @@ public class CronService extends Thread implements RunnableService {
 				}
 			}
 		}
+
+		final AtomicInteger threadCount = new AtomicInteger();
+
+		executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(QUEUE_CAPACITY), (Runnable r) -> {
+
+			final Thread thread = new Thread(r, "CronService-worker-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+
+			return thread;
+		});
 	}
 
 	@Override
@@ -172,7 +255,13 @@ public class CronService extends Thread implements RunnableService {
 
 	@Override
 	public void shutdown() {
+
 		this.doRun = false;
+		this.interrupt();
+
+		if (executor != null) {
+			executor.shutdown();
+		}
 	}
 
 	@Override
@@ -181,6 +270,130 @@ public class CronService extends Thread implements RunnableService {
 	}
 
 	// ----- private methods -----
+	private void dispatch(final CronJob job) {
+
+		synchronized (job) {
+
+			if (job.running > 0) {
+
+				switch (job.concurrencyPolicy) {
+
+					case SKIP:
+						logger.debug("Cron task {} is still running, skipping execution", job.getName());
+						job.statistics.skipped();
+						return;
+
+					case QUEUE:
+						logger.debug("Cron task {} is still running, queueing execution", job.getName());
+						job.pending = true;
+						return;
+
+					case PARALLEL:
+						break;
+				}
+			}
+
+			job.running++;
+		}
+
+		submit(job);
+	}
+
+	private void submit(final CronJob job) {
+
+		try {
+
+			executor.execute(() -> execute(job));
+
+		} catch (RejectedExecutionException rex) {
+
+			logger.warn("Unable to execute cron task {}, too many tasks queued.", job.getName());
+
+			synchronized (job) {
+				job.running--;
+			}
+
+			job.statistics.skipped();
+		}
+	}
+
+	private void execute(final CronJob job) {
+
+		final String taskClassName = job.getName();
+		final Class taskClass      = instantiate(taskClassName);
+		final long start           = System.currentTimeMillis();
+		boolean success            = false;
+
+		job.statistics.started(start);
+
+		try {
+
+			if (taskClass != null) {
+
+				Task task = (Task)taskClass.newInstance();
+
+				logger.debug("Starting task {}", taskClassName);
+				StructrApp.getInstance().processTasks(task);
+
+			} else {
+
+				try (final Tx tx = StructrApp.getInstance().tx()) {
+
+					// check for schema method with the given name
+					Actions.call(taskClassName, Collections.EMPTY_MAP);
+
+					tx.success();
+				}
+			}
+
+			success = true;
+
+		} catch (Throwable t) {
+
+			logger.warn("Exception while executing cron task {}: {}", taskClassName, t.getMessage());
+
+		} finally {
+
+			job.statistics.finished(System.currentTimeMillis() - start, success);
+
+			boolean runAgain = false;
+
+			synchronized (job) {
+
+				if (job.pending && doRun) {
+
+					job.pending = false;
+					runAgain    = true;
+
+				} else {
+
+					job.running--;
+				}
+			}
+
+			if (runAgain) {
+				submit(job);
+			}
+		}
+	}
+
+	private <T extends Enum<T>> T getPolicy(final Class<T> type, final String value, final T defaultValue) {
+
+		if (value != null) {
+
+			try {
+
+				return Enum.valueOf(type, value.trim().toUpperCase());
+
+			} catch (IllegalArgumentException iex) {
+
+				logger.warn("Invalid {} {}, using {}.", new Object[] { type.getSimpleName(), value, defaultValue });
+			}
+		}
+
+		return defaultValue;
+	}
+
 	private Class instantiate(final String taskClass) {
 
 		try {
@@ -191,4 +404,24 @@ public class CronService extends Thread implements RunnableService {
 
 		return null;
 	}
+
+	// ----- nested classes -----
+	private static class CronJob {
+
+		private final CronStatistics statistics     = new CronStatistics();
+		private ConcurrencyPolicy concurrencyPolicy = ConcurrencyPolicy.SKIP;
+		private MisfirePolicy misfirePolicy         = MisfirePolicy.FIRE;
+		private CronEntry entry                     = null;
+		private volatile long nextExecution         = 0L;
+		private int running                         = 0;
+		private boolean pending                     = false;
+
+		public CronJob(final CronEntry entry) {
+			this.entry = entry;
+		}
+
+		public String getName() {
+			return entry.getName();
+		}
+	}
 }
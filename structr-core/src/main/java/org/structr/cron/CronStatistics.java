@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.cron;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution statistics of a single cron task: number of executions,
+ * skipped and missed executions, failures and a histogram of the
+ * execution durations.
+ *
+ *
+ */
+public class CronStatistics {
+
+	private static final long[] BUCKETS = new long[] { 10, 100, 1000, 10000, 60000, 600000, Long.MAX_VALUE };
+
+	private final LongAdder[] histogram = new LongAdder[BUCKETS.length];
+	private final LongAdder executions  = new LongAdder();
+	private final LongAdder failures    = new LongAdder();
+	private final LongAdder skipped     = new LongAdder();
+	private final LongAdder missed      = new LongAdder();
+	private final LongAdder totalTime   = new LongAdder();
+	private final AtomicLong maxTime    = new AtomicLong();
+	private final AtomicLong lastStart  = new AtomicLong();
+
+	public CronStatistics() {
+
+		for (int i=0; i<histogram.length; i++) {
+			histogram[i] = new LongAdder();
+		}
+	}
+
+	public void started(final long time) {
+		lastStart.set(time);
+	}
+
+	public void finished(final long duration, final boolean success) {
+
+		executions.increment();
+		totalTime.add(duration);
+		maxTime.accumulateAndGet(duration, Math::max);
+
+		if (!success) {
+			failures.increment();
+		}
+
+		for (int i=0; i<BUCKETS.length; i++) {
+
+			if (duration <= BUCKETS[i]) {
+
+				histogram[i].increment();
+				break;
+			}
+		}
+	}
+
+	public void skipped() {
+		skipped.increment();
+	}
+
+	public void missed() {
+		missed.increment();
+	}
+
+	/**
+	 * Returns a snapshot of the statistics, with the histogram buckets
+	 * keyed by their upper bound in milliseconds.
+	 *
+	 * @return the statistics
+	 */
+	public Map<String, Object> toMap() {
+
+		final Map<String, Object> data      = new LinkedHashMap<>();
+		final Map<String, Long> buckets     = new LinkedHashMap<>();
+		final long count                    = executions.sum();
+
+		data.put("executions",   count);
+		data.put("failures",     failures.sum());
+		data.put("skipped",      skipped.sum());
+		data.put("missed",       missed.sum());
+		data.put("averageTime",  count > 0 ? totalTime.sum() / count : 0L);
+		data.put("maxTime",      maxTime.get());
+		data.put("lastStart",    lastStart.get());
+
+		for (int i=0; i<BUCKETS.length; i++) {
+			buckets.put(BUCKETS[i] == Long.MAX_VALUE ? "+Inf" : Long.toString(BUCKETS[i]), histogram[i].sum());
+		}
+
+		data.put("histogram", buckets);
+
+		return data;
+	}
+}
@@ -23,6 +23,8 @@
 
 package org.structr.schema;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -40,6 +42,7 @@ import org.structr.api.service.Command;
 import org.structr.api.service.InitializationCallback;
 import org.structr.api.service.Service;
 import org.structr.api.service.StructrServices;
+import org.structr.api.util.GeoHash;
 import org.structr.common.AccessPathCache;
 import org.structr.common.error.ErrorBuffer;
 import org.structr.common.error.FrameworkException;
@@ -50,6 +53,7 @@ import org.structr.core.app.StructrApp;
 import org.structr.core.entity.AbstractNode;
 import org.structr.core.entity.SchemaNode;
 import org.structr.core.entity.SchemaRelationshipNode;
+import org.structr.core.graph.BulkUpdateGeoHashCommand;
 import org.structr.core.graph.NodeFactory;
 import org.structr.core.graph.NodeInterface;
 import org.structr.core.graph.RelationshipFactory;
@@ -311,6 +315,18 @@ public class SchemaService implements Service {
 		return 0;
 	}
 
+	private static boolean hasCoordinates(final Collection<PropertyKey> keys) {
+
+		for (final PropertyKey key : keys) {
+
+			if (GeoHash.LATITUDE.equals(key.dbName())) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 	private static void updateIndexConfiguration(final Map<String, Map<String, PropertyKey>> removedClasses) {
 
 		final Thread indexUpdater = new Thread(new Runnable() {
@@ -325,6 +341,7 @@ public class SchemaService implements Service {
 
 						final Map<String, Object> params = new HashMap<>();
 						final App app                    = StructrApp.getInstance();
+						boolean geoHashIndexCreated      = false;
 
 						// create indices for properties of existing classes
 						for (final Entry<String, Map<String, PropertyKey>> entry : StructrApp.getConfiguration().getTypeAndPropertyMapping().entrySet()) {
@@ -380,6 +397,32 @@ public class SchemaService implements Service {
 
 									}
 
+									// geo-tagged types get an index on the geohash properties
+									if (hasCoordinates(entry.getValue().values())) {
+
+										for (final int precision : GeoHash.PRECISIONS) {
+
+											final String geoHashKey  = GeoHash.getPropertyName(precision);
+											final String indexKey    = "index." + typeName + "." + geoHashKey;
+											final boolean alreadySet = "true".equals(app.getGlobalSetting(indexKey, null));
+
+											if (!alreadySet) {
+
+												try {
+
+													app.cypher("CREATE INDEX ON :" + typeName + "(" + geoHashKey + ")", params);
+
+												} catch (Throwable t) {
+													t.printStackTrace();
+												}
+
+												app.setGlobalSetting(indexKey, "true");
+
+												geoHashIndexCreated = true;
+											}
+										}
+									}
+
 									tx.success();
 
 								} catch (Throwable ignore) {
@@ -388,6 +431,19 @@ public class SchemaService implements Service {
 							}
 						}
 
+						// nodes created before the geohash index existed have no geohash properties
+						// and would not be found by distance searches, so store them once
+						if (geoHashIndexCreated) {
+
+							try {
+
+								app.command(BulkUpdateGeoHashCommand.class).execute(Collections.EMPTY_MAP);
+
+							} catch (Throwable t) {
+								t.printStackTrace();
+							}
+						}
+
 						// drop indices for all indexed properties of removed classes
 						for (final Entry<String, Map<String, PropertyKey>> entry : removedClasses.entrySet()) {
 
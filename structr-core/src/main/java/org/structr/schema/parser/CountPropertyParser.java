@@ -58,6 +58,18 @@ public class CountPropertyParser extends PropertySourceGenerator {
 		return auxType;
 	}
 
+	@Override
+	public String getPropertyModifiers() {
+
+		// indexed count properties are materialized so that
+		// they can be used for sorting in the database
+		if (source.isIndexed()) {
+			return ".materialized()";
+		}
+
+		return "";
+	}
+
 	@Override
 	public Type getKey() {
 		return Type.Count;
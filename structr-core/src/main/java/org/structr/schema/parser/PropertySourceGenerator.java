@@ -119,6 +119,16 @@ public abstract class PropertySourceGenerator {
 		return getSourceDefaultValue();
 	}
 
+	/**
+	 * Returns additional builder method calls that are appended
+	 * to the property constructor in the generated source code.
+	 *
+	 * @return the modifiers
+	 */
+	public String getPropertyModifiers() {
+		return "";
+	}
+
 	public void createSchemaPropertyNode(final AbstractSchemaNode schemaNode, final String underscorePropertyName) throws FrameworkException {
 
 		final App app             = StructrApp.getInstance();
@@ -159,6 +169,8 @@ public abstract class PropertySourceGenerator {
 
 		buf.append(")");
 
+		buf.append(getPropertyModifiers());
+
 		if (StringUtils.isNotBlank(source.getContentType())) {
 			buf.append(".contentType(\"").append(source.getContentType()).append("\")");
 		}
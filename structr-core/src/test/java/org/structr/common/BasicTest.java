@@ -20,8 +20,10 @@ package org.structr.common;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import org.apache.commons.lang3.StringUtils;
 import static org.junit.Assert.assertEquals;
@@ -67,6 +69,7 @@ import org.structr.core.entity.TestUser;
 import org.structr.core.entity.relationship.NodeHasLocation;
 import org.structr.core.graph.NodeAttribute;
 import org.structr.core.graph.NodeInterface;
+import org.structr.core.graph.NodeServiceCommand;
 import org.structr.core.graph.Tx;
 import org.structr.core.property.PropertyKey;
 import org.structr.core.property.PropertyMap;
@@ -1476,6 +1479,86 @@ public class BasicTest extends StructrTest {
 		}
 	}
 
+	@Test
+	public void testBulkNodeLookup() {
+
+		final List<String> uuids = new LinkedList<>();
+		String testSixId         = null;
+
+		try (final Tx tx = app.tx()) {
+
+			for (final TestOne testOne : createTestNodes(TestOne.class, 50)) {
+				uuids.add(testOne.getUuid());
+			}
+
+			testSixId = app.create(TestSix.class, "testsix").getUuid();
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			final List<String> input = new LinkedList<>(uuids);
+
+			// non-existing UUIDs are ignored
+			input.add(0, NodeServiceCommand.getNextUuid());
+
+			final Map<String, NodeInterface> nodes = app.getNodesByIds(input);
+
+			assertEquals("Bulk lookup returns wrong number of results", 50, nodes.size());
+			assertEquals("Bulk lookup does not preserve input order", uuids, new LinkedList<>(nodes.keySet()));
+
+			for (final Map.Entry<String, NodeInterface> entry : nodes.entrySet()) {
+				assertEquals("Bulk lookup returns wrong node", entry.getKey(), entry.getValue().getUuid());
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// set a collection property from a list of UUIDs
+		try (final Tx tx = app.tx()) {
+
+			final TestSix testSix         = app.get(TestSix.class, testSixId);
+			final Map<String, Object> map = new HashMap<>();
+
+			map.put("manyToManyTestOnes", uuids);
+
+			testSix.setProperties(securityContext, PropertyMap.inputTypeToJavaType(securityContext, TestSix.class, map));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			final List<String> related = new LinkedList<>();
+
+			for (final TestOne testOne : app.get(TestSix.class, testSixId).getProperty(TestSix.manyToManyTestOnes)) {
+				related.add(testOne.getUuid());
+			}
+
+			assertEquals("Collection property was not set correctly", 50, related.size());
+			assertTrue("Collection property was not set correctly", related.containsAll(uuids));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
+
 	// ----- private methods -----
 	private AbstractRelationship cascadeRel(final Class type1, final Class type2, final int cascadeDeleteFlag) throws FrameworkException {
 
@@ -33,6 +33,7 @@ import static org.junit.Assert.fail;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.util.GeoHash;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
 import org.structr.core.Result;
@@ -1026,6 +1027,59 @@ public class SearchAndSortingTest extends StructrTest {
 
 	}
 
+	@Test
+	public void test08SortHelperMatchesComparator() {
+
+		try {
+
+			final List<TestOne> nodes = this.createTestNodes(TestOne.class, 50);
+			final Random random       = new Random(42);
+
+			try (final Tx tx = app.tx()) {
+
+				int i = 0;
+
+				for (NodeInterface node : nodes) {
+
+					node.setProperty(AbstractNode.name, Long.toString(i++));
+
+					// some nulls and a lot of equal values to check stability
+					if (random.nextInt(5) > 0) {
+						node.setProperty(TestOne.anInt, random.nextInt(10));
+					}
+				}
+
+				tx.success();
+			}
+
+			try (final Tx tx = app.tx()) {
+
+				for (final boolean sortDesc : new boolean[] { false, true }) {
+
+					final List<TestOne> expected = new LinkedList<>(nodes);
+					final List<TestOne> actual   = new LinkedList<>(nodes);
+
+					Collections.sort(expected, new GraphObjectComparator(TestOne.anInt, sortDesc));
+					SortHelper.sort(actual, TestOne.anInt, sortDesc);
+
+					assertEquals("Invalid sort result", expected, actual);
+					assertEquals("Invalid top-k result", expected.subList(0, 7), SortHelper.first(nodes, TestOne.anInt, sortDesc, 7));
+					assertEquals("Invalid paging result", expected.subList(10, 20), PagingHelper.sortedSubList(new LinkedList<>(nodes), TestOne.anInt, sortDesc, 10, 2, null));
+					assertEquals("Invalid paging result", expected.subList(40, 50), PagingHelper.sortedSubList(new LinkedList<>(nodes), TestOne.anInt, sortDesc, 10, 5, null));
+				}
+
+				tx.success();
+			}
+
+		} catch (FrameworkException ex) {
+
+			logger.error(ex.toString());
+			fail("Unexpected exception");
+
+		}
+
+	}
+
 	@Test
 	public void test01SearchSingleNodeByName() {
 
@@ -1257,6 +1311,119 @@ public class SearchAndSortingTest extends StructrTest {
 
 	}
 
+	@Test
+	public void test06DistanceSearchByCoordinates() {
+
+		final Map<String, Double> distances = new LinkedHashMap<>();
+		String centerId                     = null;
+
+		try (final Tx tx = app.tx()) {
+
+			// create a grid of 21 x 21 nodes with a spacing of ~1 km around the center
+			for (int i=-10; i<=10; i++) {
+
+				for (int j=-10; j<=10; j++) {
+
+					final double latitude  = 50.0 + i * 0.01;
+					final double longitude = 8.0 + j * 0.015;
+
+					final TestSeven node = app.create(TestSeven.class,
+						new NodeAttribute(AbstractNode.name, "TestSeven" + i + "_" + j),
+						new NodeAttribute(TestSeven.latitude, latitude),
+						new NodeAttribute(TestSeven.longitude, longitude)
+					);
+
+					distances.put(node.getUuid(), distance(50.0, 8.0, latitude, longitude));
+
+					if (i == 0 && j == 0) {
+						centerId = node.getUuid();
+					}
+				}
+			}
+
+			tx.success();
+
+		} catch (FrameworkException ex) {
+
+			logger.warn("", ex);
+			fail("Unexpected exception");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			final List<TestSeven> result = app.nodeQuery(TestSeven.class).location(50.0, 8.0, 3.0).getAsList();
+			final List<String> ids       = new LinkedList<>();
+			double lastDistance          = 0.0;
+
+			for (final TestSeven node : result) {
+
+				final double distance = distances.get(node.getUuid());
+
+				// result is sorted by distance
+				assertTrue("Distance search result is not sorted by distance", distance >= lastDistance * 0.99);
+
+				ids.add(node.getUuid());
+				lastDistance = distance;
+			}
+
+			assertEquals("Distance search result is not sorted by distance", centerId, ids.get(0));
+
+			for (final Map.Entry<String, Double> entry : distances.entrySet()) {
+
+				// allow for different earth radii near the boundary
+				if (entry.getValue() < 2950.0) {
+					assertTrue("Node within distance not found", ids.contains(entry.getKey()));
+				}
+
+				if (entry.getValue() > 3050.0) {
+					assertTrue("Node outside of distance found", !ids.contains(entry.getKey()));
+				}
+			}
+
+			tx.success();
+
+		} catch (FrameworkException ex) {
+
+			logger.warn("", ex);
+			fail("Unexpected exception");
+		}
+
+		// move center node away
+		try (final Tx tx = app.tx()) {
+
+			final TestSeven center = app.get(TestSeven.class, centerId);
+
+			center.setProperty(TestSeven.latitude, 10.0);
+
+			tx.success();
+
+		} catch (FrameworkException ex) {
+
+			logger.warn("", ex);
+			fail("Unexpected exception");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			final TestSeven center = app.get(TestSeven.class, centerId);
+
+			assertEquals("Geohash was not updated", GeoHash.encode(10.0, 8.0, 8), center.getNode().getProperty(GeoHash.getPropertyName(8)));
+
+			final List<TestSeven> result = app.nodeQuery(TestSeven.class).location(50.0, 8.0, 0.5).getAsList();
+			assertEquals("Moved node found in distance search", 0, result.size());
+
+			final List<TestSeven> moved = app.nodeQuery(TestSeven.class).location(10.0, 8.0, 0.5).getAsList();
+			assertEquals("Moved node not found in distance search", 1, moved.size());
+
+			tx.success();
+
+		} catch (FrameworkException ex) {
+
+			logger.warn("", ex);
+			fail("Unexpected exception");
+		}
+	}
+
 	@Test
 	public void test07SearchByStaticMethod01() {
 
@@ -2137,4 +2304,13 @@ public class SearchAndSortingTest extends StructrTest {
 
 		}
 	}
+
+	private double distance(final double lat1, final double lon1, final double lat2, final double lon2) {
+
+		final double dLat = Math.toRadians(lat2 - lat1);
+		final double dLon = Math.toRadians(lon2 - lon1);
+		final double a    = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+
+		return 6371000.0 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+	}
 }
@@ -19,6 +19,8 @@
 package org.structr.core.entity;
 
 import java.util.List;
+import org.structr.core.property.CollectionSumProperty;
+import org.structr.core.property.ElementCounter;
 import org.structr.core.property.EndNode;
 import org.structr.core.property.EndNodes;
 import org.structr.core.property.IntProperty;
@@ -43,4 +45,7 @@ public class TestSix extends AbstractNode {
 	public static final Property<List<TestNine>>  oneToManyTestNinesCascadeConstraint  = new EndNodes<>("oneToManyTestNinesCascadeConstraint", SixNineOneToManyCascadeConstraint.class);
 
 	public static final Property<Integer>         index                                = new IntProperty("index");
+
+	public static final Property<Integer>         oneToManyTestOnesCount               = new ElementCounter("oneToManyTestOnesCount", oneToManyTestOnes).materialized();
+	public static final Property<Integer>         oneToManyTestOnesSum                 = new CollectionSumProperty<>("oneToManyTestOnesSum", oneToManyTestOnes, TestOne.anInt).materialized();
 }
@@ -38,16 +38,23 @@ import org.structr.api.DatabaseService;
 import org.structr.api.Transaction;
 import org.structr.api.graph.Label;
 import org.structr.api.graph.Node;
+import org.structr.api.util.GeoHash;
 import org.structr.api.util.Iterables;
+import org.structr.common.SecurityContext;
 import org.structr.common.StructrTest;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.Result;
+import org.structr.core.Services;
 import org.structr.core.entity.Group;
 import org.structr.core.entity.TestEleven;
 import org.structr.core.entity.TestOne;
+import org.structr.core.entity.TestSeven;
 import org.structr.core.entity.TestTwo;
 import org.structr.core.graph.BulkCreateLabelsCommand;
+import org.structr.core.graph.BulkGraphOperation;
 import org.structr.core.graph.BulkSetNodePropertiesCommand;
+import org.structr.core.graph.BulkUpdateGeoHashCommand;
+import org.structr.core.graph.NodeAttribute;
 import org.structr.core.graph.SyncCommand;
 import org.structr.core.graph.Tx;
 
@@ -327,6 +334,61 @@ public class MaintenanceTest extends StructrTest {
 
 	}
 
+	@Test
+	public void testBulkUpdateGeoHashCommand() {
+
+		try {
+
+			String id = null;
+
+			try (final Tx tx = app.tx()) {
+
+				id = createTestNode(TestSeven.class,
+					new NodeAttribute<>(TestSeven.name, "location"),
+					new NodeAttribute<>(TestSeven.latitude, 50.0),
+					new NodeAttribute<>(TestSeven.longitude, 8.0)
+				).getUuid();
+
+				tx.success();
+			}
+
+			// remove geohash properties to simulate a node that was created before they existed
+			try (final Tx tx = app.tx()) {
+
+				final Node node = app.get(TestSeven.class, id).getNode();
+
+				for (final int precision : GeoHash.PRECISIONS) {
+					node.removeProperty(GeoHash.getPropertyName(precision));
+				}
+
+				tx.success();
+			}
+
+			try (final Tx tx = app.tx()) {
+
+				assertEquals(0, app.nodeQuery(TestSeven.class).location(50.0, 8.0, 1.0).getAsList().size());
+				tx.success();
+			}
+
+			app.command(BulkUpdateGeoHashCommand.class).execute(new LinkedHashMap<>());
+
+			try (final Tx tx = app.tx()) {
+
+				final TestSeven node = app.get(TestSeven.class, id);
+
+				assertEquals(GeoHash.encode(50.0, 8.0, 8), node.getNode().getProperty(GeoHash.getPropertyName(8)));
+				assertEquals(1, app.nodeQuery(TestSeven.class).location(50.0, 8.0, 1.0).getAsList().size());
+
+				tx.success();
+			}
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+		}
+	}
+
 	/*
 	 * This test will fail with the new Neo4j 3.0 Bolt interface, because
 	 * there is no separation between a (Lucene-based) index and the
@@ -451,4 +513,101 @@ public class MaintenanceTest extends StructrTest {
 			fail("Unexpected exception.");
 		}
 	}
+
+	@Test
+	public void testPartitionedBulkGraphOperationResumesFromCheckpoint() {
+
+		try {
+
+			// use several workers regardless of the number of cores
+			Services.getInstance().getCurrentConfig().setProperty(Services.MAINTENANCE_THREADS, "4");
+
+			final List<TestOne> nodes = createTestNodes(TestOne.class, 1000);
+			final String failingId    = nodes.get(500).getUuid();
+			final Set<String> handled = Collections.synchronizedSet(new HashSet<>());
+
+			// first run: the partition containing the failing node is rolled back and not counted
+			final long firstCount = runPartitioned(new PartitionTestOperation(handled, failingId));
+
+			assertEquals("Invalid number of processed nodes", 900, firstCount);
+			assertTrue("Failing node should not be marked as handled", !handled.contains(failingId));
+
+			// second run: only the failed partition is processed again
+			handled.clear();
+
+			final long secondCount = runPartitioned(new PartitionTestOperation(handled, null));
+
+			assertEquals("Resumed run should only process the failed partition", 100, secondCount);
+			assertEquals("Invalid number of handled nodes", secondCount, handled.size());
+			assertTrue("Failing node should be handled when resuming", handled.contains(failingId));
+
+			// third run: the checkpoint was removed after the successful run, so all nodes are processed
+			handled.clear();
+
+			assertEquals("Invalid number of processed nodes", 1000, runPartitioned(new PartitionTestOperation(handled, null)));
+			assertEquals("Invalid number of handled nodes", 1000, handled.size());
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+
+		} finally {
+
+			Services.getInstance().getCurrentConfig().remove(Services.MAINTENANCE_THREADS);
+		}
+	}
+
+	// ----- private methods -----
+	private long runPartitioned(final BulkGraphOperation<TestOne> operation) throws FrameworkException {
+
+		List<TestOne> nodes = null;
+
+		try (final Tx tx = app.tx()) {
+
+			nodes = app.nodeQuery(TestOne.class).getAsList();
+			tx.success();
+		}
+
+		return app.command(BulkCreateLabelsCommand.class).partitionedBulkGraphOperation(securityContext, nodes.iterator(), 100, "PartitionTest", operation);
+	}
+
+	// ----- nested classes -----
+	private static class PartitionTestOperation extends BulkGraphOperation<TestOne> {
+
+		private Set<String> handled = null;
+		private String failingId    = null;
+
+		public PartitionTestOperation(final Set<String> handled, final String failingId) {
+
+			this.handled   = handled;
+			this.failingId = failingId;
+		}
+
+		@Override
+		public void handleGraphObject(final SecurityContext securityContext, final TestOne node) throws FrameworkException {
+
+			if (node.getUuid().equals(failingId)) {
+				throw new IllegalStateException("Partition failure");
+			}
+
+			handled.add(node.getUuid());
+		}
+
+		@Override
+		public void handleThrowable(final SecurityContext securityContext, final Throwable t, final TestOne node) {
+
+			// fail the whole partition
+			throw new IllegalStateException(t);
+		}
+
+		@Override
+		public void handleTransactionFailure(final SecurityContext securityContext, final Throwable t) {
+		}
+
+		@Override
+		public boolean isPartitionSafe() {
+			return true;
+		}
+	}
 }
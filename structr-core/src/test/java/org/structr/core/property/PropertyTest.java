@@ -18,6 +18,7 @@
  */
 package org.structr.core.property;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -1761,35 +1762,109 @@ public class PropertyTest extends StructrTest {
 		}
 
 	}
-}
 
+	// ----- aggregate property tests -----
+	@Test
+	public void testMaterializedAggregateProperties() {
 
+		TestSix testSix1 = null;
+		TestSix testSix2 = null;
+		TestOne testOne  = null;
 
+		try (final Tx tx = app.tx()) {
 
+			testSix1 = app.create(TestSix.class);
+			testSix2 = app.create(TestSix.class);
 
+			final List<TestOne> testOnes = new LinkedList<>();
 
+			for (int i=1; i<=3; i++) {
+				testOnes.add(app.create(TestOne.class, new NodeAttribute<>(TestOne.anInt, i)));
+			}
 
+			testOne = testOnes.get(0);
 
+			testSix1.setProperty(TestSix.oneToManyTestOnes, testOnes);
+			testSix2.setProperty(TestSix.oneToManyTestOnes, Arrays.asList(app.create(TestOne.class, new NodeAttribute<>(TestOne.anInt, 2))));
 
+			tx.success();
 
+		} catch (FrameworkException fex) {
 
+			logger.warn("", fex);
+			fail("Unexpected exception");
+		}
 
+		try (final Tx tx = app.tx()) {
 
+			// values must be stored in the database
+			assertEquals("Invalid materialized count", 3L, ((Number)testSix1.getNode().getProperty("oneToManyTestOnesCount")).longValue());
+			assertEquals("Invalid materialized sum",   6L, ((Number)testSix1.getNode().getProperty("oneToManyTestOnesSum")).longValue());
 
+			assertEquals("Invalid materialized count", (Integer)3, testSix1.getProperty(TestSix.oneToManyTestOnesCount));
+			assertEquals("Invalid materialized sum",   (Integer)6, testSix1.getProperty(TestSix.oneToManyTestOnesSum));
+			assertEquals("Invalid materialized count", (Integer)1, testSix2.getProperty(TestSix.oneToManyTestOnesCount));
+			assertEquals("Invalid materialized sum",   (Integer)2, testSix2.getProperty(TestSix.oneToManyTestOnesSum));
 
+			// sorting must work in the database
+			final List<TestSix> sorted = app.nodeQuery(TestSix.class).sort(TestSix.oneToManyTestOnesCount).getAsList();
 
+			assertEquals("Invalid sort result for materialized property", testSix2, sorted.get(0));
+			assertEquals("Invalid sort result for materialized property", testSix1, sorted.get(1));
 
+			tx.success();
 
+		} catch (FrameworkException fex) {
 
+			logger.warn("", fex);
+			fail("Unexpected exception");
+		}
 
+		// modification of a related value must update the sum
+		try (final Tx tx = app.tx()) {
 
+			testOne.setProperty(TestOne.anInt, 10);
+			tx.success();
 
+		} catch (FrameworkException fex) {
 
+			logger.warn("", fex);
+			fail("Unexpected exception");
+		}
 
+		try (final Tx tx = app.tx()) {
 
+			assertEquals("Invalid materialized sum after modification", (Integer)15, testSix1.getProperty(TestSix.oneToManyTestOnesSum));
+			tx.success();
 
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception");
+		}
+
+		// deletion of a related node must update count and sum
+		try (final Tx tx = app.tx()) {
+
+			app.delete(testOne);
+			tx.success();
+
+		} catch (FrameworkException fex) {
 
+			logger.warn("", fex);
+			fail("Unexpected exception");
+		}
 
+		try (final Tx tx = app.tx()) {
 
+			assertEquals("Invalid materialized count after deletion", (Integer)2, testSix1.getProperty(TestSix.oneToManyTestOnesCount));
+			assertEquals("Invalid materialized sum after deletion",   (Integer)5, testSix1.getProperty(TestSix.oneToManyTestOnesSum));
+			tx.success();
 
+		} catch (FrameworkException fex) {
 
+			logger.warn("", fex);
+			fail("Unexpected exception");
+		}
+	}
+}
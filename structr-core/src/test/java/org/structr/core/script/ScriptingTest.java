@@ -27,6 +27,7 @@ import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Random;
 import org.apache.commons.lang3.StringUtils;
 import static org.junit.Assert.assertNotNull;
@@ -42,6 +43,7 @@ import org.structr.common.SecurityContext;
 import org.structr.common.StructrTest;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
+import org.structr.core.Services;
 import org.structr.core.app.App;
 import org.structr.core.app.StructrApp;
 import org.structr.core.entity.AbstractNode;
@@ -59,6 +61,7 @@ import org.structr.core.entity.TestSix;
 import org.structr.core.entity.TestThree;
 import org.structr.core.entity.TestTwo;
 import org.structr.core.entity.TestUser;
+import org.structr.core.function.ChangelogFunction;
 import org.structr.core.function.DateFormatFunction;
 import org.structr.core.function.FindFunction;
 import org.structr.core.function.NumberFormatFunction;
@@ -2088,4 +2091,107 @@ public class ScriptingTest extends StructrTest {
                 }
 
 	}
+
+	@Test
+	public void testChangelog() {
+
+		final Services services = Services.getInstance();
+		final ActionContext ctx = new ActionContext(securityContext, null);
+		TestOne testNode        = null;
+
+		services.getCurrentConfig().setProperty(Services.APPLICATION_CHANGELOG_ENABLED, "true");
+
+		try {
+
+			try (final Tx tx = app.tx()) {
+
+				testNode = createTestNode(TestOne.class);
+				tx.success();
+			}
+
+			for (final String value : new String[] { "one", "two", "three" }) {
+
+				try (final Tx tx = app.tx()) {
+
+					testNode.setProperty(TestOne.aString, value);
+					tx.success();
+				}
+			}
+
+			try (final Tx tx = app.tx()) {
+
+				final List<Map<String, Object>> changelog = getChanges((List)new ChangelogFunction().apply(ctx, null, new Object[] { testNode }), "aString");
+
+				assertEquals("Invalid number of changelog entries", 3, changelog.size());
+				assertEquals("Invalid changelog entry", "\"one\"",   changelog.get(0).get("val"));
+				assertEquals("Invalid changelog entry", "\"three\"", changelog.get(2).get("val"));
+
+				// time range filtering
+				final Long from                      = (Long)changelog.get(2).get("time");
+				final List<Map<String, Object>> last = getChanges((List)new ChangelogFunction().apply(ctx, null, new Object[] { testNode, false, from }), "aString");
+
+				assertEquals("Invalid changelog entry for time range", "\"three\"", last.get(last.size() - 1).get("val"));
+				assertTrue("Changelog time range filtering failed", last.size() < changelog.size() || from.equals(changelog.get(0).get("time")));
+
+				// changelog must be readable by uuid
+				assertEquals("Invalid number of changelog entries", 3, getChanges((List)new ChangelogFunction().apply(ctx, null, new Object[] { testNode.getUuid() }), "aString").size());
+
+				tx.success();
+			}
+
+			// changelog must not be readable without read permission
+			TestUser owner      = null;
+			TestOne privateNode = null;
+
+			try (final Tx tx = app.tx()) {
+
+				owner = createTestNode(TestUser.class);
+				tx.success();
+			}
+
+			final App ownerApp = StructrApp.getInstance(SecurityContext.getInstance(owner, AccessMode.Backend));
+
+			try (final Tx tx = ownerApp.tx()) {
+
+				privateNode = ownerApp.create(TestOne.class, new NodeAttribute<>(TestOne.aString, "private"));
+				tx.success();
+			}
+
+			try (final Tx tx = app.tx()) {
+
+				final ActionContext anonymousContext = new ActionContext(SecurityContext.getInstance(null, AccessMode.Frontend), null);
+				final GraphObject loadedNode         = app.get(privateNode.getUuid());
+
+				assertEquals("Invalid number of changelog entries", 1, getChanges((List)new ChangelogFunction().apply(ctx, null, new Object[] { loadedNode }), "aString").size());
+				assertTrue("Changelog must not be visible without read access", ((List)new ChangelogFunction().apply(anonymousContext, null, new Object[] { loadedNode })).isEmpty());
+				assertTrue("Changelog must not be visible without read access", ((List)new ChangelogFunction().apply(anonymousContext, null, new Object[] { privateNode.getUuid() })).isEmpty());
+
+				tx.success();
+			}
+
+		} catch (FrameworkException ex) {
+
+			logger.warn("", ex);
+			fail("Unexpected exception");
+
+		} finally {
+
+			services.getCurrentConfig().setProperty(Services.APPLICATION_CHANGELOG_ENABLED, "false");
+		}
+	}
+
+	// ----- private methods -----
+	private List<Map<String, Object>> getChanges(final List<Map<String, Object>> changelog, final String key) {
+
+		final List<Map<String, Object>> result = new LinkedList<>();
+
+		for (final Map<String, Object> entry : changelog) {
+
+			if ("change".equals(entry.get("verb")) && key.equals(entry.get("key"))) {
+				result.add(entry);
+			}
+		}
+
+		return result;
+	}
 }
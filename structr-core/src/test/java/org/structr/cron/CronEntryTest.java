@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.cron;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import org.junit.Test;
+
+/**
+ *
+ *
+ */
+public class CronEntryTest {
+
+	@Test
+	public void testNextExecutionTime() {
+
+		final Calendar start = new GregorianCalendar(2017, Calendar.MARCH, 1, 10, 15, 30);
+		final Calendar next  = GregorianCalendar.getInstance();
+
+		start.set(Calendar.MILLISECOND, 500);
+
+		// every ten seconds
+		final CronEntry entry1 = CronEntry.parse("test1", "*/10 * * * * *");
+		assertNotNull(entry1);
+
+		next.setTimeInMillis(entry1.getNextExecutionTimeAfter(start.getTimeInMillis()));
+		assertEquals(40, next.get(Calendar.SECOND));
+		assertEquals(0, next.get(Calendar.MILLISECOND));
+
+		// strictly after the given time
+		next.setTimeInMillis(entry1.getNextExecutionTimeAfter(next.getTimeInMillis()));
+		assertEquals(50, next.get(Calendar.SECOND));
+
+		// every day at 03:00:00
+		final CronEntry entry2 = CronEntry.parse("test2", "0 0 3 * * *");
+		assertNotNull(entry2);
+
+		next.setTimeInMillis(entry2.getNextExecutionTimeAfter(start.getTimeInMillis()));
+		assertEquals(2, next.get(Calendar.DAY_OF_MONTH));
+		assertEquals(3, next.get(Calendar.HOUR_OF_DAY));
+		assertEquals(0, next.get(Calendar.MINUTE));
+		assertEquals(0, next.get(Calendar.SECOND));
+	}
+}
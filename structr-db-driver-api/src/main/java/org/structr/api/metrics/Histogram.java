@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.api.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram with logarithmic buckets that are subdivided linearly, so
+ * that the relative error of every recorded value is below 12.5% over
+ * the whole range of positive long values. Recording a value does not
+ * allocate and does not block.
+ */
+public class Histogram {
+
+	private static final int SUB_BUCKET_BITS  = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_LIMIT     = SUB_BUCKET_COUNT * 2;
+	private static final int BUCKET_COUNT     = index(Long.MAX_VALUE) + 1;
+
+	private final AtomicLongArray buckets     = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong max              = new AtomicLong();
+	private final LongAdder count             = new LongAdder();
+	private final LongAdder sum               = new LongAdder();
+
+	public void record(final long value) {
+
+		final long v = Math.max(0L, value);
+
+		buckets.incrementAndGet(index(v));
+		count.increment();
+		sum.add(v);
+
+		long current = max.get();
+		while (v > current && !max.compareAndSet(current, v)) {
+			current = max.get();
+		}
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getSum() {
+		return sum.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+
+		final long n = getCount();
+		if (n > 0) {
+
+			return (double)getSum() / n;
+		}
+
+		return 0.0;
+	}
+
+	/**
+	 * Returns an upper bound of the value below which the given fraction
+	 * of all recorded values falls.
+	 *
+	 * @param quantile the quantile, between 0.0 and 1.0
+	 * @return the value at the given quantile, or 0 if nothing was recorded
+	 */
+	public long getValueAtQuantile(final double quantile) {
+
+		final long[] snapshot = new long[BUCKET_COUNT];
+		long total            = 0L;
+
+		for (int i=0; i<BUCKET_COUNT; i++) {
+
+			snapshot[i]  = buckets.get(i);
+			total       += snapshot[i];
+		}
+
+		if (total == 0) {
+			return 0L;
+		}
+
+		final long rank = Math.max(1L, (long)Math.ceil(quantile * total));
+		long seen       = 0L;
+
+		for (int i=0; i<BUCKET_COUNT; i++) {
+
+			seen += snapshot[i];
+
+			if (seen >= rank) {
+				return Math.min(upperBound(i), getMax());
+			}
+		}
+
+		return getMax();
+	}
+
+	// ----- private methods -----
+	private static int index(final long value) {
+
+		if (value < LINEAR_LIMIT) {
+			return (int)value;
+		}
+
+		final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		final int sub   = (int)(value >>> shift) & (SUB_BUCKET_COUNT - 1);
+
+		return (shift + 1) * SUB_BUCKET_COUNT + sub;
+	}
+
+	private static long upperBound(final int index) {
+
+		if (index < LINEAR_LIMIT) {
+			return index;
+		}
+
+		final int shift = index / SUB_BUCKET_COUNT - 1;
+		final int sub   = index % SUB_BUCKET_COUNT;
+
+		return ((SUB_BUCKET_COUNT + sub + 1L) << shift) - 1;
+	}
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.api.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A named metric with an optional label. Each distinct label value is
+ * a separate series. The number of series is limited, values that exceed
+ * the limit are combined in a single series with the label value
+ * <code>other</code>.
+ *
+ * @param <T> the type of the metric
+ */
+public class MetricFamily<T> {
+
+	public static final String OTHER         = "other";
+	public static final int MAX_SERIES       = 500;
+
+	public enum Type {
+		counter, gauge, summary
+	}
+
+	private final Map<String, T> series      = new ConcurrentHashMap<>();
+	private Supplier<T> factory              = null;
+	private String label                     = null;
+	private String name                      = null;
+	private String help                      = null;
+	private Type type                        = null;
+
+	public MetricFamily(final String name, final String help, final Type type, final String label, final Supplier<T> factory) {
+
+		this.factory = factory;
+		this.label   = label;
+		this.name    = name;
+		this.help    = help;
+		this.type    = type;
+	}
+
+	/**
+	 * Returns the series of this family, for families without a label.
+	 *
+	 * @return the metric
+	 */
+	public T get() {
+		return get("");
+	}
+
+	/**
+	 * Returns the series for the given label value, creating it if
+	 * necessary.
+	 *
+	 * @param labelValue
+	 * @return the metric
+	 */
+	public T get(final String labelValue) {
+
+		final String key = labelValue != null ? labelValue : "null";
+		final T metric   = series.get(key);
+
+		if (metric != null) {
+			return metric;
+		}
+
+		if (series.size() >= MAX_SERIES) {
+			return series.computeIfAbsent(OTHER, k -> factory.get());
+		}
+
+		return series.computeIfAbsent(key, k -> factory.get());
+	}
+
+	public void put(final String labelValue, final T metric) {
+		series.put(labelValue != null ? labelValue : "", metric);
+	}
+
+	public Map<String, T> getSeries() {
+		return Collections.unmodifiableMap(series);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getHelp() {
+		return help;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.api.metrics;
+
+import java.util.Map;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+
+/**
+ * Read-only MBean that exposes all metrics of a {@link MetricsRegistry}
+ * as attributes.
+ */
+class MetricsMBean implements DynamicMBean {
+
+	private MetricsRegistry registry = null;
+
+	public MetricsMBean(final MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public Object getAttribute(final String attribute) throws AttributeNotFoundException {
+
+		final Object value = registry.getValues().get(attribute);
+		if (value == null) {
+
+			throw new AttributeNotFoundException(attribute);
+		}
+
+		return value;
+	}
+
+	@Override
+	public void setAttribute(final Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("Metrics are read-only");
+	}
+
+	@Override
+	public AttributeList getAttributes(final String[] attributes) {
+
+		final Map<String, Object> values = registry.getValues();
+		final AttributeList list         = new AttributeList();
+
+		for (final String attribute : attributes) {
+
+			final Object value = values.get(attribute);
+			if (value != null) {
+
+				list.add(new Attribute(attribute, value));
+			}
+		}
+
+		return list;
+	}
+
+	@Override
+	public AttributeList setAttributes(final AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(final String actionName, final Object[] params, final String[] signature) {
+		throw new UnsupportedOperationException("Metrics MBean has no operations");
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+
+		final Map<String, Object> values        = registry.getValues();
+		final MBeanAttributeInfo[] attributes   = new MBeanAttributeInfo[values.size()];
+		int i                                   = 0;
+
+		for (final Map.Entry<String, Object> entry : values.entrySet()) {
+			attributes[i++] = new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(), entry.getKey(), true, false, false);
+		}
+
+		return new MBeanInfo(MetricsMBean.class.getName(), "Structr metrics", attributes, null, new MBeanOperationInfo[0], null);
+	}
+}
@@ -0,0 +1,233 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.api.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Central registry for counters, gauges and histograms.
+ *
+ * Histograms record durations in nanoseconds and are exported in seconds.
+ * Metrics should be looked up once and kept in a field, recording a value
+ * on a metric is lock-free and does not allocate.
+ */
+public class MetricsRegistry {
+
+	private static final String OBJECT_NAME                       = "org.structr:type=Metrics";
+	private static final double[] QUANTILES                       = { 0.5, 0.9, 0.99 };
+	private static final double NANOS_PER_SECOND                  = 1_000_000_000.0;
+	private static final MetricsRegistry instance                 = new MetricsRegistry();
+
+	private final Map<String, MetricFamily> families              = new ConcurrentSkipListMap<>();
+
+	MetricsRegistry() {
+		// use getInstance(), separate registries are only created in tests
+	}
+
+	public static MetricsRegistry getInstance() {
+		return instance;
+	}
+
+	public Counter counter(final String name, final String help) {
+		return counters(name, help, null).get();
+	}
+
+	public MetricFamily<Counter> counters(final String name, final String help, final String label) {
+		return family(name, help, MetricFamily.Type.counter, label, Counter::new);
+	}
+
+	public Histogram histogram(final String name, final String help) {
+		return histograms(name, help, null).get();
+	}
+
+	public MetricFamily<Histogram> histograms(final String name, final String help, final String label) {
+		return family(name, help, MetricFamily.Type.summary, label, Histogram::new);
+	}
+
+	/**
+	 * Registers the given gauge, replacing an existing gauge with the
+	 * same name.
+	 *
+	 * @param name
+	 * @param help
+	 * @param gauge
+	 */
+	public void gauge(final String name, final String help, final Gauge gauge) {
+
+		final MetricFamily<Gauge> family = family(name, help, MetricFamily.Type.gauge, null, () -> () -> 0.0);
+
+		family.put("", gauge);
+	}
+
+	/**
+	 * Writes all metrics in the Prometheus text exposition format.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeTo(final Appendable out) throws IOException {
+
+		for (final MetricFamily<?> family : families.values()) {
+
+			final String name = family.getName();
+
+			out.append("# HELP ").append(name).append(" ").append(escape(family.getHelp(), false)).append("\n");
+			out.append("# TYPE ").append(name).append(" ").append(family.getType().name()).append("\n");
+
+			for (final Map.Entry<String, ?> entry : family.getSeries().entrySet()) {
+
+				final String labels = labels(family, entry.getKey());
+				final Object metric = entry.getValue();
+
+				if (metric instanceof Counter) {
+
+					out.append(name).append(labels(labels, null)).append(" ").append(Long.toString(((Counter)metric).get())).append("\n");
+
+				} else if (metric instanceof Gauge) {
+
+					out.append(name).append(labels(labels, null)).append(" ").append(Double.toString(((Gauge)metric).getValue())).append("\n");
+
+				} else if (metric instanceof Histogram) {
+
+					final Histogram histogram = (Histogram)metric;
+
+					for (final double quantile : QUANTILES) {
+						out.append(name).append(labels(labels, "quantile=\"" + quantile + "\"")).append(" ").append(Double.toString(histogram.getValueAtQuantile(quantile) / NANOS_PER_SECOND)).append("\n");
+					}
+
+					out.append(name).append("_sum").append(labels(labels, null)).append(" ").append(Double.toString(histogram.getSum() / NANOS_PER_SECOND)).append("\n");
+					out.append(name).append("_count").append(labels(labels, null)).append(" ").append(Long.toString(histogram.getCount())).append("\n");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the current values of all metrics, histograms are split
+	 * into count, mean, percentiles and maximum in milliseconds.
+	 *
+	 * @return a map of attribute names and values
+	 */
+	public Map<String, Object> getValues() {
+
+		final Map<String, Object> values = new LinkedHashMap<>();
+
+		for (final MetricFamily<?> family : families.values()) {
+
+			for (final Map.Entry<String, ?> entry : family.getSeries().entrySet()) {
+
+				final String key    = family.getLabel() != null ? family.getName() + "." + entry.getKey() : family.getName();
+				final Object metric = entry.getValue();
+
+				if (metric instanceof Counter) {
+
+					values.put(key, ((Counter)metric).get());
+
+				} else if (metric instanceof Gauge) {
+
+					values.put(key, ((Gauge)metric).getValue());
+
+				} else if (metric instanceof Histogram) {
+
+					final Histogram histogram = (Histogram)metric;
+
+					values.put(key + ".count",  histogram.getCount());
+					values.put(key + ".meanMs", histogram.getMean() / 1_000_000.0);
+					values.put(key + ".p50Ms",  histogram.getValueAtQuantile(0.5) / 1_000_000.0);
+					values.put(key + ".p99Ms",  histogram.getValueAtQuantile(0.99) / 1_000_000.0);
+					values.put(key + ".maxMs",  histogram.getMax() / 1_000_000.0);
+				}
+			}
+		}
+
+		return values;
+	}
+
+	/**
+	 * Makes the metrics available via JMX in the platform MBean server.
+	 *
+	 * @throws JMException
+	 */
+	public synchronized void registerMBean() throws JMException {
+
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName name    = new ObjectName(OBJECT_NAME);
+
+		if (!server.isRegistered(name)) {
+			server.registerMBean(new MetricsMBean(this), name);
+		}
+	}
+
+	// ----- private methods -----
+	private <T> MetricFamily<T> family(final String name, final String help, final MetricFamily.Type type, final String label, final Supplier<T> factory) {
+
+		final MetricFamily family = families.computeIfAbsent(name, k -> new MetricFamily<>(name, help, type, label, factory));
+
+		if (family.getType() != type) {
+			throw new IllegalArgumentException("Metric " + name + " is already registered as " + family.getType());
+		}
+
+		return family;
+	}
+
+	private static String labels(final MetricFamily family, final String labelValue) {
+
+		if (family.getLabel() != null) {
+			return family.getLabel() + "=\"" + escape(labelValue, true) + "\"";
+		}
+
+		return null;
+	}
+
+	private static String labels(final String labels, final String additional) {
+
+		if (labels != null && additional != null) {
+			return "{" + labels + "," + additional + "}";
+		}
+
+		if (labels != null) {
+			return "{" + labels + "}";
+		}
+
+		if (additional != null) {
+			return "{" + additional + "}";
+		}
+
+		return "";
+	}
+
+	private static String escape(final String value, final boolean quotes) {
+
+		String escaped = value.replace("\\", "\\\\").replace("\n", "\\n");
+
+		if (quotes) {
+			escaped = escaped.replace("\"", "\\\"");
+		}
+
+		return escaped;
+	}
+}
@@ -0,0 +1,244 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.api.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Geohash encoding of coordinates, used to narrow down distance searches
+ * to the nodes in a set of grid cells before the exact distance is
+ * computed.
+ *
+ * Geo-tagged nodes store the geohash of their coordinates in several
+ * precisions (see {@link #PRECISIONS}), one property per precision. A
+ * distance search is expanded into the cells of a single precision that
+ * cover the bounding box of the search circle.
+ */
+public class GeoHash {
+
+	public static final String LATITUDE  = "latitude";
+	public static final String LONGITUDE = "longitude";
+
+	/**
+	 * The stored precisions, from coarse (~1250 km cells) to fine (~40 m cells).
+	 */
+	public static final int[] PRECISIONS = new int[] { 2, 4, 6, 8 };
+
+	/**
+	 * The maximum number of cells a search circle is expanded into.
+	 */
+	public static final int MAX_CELLS = 64;
+
+	// use the polar radius so that the bounding box is never too small
+	private static final double MIN_EARTH_RADIUS = 6356752.0;
+	private static final char[] BASE32           = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+	/**
+	 * Returns the name of the property that stores the geohash with the
+	 * given precision.
+	 *
+	 * @param precision the precision
+	 * @return the property name
+	 */
+	public static String getPropertyName(final int precision) {
+		return "geohash" + precision;
+	}
+
+	/**
+	 * Indicates whether the given property name is one of the coordinate
+	 * properties a geohash is computed from.
+	 *
+	 * @param name the property name
+	 * @return whether the property holds a coordinate
+	 */
+	public static boolean isCoordinate(final String name) {
+		return LATITUDE.equals(name) || LONGITUDE.equals(name);
+	}
+
+	/**
+	 * Encodes the given coordinates into a geohash with the given number
+	 * of characters.
+	 *
+	 * @param latitude the latitude
+	 * @param longitude the longitude
+	 * @param precision the number of characters
+	 * @return the geohash
+	 */
+	public static String encode(final double latitude, final double longitude, final int precision) {
+
+		final StringBuilder buf = new StringBuilder(precision);
+		double latMin           = -90.0;
+		double latMax           = 90.0;
+		double lonMin           = -180.0;
+		double lonMax           = 180.0;
+		boolean even            = true;
+		int bit                 = 0;
+		int ch                  = 0;
+
+		while (buf.length() < precision) {
+
+			if (even) {
+
+				final double mid = (lonMin + lonMax) / 2.0;
+				if (longitude >= mid) {
+
+					ch     = (ch << 1) | 1;
+					lonMin = mid;
+
+				} else {
+
+					ch     = ch << 1;
+					lonMax = mid;
+				}
+
+			} else {
+
+				final double mid = (latMin + latMax) / 2.0;
+				if (latitude >= mid) {
+
+					ch     = (ch << 1) | 1;
+					latMin = mid;
+
+				} else {
+
+					ch     = ch << 1;
+					latMax = mid;
+				}
+			}
+
+			even = !even;
+
+			if (++bit == 5) {
+
+				buf.append(BASE32[ch]);
+				bit = 0;
+				ch  = 0;
+			}
+		}
+
+		return buf.toString();
+	}
+
+	/**
+	 * Returns the cells of the finest stored precision that cover the
+	 * circle with the given center and radius and do not exceed
+	 * {@link #MAX_CELLS}, or null if the circle is too large to be
+	 * covered by the coarsest precision.
+	 *
+	 * @param latitude the latitude of the center
+	 * @param longitude the longitude of the center
+	 * @param radius the radius in meters
+	 * @return the covering cells or null
+	 */
+	public static Cover cover(final double latitude, final double longitude, final double radius) {
+
+		if (Double.isNaN(latitude) || Double.isNaN(longitude) || Double.isNaN(radius) || radius < 0.0) {
+			return null;
+		}
+
+		final double deltaLat = Math.toDegrees(radius / MIN_EARTH_RADIUS);
+		final double latMin   = latitude - deltaLat;
+		final double latMax   = latitude + deltaLat;
+		boolean allLongitudes = latMin <= -90.0 || latMax >= 90.0;
+		double deltaLon       = 180.0;
+
+		if (!allLongitudes) {
+
+			// longitude degrees shrink towards the poles, use the latitude that is closest to a pole
+			final double maxLat = Math.toRadians(Math.max(Math.abs(latMin), Math.abs(latMax)));
+
+			deltaLon      = deltaLat / Math.cos(maxLat);
+			allLongitudes = deltaLon >= 180.0;
+		}
+
+		for (int i = PRECISIONS.length - 1; i >= 0; i--) {
+
+			final int precision = PRECISIONS[i];
+			final int bits      = precision * 5;
+			final int lonCells  = 1 << ((bits + 1) / 2);
+			final int latCells  = 1 << (bits / 2);
+			final double width  = 360.0 / lonCells;
+			final double height = 180.0 / latCells;
+
+			final int latStart  = clamp((int)Math.floor((latMin + 90.0) / height), latCells);
+			final int latEnd    = clamp((int)Math.floor((latMax + 90.0) / height), latCells);
+			final int lonStart  = allLongitudes ? 0 : (int)Math.floor((longitude - deltaLon + 180.0) / width);
+			final int lonEnd    = allLongitudes ? lonCells - 1 : (int)Math.floor((longitude + deltaLon + 180.0) / width);
+			final int lonCount  = Math.min(lonEnd - lonStart + 1, lonCells);
+			final long count    = (long)(latEnd - latStart + 1) * lonCount;
+
+			if (count <= MAX_CELLS) {
+
+				final Set<String> cells = new LinkedHashSet<>();
+
+				for (int lat = latStart; lat <= latEnd; lat++) {
+
+					for (int lon = lonStart; lon < lonStart + lonCount; lon++) {
+
+						// wrap around the antimeridian
+						final int wrapped = ((lon % lonCells) + lonCells) % lonCells;
+
+						cells.add(encode(-90.0 + (lat + 0.5) * height, -180.0 + (wrapped + 0.5) * width, precision));
+					}
+				}
+
+				return new Cover(precision, new ArrayList<>(cells));
+			}
+		}
+
+		return null;
+	}
+
+	// ----- private methods -----
+	private static int clamp(final int index, final int cells) {
+		return Math.max(0, Math.min(cells - 1, index));
+	}
+
+	// ----- nested classes -----
+	/**
+	 * A set of geohash cells of the same precision.
+	 */
+	public static class Cover {
+
+		private List<String> cells = null;
+		private int precision      = 0;
+
+		public Cover(final int precision, final List<String> cells) {
+
+			this.precision = precision;
+			this.cells     = Collections.unmodifiableList(cells);
+		}
+
+		public int getPrecision() {
+			return precision;
+		}
+
+		public String getPropertyName() {
+			return GeoHash.getPropertyName(precision);
+		}
+
+		public List<String> getCells() {
+			return cells;
+		}
+	}
+}
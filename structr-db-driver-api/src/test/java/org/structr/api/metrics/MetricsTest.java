@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.api.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class MetricsTest {
+
+	@Test
+	public void testConcurrentRecording() throws InterruptedException {
+
+		final Histogram histogram = new Histogram();
+		final Counter counter     = new Counter();
+		final List<Thread> threads = new ArrayList<>();
+
+		for (int t=0; t<8; t++) {
+
+			final Thread thread = new Thread(() -> {
+
+				for (int i=1; i<=10000; i++) {
+					histogram.record(i);
+					counter.increment();
+				}
+			});
+
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertEquals("Invalid counter value",     80000, counter.get());
+		Assert.assertEquals("Invalid histogram count",   80000, histogram.getCount());
+		Assert.assertEquals("Invalid histogram sum",     8L * 50005000L, histogram.getSum());
+		Assert.assertEquals("Invalid histogram maximum", 10000, histogram.getMax());
+	}
+
+	@Test
+	public void testQuantiles() {
+
+		final Histogram histogram = new Histogram();
+
+		for (int i=1; i<=1_000_000; i++) {
+			histogram.record(i);
+		}
+
+		assertWithin(500_000, histogram.getValueAtQuantile(0.5));
+		assertWithin(900_000, histogram.getValueAtQuantile(0.9));
+		assertWithin(990_000, histogram.getValueAtQuantile(0.99));
+
+		Assert.assertEquals("Invalid mean", 500_000.5, histogram.getMean(), 0.001);
+	}
+
+	@Test
+	public void testSeriesLimit() {
+
+		final MetricFamily<Counter> family = new MetricFamily<>("test_total", "Test", MetricFamily.Type.counter, "key", Counter::new);
+
+		for (int i=0; i<MetricFamily.MAX_SERIES * 2; i++) {
+			family.get("value" + i).increment();
+		}
+
+		Assert.assertTrue("Series limit exceeded", family.getSeries().size() <= MetricFamily.MAX_SERIES + 1);
+		Assert.assertTrue("Overflow series missing", family.getSeries().containsKey(MetricFamily.OTHER));
+	}
+
+	@Test
+	public void testPrometheusFormat() throws Exception {
+
+		// use a separate registry so the test metrics don't show up in the global output
+		final MetricsRegistry registry = new MetricsRegistry();
+
+		registry.counter("structr_test_events_total", "Test events").add(3);
+		registry.histograms("structr_test_duration_seconds", "Test durations", "kind").get("node").record(2_000_000_000L);
+		registry.gauge("structr_test_depth", "Test depth", () -> 7);
+
+		final StringBuilder buf = new StringBuilder();
+		registry.writeTo(buf);
+
+		final String output = buf.toString();
+
+		Assert.assertTrue(output.contains("# TYPE structr_test_events_total counter\n"));
+		Assert.assertTrue(output.contains("structr_test_events_total 3\n"));
+		Assert.assertTrue(output.contains("# TYPE structr_test_duration_seconds summary\n"));
+		Assert.assertTrue(output.contains("structr_test_duration_seconds_count{kind=\"node\"} 1\n"));
+		Assert.assertTrue(output.contains("structr_test_duration_seconds_sum{kind=\"node\"} 2.0\n"));
+		Assert.assertTrue(output.contains("structr_test_duration_seconds{kind=\"node\",quantile=\"0.5\"} "));
+		Assert.assertTrue(output.contains("structr_test_depth 7.0\n"));
+	}
+
+	@Test
+	public void testRecordingOverhead() {
+
+		final Histogram histogram = new Histogram();
+		final Counter counter     = new Counter();
+		final int count           = 5_000_000;
+
+		// warm up
+		for (int i=0; i<count; i++) {
+			histogram.record(i);
+			counter.increment();
+		}
+
+		long start = System.nanoTime();
+
+		for (int i=0; i<count; i++) {
+			histogram.record(i);
+		}
+
+		final double recordNanos = (double)(System.nanoTime() - start) / count;
+
+		start = System.nanoTime();
+
+		for (int i=0; i<count; i++) {
+			counter.increment();
+		}
+
+		final double incrementNanos = (double)(System.nanoTime() - start) / count;
+
+		Assert.assertEquals("Invalid histogram count", 2L * count, histogram.getCount());
+		Assert.assertEquals("Invalid counter value",   2L * count, counter.get());
+
+		// uncontended recording takes a few nanoseconds, the bounds only catch locking or allocation on the hot path
+		Assert.assertTrue("Histogram.record() too slow: " + recordNanos + " ns",       recordNanos < 500.0);
+		Assert.assertTrue("Counter.increment() too slow: " + incrementNanos + " ns", incrementNanos < 250.0);
+	}
+
+	// ----- private methods -----
+	private void assertWithin(final long expected, final long actual) {
+		Assert.assertTrue("Quantile " + actual + " too far from " + expected, Math.abs(actual - expected) <= expected * 0.125);
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.api.util;
+
+import java.util.Random;
+import org.junit.Assert;
+
+/**
+ *
+ */
+public class GeoHashTest {
+
+	@org.junit.Test
+	public void testEncode() {
+
+		Assert.assertEquals("Invalid geohash", "u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+		Assert.assertEquals("Invalid geohash", "u4pr",        GeoHash.encode(57.64911, 10.40744, 4));
+		Assert.assertEquals("Invalid geohash", "s0000000",    GeoHash.encode(0.0, 0.0, 8));
+		Assert.assertEquals("Invalid geohash", "zzzzzzzz",    GeoHash.encode(90.0, 180.0, 8));
+	}
+
+	@org.junit.Test
+	public void testCover() {
+
+		final Random random = new Random(42L);
+
+		for (int i=0; i<2000; i++) {
+
+			final double latitude  = random.nextDouble() * 170.0 - 85.0;
+			final double longitude = random.nextDouble() * 360.0 - 180.0;
+			final double radius    = Math.pow(10.0, 1.0 + random.nextDouble() * 5.0);   // 10 m to 1000 km
+			final GeoHash.Cover cover = GeoHash.cover(latitude, longitude, radius);
+
+			if (cover != null) {
+
+				Assert.assertTrue("Too many cells", cover.getCells().size() <= GeoHash.MAX_CELLS);
+
+				// all points within the radius must be located in one of the cells
+				for (int j=0; j<20; j++) {
+
+					final double[] point = destination(latitude, longitude, random.nextDouble() * 360.0, random.nextDouble() * radius);
+					final String hash    = GeoHash.encode(point[0], point[1], cover.getPrecision());
+
+					Assert.assertTrue("Point within radius not covered", cover.getCells().contains(hash));
+				}
+
+			} else {
+
+				Assert.assertTrue("Small circle should be covered", radius > 100000.0);
+			}
+		}
+	}
+
+	@org.junit.Test
+	public void testCoverPrecision() {
+
+		Assert.assertEquals("Invalid cover precision", 8, GeoHash.cover(52.52, 13.40, 50.0).getPrecision());
+		Assert.assertEquals("Invalid cover precision", 6, GeoHash.cover(52.52, 13.40, 1000.0).getPrecision());
+		Assert.assertEquals("Invalid cover precision", 4, GeoHash.cover(52.52, 13.40, 20000.0).getPrecision());
+		Assert.assertNull("Huge circle should not be covered", GeoHash.cover(52.52, 13.40, 5000000.0));
+	}
+
+	// ----- private methods -----
+	private double[] destination(final double latitude, final double longitude, final double bearing, final double distance) {
+
+		final double delta = distance / 6371000.0;
+		final double theta = Math.toRadians(bearing);
+		final double phi1  = Math.toRadians(latitude);
+		final double lamb1 = Math.toRadians(longitude);
+		final double phi2  = Math.asin(Math.sin(phi1) * Math.cos(delta) + Math.cos(phi1) * Math.sin(delta) * Math.cos(theta));
+		final double lamb2 = lamb1 + Math.atan2(Math.sin(theta) * Math.sin(delta) * Math.cos(phi1), Math.cos(delta) - Math.sin(phi1) * Math.sin(phi2));
+
+		return new double[] { Math.toDegrees(phi2), ((Math.toDegrees(lamb2) + 540.0) % 360.0) - 180.0 };
+	}
+}
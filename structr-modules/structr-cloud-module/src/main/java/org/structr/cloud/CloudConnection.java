@@ -87,6 +87,7 @@ public class CloudConnection<T> extends Thread implements TransactionSource {
 
 	// private fields
 	private final ConfigurationProvider config = Services.getInstance().getConfigurationProvider();
+	private final Object stateMonitor          = new Object();
 	private App app                            = null;
 	private CloudListener listener             = null;
 	private long transmissionAbortTime         = 0L;
@@ -229,29 +230,29 @@ public class CloudConnection<T> extends Thread implements TransactionSource {
 		} catch (Throwable t) {
 			logger.warn("", t);
 		}
+
+		notifyStateChange();
 	}
 
 	public void waitForAuthentication() throws FrameworkException {
 
 		final long abortTime = System.currentTimeMillis() + CloudService.AUTH_TIMEOUT;
 
-		while (!authenticated) {
-
-			if (errorMessage != null) {
-				throw new FrameworkException(errorCode, errorMessage);
-			}
+		synchronized (stateMonitor) {
 
-			if (System.currentTimeMillis() > abortTime) {
+			while (!authenticated) {
 
-				throw new FrameworkException(401, "Authentication failed.");
-			}
+				if (errorMessage != null) {
+					throw new FrameworkException(errorCode, errorMessage);
+				}
 
-			try {
+				final long remaining = abortTime - System.currentTimeMillis();
+				if (remaining <= 0) {
 
-				Thread.sleep(10);
+					throw new FrameworkException(401, "Authentication failed.");
+				}
 
-			} catch (Throwable t) {
-				logger.warn("", t);
+				waitForStateChange(remaining);
 			}
 		}
 	}
@@ -264,23 +265,22 @@ public class CloudConnection<T> extends Thread implements TransactionSource {
 
 		transmissionAbortTime = System.currentTimeMillis() + CloudService.DEFAULT_TIMEOUT;
 
-		while (isConnected()) {
-
-			if (errorMessage != null) {
-				throw new FrameworkException(errorCode, errorMessage);
-			}
+		synchronized (stateMonitor) {
 
-			if (System.currentTimeMillis() > transmissionAbortTime) {
+			while (isConnected()) {
 
-				throw new FrameworkException(504, "Timeout while waiting for response.");
-			}
+				if (errorMessage != null) {
+					throw new FrameworkException(errorCode, errorMessage);
+				}
 
-			try {
+				// abort time is refreshed by incoming messages
+				final long remaining = transmissionAbortTime - System.currentTimeMillis();
+				if (remaining <= 0) {
 
-				Thread.sleep(10);
+					throw new FrameworkException(504, "Timeout while waiting for response.");
+				}
 
-			} catch (Throwable t) {
-				logger.warn("", t);
+				waitForStateChange(remaining);
 			}
 		}
 	}
@@ -289,17 +289,19 @@ public class CloudConnection<T> extends Thread implements TransactionSource {
 
 		final long abortTime = System.currentTimeMillis() + CloudService.DEFAULT_TIMEOUT;
 
-		while (isConnected() && System.currentTimeMillis() < abortTime) {
+		synchronized (stateMonitor) {
 
-			try {
+			while (isConnected()) {
 
-				Thread.sleep(10);
+				final long remaining = abortTime - System.currentTimeMillis();
+				if (remaining <= 0) {
 
-			} catch (Throwable t) {
-				logger.warn("", t);
+					break;
+				}
+
+				waitForStateChange(remaining);
 			}
 		}
-
 	}
 
 	public void setEncryptionKey(final String key, final int keyLength) throws InvalidKeyException {
@@ -321,7 +323,10 @@ public class CloudConnection<T> extends Thread implements TransactionSource {
 	}
 
 	public void setAuthenticated() {
+
 		authenticated = true;
+
+		notifyStateChange();
 	}
 
 	public void setPassword(final String password) {
@@ -514,7 +519,14 @@ public class CloudConnection<T> extends Thread implements TransactionSource {
 		}
 	}
 
-	public void endTransaction() {
+	/**
+	 * Closes the current transaction.
+	 *
+	 * @return whether the transaction could be closed without errors
+	 */
+	public boolean endTransaction() {
+
+		boolean success = true;
 
 		if (tx != null) {
 
@@ -530,12 +542,16 @@ public class CloudConnection<T> extends Thread implements TransactionSource {
 				// down the connection gracefully, so we must make sure not to be
 				// interrupted here
 				logger.warn("", t);
+
+				success = false;
 			}
 
 			tx = null;
 		}
 
 		data.clear();
+
+		return success;
 	}
 
 	public Principal getUser(String userName) {
@@ -695,6 +711,30 @@ public class CloudConnection<T> extends Thread implements TransactionSource {
 		close();
 	}
 
+	/**
+	 * Wakes up all threads that wait for a state change of this connection.
+	 */
+	private void notifyStateChange() {
+
+		synchronized (stateMonitor) {
+			stateMonitor.notifyAll();
+		}
+	}
+
+	private void waitForStateChange(final long timeout) throws FrameworkException {
+
+		try {
+
+			stateMonitor.wait(timeout);
+
+		} catch (InterruptedException iex) {
+
+			Thread.currentThread().interrupt();
+
+			throw new FrameworkException(504, "Interrupted while waiting for response.");
+		}
+	}
+
 	public void logDebug(final String prefix, final Message request) {
 
 		if (CloudService.DEBUG) {
@@ -52,7 +52,7 @@ public class CloudService extends Thread implements RunnableService {
 	 * fields etc., the protocol only works with the exact same
 	 * counterpart.
 	 */
-	public static final int PROTOCOL_VERSION  = 4;
+	public static final int PROTOCOL_VERSION  = 5;
 
 	public static final int CHUNK_SIZE        = 65536;
 	public static final int BUFFER_SIZE       = CHUNK_SIZE * 4;
@@ -150,9 +150,59 @@ public class CloudService extends Thread implements RunnableService {
 	public static <T> T doRemote(final SecurityContext securityContext, final CloudTransmission<T> transmission, final CloudHost host, final CloudListener listener) throws FrameworkException {
 
 		CloudConnection<T> client   = null;
-		int maxKeyLen               = 128;
 		T remoteResult              = null;
 
+		try {
+
+			client = connect(securityContext, host, listener);
+
+			// do transmission in an authenticated and encrypted context
+			remoteResult = transmission.doRemote(client);
+
+			// wait for server to close connection here..
+			client.waitForClose(2000);
+			client.close();
+
+			// notify listener
+			if (listener != null) {
+				listener.transmissionFinished();
+			}
+
+		} catch (IOException  ioex) {
+
+			logger.warn("", ioex);
+
+			throw new FrameworkException(504, "Unable to connect to remote server: " + ioex.getMessage());
+
+		} finally {
+
+			if (client != null) {
+				client.close();
+			}
+		}
+
+		return remoteResult;
+	}
+
+	/**
+	 * Opens an authenticated and encrypted connection to the given host.
+	 * The remote end has already started a transaction when this method
+	 * returns. It is the responsibility of the caller to close the
+	 * connection.
+	 *
+	 * @param <T>
+	 * @param securityContext
+	 * @param host
+	 * @param listener
+	 * @return the connection
+	 * @throws IOException
+	 * @throws FrameworkException
+	 */
+	public static <T> CloudConnection<T> connect(final SecurityContext securityContext, final CloudHost host, final CloudListener listener) throws IOException, FrameworkException {
+
+		final CloudConnection<T> client = new CloudConnection(securityContext, new Socket(host.getHostName(), host.getPort()), listener);
+		int maxKeyLen                   = 128;
+
 		// obtain max. encryption key length
 		try {
 			maxKeyLen = Cipher.getMaxAllowedKeyLength(CloudService.STREAM_CIPHER);
@@ -162,7 +212,6 @@ public class CloudService extends Thread implements RunnableService {
 
 		try {
 
-			client = new CloudConnection(securityContext, new Socket(host.getHostName(), host.getPort()), listener);
 			client.start();
 
 			// notify listener
@@ -181,32 +230,13 @@ public class CloudService extends Thread implements RunnableService {
 
 			client.waitForAuthentication();
 
-			// do transmission in an authenticated and encrypted context
-			remoteResult = transmission.doRemote(client);
+		} catch (IOException | FrameworkException ex) {
 
-			// wait for server to close connection here..
-			client.waitForClose(2000);
 			client.close();
-
-			// notify listener
-			if (listener != null) {
-				listener.transmissionFinished();
-			}
-
-		} catch (IOException  ioex) {
-
-			logger.warn("", ioex);
-
-			throw new FrameworkException(504, "Unable to connect to remote server: " + ioex.getMessage());
-
-		} finally {
-
-			if (client != null) {
-				client.close();
-			}
+			throw ex;
 		}
 
-		return remoteResult;
+		return client;
 	}
 
 	public static byte[] trimToSize(final byte[] source, final int maxKeyLengthBits) {
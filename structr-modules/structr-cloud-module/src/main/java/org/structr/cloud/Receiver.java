@@ -21,6 +21,7 @@ package org.structr.cloud;
 import java.io.DataInputStream;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import org.structr.cloud.message.Message;
 
 /**
@@ -61,7 +62,23 @@ public class Receiver extends Thread {
 		}
 	}
 
+	/**
+	 * Returns the next message, waiting at most 100 milliseconds for it
+	 * to arrive.
+	 *
+	 * @return the next message or null
+	 */
 	public Message receive() {
-		return inputQueue.poll();
+
+		try {
+
+			return inputQueue.poll(100, TimeUnit.MILLISECONDS);
+
+		} catch (InterruptedException iex) {
+
+			Thread.currentThread().interrupt();
+		}
+
+		return null;
 	}
 }
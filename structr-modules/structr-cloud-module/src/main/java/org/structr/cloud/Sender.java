@@ -22,6 +22,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.cloud.message.Message;
@@ -63,24 +64,27 @@ public class Sender extends Thread {
 
 			try {
 
-				while (!outputQueue.isEmpty()) {
+				// block until there is something to send, but check
+				// the connection state from time to time
+				Message message = outputQueue.poll(100, TimeUnit.MILLISECONDS);
+				if (message != null) {
 
-					final Message message = outputQueue.poll();
-					if (message != null) {
+					// send all queued messages before flushing
+					while (message != null) {
 
 						message.serialize(outputStream);
 						message.afterSend(connection);
+
+						message = outputQueue.poll();
 					}
-				}
 
-				outputStream.flush();
+					outputStream.flush();
+				}
 
 			} catch (Throwable t) {
 
 				connection.close();
 			}
-
-			try { Thread.yield(); } catch (Throwable t) {}
 		}
 	}
 
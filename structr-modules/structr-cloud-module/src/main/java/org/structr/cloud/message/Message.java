@@ -38,6 +38,7 @@ import org.structr.cloud.CloudListener;
 import org.structr.cloud.sync.Diff;
 import org.structr.cloud.sync.EndOfSync;
 import org.structr.cloud.sync.Ping;
+import org.structr.cloud.sync.ReplicationCommit;
 import org.structr.cloud.sync.ReplicationStatus;
 import org.structr.cloud.sync.Synchronize;
 import org.structr.common.error.FrameworkException;
@@ -80,6 +81,7 @@ public abstract class Message<T> {
 		typeMap.put(PullNodeRequestContainer.class.getSimpleName(),  PullNodeRequestContainer.class);
 		typeMap.put(PullRelationship.class.getSimpleName(),          PullRelationship.class);
 		typeMap.put(RelationshipDataContainer.class.getSimpleName(), RelationshipDataContainer.class);
+		typeMap.put(ReplicationCommit.class.getSimpleName(),         ReplicationCommit.class);
 		typeMap.put(ReplicationStatus.class.getSimpleName(),         ReplicationStatus.class);
 		typeMap.put(Synchronize.class.getSimpleName(),               Synchronize.class);
 
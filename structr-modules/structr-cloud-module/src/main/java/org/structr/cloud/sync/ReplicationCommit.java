@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.cloud.sync;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.structr.cloud.CloudConnection;
+import org.structr.cloud.CloudListener;
+import org.structr.cloud.message.Error;
+import org.structr.cloud.message.Message;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.app.StructrApp;
+import org.structr.core.graph.SyncCommand;
+
+/**
+ * Marks the end of a batch of replicated transactions. The slave commits
+ * all data it has received so far, stores the replication timestamp of
+ * the master and sends this message back as an acknowledgement.
+ *
+ *
+ */
+public class ReplicationCommit extends Message {
+
+	private String masterId = null;
+	private long sequence   = 0L;
+	private long lastSync   = 0L;
+
+	public ReplicationCommit() {}
+
+	public ReplicationCommit(final String masterId, final long sequence, final long lastSync) {
+
+		this.masterId = masterId;
+		this.sequence = sequence;
+		this.lastSync = lastSync;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	@Override
+	public String toString() {
+		return "ReplicationCommit(" + sequence + ")";
+	}
+
+	@Override
+	public void onRequest(CloudConnection serverConnection) throws IOException, FrameworkException {
+
+		// this is not an error, we want the sync time for the
+		// given MASTER, since a slave can have multiple masters
+		StructrApp.getInstance().setGlobalSetting(masterId, lastSync);
+
+		serverConnection.commitTransaction();
+
+		if (serverConnection.endTransaction()) {
+
+			serverConnection.beginTransaction();
+			serverConnection.send(this);
+
+		} else {
+
+			serverConnection.send(new Error(500, "Unable to commit replicated data up to sequence " + sequence));
+		}
+	}
+
+	@Override
+	public void onResponse(CloudConnection clientConnection) throws IOException, FrameworkException {
+
+		// the master does not need the transaction that was opened by Begin
+		clientConnection.endTransaction();
+
+		final CloudListener listener = clientConnection.getListener();
+		if (listener instanceof ReplicationWorker) {
+
+			((ReplicationWorker)listener).acknowledge(sequence);
+		}
+	}
+
+	@Override
+	public void afterSend(CloudConnection connection) {
+	}
+
+	@Override
+	protected void deserializeFrom(DataInputStream inputStream) throws IOException {
+
+		this.masterId = (String)SyncCommand.deserialize(inputStream);
+		this.sequence = (Long)SyncCommand.deserialize(inputStream);
+		this.lastSync = (Long)SyncCommand.deserialize(inputStream);
+	}
+
+	@Override
+	protected void serializeTo(DataOutputStream outputStream) throws IOException {
+
+		SyncCommand.serialize(outputStream, masterId);
+		SyncCommand.serialize(outputStream, sequence);
+		SyncCommand.serialize(outputStream, lastSync);
+	}
+}
@@ -0,0 +1,651 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.cloud.sync;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A durable, append-only log of replicated transactions. Each committed
+ * transaction is stored as a record with a sequence number, the
+ * modification timestamp and the list of changed entities. Records
+ * are written to segment files which are named after the first
+ * sequence number they contain, and each record is protected by a
+ * checksum so that a partially written record at the end of the log
+ * is detected and discarded when the log is opened.
+ *
+ * The log also stores the sequence number up to which each slave has
+ * acknowledged the replication, so that replication can be resumed
+ * after a restart. Segments are only removed when all slaves have
+ * acknowledged their contents.
+ */
+public class ReplicationLog {
+
+	private static final Logger logger           = LoggerFactory.getLogger(ReplicationLog.class.getName());
+	private static final String SEGMENT_PREFIX   = "replication-";
+	private static final String SEGMENT_SUFFIX   = ".log";
+	private static final String OFFSET_SUFFIX    = ".offset";
+	private static final int RECORD_HEADER_SIZE  = 4 + 8;
+	private static final int MAX_RECORD_SIZE     = 64 * 1024 * 1024;
+
+	public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024L * 1024L;
+
+	private final TreeMap<Long, File> segments          = new TreeMap<>();
+	private final Map<String, Long> acknowledged        = new ConcurrentHashMap<>();
+	private final Object appendMonitor                  = new Object();
+	private volatile long lastSequence                  = 0L;
+	private FileChannel currentSegment                  = null;
+	private File directory                              = null;
+	private boolean forceWrites                         = true;
+	private long segmentSize                            = DEFAULT_SEGMENT_SIZE;
+
+	public ReplicationLog(final File directory, final boolean forceWrites) throws IOException {
+		this(directory, forceWrites, DEFAULT_SEGMENT_SIZE);
+	}
+
+	public ReplicationLog(final File directory, final boolean forceWrites, final long segmentSize) throws IOException {
+
+		this.directory   = directory;
+		this.forceWrites = forceWrites;
+		this.segmentSize = segmentSize;
+
+		open();
+	}
+
+	/**
+	 * Appends the given changes to the log.
+	 *
+	 * @param timestamp the modification timestamp of the transaction
+	 * @param changes the changes
+	 * @return the sequence number of the new record
+	 * @throws IOException
+	 */
+	public synchronized long append(final long timestamp, final List<Change> changes) throws IOException {
+
+		final long sequence = lastSequence + 1;
+
+		if (currentSegment.size() >= segmentSize) {
+			startSegment(sequence);
+		}
+
+		final byte[] payload   = serialize(timestamp, changes);
+		final ByteBuffer buf   = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length + 4);
+
+		buf.putInt(payload.length);
+		buf.putLong(sequence);
+		buf.put(payload);
+		buf.putInt(checksum(sequence, payload));
+		buf.flip();
+
+		while (buf.hasRemaining()) {
+			currentSegment.write(buf);
+		}
+
+		if (forceWrites) {
+			currentSegment.force(false);
+		}
+
+		lastSequence = sequence;
+
+		// notify readers
+		synchronized (appendMonitor) {
+			appendMonitor.notifyAll();
+		}
+
+		return sequence;
+	}
+
+	/**
+	 * Waits until a record with a sequence number greater than the given
+	 * one is available, or until the timeout expires.
+	 *
+	 * @param sequence
+	 * @param timeout
+	 * @throws InterruptedException
+	 */
+	public void awaitAppend(final long sequence, final long timeout) throws InterruptedException {
+
+		synchronized (appendMonitor) {
+
+			if (lastSequence <= sequence) {
+				appendMonitor.wait(timeout);
+			}
+		}
+	}
+
+	public long getLastSequence() {
+		return lastSequence;
+	}
+
+	public synchronized long getFirstSequence() {
+		return segments.firstKey();
+	}
+
+	/**
+	 * Indicates whether a reader can be opened after the given sequence
+	 * number, i.e. whether all records after it are still in the log.
+	 *
+	 * @param sequence
+	 * @return whether the log can be read after the given sequence number
+	 */
+	public synchronized boolean canResumeAfter(final long sequence) {
+		return sequence >= segments.firstKey() - 1 && sequence <= lastSequence;
+	}
+
+	/**
+	 * Opens a reader that returns all records after the given sequence
+	 * number.
+	 *
+	 * @param sequence
+	 * @return the reader
+	 * @throws IOException if the log does not contain the requested records anymore
+	 */
+	public synchronized Reader openReader(final long sequence) throws IOException {
+
+		if (!canResumeAfter(sequence)) {
+			throw new IOException("Replication log does not contain sequence " + (sequence + 1) + " anymore");
+		}
+
+		return new Reader(sequence);
+	}
+
+	public long getAcknowledged(final String host) {
+
+		final Long value = acknowledged.get(sanitize(host));
+		if (value != null) {
+
+			return value;
+		}
+
+		return -1L;
+	}
+
+	/**
+	 * Stores the sequence number up to which the given host has
+	 * acknowledged the replication.
+	 *
+	 * @param host
+	 * @param sequence
+	 * @throws IOException
+	 */
+	public void setAcknowledged(final String host, final long sequence) throws IOException {
+
+		final File file = new File(directory, sanitize(host) + OFFSET_SUFFIX);
+		final File tmp  = new File(directory, sanitize(host) + OFFSET_SUFFIX + ".tmp");
+
+		Files.write(tmp.toPath(), Long.toString(sequence).getBytes(StandardCharsets.UTF_8));
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		acknowledged.put(sanitize(host), sequence);
+	}
+
+	/**
+	 * Removes all segments that contain only records up to the given
+	 * sequence number. The current segment is never removed.
+	 *
+	 * @param sequence
+	 */
+	public synchronized void truncate(final long sequence) {
+
+		while (segments.size() > 1) {
+
+			final Entry<Long, File> first = segments.firstEntry();
+			final Long next               = segments.higherKey(first.getKey());
+
+			if (next - 1 > sequence) {
+				break;
+			}
+
+			if (!first.getValue().delete()) {
+				logger.warn("Unable to delete replication log segment {}", first.getValue());
+			}
+
+			segments.remove(first.getKey());
+		}
+	}
+
+	public synchronized void close() {
+
+		try {
+
+			if (currentSegment != null) {
+				currentSegment.close();
+			}
+
+		} catch (IOException ioex) {
+			logger.warn("", ioex);
+		}
+	}
+
+	// ----- private methods -----
+	private void open() throws IOException {
+
+		if (!directory.exists() && !directory.mkdirs()) {
+			throw new IOException("Unable to create replication log directory " + directory);
+		}
+
+		final File[] files = directory.listFiles();
+		if (files != null) {
+
+			for (final File file : files) {
+
+				final String name = file.getName();
+
+				if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+
+					segments.put(Long.valueOf(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+
+				} else if (name.endsWith(OFFSET_SUFFIX)) {
+
+					final String value = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim();
+					final String host  = name.substring(0, name.length() - OFFSET_SUFFIX.length());
+
+					acknowledged.put(host, Long.valueOf(value));
+				}
+			}
+		}
+
+		if (segments.isEmpty()) {
+
+			startSegment(1L);
+			lastSequence = 0L;
+
+		} else {
+
+			// find last valid record and discard partially written data
+			final Entry<Long, File> last = segments.lastEntry();
+			final long first             = last.getKey();
+
+			currentSegment = FileChannel.open(last.getValue().toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+			lastSequence   = first - 1;
+
+			long position = 0L;
+
+			while (true) {
+
+				final Record record = readRecord(currentSegment, position);
+				if (record == null || record.sequence != lastSequence + 1) {
+					break;
+				}
+
+				lastSequence = record.sequence;
+				position     = record.nextPosition;
+			}
+
+			if (position < currentSegment.size()) {
+
+				logger.warn("Discarding {} bytes of incomplete data at the end of replication log segment {}", currentSegment.size() - position, last.getValue());
+				currentSegment.truncate(position);
+			}
+
+			currentSegment.position(position);
+		}
+
+		logger.info("Replication log in {} contains sequence numbers {} to {}", new Object[] { directory, segments.firstKey(), lastSequence } );
+	}
+
+	private void startSegment(final long firstSequence) throws IOException {
+
+		if (currentSegment != null) {
+			currentSegment.close();
+		}
+
+		final File file = new File(directory, String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+
+		currentSegment = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		currentSegment.position(currentSegment.size());
+
+		segments.put(firstSequence, file);
+	}
+
+	private synchronized File getSegment(final long sequence) {
+
+		final Entry<Long, File> entry = segments.floorEntry(sequence);
+		if (entry != null) {
+
+			return entry.getValue();
+		}
+
+		return null;
+	}
+
+	private synchronized Entry<Long, File> getSegmentEntry(final long sequence) {
+		return segments.floorEntry(sequence);
+	}
+
+	private static Record readRecord(final FileChannel channel, final long position) throws IOException {
+
+		final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+
+		if (!readFully(channel, header, position)) {
+			return null;
+		}
+
+		header.flip();
+
+		final int length    = header.getInt();
+		final long sequence = header.getLong();
+
+		if (length < 0 || length > MAX_RECORD_SIZE) {
+			return null;
+		}
+
+		final ByteBuffer body = ByteBuffer.allocate(length + 4);
+
+		if (!readFully(channel, body, position + RECORD_HEADER_SIZE)) {
+			return null;
+		}
+
+		body.flip();
+
+		final byte[] payload = new byte[length];
+
+		body.get(payload);
+
+		if (body.getInt() != checksum(sequence, payload)) {
+			return null;
+		}
+
+		return new Record(sequence, payload, position + RECORD_HEADER_SIZE + length + 4);
+	}
+
+	private static boolean readFully(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+
+		long pos = position;
+
+		while (buffer.hasRemaining()) {
+
+			final int count = channel.read(buffer, pos);
+			if (count < 0) {
+
+				return false;
+			}
+
+			pos += count;
+		}
+
+		return true;
+	}
+
+	private static int checksum(final long sequence, final byte[] payload) {
+
+		final CRC32 crc = new CRC32();
+
+		crc.update(ByteBuffer.allocate(8).putLong(sequence).array());
+		crc.update(payload);
+
+		return (int)crc.getValue();
+	}
+
+	private static byte[] serialize(final long timestamp, final List<Change> changes) throws IOException {
+
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		final DataOutputStream dos      = new DataOutputStream(bos);
+
+		dos.writeLong(timestamp);
+		dos.writeInt(changes.size());
+
+		for (final Change change : changes) {
+
+			dos.writeByte(change.type.ordinal());
+			dos.writeUTF(change.uuid);
+			dos.writeInt(change.propertyKeys.size());
+
+			for (final String key : change.propertyKeys) {
+				dos.writeUTF(key);
+			}
+		}
+
+		dos.flush();
+
+		return bos.toByteArray();
+	}
+
+	private static LogEntry deserialize(final long sequence, final byte[] payload) throws IOException {
+
+		final DataInputStream dis    = new DataInputStream(new ByteArrayInputStream(payload));
+		final long timestamp         = dis.readLong();
+		final int count              = dis.readInt();
+		final List<Change> changes   = new ArrayList<>(count);
+		final ChangeType[] types     = ChangeType.values();
+
+		for (int i=0; i<count; i++) {
+
+			final ChangeType type         = types[dis.readByte()];
+			final String uuid             = dis.readUTF();
+			final int keyCount            = dis.readInt();
+			final Set<String> keys        = new LinkedHashSet<>();
+
+			for (int j=0; j<keyCount; j++) {
+				keys.add(dis.readUTF());
+			}
+
+			changes.add(new Change(type, uuid, keys));
+		}
+
+		return new LogEntry(sequence, timestamp, changes);
+	}
+
+	private static String sanitize(final String host) {
+		return host.replaceAll("[^a-zA-Z0-9\\.\\-_]", "_");
+	}
+
+	// ----- nested classes -----
+	public enum ChangeType {
+		Delete, Node, File, Relationship
+	}
+
+	/**
+	 * A single change in a replicated transaction.
+	 */
+	public static class Change {
+
+		private ChangeType type          = null;
+		private String uuid              = null;
+		private Set<String> propertyKeys = null;
+
+		public Change(final ChangeType type, final String uuid, final Set<String> propertyKeys) {
+
+			this.type         = type;
+			this.uuid         = uuid;
+			this.propertyKeys = propertyKeys;
+		}
+
+		public ChangeType getType() {
+			return type;
+		}
+
+		public String getUuid() {
+			return uuid;
+		}
+
+		public Set<String> getPropertyKeys() {
+			return propertyKeys;
+		}
+	}
+
+	/**
+	 * A replicated transaction.
+	 */
+	public static class LogEntry {
+
+		private List<Change> changes = null;
+		private long sequence        = 0L;
+		private long timestamp       = 0L;
+
+		public LogEntry(final long sequence, final long timestamp, final List<Change> changes) {
+
+			this.sequence  = sequence;
+			this.timestamp = timestamp;
+			this.changes   = changes;
+		}
+
+		public long getSequence() {
+			return sequence;
+		}
+
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		public List<Change> getChanges() {
+			return changes;
+		}
+	}
+
+	/**
+	 * Reads records from the log sequentially, following the segments.
+	 * A reader must only be used by a single thread.
+	 */
+	public class Reader implements AutoCloseable {
+
+		private FileChannel channel = null;
+		private File segment        = null;
+		private long nextSequence   = 0L;
+		private long position       = 0L;
+
+		private Reader(final long sequence) throws IOException {
+
+			openSegment(sequence + 1);
+
+			// skip records up to the requested position
+			while (nextSequence <= sequence) {
+				next();
+			}
+		}
+
+		/**
+		 * Returns up to maxCount records that are currently available.
+		 *
+		 * @param maxCount
+		 * @return the records, or an empty list
+		 * @throws IOException
+		 */
+		public List<LogEntry> read(final int maxCount) throws IOException {
+
+			final List<LogEntry> entries = new ArrayList<>();
+
+			while (entries.size() < maxCount && nextSequence <= lastSequence) {
+
+				final Record record = next();
+
+				entries.add(deserialize(record.sequence, record.payload));
+			}
+
+			return entries;
+		}
+
+		public long getNextSequence() {
+			return nextSequence;
+		}
+
+		@Override
+		public void close() {
+
+			try {
+
+				if (channel != null) {
+					channel.close();
+				}
+
+			} catch (IOException ioex) {
+				logger.warn("", ioex);
+			}
+		}
+
+		// ----- private methods -----
+		private Record next() throws IOException {
+
+			Record record = readRecord(channel, position);
+			if (record == null) {
+
+				// end of segment, switch to the next one
+				final File nextSegment = getSegment(nextSequence);
+				if (nextSegment != null && !nextSegment.equals(segment)) {
+
+					openSegment(nextSequence);
+					record = readRecord(channel, position);
+				}
+			}
+
+			if (record == null) {
+				throw new IOException("Replication log is missing sequence " + nextSequence);
+			}
+
+			if (record.sequence != nextSequence) {
+				throw new IOException("Replication log is corrupt, expected sequence " + nextSequence + ", found " + record.sequence);
+			}
+
+			position      = record.nextPosition;
+			nextSequence += 1;
+
+			return record;
+		}
+
+		private void openSegment(final long sequence) throws IOException {
+
+			final Entry<Long, File> entry = getSegmentEntry(sequence);
+			if (entry == null) {
+				throw new IOException("Replication log is missing sequence " + sequence);
+			}
+
+			close();
+
+			this.segment      = entry.getValue();
+			this.channel      = FileChannel.open(segment.toPath(), StandardOpenOption.READ);
+			this.nextSequence = entry.getKey();
+			this.position     = 0L;
+		}
+	}
+
+	private static class Record {
+
+		private byte[] payload    = null;
+		private long sequence     = 0L;
+		private long nextPosition = 0L;
+
+		public Record(final long sequence, final byte[] payload, final long nextPosition) {
+
+			this.sequence     = sequence;
+			this.payload      = payload;
+			this.nextPosition = nextPosition;
+		}
+	}
+}
@@ -0,0 +1,361 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.cloud.sync;
+
+import java.io.IOException;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.api.NotFoundException;
+import org.structr.cloud.CloudConnection;
+import org.structr.cloud.CloudHost;
+import org.structr.cloud.CloudListener;
+import org.structr.cloud.CloudService;
+import org.structr.cloud.message.Delete;
+import org.structr.cloud.message.Finish;
+import org.structr.cloud.message.NodeDataContainer;
+import org.structr.cloud.message.RelationshipDataContainer;
+import org.structr.cloud.sync.ReplicationLog.Change;
+import org.structr.cloud.sync.ReplicationLog.LogEntry;
+import org.structr.cloud.transmission.PushTransmission;
+import org.structr.common.SecurityContext;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.app.App;
+import org.structr.core.app.StructrApp;
+import org.structr.core.graph.NodeInterface;
+import org.structr.core.graph.RelationshipInterface;
+import org.structr.core.graph.Tx;
+import org.structr.dynamic.File;
+
+/**
+ * Streams the contents of the replication log to a single slave over a
+ * persistent connection. Batches of transactions are sent without waiting
+ * for the previous batch to be acknowledged, up to a maximum number of
+ * unacknowledged batches. Each batch is terminated by a ReplicationCommit
+ * message that the slave sends back after the batch was committed. The
+ * acknowledged sequence number is stored in the replication log, so that
+ * the worker resumes from there after a connection loss or a restart.
+ *
+ *
+ */
+public class ReplicationWorker extends Thread implements CloudListener {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReplicationWorker.class.getName());
+
+	public static final long ACK_TIMEOUT = 60000L;
+
+	private final Object ackMonitor             = new Object();
+	private volatile CloudConnection connection = null;
+	private volatile boolean running            = true;
+	private volatile long acknowledged          = -1L;
+	private ReplicationLog replicationLog       = null;
+	private CloudHost host                      = null;
+	private String hostKey                      = null;
+	private String masterId                     = null;
+	private long lastProgress                   = 0L;
+	private long retryInterval                  = 0L;
+	private int batchesInFlight                 = 0;
+	private int maxBatchesInFlight              = 0;
+	private int batchSize                       = 0;
+
+	public ReplicationWorker(final ReplicationLog replicationLog, final CloudHost host, final String masterId, final int batchSize, final int maxBatchesInFlight, final long retryInterval) {
+
+		super("ReplicationWorker(" + host + ")");
+		this.setDaemon(true);
+
+		this.replicationLog     = replicationLog;
+		this.host               = host;
+		this.hostKey            = host.toString();
+		this.masterId           = masterId;
+		this.batchSize          = batchSize;
+		this.maxBatchesInFlight = maxBatchesInFlight;
+		this.retryInterval      = retryInterval;
+		this.acknowledged       = replicationLog.getAcknowledged(hostKey);
+	}
+
+	@Override
+	public void run() {
+
+		while (running) {
+
+			try {
+
+				replicate();
+
+			} catch (Throwable t) {
+
+				if (running) {
+					logger.warn("Replication to {} failed: {}, retrying in {} seconds..", new Object[] { host, t.getMessage(), retryInterval / 1000 } );
+				}
+
+			} finally {
+
+				closeConnection();
+			}
+
+			if (running) {
+
+				try { Thread.sleep(retryInterval); } catch (InterruptedException iex) {}
+			}
+		}
+	}
+
+	public void stopWorker() {
+
+		running = false;
+		interrupt();
+	}
+
+	public String getHostKey() {
+		return hostKey;
+	}
+
+	public long getAcknowledged() {
+		return acknowledged;
+	}
+
+	public boolean isConnected() {
+
+		final CloudConnection current = connection;
+
+		return current != null && current.isConnected();
+	}
+
+	/**
+	 * Called by the connection when the slave has committed all
+	 * transactions up to the given sequence number.
+	 *
+	 * @param sequence
+	 */
+	public void acknowledge(final long sequence) {
+
+		synchronized (ackMonitor) {
+
+			if (sequence > acknowledged) {
+				acknowledged = sequence;
+			}
+
+			batchesInFlight = Math.max(0, batchesInFlight - 1);
+			lastProgress    = System.currentTimeMillis();
+
+			ackMonitor.notifyAll();
+		}
+
+		try {
+
+			replicationLog.setAcknowledged(hostKey, sequence);
+
+		} catch (IOException ioex) {
+			logger.warn("Unable to store replication offset for host {}: {}", new Object[] { host, ioex.getMessage() } );
+		}
+	}
+
+	// ----- interface CloudListener -----
+	@Override
+	public void transmissionStarted() {
+	}
+
+	@Override
+	public void transmissionFinished() {
+	}
+
+	@Override
+	public void transmissionAborted() {
+	}
+
+	@Override
+	public void transmissionProgress(final String message) {
+
+		// keepalive messages of the slave
+		synchronized (ackMonitor) {
+			lastProgress = System.currentTimeMillis();
+		}
+	}
+
+	// ----- private methods -----
+	private void replicate() throws IOException, FrameworkException, InterruptedException {
+
+		final long start = replicationLog.getAcknowledged(hostKey);
+
+		synchronized (ackMonitor) {
+
+			acknowledged    = start;
+			batchesInFlight = 0;
+			lastProgress    = System.currentTimeMillis();
+		}
+
+		try (final ReplicationLog.Reader reader = replicationLog.openReader(start)) {
+
+			connection = CloudService.connect(SecurityContext.getSuperUserInstance(), host, this);
+
+			logger.info("Replicating to {}, starting after sequence {}", host, start);
+
+			while (running && connection.isConnected()) {
+
+				if (!awaitWindow()) {
+					continue;
+				}
+
+				final List<LogEntry> batch = reader.read(batchSize);
+				if (batch.isEmpty()) {
+
+					replicationLog.awaitAppend(reader.getNextSequence() - 1, 1000L);
+					checkTimeout();
+
+				} else {
+
+					send(batch);
+				}
+			}
+		}
+
+		if (running) {
+			throw new IOException("connection closed by remote host");
+		}
+	}
+
+	/**
+	 * Waits until another batch may be sent.
+	 *
+	 * @return true if another batch may be sent
+	 */
+	private boolean awaitWindow() throws FrameworkException, InterruptedException {
+
+		synchronized (ackMonitor) {
+
+			if (batchesInFlight >= maxBatchesInFlight) {
+
+				checkTimeout();
+				ackMonitor.wait(1000L);
+
+				return batchesInFlight < maxBatchesInFlight;
+			}
+		}
+
+		return true;
+	}
+
+	private void checkTimeout() throws FrameworkException {
+
+		synchronized (ackMonitor) {
+
+			if (batchesInFlight > 0 && System.currentTimeMillis() - lastProgress > ACK_TIMEOUT) {
+				throw new FrameworkException(504, "No acknowledgement received within " + (ACK_TIMEOUT / 1000) + " seconds");
+			}
+		}
+	}
+
+	private void send(final List<LogEntry> batch) throws IOException, FrameworkException {
+
+		final App app = StructrApp.getInstance();
+
+		try (final Tx tx = app.tx()) {
+
+			for (final LogEntry entry : batch) {
+
+				int count = 0;
+
+				for (final Change change : entry.getChanges()) {
+
+					send(app, change, count++);
+				}
+			}
+
+			tx.success();
+		}
+
+		final LogEntry last = batch.get(batch.size() - 1);
+
+		synchronized (ackMonitor) {
+			batchesInFlight++;
+		}
+
+		connection.send(new ReplicationCommit(masterId, last.getSequence(), last.getTimestamp()));
+	}
+
+	private void send(final App app, final Change change, final int count) throws IOException, FrameworkException {
+
+		final String uuid = change.getUuid();
+
+		try {
+
+			switch (change.getType()) {
+
+				case Delete:
+					connection.send(new Delete(uuid));
+					break;
+
+				case File:
+				case Node:
+
+					final NodeInterface node = app.getNodeById(uuid);
+					if (node != null) {
+
+						if (node instanceof File) {
+
+							PushTransmission.sendFile(connection, (File)node, CloudService.CHUNK_SIZE);
+
+						} else {
+
+							connection.send(new NodeDataContainer(node.getSyncNode(), count, change.getPropertyKeys()));
+						}
+					}
+					break;
+
+				case Relationship:
+
+					final RelationshipInterface relationship = app.getRelationshipById(uuid);
+					if (relationship != null) {
+
+						connection.send(new RelationshipDataContainer(relationship.getSyncRelationship(), count, change.getPropertyKeys()));
+					}
+					break;
+			}
+
+		} catch (NotFoundException nfex) {
+
+			logger.info("Trying to synchronize deleted entity, ignoring");
+		}
+	}
+
+	private void closeConnection() {
+
+		final CloudConnection current = connection;
+		if (current != null) {
+
+			if (!running && current.isConnected()) {
+
+				// clear interrupted flag to allow a graceful shutdown
+				Thread.interrupted();
+
+				try {
+
+					current.send(new Finish());
+					current.waitForClose(2000);
+
+				} catch (Throwable t) {
+					logger.warn("", t);
+				}
+			}
+
+			current.close();
+			connection = null;
+		}
+	}
+}
@@ -18,15 +18,16 @@
  */
 package org.structr.cloud.sync;
 
+import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.Set;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,9 +37,13 @@ import org.structr.api.service.StructrServices;
 import org.structr.cloud.CloudHost;
 import org.structr.cloud.CloudListener;
 import org.structr.cloud.CloudService;
+import org.structr.cloud.sync.ReplicationLog.Change;
+import org.structr.cloud.sync.ReplicationLog.ChangeType;
 import org.structr.cloud.transmission.SingleTransmission;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
+import org.structr.core.GraphObject;
+import org.structr.core.Services;
 import org.structr.core.StructrTransactionListener;
 import org.structr.core.TransactionSource;
 import org.structr.core.app.App;
@@ -46,28 +51,43 @@ import org.structr.core.app.StructrApp;
 import org.structr.core.graph.ModificationEvent;
 import org.structr.core.graph.TransactionCommand;
 import org.structr.core.graph.Tx;
+import org.structr.core.property.PropertyKey;
+import org.structr.dynamic.File;
 
 /**
+ * Replicates all local transactions of a master instance to its slaves.
+ *
+ * Committed transactions are appended to a durable replication log on
+ * disk (sync.log.path, default is the "sync" directory below base.path).
+ * Each slave is served by its own ReplicationWorker which streams the log
+ * over a persistent connection, in batches of sync.batchsize transactions
+ * with up to sync.window unacknowledged batches. The slaves acknowledge
+ * each batch after committing it, and replication resumes from the last
+ * acknowledged transaction after a connection loss or a restart.
  *
  *
  */
 public class SyncService extends Thread  implements RunnableService, StructrTransactionListener {
 
-	private static final BlockingQueue<List<ModificationEvent>> syncQueue = new ArrayBlockingQueue<>(1000);
-	private static final Logger logger                                    = LoggerFactory.getLogger(CloudService.class.getName());
+	private static final Logger logger          = LoggerFactory.getLogger(CloudService.class.getName());
+	private static final long MAINTENANCE_DELAY = 10000L;
 
 	public enum SyncRole {
 		master,
 		slave
 	};
 
-	private final List<SyncHostInfo> syncHosts = new LinkedList<>();
-	private boolean running                    = false;
-	private boolean active                     = false;
-	private String allowedMaster               = null;
-	private SyncRole role                      = null;
-	private int requiredSyncCount              = 0;
-	private int retryInterval                  = 60;
+	private final List<SyncHostInfo> syncHosts        = new LinkedList<>();
+	private final List<ReplicationWorker> workers     = new LinkedList<>();
+	private ReplicationLog replicationLog             = null;
+	private boolean running                           = false;
+	private int batchSize                             = 100;
+	private int window                                = 8;
+	private boolean active                            = false;
+	private String allowedMaster                      = null;
+	private SyncRole role                             = null;
+	private int requiredSyncCount                     = 0;
+	private int retryInterval                         = 60;
 
 	public SyncService() {
 
@@ -104,6 +124,20 @@ public class SyncService extends Thread  implements RunnableService, StructrTran
 			// check only if we are a replication master
 			if (SyncRole.master.equals(role)) {
 
+				final String basePath = config.getProperty(Services.BASE_PATH);
+				final String logPath  = config.getProperty("sync.log.path", StringUtils.isNotBlank(basePath) ? new java.io.File(basePath, "sync").getPath() : "sync");
+
+				batchSize = Integer.valueOf(config.getProperty("sync.batchsize", "100"));
+				window    = Integer.valueOf(config.getProperty("sync.window", "8"));
+
+				try {
+
+					replicationLog = new ReplicationLog(new java.io.File(logPath), "true".equals(config.getProperty("sync.log.fsync", "true")));
+
+				} catch (IOException ioex) {
+					throw new IllegalStateException("unable to open replication log in " + logPath + ": " + ioex.getMessage());
+				}
+
 				if (StringUtils.isEmpty(hosts)) {
 					throw new IllegalStateException("no slave hosts set for this master, please set sync.hosts in structr.conf.");
 				}
@@ -181,7 +215,14 @@ public class SyncService extends Thread  implements RunnableService, StructrTran
 
 	@Override
 	public void shutdown() {
+
 		running = false;
+
+		for (final ReplicationWorker worker : workers) {
+			worker.stopWorker();
+		}
+
+		interrupt();
 	}
 
 	@Override
@@ -195,6 +236,20 @@ public class SyncService extends Thread  implements RunnableService, StructrTran
 		TransactionCommand.registerTransactionListener(this);
 
 		running = true;
+
+		if (replicationLog != null) {
+
+			final String masterId = StructrApp.getInstance().getInstanceId();
+
+			for (final SyncHostInfo host : syncHosts) {
+
+				final ReplicationWorker worker = new ReplicationWorker(replicationLog, host, masterId, batchSize, window, retryInterval * 1000L);
+
+				workers.add(worker);
+				worker.start();
+			}
+		}
+
 		start();
 
 		logger.info("SyncService successfully started.");
@@ -203,59 +258,54 @@ public class SyncService extends Thread  implements RunnableService, StructrTran
 	@Override
 	public void run() {
 
+		long lastWarning = 0L;
+
+		// the actual replication is done by the workers, this
+		// thread only removes acknowledged parts of the log and
+		// checks the number of connected slaves
 		while (running) {
 
 			try {
 
-				// wait to be notified when new data is available
-				synchronized (syncQueue) {
+				Thread.sleep(MAINTENANCE_DELAY);
 
-					while (syncQueue.isEmpty()) {
-						syncQueue.wait();
-					}
-				}
-
-				// load the head of the queue without removing it
-				// (will be removed later if sync was successful)
-				final List<ModificationEvent> transaction = syncQueue.peek();
-				if (transaction != null) {
+				if (replicationLog != null && !workers.isEmpty()) {
 
-					// define success as "at least one sync process was successful"
-					final SyncListener successListener = new SyncListener(requiredSyncCount);
+					long acknowledged = Long.MAX_VALUE;
+					int connected     = 0;
 
-					final SyncTransmission transmission = new SyncTransmission(transaction);
+					for (final ReplicationWorker worker : workers) {
 
-					for (final SyncHostInfo info : syncHosts) {
+						acknowledged = Math.min(acknowledged, worker.getAcknowledged());
 
-						try {
-
-							CloudService.doRemote(SecurityContext.getSuperUserInstance(), transmission, info, successListener);
-
-						} catch (FrameworkException fex) {
-							logger.warn("Unable to synchronize with host {}: {}", new Object[] { info, fex.getMessage() } );
+						if (worker.isConnected()) {
+							connected++;
 						}
 					}
 
-					// remove sync changeset from queue when sync
-					// was successful (see above)
-					if (successListener.wasSuccessful()) {
-
-						syncQueue.remove(transaction);
+					replicationLog.truncate(acknowledged);
 
-					} else {
+					final long now = System.currentTimeMillis();
 
-						logger.warn("Unable to synchronize with required number of hosts, retrying in {} seconds..", retryInterval);
+					if (connected < requiredSyncCount && now > lastWarning + retryInterval * 1000L) {
 
-						// sleep
-						try { Thread.sleep(retryInterval * 1000); } catch (Throwable t) {}
+						logger.warn("Only {} of {} required replication hosts are connected, {} transactions not yet acknowledged by all hosts.", new Object[] { connected, requiredSyncCount, replicationLog.getLastSequence() - acknowledged } );
+						lastWarning = now;
 					}
-
 				}
 
+			} catch (InterruptedException iex) {
+
+				// shutdown
+
 			} catch (Throwable t) {
 				logger.warn("", t);
 			}
 		}
+
+		if (replicationLog != null) {
+			replicationLog.close();
+		}
 	}
 
 	@Override
@@ -298,10 +348,12 @@ public class SyncService extends Thread  implements RunnableService, StructrTran
 		// only react if desired
 		if (active && running && !modificationEvents.isEmpty()) {
 
+			final long timestamp = System.currentTimeMillis();
+
 			try {
 				// store last sync timestamp for the given instance ID
 				final App app = StructrApp.getInstance();
-				app.setGlobalSetting(app.getInstanceId() + ".lastModified", System.currentTimeMillis());
+				app.setGlobalSetting(app.getInstanceId() + ".lastModified", timestamp);
 
 			} catch (FrameworkException fex) {
 
@@ -309,18 +361,30 @@ public class SyncService extends Thread  implements RunnableService, StructrTran
 			}
 
 
-			try {
+			if (replicationLog != null) {
 
-				// copy all modification events and return quickly
-				syncQueue.put(new ArrayList<>(modificationEvents));
+				final List<Change> changes = new ArrayList<>(modificationEvents.size());
 
-				// notify sync queue of new input
-				synchronized (syncQueue) { syncQueue.notify(); }
+				for (final ModificationEvent event : modificationEvents) {
 
-			} catch (InterruptedException iex) {
-				logger.warn("", iex);
-			}
+					final Change change = toChange(event);
+					if (change != null) {
+
+						changes.add(change);
+					}
+				}
 
+				try {
+
+					// store transaction in the replication log and return quickly,
+					// the replication workers will pick it up from there
+					replicationLog.append(timestamp, changes);
+
+				} catch (IOException ioex) {
+
+					logger.error("Unable to write transaction to replication log, slaves need to be re-initialized.", ioex);
+				}
+			}
 		}
 	}
 
@@ -393,10 +457,24 @@ public class SyncService extends Thread  implements RunnableService, StructrTran
 
 
 		// prepare synchronization hosts
-		for (final SyncHostInfo host : syncHosts) {
+		for (Iterator<SyncHostInfo> it = syncHosts.iterator(); it.hasNext();) {
 
-			// try to copy database contents to synchronization slave
-			checkAndInitializeSyncHost(host);
+			final SyncHostInfo host = it.next();
+
+			try {
+
+				// try to copy database contents to synchronization slave
+				checkAndInitializeSyncHost(host);
+
+			} catch (FrameworkException fex) {
+
+				logger.warn("Unable to initialize replication host {}, removing from list: {}", new Object[] { host, fex.getMessage() } );
+				it.remove();
+			}
+		}
+
+		if (syncHosts.size() < requiredSyncCount) {
+			throw new IllegalStateException("synchronization policy requires at least " + requiredSyncCount + " hosts, but only " + syncHosts.size() + " could be initialized.");
 		}
 	}
 
@@ -405,6 +483,17 @@ public class SyncService extends Thread  implements RunnableService, StructrTran
 		final String masterId         = StructrApp.getInstance().getInstanceId();
 		final SimpleDateFormat df     = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
 		final long localSyncTimestamp = StructrApp.getInstance().getGlobalSetting(masterId + ".lastModified", 0L);
+		final long acknowledged       = replicationLog.getAcknowledged(host.toString());
+
+		// everything up to this sequence is contained in a full synchronization started from here on
+		final long lastSequence       = replicationLog.getLastSequence();
+
+		if (acknowledged >= 0L && replicationLog.canResumeAfter(acknowledged)) {
+
+			// the replication log contains all transactions the host has not acknowledged yet
+			logger.info("Replication host {} will be resumed after sequence {}", new Object[] { host, acknowledged } );
+			return;
+		}
 
 		if (localSyncTimestamp == 0L) {
 
@@ -428,57 +517,92 @@ public class SyncService extends Thread  implements RunnableService, StructrTran
 				logger.info("Replication host {} is in sync, last update was {}", new Object[] { host, df.format(localSyncTimestamp) } );
 			}
 		}
-	}
 
-	private void synchronizeSlave(final SyncHostInfo info) {
+		try {
 
-		logger.info("Establishing initial replication.");
+			// the host now contains everything that was in the replication log before
+			replicationLog.setAcknowledged(host.toString(), lastSequence);
 
-		try (final Tx tx = StructrApp.getInstance().tx()) {
+		} catch (IOException ioex) {
+			logger.warn("Unable to store replication offset for host {}: {}", new Object[] { host, ioex.getMessage() } );
+		}
+	}
 
-			CloudService.doRemote(SecurityContext.getSuperUserInstance(), new UpdateTransmission(), info, new LoggingListener());
+	/**
+	 * Creates a replication log entry for the given modification event.
+	 *
+	 * @param event
+	 * @return the change, or null if the event does not need to be replicated
+	 */
+	private Change toChange(final ModificationEvent event) {
 
-			tx.success();
+		if (event.isDeleted()) {
 
-		} catch (Throwable t) {
-			logger.warn("", t);
+			final String id = event.getRemovedProperties().get(GraphObject.id);
+			if (id != null) {
+
+				return new Change(ChangeType.Delete, id, new LinkedHashSet<String>());
+			}
+
+			return null;
 		}
 
-		logger.info("Done.");
-	}
+		final GraphObject graphObject  = event.getGraphObject();
+		final Set<String> propertyKeys = new LinkedHashSet<>();
 
-	// ----- nested classes -----
-	private static class SyncListener implements CloudListener {
+		// collect all possibly modified property keys
+		mapPropertyKeysToStrings(propertyKeys, event.getNewProperties().keySet());
+		mapPropertyKeysToStrings(propertyKeys, event.getModifiedProperties().keySet());
+		mapPropertyKeysToStrings(propertyKeys, event.getRemovedProperties().keySet());
 
-		private int successCount         = 0;
-		private int requiredSuccessCount = 0;
+		if (graphObject.isNode()) {
 
-		public SyncListener(final int requiredSuccessCount) {
-			this.requiredSuccessCount = requiredSuccessCount;
+			return new Change(graphObject instanceof File ? ChangeType.File : ChangeType.Node, event.getUuid(), propertyKeys);
 		}
 
-		@Override
-		public void transmissionStarted() {
-		}
+		return new Change(ChangeType.Relationship, event.getUuid(), propertyKeys);
+	}
 
-		@Override
-		public void transmissionFinished() {
-			successCount++;
-		}
+	private void mapPropertyKeysToStrings(final Set<String> propertyKeys, final Set<PropertyKey> source) {
 
-		@Override
-		public void transmissionAborted() {
+		for (final PropertyKey key : source) {
+			propertyKeys.add(key.dbName());
 		}
+	}
 
-		@Override
-		public void transmissionProgress(final String message) {
+	/**
+	 * Copies the database contents to the given host.
+	 *
+	 * @param info
+	 * @throws FrameworkException if the transmission failed or was aborted
+	 */
+	private void synchronizeSlave(final SyncHostInfo info) throws FrameworkException {
+
+		final LoggingListener listener = new LoggingListener();
+
+		logger.info("Establishing initial replication.");
+
+		try (final Tx tx = StructrApp.getInstance().tx()) {
+
+			CloudService.doRemote(SecurityContext.getSuperUserInstance(), new UpdateTransmission(), info, listener);
+
+			tx.success();
+
+		} catch (Throwable t) {
+
+			logger.warn("", t);
+
+			throw new FrameworkException(504, "Initial replication to " + info + " failed: " + t.getMessage());
 		}
 
-		public boolean wasSuccessful() {
-			return successCount >= requiredSuccessCount;
+		if (listener.aborted) {
+			throw new FrameworkException(504, "Initial replication to " + info + " was aborted");
 		}
+
+		logger.info("Done.");
 	}
 
+	// ----- nested classes -----
 	private static class SyncHostInfo implements CloudHost {
 
 		private ReplicationStatus status = null;
@@ -538,6 +662,8 @@ public class SyncService extends Thread  implements RunnableService, StructrTran
 
 	private class LoggingListener implements CloudListener {
 
+		private boolean aborted = false;
+
 		@Override
 		public void transmissionStarted() {
 			logger.info("Transmission started");
@@ -551,6 +677,7 @@ public class SyncService extends Thread  implements RunnableService, StructrTran
 		@Override
 		public void transmissionAborted() {
 			logger.info("Transmission aborted");
+			aborted = true;
 		}
 
 		@Override
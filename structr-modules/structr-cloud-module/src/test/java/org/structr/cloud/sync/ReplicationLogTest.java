@@ -0,0 +1,254 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.cloud.sync;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+import org.structr.cloud.sync.ReplicationLog.Change;
+import org.structr.cloud.sync.ReplicationLog.ChangeType;
+import org.structr.cloud.sync.ReplicationLog.LogEntry;
+
+/**
+ *
+ *
+ */
+public class ReplicationLogTest {
+
+	private File directory = null;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("replication-log-test").toFile();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(directory);
+	}
+
+	@Test
+	public void testAppendAndRead() throws IOException {
+
+		final ReplicationLog log = new ReplicationLog(directory, false);
+
+		assertEquals(1L, log.append(100L, changes("a", "name", "type")));
+		assertEquals(2L, log.append(200L, changes("b")));
+		assertEquals(2L, log.getLastSequence());
+
+		try (final ReplicationLog.Reader reader = log.openReader(0L)) {
+
+			final List<LogEntry> entries = reader.read(10);
+
+			assertEquals(2, entries.size());
+			assertEquals(1L, entries.get(0).getSequence());
+			assertEquals(100L, entries.get(0).getTimestamp());
+			assertEquals(ChangeType.Node, entries.get(0).getChanges().get(0).getType());
+			assertEquals("a", entries.get(0).getChanges().get(0).getUuid());
+			assertEquals(new LinkedHashSet<>(Arrays.asList("name", "type")), entries.get(0).getChanges().get(0).getPropertyKeys());
+			assertEquals("b", entries.get(1).getChanges().get(0).getUuid());
+			assertEquals(3L, reader.getNextSequence());
+		}
+
+		log.close();
+	}
+
+	@Test
+	public void testChecksumMismatchDiscardsRecord() throws IOException {
+
+		ReplicationLog log = new ReplicationLog(directory, false);
+
+		log.append(100L, changes("a"));
+
+		final File segment   = getSingleSegment();
+		final long validSize = segment.length();
+
+		log.append(200L, changes("b"));
+		log.close();
+
+		// corrupt the checksum of the second record
+		try (final RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+
+			file.seek(file.length() - 1);
+
+			final int value = file.read();
+
+			file.seek(file.length() - 1);
+			file.write(value ^ 0xff);
+		}
+
+		log = new ReplicationLog(directory, false);
+
+		assertEquals(1L, log.getLastSequence());
+		assertEquals(validSize, segment.length());
+
+		// the discarded sequence number is reused
+		assertEquals(2L, log.append(300L, changes("c")));
+
+		try (final ReplicationLog.Reader reader = log.openReader(1L)) {
+
+			final List<LogEntry> entries = reader.read(10);
+
+			assertEquals(1, entries.size());
+			assertEquals("c", entries.get(0).getChanges().get(0).getUuid());
+		}
+
+		log.close();
+	}
+
+	@Test
+	public void testIncompleteTailIsTruncated() throws IOException {
+
+		ReplicationLog log = new ReplicationLog(directory, false);
+
+		log.append(100L, changes("a"));
+		log.append(200L, changes("b"));
+		log.close();
+
+		final File segment   = getSingleSegment();
+		final long validSize = segment.length();
+
+		// simulate a partially written record
+		try (final RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+
+			file.seek(file.length());
+			file.write(new byte[] { 0, 0, 0, 42, 0, 0, 0 });
+		}
+
+		log = new ReplicationLog(directory, false);
+
+		assertEquals(2L, log.getLastSequence());
+		assertEquals(validSize, segment.length());
+		assertEquals(3L, log.append(300L, changes("c")));
+
+		log.close();
+	}
+
+	@Test
+	public void testTruncate() throws IOException {
+
+		// a segment size of one byte starts a new segment for every record
+		final ReplicationLog log = new ReplicationLog(directory, false, 1L);
+
+		for (int i=0; i<5; i++) {
+			log.append(i, changes("id" + i));
+		}
+
+		assertEquals(5, getSegmentCount());
+		assertEquals(1L, log.getFirstSequence());
+
+		log.truncate(3L);
+
+		assertEquals(2, getSegmentCount());
+		assertEquals(4L, log.getFirstSequence());
+		assertTrue(log.canResumeAfter(3L));
+		assertFalse(log.canResumeAfter(2L));
+
+		try {
+
+			log.openReader(2L);
+			fail("Opening a reader for a truncated sequence should fail.");
+
+		} catch (IOException expected) {}
+
+		try (final ReplicationLog.Reader reader = log.openReader(3L)) {
+
+			final List<LogEntry> entries = reader.read(10);
+
+			assertEquals(2, entries.size());
+			assertEquals(4L, entries.get(0).getSequence());
+			assertEquals(5L, entries.get(1).getSequence());
+		}
+
+		// the current segment is never removed
+		log.truncate(100L);
+
+		assertEquals(1, getSegmentCount());
+		assertEquals(5L, log.getFirstSequence());
+		assertTrue(log.canResumeAfter(5L));
+
+		log.close();
+	}
+
+	@Test
+	public void testResumeAfterRestart() throws IOException {
+
+		ReplicationLog log = new ReplicationLog(directory, false, 1L);
+
+		for (int i=0; i<4; i++) {
+			log.append(i, changes("id" + i));
+		}
+
+		assertEquals(-1L, log.getAcknowledged("slave:54555"));
+
+		log.setAcknowledged("slave:54555", 2L);
+		log.close();
+
+		log = new ReplicationLog(directory, false, 1L);
+
+		assertEquals(2L, log.getAcknowledged("slave:54555"));
+		assertEquals(4L, log.getLastSequence());
+		assertTrue(log.canResumeAfter(2L));
+
+		try (final ReplicationLog.Reader reader = log.openReader(log.getAcknowledged("slave:54555"))) {
+
+			final List<LogEntry> entries = reader.read(10);
+
+			assertEquals(2, entries.size());
+			assertEquals(3L, entries.get(0).getSequence());
+			assertEquals("id2", entries.get(0).getChanges().get(0).getUuid());
+			assertEquals(4L, entries.get(1).getSequence());
+		}
+
+		assertEquals(5L, log.append(500L, changes("id4")));
+
+		log.close();
+	}
+
+	// ----- private methods -----
+	private List<Change> changes(final String uuid, final String... keys) {
+		return Collections.singletonList(new Change(ChangeType.Node, uuid, new LinkedHashSet<>(Arrays.asList(keys))));
+	}
+
+	private File getSingleSegment() {
+
+		final File[] files = directory.listFiles((dir, name) -> name.endsWith(".log"));
+
+		assertEquals(1, files.length);
+
+		return files[0];
+	}
+
+	private int getSegmentCount() {
+		return directory.listFiles((dir, name) -> name.endsWith(".log")).length;
+	}
+}
@@ -33,7 +33,7 @@ import org.structr.core.Result;
 import org.structr.core.app.App;
 import org.structr.core.app.StructrApp;
 import org.structr.core.graph.Tx;
-import org.structr.web.entity.AbstractFile;
+import org.structr.web.common.FilePathCache;
 import org.structr.web.entity.FileBase;
 import org.structr.web.entity.Folder;
 import org.structr.web.entity.dom.Page;
@@ -107,14 +107,10 @@ public class StructrFtpFolder extends AbstractStructrFtpFile implements FtpFile
 
 			if ("/".equals(requestedPath)) {
 				try {
-					Result<Folder> folders = app.nodeQuery(Folder.class).getResult();
+					final List<Folder> folders = FilePathCache.getInstance().getRootEntries(securityContext, Folder.class);
 					logger.debug("{} folders found", folders.size());
 
-					for (Folder f : folders.getResults()) {
-
-						if (f.getProperty(AbstractFile.hasParent)) {
-							continue;
-						}
+					for (Folder f : folders) {
 
 						FtpFile ftpFile = new StructrFtpFolder(securityContext, f);
 						logger.debug("Folder found: {}", ftpFile.getAbsolutePath());
@@ -123,14 +119,10 @@ public class StructrFtpFolder extends AbstractStructrFtpFile implements FtpFile
 
 					}
 
-					Result<FileBase> files = app.nodeQuery(FileBase.class).getResult();
+					final List<FileBase> files = FilePathCache.getInstance().getRootEntries(securityContext, FileBase.class);
 					logger.debug("{} files found", files.size());
 
-					for (FileBase f : files.getResults()) {
-
-						if (f.getProperty(AbstractFile.hasParent)) {
-							continue;
-						}
+					for (FileBase f : files) {
 
 						logger.debug("Structr file found: {}", f);
 
@@ -52,6 +52,7 @@ import org.structr.files.ssh.filesystem.StructrFileChannel;
 import org.structr.files.ssh.filesystem.StructrFilesystem;
 import org.structr.files.ssh.filesystem.StructrPath;
 import org.structr.web.common.FileHelper;
+import org.structr.web.common.FilePathCache;
 import org.structr.web.entity.AbstractFile;
 import static org.structr.web.entity.AbstractFile.path;
 import org.structr.web.entity.FileBase;
@@ -356,7 +357,7 @@ public class StructrFilePath extends StructrPath {
 			try (final Tx tx = app.tx()) {
 
 				// remove /files from path since it is a virtual directory
-				cachedActualFile = app.nodeQuery(AbstractFile.class).and(AbstractFile.path, filePath).getFirst();
+				cachedActualFile = FilePathCache.getInstance().getFileByPath(fs.getSecurityContext(), filePath);
 
 				tx.success();
 
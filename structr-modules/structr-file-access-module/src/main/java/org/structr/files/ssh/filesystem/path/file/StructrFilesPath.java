@@ -45,7 +45,7 @@ import org.structr.core.graph.Tx;
 import org.structr.files.ssh.filesystem.StructrFilesystem;
 import org.structr.files.ssh.filesystem.StructrPath;
 import org.structr.files.ssh.filesystem.StructrToplevelAttributes;
-import org.structr.web.entity.AbstractFile;
+import org.structr.web.common.FilePathCache;
 import org.structr.web.entity.FileBase;
 import org.structr.web.entity.Folder;
 
@@ -78,16 +78,17 @@ public class StructrFilesPath extends StructrPath {
 				if (!closed) {
 
 					final App app                 = StructrApp.getInstance(fs.getSecurityContext());
+					final FilePathCache cache     = FilePathCache.getInstance();
 					final List<StructrPath> files = new LinkedList<>();
 
 					try (final Tx tx = app.tx()) {
 
-						for (final Folder folder : app.nodeQuery(Folder.class).and(AbstractFile.hasParent, false).getAsList()) {
+						for (final Folder folder : cache.getRootEntries(fs.getSecurityContext(), Folder.class)) {
 
 							files.add(new StructrFilePath(fs, StructrFilesPath.this, folder.getName()));
 						}
 
-						for (final FileBase file : app.nodeQuery(FileBase.class).and(AbstractFile.hasParent, false).getAsList()) {
+						for (final FileBase file : cache.getRootEntries(fs.getSecurityContext(), FileBase.class)) {
 
 							files.add(new StructrFilePath(fs, StructrFilesPath.this, file.getName()));
 						}
@@ -0,0 +1,177 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.ldap;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import org.apache.directory.shared.ldap.model.cursor.AbstractCursor;
+import org.apache.directory.shared.ldap.model.cursor.InvalidCursorPositionException;
+import org.apache.directory.shared.ldap.model.entry.Entry;
+import org.apache.directory.shared.ldap.model.filter.ExprNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Forward-only cursor that evaluates the search filter on a list of
+ * candidate ids and loads the matching entries in small batches while
+ * it is being consumed. Size and time limits end the cursor early.
+ */
+public class StructrLDAPCursor extends AbstractCursor<Entry> {
+
+	private static final Logger logger   = LoggerFactory.getLogger(StructrLDAPCursor.class.getName());
+	private static final int BATCH_SIZE  = 100;
+
+	private final LinkedList<Entry> buffer = new LinkedList<>();
+	private StructrLDAPWrapper wrapper     = null;
+	private Iterator<String> candidates    = null;
+	private ExprNode filter                = null;
+	private Entry current                  = null;
+	private long sizeLimit                 = 0L;
+	private long deadline                  = 0L;
+	private long count                     = 0L;
+	private boolean afterLast              = false;
+
+	public StructrLDAPCursor(final StructrLDAPWrapper wrapper, final Iterator<String> candidates, final ExprNode filter, final long sizeLimit, final int timeLimit) {
+
+		this.wrapper    = wrapper;
+		this.candidates = candidates;
+		this.filter     = filter;
+		this.sizeLimit  = sizeLimit;
+		this.deadline   = timeLimit > 0 ? System.currentTimeMillis() + timeLimit * 1000L : 0L;
+	}
+
+	@Override
+	public boolean available() {
+		return current != null;
+	}
+
+	@Override
+	public boolean next() throws Exception {
+
+		checkNotClosed("next()");
+
+		current = null;
+
+		if (afterLast || (sizeLimit > 0 && count >= sizeLimit)) {
+
+			afterLast = true;
+			return false;
+		}
+
+		if (deadline > 0 && System.currentTimeMillis() > deadline) {
+
+			logger.info("Time limit exceeded after {} entries", count);
+
+			afterLast = true;
+			return false;
+		}
+
+		while (buffer.isEmpty() && candidates.hasNext()) {
+
+			final List<String> batch = new LinkedList<>();
+
+			while (batch.size() < BATCH_SIZE && candidates.hasNext()) {
+				batch.add(candidates.next());
+			}
+
+			buffer.addAll(wrapper.getMatchingEntries(batch, filter));
+		}
+
+		if (buffer.isEmpty()) {
+
+			afterLast = true;
+			return false;
+		}
+
+		current = buffer.removeFirst();
+		count++;
+
+		return true;
+	}
+
+	@Override
+	public Entry get() throws Exception {
+
+		checkNotClosed("get()");
+
+		if (current == null) {
+			throw new InvalidCursorPositionException("Cursor is not positioned on an entry");
+		}
+
+		return current;
+	}
+
+	@Override
+	public boolean first() throws Exception {
+
+		if (count == 0) {
+			return next();
+		}
+
+		throw new UnsupportedOperationException("Cursor is forward-only.");
+	}
+
+	@Override
+	public void beforeFirst() throws Exception {
+
+		if (count > 0) {
+			throw new UnsupportedOperationException("Cursor is forward-only.");
+		}
+	}
+
+	@Override
+	public boolean isBeforeFirst() throws Exception {
+		return count == 0 && !afterLast;
+	}
+
+	@Override
+	public boolean isAfterLast() throws Exception {
+		return afterLast;
+	}
+
+	@Override
+	public void before(final Entry element) throws Exception {
+		throw new UnsupportedOperationException("Cursor is forward-only.");
+	}
+
+	@Override
+	public void after(final Entry element) throws Exception {
+		throw new UnsupportedOperationException("Cursor is forward-only.");
+	}
+
+	@Override
+	public void afterLast() throws Exception {
+
+		buffer.clear();
+
+		current   = null;
+		afterLast = true;
+	}
+
+	@Override
+	public boolean last() throws Exception {
+		throw new UnsupportedOperationException("Cursor is forward-only.");
+	}
+
+	@Override
+	public boolean previous() throws Exception {
+		throw new UnsupportedOperationException("Cursor is forward-only.");
+	}
+}
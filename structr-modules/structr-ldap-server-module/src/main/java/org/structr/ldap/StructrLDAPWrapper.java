@@ -32,7 +32,9 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.directory.server.core.entry.ClonedServerEntry;
+import org.apache.directory.shared.ldap.model.cursor.Cursor;
 import org.apache.directory.shared.ldap.model.entry.Attribute;
 import org.apache.directory.shared.ldap.model.entry.DefaultAttribute;
 import org.apache.directory.shared.ldap.model.entry.DefaultEntry;
@@ -59,6 +61,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
+import org.structr.core.GraphObject;
 import org.structr.core.app.App;
 import org.structr.core.app.StructrApp;
 import org.structr.core.entity.AbstractNode;
@@ -67,7 +70,9 @@ import org.structr.core.graph.Tx;
 import org.structr.ldap.api.LDAPAttribute;
 import org.structr.ldap.api.LDAPNode;
 import org.structr.ldap.api.LDAPValue;
+import org.structr.ldap.entity.LDAPAttributeImpl;
 import org.structr.ldap.entity.LDAPNodeImpl;
+import org.structr.ldap.entity.LDAPValueImpl;
 
 /**
  *
@@ -207,29 +212,86 @@ public class StructrLDAPWrapper {
 		}
 	}
 
-	public List<Entry> filter(final Dn dn, final ExprNode filter, final SearchScope scope) throws LdapException {
+	/**
+	 * Returns a lazy cursor over all entries below the given dn that match
+	 * the given filter. Equality, presence and substring filters are pushed
+	 * down to the database to narrow the set of candidates, the full filter
+	 * is then evaluated on each candidate while the cursor is consumed.
+	 *
+	 * @param dn
+	 * @param filter
+	 * @param scope
+	 * @param sizeLimit the maximum number of entries to return, 0 means no limit
+	 * @param timeLimit the maximum duration of the search in seconds, 0 means no limit
+	 * @return the cursor
+	 * @throws LdapException
+	 */
+	public Cursor<Entry> search(final Dn dn, final ExprNode filter, final SearchScope scope, final long sizeLimit, final int timeLimit) throws LdapException {
+
+		final List<String> candidates = new LinkedList<>();
 
 		try (final Tx tx = app().tx()) {
 
-			final LDAPNode entry = find(dn);
-			List<Entry> result   = null;
+			final LDAPNode base = find(dn);
+			if (base != null) {
 
-			if (entry != null) {
+				final Set<String> pushedDown = LDAPNodeImpl.class.isAssignableFrom(type) ? findCandidates(filter) : null;
+				if (pushedDown != null) {
+
+					for (final String uuid : pushedDown) {
+
+						final LDAPNode node = (LDAPNode)app().get(uuid);
+						if (node != null && isInScope(base, node, scope)) {
 
-				result = filter(entry, filter, scope, 0);
+							candidates.add(uuid);
+						}
+					}
+
+				} else {
+
+					collectCandidates(base, scope, 0, candidates);
+				}
 			}
 
 			tx.success();
 
-			if (result != null) {
-				return result;
+		} catch (FrameworkException fex) {
+			handleException(fex);
+		}
+
+		return new StructrLDAPCursor(this, candidates.iterator(), filter, sizeLimit, timeLimit);
+	}
+
+	/**
+	 * Loads the entries with the given ids that match the given filter.
+	 *
+	 * @param uuids
+	 * @param filter
+	 * @return the matching entries
+	 * @throws LdapException
+	 */
+	List<Entry> getMatchingEntries(final List<String> uuids, final ExprNode filter) throws LdapException {
+
+		final List<Entry> entries = new LinkedList<>();
+
+		try (final Tx tx = app().tx()) {
+
+			for (final String uuid : uuids) {
+
+				final LDAPNode node = (LDAPNode)app().get(uuid);
+				if (node != null && matches(node, filter)) {
+
+					entries.add(getEntry(node));
+				}
 			}
 
+			tx.success();
+
 		} catch (FrameworkException fex) {
 			handleException(fex);
 		}
 
-		return Collections.emptyList();
+		return entries;
 	}
 
 	// ----- private methods -----
@@ -311,29 +373,176 @@ public class StructrLDAPWrapper {
 		return current;
 	}
 
-	private List<Entry> filter(final LDAPNode node, final ExprNode filter, final SearchScope scope, final int depth) throws FrameworkException, LdapException {
+	private void collectCandidates(final LDAPNode node, final SearchScope scope, final int depth, final List<String> candidates) throws FrameworkException {
 
 		final boolean base     = SearchScope.OBJECT.equals(scope);
 		final boolean oneLevel = SearchScope.ONELEVEL.equals(scope);
 		final boolean subtree  = SearchScope.SUBTREE.equals(scope);
-		final List<Entry> list = new LinkedList<>();
 
 		if (base || !(depth == 0 && oneLevel)) {
 
-			if (matches(node, filter)) {
-				list.add(getEntry(node));
-			}
+			candidates.add(((GraphObject)node).getUuid());
 		}
 
 		if (!base && (subtree || (depth == 0 && oneLevel))) {
 
 			// recurse
 			for (final LDAPNode child : node.getChildren()) {
-				list.addAll(filter(child, filter, scope, depth + 1));
+				collectCandidates(child, scope, depth + 1, candidates);
+			}
+		}
+	}
+
+	private boolean isInScope(final LDAPNode base, final LDAPNode node, final SearchScope scope) throws FrameworkException {
+
+		switch (scope) {
+
+			case OBJECT:
+				return base.equals(node);
+
+			case ONELEVEL:
+				return base.equals(node.getParent());
+
+			default:
+
+				LDAPNode current = node;
+				while (current != null) {
+
+					if (base.equals(current)) {
+						return true;
+					}
+
+					current = current.getParent();
+				}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Translates the given filter into database queries and returns the ids
+	 * of all nodes that can possibly match, or null if the filter cannot be
+	 * pushed down and all nodes in scope need to be evaluated.
+	 */
+	private Set<String> findCandidates(final ExprNode filter) throws FrameworkException {
+
+		if (filter instanceof SimpleNode) {
+
+			final SimpleNode simpleNode = (SimpleNode)filter;
+
+			if (EQUALITY.equals(simpleNode.getAssertionType()) && simpleNode.getValue() != null) {
+
+				// inexact query is case-insensitive, exact match is evaluated later
+				return findNodesByValue(new DefaultAttribute(simpleNode.getAttributeType()).getId(), simpleNode.getValue().getString());
+			}
+
+		} else if (filter instanceof SubstringNode) {
+
+			final SubstringNode substringNode = (SubstringNode)filter;
+			String fragment                   = longest(substringNode.getInitial(), substringNode.getFinal());
+
+			if (substringNode.getAny() != null) {
+
+				for (final String any : substringNode.getAny()) {
+					fragment = longest(fragment, any);
+				}
 			}
+
+			if (StringUtils.isNotEmpty(fragment)) {
+
+				return findNodesByValue(new DefaultAttribute(substringNode.getAttributeType()).getId(), fragment);
+			}
+
+		} else if (filter instanceof PresenceNode) {
+
+			final String oid         = new DefaultAttribute(((PresenceNode)filter).getAttributeType()).getId();
+			final Set<String> result = new LinkedHashSet<>();
+
+			for (final LDAPAttributeImpl attribute : app().nodeQuery(LDAPAttributeImpl.class).and(LDAPAttributeImpl.oid, oid).getAsList()) {
+
+				final LDAPNodeImpl node = attribute.getProperty(LDAPAttributeImpl.parent);
+				if (node != null) {
+
+					result.add(node.getUuid());
+				}
+			}
+
+			return result;
+
+		} else if (filter instanceof AndNode) {
+
+			Set<String> result = null;
+
+			for (final ExprNode child : ((AndNode)filter).getChildren()) {
+
+				final Set<String> candidates = findCandidates(child);
+				if (candidates != null) {
+
+					if (result == null) {
+
+						result = candidates;
+
+					} else {
+
+						result.retainAll(candidates);
+					}
+				}
+			}
+
+			return result;
+
+		} else if (filter instanceof OrNode) {
+
+			final Set<String> result = new LinkedHashSet<>();
+
+			for (final ExprNode child : ((OrNode)filter).getChildren()) {
+
+				final Set<String> candidates = findCandidates(child);
+				if (candidates == null) {
+
+					return null;
+				}
+
+				result.addAll(candidates);
+			}
+
+			return result;
+		}
+
+		return null;
+	}
+
+	private Set<String> findNodesByValue(final String oid, final String value) throws FrameworkException {
+
+		final Set<String> result = new LinkedHashSet<>();
+
+		for (final LDAPValueImpl ldapValue : app().nodeQuery(LDAPValueImpl.class).and(LDAPValueImpl.value, value, false).getAsList()) {
+
+			final LDAPAttributeImpl attribute = ldapValue.getProperty(LDAPValueImpl.parent);
+			if (attribute != null && oid.equals(attribute.getOid())) {
+
+				final LDAPNodeImpl node = attribute.getProperty(LDAPAttributeImpl.parent);
+				if (node != null) {
+
+					result.add(node.getUuid());
+				}
+			}
+		}
+
+		return result;
+	}
+
+	private String longest(final String a, final String b) {
+
+		if (a == null) {
+			return b;
+		}
+
+		if (b == null) {
+			return a;
 		}
 
-		return list;
+		return a.length() >= b.length() ? a : b;
 	}
 
 	private boolean matches(final LDAPNode node, final ExprNode filter) throws FrameworkException, LdapInvalidAttributeValueException {
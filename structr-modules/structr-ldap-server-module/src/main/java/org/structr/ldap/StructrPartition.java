@@ -20,7 +20,6 @@ package org.structr.ldap;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.List;
 import org.apache.directory.server.core.LdapPrincipal;
 import org.apache.directory.server.core.filtering.BaseEntryFilteringCursor;
 import org.apache.directory.server.core.filtering.EntryFilteringCursor;
@@ -38,7 +37,6 @@ import org.apache.directory.server.core.interceptor.context.SearchOperationConte
 import org.apache.directory.server.core.interceptor.context.UnbindOperationContext;
 import org.apache.directory.server.core.partition.Partition;
 import org.apache.directory.shared.ldap.model.cursor.Cursor;
-import org.apache.directory.shared.ldap.model.cursor.ListCursor;
 import org.apache.directory.shared.ldap.model.entry.Entry;
 import org.apache.directory.shared.ldap.model.exception.LdapException;
 import org.apache.directory.shared.ldap.model.exception.LdapInvalidDnException;
@@ -157,8 +155,7 @@ class StructrPartition implements Partition {
 		final Dn dn                   = searchContext.getDn();
 		final ExprNode filter         = searchContext.getFilter();
 		final SearchScope scope       = searchContext.getScope();
-		final List<Entry> list        = getWrapper(principal).filter(dn, filter, scope);
-		final Cursor<Entry> cursor    = new ListCursor<>(list);
+		final Cursor<Entry> cursor    = getWrapper(principal).search(dn, filter, scope, searchContext.getSizeLimit(), searchContext.getTimeLimit());
 
 		return new BaseEntryFilteringCursor(cursor, searchContext);
 	}
@@ -40,7 +40,7 @@ import org.structr.ldap.relationship.LDAPValues;
 public class LDAPValueImpl extends AbstractNode implements LDAPValue {
 
 	public static final Property<LDAPAttributeImpl> parent = new StartNode<>("parent", LDAPValues.class);
-	public static final Property<String> value             = new StringProperty("value");
+	public static final Property<String> value             = new StringProperty("value").indexed();
 
 	public static final View publicView = new View(LDAPValueImpl.class, PropertyView.Public,
 		value
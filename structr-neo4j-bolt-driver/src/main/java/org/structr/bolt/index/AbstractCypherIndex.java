@@ -31,6 +31,10 @@ import org.slf4j.LoggerFactory;
 import org.structr.api.QueryResult;
 import org.structr.api.graph.PropertyContainer;
 import org.structr.api.index.Index;
+import org.structr.api.metrics.Counter;
+import org.structr.api.metrics.Histogram;
+import org.structr.api.metrics.MetricFamily;
+import org.structr.api.metrics.MetricsRegistry;
 import org.structr.api.search.ArrayQuery;
 import org.structr.api.search.EmptyQuery;
 import org.structr.api.search.ExactQuery;
@@ -78,8 +82,20 @@ public abstract class AbstractCypherIndex<T extends PropertyContainer> implement
 		String.class, Boolean.class, Double.class, Integer.class, Long.class, Character.class, Float.class
 	}));
 
+	private static final MetricFamily<Histogram> queryDuration = MetricsRegistry.getInstance().histograms("structr_cypher_query_duration_seconds", "Duration of Cypher index queries per statement template", "statement");
+	protected static final Counter cacheHits                   = MetricsRegistry.getInstance().counter("structr_query_cache_hits_total", "Number of index queries answered from the query cache");
+	protected static final Counter cacheMisses                 = MetricsRegistry.getInstance().counter("structr_query_cache_misses_total", "Number of index queries that were not found in the query cache");
+
 	static {
 
+		MetricsRegistry.getInstance().gauge("structr_query_cache_hit_ratio", "Ratio of index queries answered from the query cache", () -> {
+
+			final double hits  = cacheHits.get();
+			final double total = hits + cacheMisses.get();
+
+			return total > 0 ? hits / total : 0.0;
+		});
+
 		FACTORIES.put(NotEmptyQuery.class, new NotEmptyQueryFactory());
 		FACTORIES.put(FulltextQuery.class, new KeywordQueryFactory());
 		FACTORIES.put(SpatialQuery.class,  new SpatialQueryFactory());
@@ -154,6 +170,17 @@ public abstract class AbstractCypherIndex<T extends PropertyContainer> implement
 		return getResult(query);
 	}
 
+	/**
+	 * Records the duration of a query that was started at the given
+	 * time (as returned by System.nanoTime()).
+	 *
+	 * @param statement the statement template of the query
+	 * @param start
+	 */
+	protected void recordQuery(final String statement, final long start) {
+		queryDuration.get(statement).record(System.nanoTime() - start);
+	}
+
 	public void invalidateCache() {
 
 		if (!queryCache.isEmpty()) {
@@ -57,15 +57,24 @@ public class CypherNodeIndex extends AbstractCypherIndex<Node> {
 
 		if (result == null) {
 
+			final long start            = System.nanoTime();
+			final String statement      = query.getStatement();
 			final SessionTransaction tx = db.getCurrentTransaction();
 			final NodeNodeMapper mapper = new NodeNodeMapper(db);
-			final Iterable<Node> mapped = Iterables.map(mapper, tx.getNodes(query.getStatement(), query.getParameters()));
+			final Iterable<Node> mapped = Iterables.map(mapper, tx.getNodes(statement, query.getParameters()));
 
 			result = new CachedQueryResult(mapped);
 			if (!result.isEmpty()) {
 
 				queryCache.put(queryHashCode, result);
 			}
+
+			cacheMisses.increment();
+			recordQuery(statement, start);
+
+		} else {
+
+			cacheHits.increment();
 		}
 
 		return result;
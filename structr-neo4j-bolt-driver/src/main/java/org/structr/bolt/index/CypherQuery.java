@@ -40,6 +40,7 @@ public class CypherQuery {
 	private boolean sortDescending               = false;
 	private SortType sortType                    = null;
 	private String sortKey                       = null;
+	private Double[] sortCoords                  = null;
 	private int count                            = 0;
 
 	public CypherQuery(final AbstractCypherIndex<?> index) {
@@ -58,7 +59,9 @@ public class CypherQuery {
 		hashCode += 27 * typeLabels.hashCode();
 		hashCode += 37 * getStatement().hashCode();
 		hashCode += 47 * deepHashCode(parameters);
-		hashCode += 57 * sortKey.hashCode();
+		if (sortKey != null) {
+			hashCode += 57 * sortKey.hashCode();
+		}
 
 		if (sortDescending) {
 			hashCode += 1;
@@ -145,6 +148,14 @@ public class CypherQuery {
 			if (sortDescending) {
 				buf.append(" DESC");
 			}
+
+		} else if (sortCoords != null) {
+
+			buf.append(" ORDER BY distance(point({latitude:");
+			buf.append(sortCoords[0]);
+			buf.append(",longitude:");
+			buf.append(sortCoords[1]);
+			buf.append("}), point(n))");
 		}
 
 		return buf.toString();
@@ -293,6 +304,17 @@ public class CypherQuery {
 		this.sortKey        = sortKey;
 	}
 
+	/**
+	 * Sorts the results by their distance to the given coordinates, if
+	 * no sort key is set.
+	 *
+	 * @param latitude
+	 * @param longitude
+	 */
+	public void sortByDistance(final double latitude, final double longitude) {
+		this.sortCoords = new Double[] { latitude, longitude };
+	}
+
 	public void setSourceType(final String sourceTypeLabel) {
 		this.sourceTypeLabel = sourceTypeLabel;
 	}
@@ -64,9 +64,14 @@ public class CypherRelationshipIndex extends AbstractCypherIndex<Relationship> {
 	@Override
 	public QueryResult<Relationship> getResult(final CypherQuery context) {
 
+		final long start                            = System.nanoTime();
+		final String statement                      = context.getStatement();
 		final SessionTransaction tx                 = db.getCurrentTransaction();
 		final RelationshipRelationshipMapper mapper = new RelationshipRelationshipMapper(db);
-		final Iterable<Relationship> mapped         = Iterables.map(mapper, tx.getRelationships(context.getStatement(), context.getParameters()));
+		final Iterable<Relationship> mapped         = Iterables.map(mapper, tx.getRelationships(statement, context.getParameters()));
+
+		// results are streamed, so this only covers the execution of the statement
+		recordQuery(statement, start);
 
 		return new QueryResult<Relationship>() {
 
@@ -19,6 +19,7 @@
 package org.structr.bolt.index.factory;
 
 import org.structr.api.search.QueryPredicate;
+import org.structr.api.util.GeoHash;
 import org.structr.api.search.SpatialQuery;
 import org.structr.bolt.index.CypherQuery;
 
@@ -37,6 +38,8 @@ public class SpatialQueryFactory extends AbstractQueryFactory {
 			final SpatialQuery spatial = (SpatialQuery)predicate;
 			final StringBuilder buf    = new StringBuilder();
 			final Double[] coords      = spatial.getCoords();
+			final double distance      = spatial.getDistance() * 1000.0; // distance is in kilometers
+			final GeoHash.Cover cover  = GeoHash.cover(coords[0], coords[1], distance);
 
 			buf.append("distance(point({latitude:");
 			buf.append(coords[0]);
@@ -44,15 +47,28 @@ public class SpatialQueryFactory extends AbstractQueryFactory {
 			buf.append(coords[1]);
 			buf.append("}), point(n))");
 
-			// do not include nodes that have no lat/lon properties
 			query.beginGroup();
+
+			// restrict the search to the geohash cells that cover
+			// the search circle, so the distance is only computed
+			// for nodes in the vicinity
+			if (cover != null) {
+
+				query.addSimpleParameter(cover.getPropertyName(), "IN", cover.getCells());
+				query.and();
+			}
+
+			// do not include nodes that have no lat/lon properties
 			query.addSimpleParameter("latitude", "IS NOT", null);
 			query.and();
 			query.addSimpleParameter("longitude", "IS NOT", null);
 			query.and();
-			query.addSimpleParameter(buf.toString(), "<", spatial.getDistance() * 1000.0, false); // distance is in kilometers
+			query.addSimpleParameter(buf.toString(), "<", distance, false);
 			query.endGroup();
 
+			// sort by distance unless a sort key is given
+			query.sortByDistance(coords[0], coords[1]);
+
 			return true;
 		}
 
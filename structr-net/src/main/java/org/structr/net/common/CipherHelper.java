@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.structr.net.common;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+/**
+ * Cryptographic helper methods for the peer-to-peer protocol. Cipher
+ * and digest instances are expensive to create and not thread-safe,
+ * so one instance of each is kept per thread.
+ */
+public class CipherHelper {
+
+	public static final String KEY_EXCHANGE_TRANSFORMATION = "RSA/ECB/PKCS1Padding";
+	public static final String SESSION_TRANSFORMATION      = "AES/GCM/NoPadding";
+	public static final String SESSION_KEY_ALGORITHM       = "AES";
+	public static final int SESSION_KEY_LENGTH             = 128;
+	public static final int IV_LENGTH                      = 12;
+	public static final int TAG_LENGTH                     = 128;
+
+	private static final ThreadLocal<Cipher> keyExchangeCiphers = new ThreadLocal<>();
+	private static final ThreadLocal<Cipher> sessionCiphers     = new ThreadLocal<>();
+	private static final ThreadLocal<MessageDigest> digests     = new ThreadLocal<>();
+	private static final SecureRandom random                    = new SecureRandom();
+
+	public static Cipher getKeyExchangeCipher() throws GeneralSecurityException {
+
+		Cipher cipher = keyExchangeCiphers.get();
+		if (cipher == null) {
+
+			cipher = Cipher.getInstance(KEY_EXCHANGE_TRANSFORMATION);
+			keyExchangeCiphers.set(cipher);
+		}
+
+		return cipher;
+	}
+
+	public static Cipher getSessionCipher() throws GeneralSecurityException {
+
+		Cipher cipher = sessionCiphers.get();
+		if (cipher == null) {
+
+			cipher = Cipher.getInstance(SESSION_TRANSFORMATION);
+			sessionCiphers.set(cipher);
+		}
+
+		return cipher;
+	}
+
+	public static SecretKey createSessionKey() throws GeneralSecurityException {
+
+		final KeyGenerator generator = KeyGenerator.getInstance(SESSION_KEY_ALGORITHM);
+
+		generator.init(SESSION_KEY_LENGTH, random);
+
+		return generator.generateKey();
+	}
+
+	public static byte[] createIV() {
+
+		final byte[] iv = new byte[IV_LENGTH];
+
+		random.nextBytes(iv);
+
+		return iv;
+	}
+
+	public static byte[] hash(final byte[] data) throws GeneralSecurityException {
+
+		MessageDigest digest = digests.get();
+		if (digest == null) {
+
+			digest = MessageDigest.getInstance("SHA-256");
+			digests.set(digest);
+		}
+
+		return digest.digest(data);
+	}
+}
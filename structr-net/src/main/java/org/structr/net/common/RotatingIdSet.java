@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.structr.net.common;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A concurrent set of identifiers that forgets its entries after some
+ * time. The set consists of a fixed number of generations, new entries
+ * are added to the newest generation, and the oldest generation is
+ * dropped whenever the newest one is older than the rotation interval
+ * or contains more than the given number of entries. An entry is kept
+ * for at least (generations - 1) rotation intervals, and the memory
+ * usage is bounded by generations * maxEntriesPerGeneration.
+ */
+public class RotatingIdSet {
+
+	private final Object lock                  = new Object();
+	private volatile Generation[] generations  = null;
+	private final long rotationInterval;
+	private final int maxEntriesPerGeneration;
+
+	public RotatingIdSet(final int generationCount, final long rotationInterval, final int maxEntriesPerGeneration) {
+
+		if (generationCount < 2) {
+			throw new IllegalArgumentException("RotatingIdSet needs at least two generations");
+		}
+
+		this.rotationInterval        = rotationInterval;
+		this.maxEntriesPerGeneration = maxEntriesPerGeneration;
+		this.generations             = new Generation[generationCount];
+
+		final long now = System.currentTimeMillis();
+
+		for (int i=0; i<generationCount; i++) {
+			generations[i] = new Generation(now);
+		}
+	}
+
+	/**
+	 * Adds the given id to this set.
+	 *
+	 * @param id
+	 * @return true if the id was not contained in this set before
+	 */
+	public boolean add(final String id) {
+
+		final Generation[] current = rotate(System.currentTimeMillis());
+
+		for (int i=1; i<current.length; i++) {
+
+			if (current[i].ids.contains(id)) {
+				return false;
+			}
+		}
+
+		return current[0].ids.add(id);
+	}
+
+	public boolean contains(final String id) {
+
+		for (final Generation generation : rotate(System.currentTimeMillis())) {
+
+			if (generation.ids.contains(id)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	public int size() {
+
+		int size = 0;
+
+		for (final Generation generation : generations) {
+			size += generation.ids.size();
+		}
+
+		return size;
+	}
+
+	public void clear() {
+
+		synchronized (lock) {
+
+			final Generation[] cleared = new Generation[generations.length];
+			final long now             = System.currentTimeMillis();
+
+			for (int i=0; i<cleared.length; i++) {
+				cleared[i] = new Generation(now);
+			}
+
+			generations = cleared;
+		}
+	}
+
+	// ----- private methods -----
+	private Generation[] rotate(final long now) {
+
+		Generation[] current = generations;
+
+		if (needsRotation(current[0], now)) {
+
+			synchronized (lock) {
+
+				current = generations;
+
+				if (needsRotation(current[0], now)) {
+
+					final Generation[] rotated = new Generation[current.length];
+
+					rotated[0] = new Generation(now);
+					System.arraycopy(current, 0, rotated, 1, current.length - 1);
+
+					generations = rotated;
+					current     = rotated;
+				}
+			}
+		}
+
+		return current;
+	}
+
+	private boolean needsRotation(final Generation generation, final long now) {
+		return now - generation.creationTime >= rotationInterval || generation.ids.size() >= maxEntriesPerGeneration;
+	}
+
+	// ----- nested classes -----
+	private static class Generation {
+
+		private final Set<String> ids = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		private long creationTime     = 0L;
+
+		public Generation(final long creationTime) {
+			this.creationTime = creationTime;
+		}
+	}
+}
@@ -24,6 +24,7 @@ import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -44,9 +45,11 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
+import javax.crypto.SecretKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.net.PeerListener;
+import org.structr.net.common.RotatingIdSet;
 import org.structr.net.data.RemoteTransaction;
 import org.structr.net.data.TimeoutException;
 import org.structr.net.data.time.Clock;
@@ -72,7 +75,11 @@ import org.structr.net.repository.RepositoryObject;
  */
 public final class Peer implements Runnable, Clock, InternalChangeListener {
 
-	public static final int START_PORT = 5757;
+	public static final int START_PORT                = 5757;
+	public static final int MAX_PACKET_SIZE           = 65535;
+	public static final long SEEN_MESSAGES_TTL        = 15000L;
+	public static final int SEEN_MESSAGES_GENERATIONS = 5;
+	public static final int MAX_SEEN_MESSAGES         = 100000;
 
 	private static final Logger logger = LoggerFactory.getLogger(Peer.class.getName());
 	
@@ -83,6 +90,8 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 	private final Map<String, Callback> callbacks     = new ConcurrentHashMap<>();
 	private final Charset utf8                        = Charset.forName("utf-8");
 	private final List<PeerListener> listeners        = new LinkedList<>();
+	private final RotatingIdSet seenMessages          = new RotatingIdSet(SEEN_MESSAGES_GENERATIONS, SEEN_MESSAGES_TTL, MAX_SEEN_MESSAGES);
+	private SessionKeyStore sessionKeys               = null;
 	private Map<String, Object> data                  = new HashMap<>();
 	private KeyPair keyPair                           = null;
 	private PrivateKey privateKey                     = null;
@@ -116,6 +125,7 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 
 		this.pte         = new ToplevelTemporalEnvironment(this);
 		this.keyPair     = keyPair;
+		this.sessionKeys = new SessionKeyStore(keyPair != null ? keyPair.getPrivate() : null);
 		this.bindAddress = bindAddress;
 		this.initialPeer = initialPeer;
 
@@ -152,20 +162,20 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 						// notify listeners
 						onMessage(message);
 
-						// re-broadcast to other peers
-						final String ackKey = message.getId() + "-ack";
-
 						// re-broadcast message if UUID was not seen before
 						// (this causes the "wave" effect so that all peers
-						// see the message, even if not connected directly)
-						if (getData(ackKey) == null) {
+						// see the message, even if not connected directly),
+						// seen UUIDs are kept for (SEEN_MESSAGES_GENERATIONS - 1)
+						// to SEEN_MESSAGES_GENERATIONS rotations of SEEN_MESSAGES_TTL
+						// (60 to 75 seconds), or shorter if more than
+						// MAX_SEEN_MESSAGES arrive within one rotation interval
+						if (seenMessages.add(message.getId())) {
 
 							// process message
 							message.onMessage(this, envelope.getPeer());
 
 							// send message to other peers
 							broadcast(message);
-							setData(ackKey, true);
 						}
 					}
 				}
@@ -202,6 +212,8 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 							it.remove();
 						}
 					}
+
+					sessionKeys.expire(currentTime);
 				}
 
 				Thread.sleep(10L);
@@ -540,6 +552,14 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 		return keyPair.getPublic();
 	}
 
+	public SessionKey getSessionKey(final PeerInfo recipient) throws GeneralSecurityException {
+		return sessionKeys.getOutboundKey(recipient);
+	}
+
+	public SecretKey getSessionKey(final byte[] wrappedKey) throws GeneralSecurityException {
+		return sessionKeys.getInboundKey(wrappedKey);
+	}
+
 	// ---- interface Clock -----
 	@Override
 	public long getTime() {
@@ -645,7 +665,7 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 	// ----- nested classes -----
 	private class InputHandler implements Runnable {
 
-		private final byte[] buffer = new byte[2048];
+		private final byte[] buffer = new byte[MAX_PACKET_SIZE];
 
 		@Override
 		public void run() {
@@ -654,7 +674,7 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 
 				try {
 
-					final DatagramPacket packet = new DatagramPacket(buffer, 2048);
+					final DatagramPacket packet = new DatagramPacket(buffer, MAX_PACKET_SIZE);
 
 					serverSocket.receive(packet);
 
@@ -709,7 +729,7 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 							message.setSenderTimestamp(System.currentTimeMillis() + timeOffset);
 							message.onSend(Peer.this);
 
-							serverSocket.send(AbstractMessage.forSending(Peer.this.getUuid(), recipient, message));
+							serverSocket.send(AbstractMessage.forSending(Peer.this, recipient, message));
 
 							sent++;
 						}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.structr.net.peer;
+
+import java.security.PublicKey;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.SecretKey;
+
+/**
+ * A symmetric session key, together with its RSA-encrypted form that
+ * is sent to the remote peer.
+ */
+public class SessionKey {
+
+	private final AtomicLong usageCount = new AtomicLong();
+	private SecretKey secretKey         = null;
+	private PublicKey publicKey         = null;
+	private byte[] wrappedKey           = null;
+	private long creationTime           = 0L;
+
+	public SessionKey(final SecretKey secretKey, final PublicKey publicKey, final byte[] wrappedKey, final long creationTime) {
+
+		this.secretKey    = secretKey;
+		this.publicKey    = publicKey;
+		this.wrappedKey   = wrappedKey;
+		this.creationTime = creationTime;
+	}
+
+	public SecretKey getSecretKey() {
+		return secretKey;
+	}
+
+	public PublicKey getPublicKey() {
+		return publicKey;
+	}
+
+	public byte[] getWrappedKey() {
+		return wrappedKey;
+	}
+
+	public long getCreationTime() {
+		return creationTime;
+	}
+
+	public long use() {
+		return usageCount.incrementAndGet();
+	}
+
+	public long getUsageCount() {
+		return usageCount.get();
+	}
+}
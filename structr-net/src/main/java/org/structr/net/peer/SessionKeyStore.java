@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.structr.net.peer;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import org.structr.net.common.CipherHelper;
+
+/**
+ * Manages the symmetric session keys of a peer. RSA is only used to
+ * exchange session keys: each outgoing packet carries the session key
+ * of its recipient, encrypted with the recipient's public key, which
+ * is computed once per session key. The receiving side decrypts each
+ * encrypted session key only once and caches the result, so that all
+ * further packets can be decrypted with the symmetric cipher. Since
+ * every packet carries its key, no handshake is needed and lost
+ * packets cannot break the key exchange.
+ */
+public class SessionKeyStore {
+
+	public static final long SESSION_KEY_LIFETIME  = 10L * 60L * 1000L;
+	public static final long MAX_SESSION_KEY_USAGE = 1L << 24;
+	public static final int MAX_INBOUND_KEYS       = 10000;
+
+	private final Map<String, SessionKey> outboundKeys    = new ConcurrentHashMap<>();
+	private final Map<ByteBuffer, SessionKey> inboundKeys = new ConcurrentHashMap<>();
+	private PrivateKey privateKey                         = null;
+
+	public SessionKeyStore(final PrivateKey privateKey) {
+		this.privateKey = privateKey;
+	}
+
+	/**
+	 * Returns the session key to use for the given recipient, or null if
+	 * the recipient has no public key. A new session key is created if
+	 * there is none yet, or if the current one is too old or has been
+	 * used too often.
+	 *
+	 * @param recipient
+	 * @return the session key or null
+	 * @throws GeneralSecurityException
+	 */
+	public SessionKey getOutboundKey(final PeerInfo recipient) throws GeneralSecurityException {
+		return getOutboundKey(recipient, System.currentTimeMillis());
+	}
+
+	// ----- package-private methods -----
+	SessionKey getOutboundKey(final PeerInfo recipient, final long now) throws GeneralSecurityException {
+
+		final PublicKey publicKey = recipient.getPublicKey();
+		if (publicKey == null) {
+
+			return null;
+		}
+
+		final String uuid = recipient.getUuid();
+		SessionKey key    = outboundKeys.get(uuid);
+
+		if (key == null || !publicKey.equals(key.getPublicKey()) || isExpired(key, now) || key.use() > MAX_SESSION_KEY_USAGE) {
+
+			final SecretKey secretKey = CipherHelper.createSessionKey();
+			final Cipher cipher       = CipherHelper.getKeyExchangeCipher();
+
+			cipher.init(Cipher.WRAP_MODE, publicKey);
+
+			key = new SessionKey(secretKey, publicKey, cipher.wrap(secretKey), now);
+			key.use();
+
+			outboundKeys.put(uuid, key);
+		}
+
+		return key;
+	}
+
+	/**
+	 * Returns the secret key contained in the given encrypted session
+	 * key, or null if it cannot be decrypted with the private key of
+	 * this peer.
+	 *
+	 * @param wrappedKey
+	 * @return the secret key or null
+	 * @throws GeneralSecurityException
+	 */
+	public SecretKey getInboundKey(final byte[] wrappedKey) throws GeneralSecurityException {
+
+		if (privateKey == null) {
+
+			return null;
+		}
+
+		final ByteBuffer id = ByteBuffer.wrap(CipherHelper.hash(wrappedKey));
+		SessionKey key      = inboundKeys.get(id);
+
+		if (key == null) {
+
+			final Cipher cipher = CipherHelper.getKeyExchangeCipher();
+
+			cipher.init(Cipher.UNWRAP_MODE, privateKey);
+
+			final SecretKey secretKey = (SecretKey)cipher.unwrap(wrappedKey, CipherHelper.SESSION_KEY_ALGORITHM, Cipher.SECRET_KEY);
+
+			key = new SessionKey(secretKey, null, wrappedKey, System.currentTimeMillis());
+
+			// do not let unknown senders fill the cache
+			if (inboundKeys.size() < MAX_INBOUND_KEYS) {
+				inboundKeys.put(id, key);
+			}
+		}
+
+		return key.getSecretKey();
+	}
+
+	/**
+	 * Removes outdated session keys. Inbound keys are kept twice as long
+	 * as outbound keys because the sender may have created them before
+	 * the first packet arrived here.
+	 *
+	 * @param now
+	 */
+	public void expire(final long now) {
+
+		for (final Iterator<SessionKey> it = outboundKeys.values().iterator(); it.hasNext();) {
+
+			if (isExpired(it.next(), now)) {
+				it.remove();
+			}
+		}
+
+		for (final Iterator<SessionKey> it = inboundKeys.values().iterator(); it.hasNext();) {
+
+			if (now - it.next().getCreationTime() > 2 * SESSION_KEY_LIFETIME) {
+				it.remove();
+			}
+		}
+	}
+
+	// ----- private methods -----
+	private boolean isExpired(final SessionKey key, final long now) {
+		return now - key.getCreationTime() > SESSION_KEY_LIFETIME;
+	}
+}
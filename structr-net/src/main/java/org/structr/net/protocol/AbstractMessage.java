@@ -27,11 +27,7 @@ import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.security.PrivateKey;
-import java.security.PublicKey;
-import java.util.Arrays;
+import java.security.GeneralSecurityException;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -39,12 +35,14 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import javax.crypto.AEADBadTagException;
 import javax.crypto.Cipher;
-import javax.crypto.CipherInputStream;
-import javax.crypto.CipherOutputStream;
-import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import org.structr.net.common.CipherHelper;
 import org.structr.net.peer.Peer;
 import org.structr.net.peer.PeerInfo;
+import org.structr.net.peer.SessionKey;
 
 /**
  *
@@ -131,53 +129,64 @@ public abstract class AbstractMessage {
 		this.timestamp = senderTimestamp;
 	}
 
-	public static Envelope receive(final Peer peer, final DatagramPacket packet) throws IOException, InvalidKeyException, NoSuchAlgorithmException, NoSuchPaddingException {
+	public static Envelope receive(final Peer peer, final DatagramPacket packet) throws IOException, GeneralSecurityException {
 
-		final PrivateKey privateKey = peer.getPrivateKey();
-		if (privateKey != null) {
+		final DataInputStream packetStream = new DataInputStream(new ByteArrayInputStream(packet.getData(), packet.getOffset(), packet.getLength()));
+		final byte[] wrappedKey            = new byte[packetStream.readUnsignedShort()];
+		final byte[] iv                    = new byte[CipherHelper.IV_LENGTH];
 
-			final Cipher cipher = AbstractMessage.getCipher();
-			cipher.init(Cipher.DECRYPT_MODE, peer.getPrivateKey());
+		packetStream.readFully(wrappedKey);
+		packetStream.readFully(iv);
 
-			final byte[] data = decryptBlocks(packet.getData(), cipher, 256, 245);
+		final SecretKey sessionKey = peer.getSessionKey(wrappedKey);
+		if (sessionKey != null) {
 
-			if (data.length == 0) {
+			final int offset    = packet.getOffset() + 2 + wrappedKey.length + iv.length;
+			final int length    = packet.getLength() - 2 - wrappedKey.length - iv.length;
+			final Cipher cipher = CipherHelper.getSessionCipher();
+			byte[] data         = null;
 
-				System.out.println("Decryption failed");
+			cipher.init(Cipher.DECRYPT_MODE, sessionKey, new GCMParameterSpec(CipherHelper.TAG_LENGTH, iv));
 
-			} else {
+			try {
 
-				final DataInputStream dis = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(data), 1024));
-				//final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(data));
-				final int command         = dis.readInt();
-				final String messageId    = deserializeUUID(dis);
-				final String peerId       = deserializeUUID(dis);
-				final long timestamp      = dis.readLong();
-				AbstractMessage msg       = null;
+				data = cipher.doFinal(packet.getData(), offset, length);
 
-				final Class<? extends AbstractMessage> type = CommandMap.get(command);
-				if (type != null) {
+			} catch (AEADBadTagException badTag) {
 
-					try {
+				System.out.println("Decryption failed");
+				return null;
+			}
 
-						msg = type.newInstance();
+			final DataInputStream dis = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(data), 1024));
+			final int command         = dis.readInt();
+			final String messageId    = deserializeUUID(dis);
+			final String peerId       = deserializeUUID(dis);
+			final long timestamp      = dis.readLong();
+			AbstractMessage msg       = null;
 
-						msg.setSenderTimestamp(timestamp);
-						msg.setId(messageId);
+			final Class<? extends AbstractMessage> type = CommandMap.get(command);
+			if (type != null) {
 
-						msg.deserialize(dis);
+				try {
 
-						// create envelope
-						return new Envelope(new PeerInfo(peer.getPublicKey(), peerId, packet.getAddress().getHostAddress(), packet.getPort()), msg);
+					msg = type.newInstance();
 
-					} catch (Throwable t) {
-						t.printStackTrace();
-					}
+					msg.setSenderTimestamp(timestamp);
+					msg.setId(messageId);
 
-				} else {
+					msg.deserialize(dis);
 
-					System.out.println("Unknown command " + command);
+					// create envelope
+					return new Envelope(new PeerInfo(peer.getPublicKey(), peerId, packet.getAddress().getHostAddress(), packet.getPort()), msg);
+
+				} catch (Throwable t) {
+					t.printStackTrace();
 				}
+
+			} else {
+
+				System.out.println("Unknown command " + command);
 			}
 
 		} else {
@@ -188,7 +197,7 @@ public abstract class AbstractMessage {
 		return null;
 	}
 
-	public static DatagramPacket forSending(final String peerId, final PeerInfo recipient, final AbstractMessage message) throws UnknownHostException, IOException, InvalidKeyException, NoSuchAlgorithmException, NoSuchPaddingException {
+	public static DatagramPacket forSending(final Peer peer, final PeerInfo recipient, final AbstractMessage message) throws UnknownHostException, IOException, GeneralSecurityException {
 
 		final ByteArrayOutputStream finalBuffer = new ByteArrayOutputStream();
 		final GZIPOutputStream zos              = new GZIPOutputStream(finalBuffer, 1024);
@@ -196,7 +205,7 @@ public abstract class AbstractMessage {
 
 		dos.writeInt(message.getCommand());		// Command
 		serializeUUID(dos, message.getId());		// UUID
-		serializeUUID(dos, peerId);			// peer UUID
+		serializeUUID(dos, peer.getUuid());		// peer UUID
 		dos.writeLong(message.getSenderTimestamp());	// timestamp
 
 		// let message do the rest
@@ -206,14 +215,28 @@ public abstract class AbstractMessage {
 		dos.flush();
 		dos.close();
 
-		final PublicKey publicKey = recipient.getPublicKey();
-		if (publicKey != null) {
+		// encrypt with the session key of the recipient, the session key
+		// itself is encrypted with the public key of the recipient
+		final SessionKey sessionKey = peer.getSessionKey(recipient);
+		if (sessionKey != null) {
+
+			final byte[] wrappedKey = sessionKey.getWrappedKey();
+			final byte[] iv         = CipherHelper.createIV();
+			final Cipher cipher     = CipherHelper.getSessionCipher();
 
-			// encrypt with the public key of the recipient
-			final Cipher cipher = getCipher();
-			cipher.init(Cipher.ENCRYPT_MODE, publicKey);
+			cipher.init(Cipher.ENCRYPT_MODE, sessionKey.getSecretKey(), new GCMParameterSpec(CipherHelper.TAG_LENGTH, iv));
 
-			final byte[] data    = encryptBlocks(finalBuffer.toByteArray(), cipher, 245);
+			final byte[] encrypted              = cipher.doFinal(finalBuffer.toByteArray());
+			final ByteArrayOutputStream packet  = new ByteArrayOutputStream(2 + wrappedKey.length + iv.length + encrypted.length);
+			final DataOutputStream packetStream = new DataOutputStream(packet);
+
+			packetStream.writeShort(wrappedKey.length);
+			packetStream.write(wrappedKey);
+			packetStream.write(iv);
+			packetStream.write(encrypted);
+			packetStream.flush();
+
+			final byte[] data    = packet.toByteArray();
 			final String address = recipient.getAddress();
 			final int port       = recipient.getPort();
 
@@ -352,10 +375,6 @@ public abstract class AbstractMessage {
 		return list;
 	}
 
-	private static Cipher getCipher() throws NoSuchAlgorithmException, NoSuchPaddingException {
-		return Cipher.getInstance("RSA/ECB/PKCS1Padding");
-	}
-
 	private static UUID toUUID(final String id) {
 
 		final StringBuilder buf = new StringBuilder(id);
@@ -367,61 +386,4 @@ public abstract class AbstractMessage {
 
 		return UUID.fromString(buf.toString());
 	}
-
-	private static byte[] encryptBlocks(final byte[] data, final Cipher cipher, final int dataSize) throws IOException {
-
-		final ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length);
-		final int count                 = (data.length / dataSize) + 1;
-		int remaining                   = data.length;
-
-		for (int i=0; i<count; i++) {
-
-			final int offset = i*dataSize;
-			final int length = Math.min(dataSize, remaining);
-
-			final CipherOutputStream cos = new CipherOutputStream(bos, cipher);
-
-			cos.write(data, offset, length);
-			cos.flush();
-			cos.close();
-
-			remaining -= length;
-		}
-
-		return bos.toByteArray();
-	}
-
-	private static byte[] decryptBlocks(final byte[] data, final Cipher cipher, final int blockSize, final int dataSize) throws IOException {
-
-		final ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length);
-		final int count                 = (data.length / dataSize);
-		final byte[] buffer             = new byte[dataSize];
-		int remaining                   = data.length;
-
-		for (int i=0; i<count; i++) {
-
-			final int offset = i*blockSize;
-			final int length = Math.min(blockSize, remaining);
-
-			final byte[] range             = Arrays.copyOfRange(data, offset, offset + length);
-			final ByteArrayInputStream bis = new ByteArrayInputStream(range);
-			final CipherInputStream cis    = new CipherInputStream(bis, cipher);
-
-			try {
-				// clear buffer
-				Arrays.fill(buffer, 0, dataSize, (byte)0);
-
-				// copy data
-				cis.read(buffer, 0, dataSize);
-				bos.write(buffer);
-
-				remaining -= Math.min(blockSize, remaining);
-
-			} catch (IOException ignore) {
-				break;
-			}
-		}
-
-		return bos.toByteArray();
-	}
-}
\ No newline at end of file
+}
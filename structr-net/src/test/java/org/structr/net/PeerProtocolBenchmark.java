@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.net;
+
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.structr.net.peer.Peer;
+import org.structr.net.peer.PeerInfo;
+import org.structr.net.protocol.AbstractMessage;
+import org.structr.net.protocol.BroadcastMessage;
+import org.structr.net.protocol.Envelope;
+import org.structr.net.repository.DefaultRepository;
+
+/**
+ * Local benchmark for the encryption layer of the peer protocol. Not a
+ * unit test, run it manually after <code>mvn test-compile</code>:
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes org.structr.net.PeerProtocolBenchmark [messages]
+ * java -cp target/classes:target/test-classes org.structr.net.PeerProtocolBenchmark live
+ * </pre>
+ *
+ * The first form encrypts and decrypts the given number of messages
+ * (default 10000) in a ring of four peers that share a 2048-bit RSA key,
+ * without using the network, and prints the throughput of three rounds.
+ * The second form starts three peers on the loopback interface and
+ * prints the number of peers each one has discovered after four seconds.
+ */
+public class PeerProtocolBenchmark {
+
+	private static final int PEER_COUNT = 4;
+	private static final int ROUNDS     = 3;
+	private static final int PORT       = 57570;
+
+	public static void main(final String[] args) throws Exception {
+
+		final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+
+		generator.initialize(2048);
+
+		final KeyPair keyPair = generator.genKeyPair();
+
+		if (args.length > 0 && "live".equals(args[0])) {
+
+			live(keyPair);
+
+		} else {
+
+			roundtrip(keyPair, args.length > 0 ? Integer.parseInt(args[0]) : 10000);
+		}
+	}
+
+	// ----- private methods -----
+	private static void roundtrip(final KeyPair keyPair, final int count) throws Exception {
+
+		final Peer[] peers = new Peer[PEER_COUNT];
+
+		for (int i=0; i<PEER_COUNT; i++) {
+			peers[i] = new Peer(keyPair, new DefaultRepository(createId()), "127.0.0.1");
+		}
+
+		for (int round=0; round<ROUNDS; round++) {
+
+			final long start = System.nanoTime();
+
+			for (int i=0; i<count; i++) {
+
+				final Peer sender         = peers[i % PEER_COUNT];
+				final Peer recipient      = peers[(i + 1) % PEER_COUNT];
+				final PeerInfo info       = new PeerInfo(keyPair.getPublic(), recipient.getUuid(), "127.0.0.1", PORT);
+				final DatagramPacket sent = AbstractMessage.forSending(sender, info, new BroadcastMessage(sender.getUuid(), "message " + i));
+
+				// simulate the receive buffer of the peer
+				final byte[] buffer           = new byte[65535];
+				final DatagramPacket received = new DatagramPacket(buffer, buffer.length);
+
+				System.arraycopy(sent.getData(), sent.getOffset(), buffer, 0, sent.getLength());
+
+				received.setLength(sent.getLength());
+				received.setAddress(InetAddress.getLoopbackAddress());
+				received.setPort(PORT);
+
+				final Envelope envelope = AbstractMessage.receive(recipient, received);
+				if (envelope == null) {
+
+					throw new IllegalStateException("Unable to decrypt message " + i);
+				}
+			}
+
+			final long duration = System.nanoTime() - start;
+
+			System.out.println(count + " messages: " + (duration / 1_000_000L) + " ms, " + (long)(count * 1e9 / duration) + " msg/s");
+		}
+	}
+
+	private static void live(final KeyPair keyPair) throws Exception {
+
+		final List<Peer> peers = new ArrayList<>();
+
+		for (int i=0; i<3; i++) {
+
+			final DefaultRepository repository = new DefaultRepository(createId());
+			final Peer peer                    = new Peer(keyPair, repository, "127.0.0.1", "127.0.0.1");
+
+			repository.setPeer(peer);
+
+			peer.initializeServer();
+			peer.start();
+
+			peers.add(peer);
+		}
+
+		Thread.sleep(4000L);
+
+		for (final Peer peer : peers) {
+			System.out.println("Peer on port " + peer.getLocalPort() + " knows " + peer.getPeers().size() + " peers");
+		}
+
+		for (final Peer peer : peers) {
+			peer.stop();
+		}
+
+		System.exit(0);
+	}
+
+	private static String createId() {
+		return UUID.randomUUID().toString().replaceAll("-", "");
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.net.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class RotatingIdSetTest {
+
+	@Test
+	public void testGenerationExpiry() {
+
+		// a new generation is started when the newest one contains two entries
+		final RotatingIdSet set = new RotatingIdSet(3, Long.MAX_VALUE, 2);
+
+		Assert.assertTrue(set.add("a"));
+		Assert.assertTrue(set.add("b"));
+
+		// first rotation
+		Assert.assertTrue(set.add("c"));
+		Assert.assertFalse("Duplicate id in an older generation was accepted", set.add("a"));
+		Assert.assertTrue(set.add("d"));
+
+		// second rotation, ids are kept for (generations - 1) rotations
+		Assert.assertTrue(set.add("e"));
+		Assert.assertTrue(set.contains("a"));
+		Assert.assertTrue(set.add("f"));
+
+		// third rotation drops the oldest generation
+		Assert.assertTrue(set.add("g"));
+		Assert.assertFalse("Id of the oldest generation was not removed", set.contains("a"));
+		Assert.assertFalse(set.contains("b"));
+		Assert.assertTrue(set.contains("c"));
+		Assert.assertTrue(set.contains("g"));
+
+		Assert.assertTrue("Size exceeds the limit", set.size() <= 3 * 2);
+	}
+
+	@Test
+	public void testTimeBasedExpiry() throws InterruptedException {
+
+		final RotatingIdSet set = new RotatingIdSet(2, 100L, Integer.MAX_VALUE);
+
+		Assert.assertTrue(set.add("a"));
+		Assert.assertTrue(set.contains("a"));
+
+		Thread.sleep(150L);
+
+		// moved to the older generation
+		Assert.assertTrue(set.contains("a"));
+
+		Thread.sleep(150L);
+
+		Assert.assertFalse("Id was not removed after two rotation intervals", set.contains("a"));
+	}
+
+	@Test
+	public void testConcurrentAdd() throws InterruptedException {
+
+		final RotatingIdSet set    = new RotatingIdSet(4, Long.MAX_VALUE, Integer.MAX_VALUE);
+		final AtomicInteger added  = new AtomicInteger();
+		final List<Thread> threads = new ArrayList<>();
+		final int count            = 10000;
+
+		for (int t=0; t<8; t++) {
+
+			final Thread thread = new Thread(() -> {
+
+				for (int i=0; i<count; i++) {
+
+					if (set.add("id" + i)) {
+						added.incrementAndGet();
+					}
+				}
+			});
+
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertEquals("Each id must be accepted exactly once", count, added.get());
+		Assert.assertEquals("Invalid size", count, set.size());
+	}
+}
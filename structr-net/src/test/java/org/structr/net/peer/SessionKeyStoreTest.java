@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.net.peer;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class SessionKeyStoreTest {
+
+	private static KeyPair senderKeys    = null;
+	private static KeyPair recipientKeys = null;
+
+	@BeforeClass
+	public static void createKeys() throws Exception {
+
+		final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+
+		generator.initialize(1024);
+
+		senderKeys    = generator.genKeyPair();
+		recipientKeys = generator.genKeyPair();
+	}
+
+	@Test
+	public void testKeyExchange() throws Exception {
+
+		final SessionKeyStore sender    = new SessionKeyStore(senderKeys.getPrivate());
+		final SessionKeyStore recipient = new SessionKeyStore(recipientKeys.getPrivate());
+		final PeerInfo info             = new PeerInfo(recipientKeys.getPublic(), "recipient", "127.0.0.1", 57570);
+		final SessionKey key            = sender.getOutboundKey(info);
+
+		Assert.assertNotNull(key);
+		Assert.assertSame("Session key must be reused", key, sender.getOutboundKey(info));
+		Assert.assertEquals(key.getSecretKey(), recipient.getInboundKey(key.getWrappedKey()));
+
+		// unwrapped keys are cached
+		Assert.assertSame(recipient.getInboundKey(key.getWrappedKey()), recipient.getInboundKey(key.getWrappedKey()));
+
+		// recipients without a public key can't receive session keys
+		Assert.assertNull(sender.getOutboundKey(new PeerInfo(null, "unknown", "127.0.0.1", 57571)));
+	}
+
+	@Test
+	public void testRotationAfterLifetime() throws Exception {
+
+		final SessionKeyStore store = new SessionKeyStore(senderKeys.getPrivate());
+		final PeerInfo info         = new PeerInfo(recipientKeys.getPublic(), "recipient", "127.0.0.1", 57570);
+		final long now              = System.currentTimeMillis();
+		final SessionKey key        = store.getOutboundKey(info, now);
+
+		Assert.assertSame(key, store.getOutboundKey(info, now + SessionKeyStore.SESSION_KEY_LIFETIME));
+
+		final SessionKey rotated = store.getOutboundKey(info, now + SessionKeyStore.SESSION_KEY_LIFETIME + 1);
+
+		Assert.assertNotSame("Session key was not rotated after its lifetime", key, rotated);
+		Assert.assertNotEquals(key.getSecretKey(), rotated.getSecretKey());
+	}
+
+	@Test
+	public void testRotationAfterUsage() throws Exception {
+
+		final SessionKeyStore store = new SessionKeyStore(senderKeys.getPrivate());
+		final PeerInfo info         = new PeerInfo(recipientKeys.getPublic(), "recipient", "127.0.0.1", 57570);
+		final SessionKey key        = store.getOutboundKey(info);
+
+		while (key.getUsageCount() < SessionKeyStore.MAX_SESSION_KEY_USAGE) {
+			key.use();
+		}
+
+		Assert.assertNotSame("Session key was not rotated after its maximum usage", key, store.getOutboundKey(info));
+	}
+
+	@Test
+	public void testRotationAfterKeyChange() throws Exception {
+
+		final SessionKeyStore store = new SessionKeyStore(senderKeys.getPrivate());
+		final SessionKey key        = store.getOutboundKey(new PeerInfo(recipientKeys.getPublic(), "recipient", "127.0.0.1", 57570));
+		final SessionKey changed    = store.getOutboundKey(new PeerInfo(senderKeys.getPublic(), "recipient", "127.0.0.1", 57570));
+
+		Assert.assertNotSame("Session key was not replaced for a new public key", key, changed);
+		Assert.assertEquals(senderKeys.getPublic(), changed.getPublicKey());
+	}
+
+	@Test
+	public void testExpire() throws Exception {
+
+		final SessionKeyStore sender    = new SessionKeyStore(senderKeys.getPrivate());
+		final SessionKeyStore recipient = new SessionKeyStore(recipientKeys.getPrivate());
+		final PeerInfo info             = new PeerInfo(recipientKeys.getPublic(), "recipient", "127.0.0.1", 57570);
+		final SessionKey key            = sender.getOutboundKey(info);
+
+		recipient.getInboundKey(key.getWrappedKey());
+
+		sender.expire(System.currentTimeMillis() + SessionKeyStore.SESSION_KEY_LIFETIME + 1);
+
+		Assert.assertNotSame("Expired session key was not removed", key, sender.getOutboundKey(info));
+
+		// a known key can still be decrypted after the cache entry was removed
+		recipient.expire(System.currentTimeMillis() + 2 * SessionKeyStore.SESSION_KEY_LIFETIME + 1);
+
+		Assert.assertEquals(key.getSecretKey(), recipient.getInboundKey(key.getWrappedKey()));
+	}
+}
@@ -23,7 +23,6 @@ import java.util.Date;
 import java.util.List;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
-import org.eclipse.jetty.server.session.HashSessionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.common.error.FrameworkException;
@@ -33,6 +32,7 @@ import org.structr.core.app.Query;
 import org.structr.core.app.StructrApp;
 import org.structr.core.entity.Principal;
 import org.structr.rest.service.HttpService;
+import org.structr.rest.session.StructrSessionManager;
 
 /**
  * Utility class for session handling
@@ -75,7 +75,7 @@ public class SessionHelper {
 
 	public static HttpSession getSessionBySessionId (final String sessionId) throws FrameworkException {
 
-		return Services.getInstance().getService(HttpService.class).getHashSessionManager().getSession(sessionId);
+		return Services.getInstance().getService(HttpService.class).getSessionManager().getSession(sessionId);
 
 	}
 
@@ -140,7 +140,7 @@ public class SessionHelper {
 
 		logger.info("Clearing invalid sessions for user {}", user);
 
-		final HashSessionManager sessionManager = Services.getInstance().getService(HttpService.class).getHashSessionManager();
+		final StructrSessionManager sessionManager = Services.getInstance().getService(HttpService.class).getSessionManager();
 
 		final String[] sessionIds = user.getProperty(Principal.sessionIds);
 
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.logging;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Fixed-size bloom filter for dictionary ids.
+ *
+ *
+ */
+class BloomFilter {
+
+	private static final int NUM_HASHES = 3;
+
+	private long[] words = null;
+	private int numBits  = 0;
+
+	public BloomFilter(final int numBits) {
+
+		this.words   = new long[Math.max(1, numBits / 64)];
+		this.numBits = words.length * 64;
+	}
+
+	public void add(final int value) {
+
+		final long hash = mix(value);
+		final int h1    = (int)hash;
+		final int h2    = (int)(hash >>> 32);
+
+		for (int i=0; i<NUM_HASHES; i++) {
+
+			final int bit = index(h1 + i * h2);
+
+			words[bit >>> 6] |= (1L << bit);
+		}
+	}
+
+	public boolean mightContain(final int value) {
+
+		final long hash = mix(value);
+		final int h1    = (int)hash;
+		final int h2    = (int)(hash >>> 32);
+
+		for (int i=0; i<NUM_HASHES; i++) {
+
+			final int bit = index(h1 + i * h2);
+
+			if ((words[bit >>> 6] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	public void write(final DataOutput out) throws IOException {
+
+		out.writeInt(words.length);
+
+		for (final long word : words) {
+			out.writeLong(word);
+		}
+	}
+
+	public static BloomFilter read(final DataInput in) throws IOException {
+
+		final int length        = in.readInt();
+		final BloomFilter bloom = new BloomFilter(length * 64);
+
+		for (int i=0; i<length; i++) {
+			bloom.words[i] = in.readLong();
+		}
+
+		return bloom;
+	}
+
+	// ----- private methods -----
+	private int index(final int combined) {
+		return (combined < 0 ? ~combined : combined) % numBits;
+	}
+
+	private static long mix(final long value) {
+
+		// finalization step of MurmurHash3
+		long h = value;
+
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+
+		return h;
+	}
+}
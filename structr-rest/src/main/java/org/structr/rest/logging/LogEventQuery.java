@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.logging;
+
+/**
+ * Query parameters for a scan of the {@link LogEventStore}. Parameters
+ * that are not set are not used to filter the events.
+ *
+ *
+ */
+public class LogEventQuery {
+
+	private long from      = Long.MIN_VALUE;
+	private long to        = Long.MAX_VALUE;
+	private String subject = null;
+	private String object  = null;
+	private String action  = null;
+
+	public LogEventQuery subject(final String subject) {
+		this.subject = subject;
+		return this;
+	}
+
+	public LogEventQuery object(final String object) {
+		this.object = object;
+		return this;
+	}
+
+	public LogEventQuery action(final String action) {
+		this.action = action;
+		return this;
+	}
+
+	/**
+	 * Restricts the query to events in the given time range (inclusive).
+	 *
+	 * @param from the start of the range in milliseconds
+	 * @param to the end of the range in milliseconds
+	 * @return this query
+	 */
+	public LogEventQuery range(final long from, final long to) {
+		this.from = from;
+		this.to   = to;
+		return this;
+	}
+
+	public String getSubject() {
+		return subject;
+	}
+
+	public String getObject() {
+		return object;
+	}
+
+	public String getAction() {
+		return action;
+	}
+
+	public long getFrom() {
+		return from;
+	}
+
+	public long getTo() {
+		return to;
+	}
+}
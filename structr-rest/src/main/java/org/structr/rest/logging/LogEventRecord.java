@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.logging;
+
+import java.util.Date;
+import org.structr.core.GraphObjectMap;
+import org.structr.rest.logging.entity.LogEvent;
+
+/**
+ * A single event read from or written to the {@link LogEventStore}.
+ *
+ *
+ */
+public class LogEventRecord {
+
+	private long timestamp = 0L;
+	private String subject = null;
+	private String object  = null;
+	private String action  = null;
+	private String message = null;
+
+	public LogEventRecord(final long timestamp, final String subject, final String object, final String action, final String message) {
+
+		this.timestamp = timestamp;
+		this.subject   = subject;
+		this.object    = object;
+		this.action    = action;
+		this.message   = message;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public String getSubjectId() {
+		return subject;
+	}
+
+	public String getObjectId() {
+		return object;
+	}
+
+	public String getAction() {
+		return action;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public GraphObjectMap toGraphObject() {
+
+		final GraphObjectMap map = new GraphObjectMap();
+
+		map.put(LogEvent.timestampProperty, new Date(timestamp));
+		map.put(LogEvent.actionProperty,    action);
+		map.put(LogEvent.subjectProperty,   subject);
+		map.put(LogEvent.objectProperty,    object);
+		map.put(LogEvent.messageProperty,   message);
+
+		return map;
+	}
+}
@@ -0,0 +1,391 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.Services;
+import org.structr.core.app.StructrApp;
+
+/**
+ * Append-only, time-partitioned storage for log events.
+ *
+ * Events are written to one segment file per hour in the <code>events</code>
+ * directory below the files path. Subject, object and action are stored as
+ * ids of a shared string dictionary, and each segment keeps a small index
+ * with its time range, bloom filters of its subjects and objects and the
+ * number of events per action. Scans only read the segments that can
+ * contain matching events and pass the events to a visitor one by one, so
+ * the memory needed for a scan does not depend on the number of events.
+ *
+ *
+ */
+public class LogEventStore {
+
+	private static final Logger logger                 = LoggerFactory.getLogger(LogEventStore.class.getName());
+	private static final long HOUR                     = TimeUnit.HOURS.toMillis(1);
+	private static final String DIRECTORY              = "events";
+	private static final String DICTIONARY_FILE        = "dictionary.dat";
+	private static final String SEGMENT_NAME_FORMAT    = "yyyyMMddHH";
+	private static final int MAX_OPEN_SEGMENTS         = 4;
+	private static LogEventStore instance              = null;
+
+	private final TreeMap<Long, LogSegment> segments   = new TreeMap<>();
+	private final Map<Long, LogSegment> openSegments   = new LinkedHashMap<>(16, 0.75f, true);
+	private StringDictionary dictionary                = null;
+	private File directory                             = null;
+
+	LogEventStore(final File directory) throws IOException {
+
+		this.directory = directory;
+
+		directory.mkdirs();
+
+		this.dictionary = new StringDictionary(new File(directory, DICTIONARY_FILE));
+
+		loadSegments();
+	}
+
+	public static synchronized LogEventStore getInstance() throws FrameworkException {
+
+		final File directory = new File(StructrApp.getConfigurationValue(Services.FILES_PATH, "files"), DIRECTORY);
+
+		// configuration has changed, e.g. in tests
+		if (instance != null && !instance.directory.equals(directory)) {
+			shutdownInstance();
+		}
+
+		if (instance == null) {
+
+			try {
+				instance = new LogEventStore(directory);
+
+			} catch (IOException ioex) {
+				throw new FrameworkException(500, "Unable to open log event store: " + ioex.getMessage());
+			}
+		}
+
+		return instance;
+	}
+
+	public static synchronized void shutdownInstance() {
+
+		if (instance != null) {
+
+			instance.shutdown();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Appends an event to the segment of the hour the given timestamp
+	 * belongs to.
+	 *
+	 * @param timestamp
+	 * @param subject
+	 * @param object
+	 * @param action
+	 * @param message
+	 *
+	 * @return the event
+	 *
+	 * @throws FrameworkException
+	 */
+	public synchronized LogEventRecord append(final long timestamp, final String subject, final String object, final String action, final String message) throws FrameworkException {
+
+		try {
+
+			final int subjectId = dictionary.getOrCreate(subject);
+			final int objectId  = dictionary.getOrCreate(object);
+			final int actionId  = dictionary.getOrCreate(action);
+
+			// dictionary entries must be on disk before the first event refers to them
+			dictionary.flush();
+
+			final LogSegment segment = getWritableSegment(Math.floorDiv(timestamp, HOUR));
+
+			segment.append(timestamp, subjectId, objectId, actionId, message);
+			segment.flush();
+
+		} catch (IOException ioex) {
+			throw new FrameworkException(500, "Unable to store log event: " + ioex.getMessage());
+		}
+
+		return new LogEventRecord(timestamp, subject, object, action, message);
+	}
+
+	/**
+	 * Passes all events that match the given query to the given visitor,
+	 * in the order of their segments.
+	 *
+	 * @param query
+	 * @param visitor
+	 *
+	 * @throws FrameworkException
+	 */
+	public void scan(final LogEventQuery query, final Visitor visitor) throws FrameworkException {
+
+		final List<LogSegment> candidates = new ArrayList<>();
+		final List<Long> lengths          = new ArrayList<>();
+		final int subjectId;
+		final int objectId;
+		final int actionId;
+
+		synchronized (this) {
+
+			subjectId = getFilterId(query.getSubject());
+			objectId  = getFilterId(query.getObject());
+			actionId  = getFilterId(query.getAction());
+
+			// unknown strings cannot match any event
+			if (subjectId == StringDictionary.UNKNOWN || objectId == StringDictionary.UNKNOWN || actionId == StringDictionary.UNKNOWN) {
+				return;
+			}
+
+			for (final LogSegment segment : getCandidates(query.getFrom(), query.getTo(), subjectId, objectId, actionId)) {
+
+				try {
+
+					// make appended events visible
+					segment.flush();
+
+				} catch (IOException ioex) {
+					throw new FrameworkException(500, "Unable to flush log events: " + ioex.getMessage());
+				}
+
+				// scan only the events that exist at this point in time
+				candidates.add(segment);
+				lengths.add(segment.getSize());
+			}
+		}
+
+		for (int i=0; i<candidates.size(); i++) {
+
+			try {
+
+				candidates.get(i).scan(lengths.get(i), query.getFrom(), query.getTo(), subjectId, objectId, actionId, (timestamp, subject, object, action, message) -> {
+
+					visitor.visit(new LogEventRecord(timestamp, dictionary.getString(subject), dictionary.getString(object), dictionary.getString(action), message));
+				});
+
+			} catch (IOException ioex) {
+				throw new FrameworkException(500, "Unable to read log events: " + ioex.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Returns the timestamp of the first event in the segments that can
+	 * contain events matching the given query, based on the segment index.
+	 *
+	 * @param query
+	 * @return the timestamp or Long.MAX_VALUE if no segment matches
+	 */
+	public synchronized long getFirstTimestamp(final LogEventQuery query) {
+
+		long first = Long.MAX_VALUE;
+
+		for (final LogSegment segment : getCandidates(query)) {
+			first = Math.min(first, segment.getMinTimestamp());
+		}
+
+		return Math.max(first, query.getFrom());
+	}
+
+	/**
+	 * Returns the timestamp of the last event in the segments that can
+	 * contain events matching the given query, based on the segment index.
+	 *
+	 * @param query
+	 * @return the timestamp or Long.MIN_VALUE if no segment matches
+	 */
+	public synchronized long getLastTimestamp(final LogEventQuery query) {
+
+		long last = Long.MIN_VALUE;
+
+		for (final LogSegment segment : getCandidates(query)) {
+			last = Math.max(last, segment.getMaxTimestamp());
+		}
+
+		return Math.min(last, query.getTo());
+	}
+
+	/**
+	 * Returns the number of events per action from the segment index,
+	 * events without an action are counted with the key null.
+	 *
+	 * @return a map of action names and counts
+	 */
+	public synchronized Map<String, Integer> countActions() {
+
+		final Map<String, Integer> counts = new HashMap<>();
+
+		for (final LogSegment segment : segments.values()) {
+
+			for (final Map.Entry<Integer, Integer> entry : segment.getActions().entrySet()) {
+
+				final String action = dictionary.getString(entry.getKey());
+				final Integer count = counts.get(action);
+
+				counts.put(action, count != null ? count + entry.getValue() : entry.getValue());
+			}
+		}
+
+		return counts;
+	}
+
+	// ----- private methods -----
+	synchronized void shutdown() {
+
+		for (final LogSegment segment : openSegments.values()) {
+			segment.close();
+		}
+
+		openSegments.clear();
+
+		try {
+			dictionary.close();
+
+		} catch (IOException ioex) {
+			logger.warn("Unable to close log event dictionary: {}", ioex.getMessage());
+		}
+	}
+
+	private int getFilterId(final String value) {
+
+		if (value == null) {
+			return LogSegment.ANY;
+		}
+
+		return dictionary.get(value);
+	}
+
+	private List<LogSegment> getCandidates(final LogEventQuery query) {
+
+		final int subjectId = getFilterId(query.getSubject());
+		final int objectId  = getFilterId(query.getObject());
+		final int actionId  = getFilterId(query.getAction());
+
+		if (subjectId == StringDictionary.UNKNOWN || objectId == StringDictionary.UNKNOWN || actionId == StringDictionary.UNKNOWN) {
+			return new ArrayList<>();
+		}
+
+		return getCandidates(query.getFrom(), query.getTo(), subjectId, objectId, actionId);
+	}
+
+	private List<LogSegment> getCandidates(final long from, final long to, final int subjectId, final int objectId, final int actionId) {
+
+		final List<LogSegment> candidates = new ArrayList<>();
+
+		if (from > to) {
+			return candidates;
+		}
+
+		for (final LogSegment segment : segments.subMap(Math.floorDiv(from, HOUR), true, Math.floorDiv(to, HOUR), true).values()) {
+
+			if (segment.overlaps(from, to) && segment.mightContain(subjectId, objectId, actionId)) {
+				candidates.add(segment);
+			}
+		}
+
+		return candidates;
+	}
+
+	private LogSegment getWritableSegment(final long hour) {
+
+		LogSegment segment = segments.get(hour);
+		if (segment == null) {
+
+			segment = new LogSegment(new File(directory, getSegmentName(hour) + LogSegment.SEGMENT_SUFFIX), hour);
+			segments.put(hour, segment);
+		}
+
+		openSegments.put(hour, segment);
+
+		// close least recently written segments
+		final Iterator<LogSegment> iterator = openSegments.values().iterator();
+		while (openSegments.size() > MAX_OPEN_SEGMENTS && iterator.hasNext()) {
+
+			iterator.next().close();
+			iterator.remove();
+		}
+
+		return segment;
+	}
+
+	private void loadSegments() {
+
+		final File[] files = directory.listFiles((dir, name) -> name.endsWith(LogSegment.SEGMENT_SUFFIX));
+		if (files != null) {
+
+			for (final File file : files) {
+
+				final String name = StringUtils.substringBefore(file.getName(), LogSegment.SEGMENT_SUFFIX);
+
+				try {
+
+					final long hour          = Math.floorDiv(getSegmentFormat().parse(name).getTime(), HOUR);
+					final LogSegment segment = new LogSegment(file, hour);
+
+					segment.load();
+					segments.put(hour, segment);
+
+				} catch (ParseException pex) {
+					logger.warn("Ignoring invalid log event segment file {}", file.getName());
+				}
+			}
+		}
+	}
+
+	private static String getSegmentName(final long hour) {
+		return getSegmentFormat().format(new Date(hour * HOUR));
+	}
+
+	private static SimpleDateFormat getSegmentFormat() {
+
+		final SimpleDateFormat format = new SimpleDateFormat(SEGMENT_NAME_FORMAT);
+
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		format.setLenient(false);
+
+		return format;
+	}
+
+	// ----- nested classes -----
+	public interface Visitor {
+
+		void visit(final LogEventRecord event) throws FrameworkException;
+	}
+}
@@ -0,0 +1,407 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.logging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.common.error.FrameworkException;
+
+/**
+ * One hour of log events.
+ *
+ * Events are appended to the segment file as fixed-size headers (timestamp
+ * and the dictionary ids of subject, object and action) followed by the
+ * message. The index file contains the time range and the number of events
+ * in the segment, bloom filters of all subjects and objects and the number
+ * of events per action. It is only valid as long as the size of the segment
+ * matches the size recorded in the index, otherwise it is rebuilt from the
+ * segment on startup.
+ *
+ *
+ */
+class LogSegment {
+
+	private static final Logger logger          = LoggerFactory.getLogger(LogSegment.class.getName());
+	private static final int INDEX_VERSION      = 1;
+	private static final int HEADER_SIZE        = 24;
+	private static final int BLOOM_BITS         = 16384;
+
+	public static final String SEGMENT_SUFFIX   = ".events";
+	public static final String INDEX_SUFFIX     = ".idx";
+	public static final int ANY                 = Integer.MIN_VALUE;
+
+	private final Map<Integer, Integer> actions = new HashMap<>();
+	private BloomFilter subjects                = new BloomFilter(BLOOM_BITS);
+	private BloomFilter objects                 = new BloomFilter(BLOOM_BITS);
+	private long minTimestamp                   = Long.MAX_VALUE;
+	private long maxTimestamp                   = Long.MIN_VALUE;
+	private DataOutputStream out                = null;
+	private File file                           = null;
+	private long hour                           = 0L;
+	private long size                           = 0L;
+	private int count                           = 0;
+
+	public LogSegment(final File file, final long hour) {
+
+		this.file = file;
+		this.hour = hour;
+	}
+
+	/**
+	 * Loads the index of the segment, rebuilds the index if it is
+	 * missing or outdated.
+	 */
+	public void load() {
+
+		if (!loadIndex()) {
+
+			logger.info("Rebuilding index of log event segment {}", file.getName());
+
+			rebuildIndex();
+			writeIndex();
+		}
+	}
+
+	public void append(final long timestamp, final int subject, final int object, final int action, final String message) throws IOException {
+
+		if (out == null) {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), 65536));
+		}
+
+		final byte[] bytes = message != null ? message.getBytes(StandardCharsets.UTF_8) : null;
+
+		out.writeLong(timestamp);
+		out.writeInt(subject);
+		out.writeInt(object);
+		out.writeInt(action);
+
+		if (bytes != null) {
+
+			out.writeInt(bytes.length);
+			out.write(bytes);
+
+		} else {
+
+			out.writeInt(-1);
+		}
+
+		update(timestamp, subject, object, action);
+
+		size += HEADER_SIZE + (bytes != null ? bytes.length : 0);
+	}
+
+	public void flush() throws IOException {
+
+		if (out != null) {
+			out.flush();
+		}
+	}
+
+	/**
+	 * Closes the segment file and writes the index, the segment will be
+	 * re-opened on the next append.
+	 */
+	public void close() {
+
+		if (out != null) {
+
+			try {
+				out.close();
+
+			} catch (IOException ioex) {
+				logger.warn("Unable to close log event segment {}: {}", file.getName(), ioex.getMessage());
+			}
+
+			out = null;
+
+			writeIndex();
+		}
+	}
+
+	public long getHour() {
+		return hour;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public long getMinTimestamp() {
+		return minTimestamp;
+	}
+
+	public long getMaxTimestamp() {
+		return maxTimestamp;
+	}
+
+	public Map<Integer, Integer> getActions() {
+		return Collections.unmodifiableMap(actions);
+	}
+
+	public boolean overlaps(final long from, final long to) {
+		return count > 0 && minTimestamp <= to && maxTimestamp >= from;
+	}
+
+	/**
+	 * Indicates whether this segment might contain events with the given
+	 * subject, object and action ids, based on the index of the segment.
+	 *
+	 * @param subject the subject id, or {@link #ANY}
+	 * @param object the object id, or {@link #ANY}
+	 * @param action the action id, or {@link #ANY}
+	 *
+	 * @return false if the segment definitely contains no matching events
+	 */
+	public boolean mightContain(final int subject, final int object, final int action) {
+
+		if (subject != ANY && !subjects.mightContain(subject)) {
+			return false;
+		}
+
+		if (object != ANY && !objects.mightContain(object)) {
+			return false;
+		}
+
+		return action == ANY || actions.containsKey(action);
+	}
+
+	/**
+	 * Reads the first <code>length</code> bytes of the segment and passes
+	 * all events that match the given parameters to the given visitor.
+	 * Messages of events that do not match are skipped without being
+	 * decoded.
+	 */
+	public void scan(final long length, final long from, final long to, final int subject, final int object, final int action, final RecordVisitor visitor) throws IOException, FrameworkException {
+
+		try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536))) {
+
+			long position = 0L;
+
+			while (position + HEADER_SIZE <= length) {
+
+				final long timestamp = in.readLong();
+				final int s          = in.readInt();
+				final int o          = in.readInt();
+				final int a          = in.readInt();
+				final int len        = in.readInt();
+
+				final boolean matches = timestamp >= from && timestamp <= to
+					&& (subject == ANY || subject == s)
+					&& (object  == ANY || object  == o)
+					&& (action  == ANY || action  == a);
+
+				if (matches) {
+
+					String message = null;
+
+					if (len >= 0) {
+
+						final byte[] bytes = new byte[len];
+
+						in.readFully(bytes);
+
+						message = new String(bytes, StandardCharsets.UTF_8);
+					}
+
+					visitor.visit(timestamp, s, o, a, message);
+
+				} else if (len > 0) {
+
+					skipFully(in, len);
+				}
+
+				position += HEADER_SIZE + Math.max(len, 0);
+			}
+		}
+	}
+
+	// ----- private methods -----
+	private void update(final long timestamp, final int subject, final int object, final int action) {
+
+		final Integer actionCount = actions.get(action);
+
+		actions.put(action, actionCount != null ? actionCount + 1 : 1);
+		subjects.add(subject);
+		objects.add(object);
+
+		minTimestamp = Math.min(minTimestamp, timestamp);
+		maxTimestamp = Math.max(maxTimestamp, timestamp);
+
+		count++;
+	}
+
+	private void rebuildIndex() {
+
+		long position = 0L;
+
+		try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536))) {
+
+			while (true) {
+
+				final long timestamp = in.readLong();
+				final int subject    = in.readInt();
+				final int object     = in.readInt();
+				final int action     = in.readInt();
+				final int len        = in.readInt();
+
+				if (len > 0) {
+					skipFully(in, len);
+				}
+
+				update(timestamp, subject, object, action);
+
+				position += HEADER_SIZE + Math.max(len, 0);
+			}
+
+		} catch (EOFException eof) {
+			// end of segment reached
+		} catch (IOException ioex) {
+			logger.warn("Unable to read log event segment {}: {}", file.getName(), ioex.getMessage());
+		}
+
+		size = position;
+
+		// remove incomplete event left over from an unclean shutdown
+		if (position < file.length()) {
+
+			logger.warn("Truncating incomplete event at the end of log event segment {}", file.getName());
+
+			try (final RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(position);
+
+			} catch (IOException ioex) {
+				logger.warn("Unable to truncate log event segment {}: {}", file.getName(), ioex.getMessage());
+			}
+		}
+	}
+
+	private File getIndexFile() {
+		return new File(file.getParentFile(), file.getName() + INDEX_SUFFIX);
+	}
+
+	private void writeIndex() {
+
+		try (final DataOutputStream index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getIndexFile())))) {
+
+			index.writeInt(INDEX_VERSION);
+			index.writeLong(size);
+			index.writeLong(minTimestamp);
+			index.writeLong(maxTimestamp);
+			index.writeInt(count);
+
+			subjects.write(index);
+			objects.write(index);
+
+			index.writeInt(actions.size());
+
+			for (final Map.Entry<Integer, Integer> entry : actions.entrySet()) {
+
+				index.writeInt(entry.getKey());
+				index.writeInt(entry.getValue());
+			}
+
+		} catch (IOException ioex) {
+			logger.warn("Unable to write log event index {}: {}", getIndexFile().getName(), ioex.getMessage());
+		}
+	}
+
+	private boolean loadIndex() {
+
+		final File indexFile = getIndexFile();
+		if (indexFile.exists()) {
+
+			try (final DataInputStream index = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+
+				// index is only valid if the segment has not been modified after the index was written
+				if (index.readInt() != INDEX_VERSION || index.readLong() != file.length()) {
+					return false;
+				}
+
+				size         = file.length();
+				minTimestamp = index.readLong();
+				maxTimestamp = index.readLong();
+				count        = index.readInt();
+				subjects     = BloomFilter.read(index);
+				objects      = BloomFilter.read(index);
+
+				final int numActions = index.readInt();
+				for (int i=0; i<numActions; i++) {
+
+					actions.put(index.readInt(), index.readInt());
+				}
+
+				return true;
+
+			} catch (IOException ioex) {
+
+				logger.warn("Unable to read log event index {}, rebuilding", indexFile.getName());
+
+				// start over with an empty index
+				actions.clear();
+
+				subjects     = new BloomFilter(BLOOM_BITS);
+				objects      = new BloomFilter(BLOOM_BITS);
+				minTimestamp = Long.MAX_VALUE;
+				maxTimestamp = Long.MIN_VALUE;
+				count        = 0;
+			}
+		}
+
+		return false;
+	}
+
+	private static void skipFully(final DataInputStream in, final int length) throws IOException {
+
+		int remaining = length;
+
+		while (remaining > 0) {
+
+			final int skipped = in.skipBytes(remaining);
+			if (skipped <= 0) {
+				throw new EOFException();
+			}
+
+			remaining -= skipped;
+		}
+	}
+
+	// ----- nested classes -----
+	public interface RecordVisitor {
+
+		void visit(final long timestamp, final int subject, final int object, final int action, final String message) throws FrameworkException;
+	}
+}
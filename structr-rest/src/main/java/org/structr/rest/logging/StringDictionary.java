@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.logging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only dictionary that maps strings to consecutive integer ids.
+ *
+ * The dictionary file contains one length-prefixed UTF-8 string per
+ * entry, the id of a string is its position in the file.
+ *
+ *
+ */
+class StringDictionary {
+
+	private static final Logger logger      = LoggerFactory.getLogger(StringDictionary.class.getName());
+
+	public static final int NULL            = -1;
+	public static final int UNKNOWN         = -2;
+
+	private final Map<String, Integer> ids  = new HashMap<>();
+	private final List<String> strings      = new ArrayList<>();
+	private DataOutputStream out            = null;
+	private File file                       = null;
+
+	public StringDictionary(final File file) throws IOException {
+
+		this.file = file;
+
+		load();
+
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+	}
+
+	public synchronized int getOrCreate(final String value) throws IOException {
+
+		if (value == null) {
+			return NULL;
+		}
+
+		Integer id = ids.get(value);
+		if (id == null) {
+
+			final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+			out.writeInt(bytes.length);
+			out.write(bytes);
+
+			id = strings.size();
+
+			strings.add(value);
+			ids.put(value, id);
+		}
+
+		return id;
+	}
+
+	public synchronized int get(final String value) {
+
+		if (value == null) {
+			return NULL;
+		}
+
+		final Integer id = ids.get(value);
+		if (id != null) {
+
+			return id;
+		}
+
+		return UNKNOWN;
+	}
+
+	public synchronized String getString(final int id) {
+
+		if (id >= 0 && id < strings.size()) {
+			return strings.get(id);
+		}
+
+		return null;
+	}
+
+	public synchronized void flush() throws IOException {
+		out.flush();
+	}
+
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+
+	// ----- private methods -----
+	private void load() throws IOException {
+
+		if (!file.exists()) {
+			return;
+		}
+
+		long position = 0L;
+
+		try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+			while (true) {
+
+				final int length   = in.readInt();
+				final byte[] bytes = new byte[length];
+
+				in.readFully(bytes);
+
+				final String value = new String(bytes, StandardCharsets.UTF_8);
+
+				ids.put(value, strings.size());
+				strings.add(value);
+
+				position += 4 + length;
+			}
+
+		} catch (EOFException eof) {
+			// end of dictionary reached
+		}
+
+		// remove incomplete entry left over from an unclean shutdown
+		if (position < file.length()) {
+
+			logger.warn("Truncating incomplete entry at the end of log event dictionary {}", file.getName());
+
+			try (final RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(position);
+			}
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.maintenance;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.app.App;
+import org.structr.core.app.StructrApp;
+import org.structr.core.graph.MaintenanceCommand;
+import org.structr.core.graph.NodeServiceCommand;
+import org.structr.core.graph.Tx;
+import org.structr.rest.logging.LogEventQuery;
+import org.structr.rest.logging.LogEventStore;
+import org.structr.rest.logging.entity.LogEvent;
+import org.structr.rest.resource.MaintenanceParameterResource;
+
+/**
+ * Moves all LogEvent nodes into the {@link LogEventStore}. This command is
+ * not run automatically, it must be started explicitly after an upgrade
+ * with the maintenance command <code>migrateLogEvents</code>.
+ *
+ * Each batch of events is deleted from the graph in the same transaction
+ * in which it is appended to the store. The store is not transactional,
+ * so a batch can end up in the store while its nodes are still in the
+ * graph (after a crash or a rollback). Before a batch is appended, the
+ * events already stored in its time range are counted, and nodes that
+ * match a stored event (same timestamp, subject, object, action and
+ * message) are only deleted, so the command can simply be restarted.
+ *
+ *
+ */
+public class MigrateLogEventsCommand extends NodeServiceCommand implements MaintenanceCommand {
+
+	private static final Logger logger  = LoggerFactory.getLogger(MigrateLogEventsCommand.class.getName());
+	private static final int BATCH_SIZE = 1000;
+
+	static {
+
+		MaintenanceParameterResource.registerMaintenanceCommand("migrateLogEvents", MigrateLogEventsCommand.class);
+	}
+
+	@Override
+	public void execute(final Map<String, Object> attributes) throws FrameworkException {
+
+		final App app = StructrApp.getInstance();
+		long count    = 0L;
+		long skipped  = 0L;
+
+		while (true) {
+
+			try (final Tx tx = app.tx()) {
+
+				final List<LogEvent> events = app.nodeQuery(LogEvent.class).sort(LogEvent.timestampProperty).pageSize(BATCH_SIZE).page(1).getAsList();
+				if (events.isEmpty()) {
+
+					break;
+				}
+
+				if (count == 0L) {
+					logger.info("Moving LogEvent nodes to the log event store..");
+				}
+
+				final LogEventStore store         = LogEventStore.getInstance();
+				final Map<String, Integer> stored = getStoredEvents(store, events);
+
+				for (final LogEvent event : events) {
+
+					final String key    = key(event.getTimestamp(), event.getSubjectId(), event.getObjectId(), event.getAction(), event.getMessage());
+					final Integer found = stored.get(key);
+
+					if (found != null && found > 0) {
+
+						// already moved by an earlier run that did not commit
+						stored.put(key, found - 1);
+						skipped++;
+
+					} else {
+
+						store.append(event.getTimestamp(), event.getSubjectId(), event.getObjectId(), event.getAction(), event.getMessage());
+					}
+
+					app.delete(event);
+				}
+
+				tx.success();
+
+				count += events.size();
+			}
+		}
+
+		if (count > 0L) {
+			logger.info("Moved {} LogEvent nodes to the log event store, {} of them were already stored", count, skipped);
+		}
+	}
+
+	@Override
+	public boolean requiresEnclosingTransaction() {
+		return false;
+	}
+
+	// ----- private methods -----
+	private Map<String, Integer> getStoredEvents(final LogEventStore store, final List<LogEvent> events) throws FrameworkException {
+
+		final Map<String, Integer> stored = new HashMap<>();
+		long from                         = Long.MAX_VALUE;
+		long to                           = Long.MIN_VALUE;
+
+		for (final LogEvent event : events) {
+
+			from = Math.min(from, event.getTimestamp());
+			to   = Math.max(to, event.getTimestamp());
+		}
+
+		store.scan(new LogEventQuery().range(from, to), record -> {
+
+			stored.merge(key(record.getTimestamp(), record.getSubjectId(), record.getObjectId(), record.getAction(), record.getMessage()), 1, Integer::sum);
+		});
+
+		return stored;
+	}
+
+	private String key(final long timestamp, final String subject, final String object, final String action, final String message) {
+		return timestamp + "\u0000" + subject + "\u0000" + object + "\u0000" + action + "\u0000" + message;
+	}
+}
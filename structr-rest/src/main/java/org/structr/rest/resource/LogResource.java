@@ -18,6 +18,7 @@
  */
 package org.structr.rest.resource;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
@@ -57,19 +58,18 @@ import org.structr.core.GraphObject;
 import org.structr.core.GraphObjectMap;
 import org.structr.core.Result;
 import org.structr.core.Services;
-import org.structr.core.app.App;
-import org.structr.core.app.StructrApp;
-import org.structr.core.graph.Tx;
 import org.structr.core.property.GenericProperty;
 import org.structr.core.property.ISO8601DateProperty;
 import org.structr.core.property.IntProperty;
 import org.structr.core.property.Property;
 import org.structr.core.property.PropertyKey;
-import org.structr.core.property.PropertyMap;
 import org.structr.core.property.StringProperty;
 import org.structr.rest.RestMethodResult;
 import org.structr.rest.exception.IllegalMethodException;
-import org.structr.rest.logging.entity.LogEvent;
+import org.structr.rest.exception.NotAllowedException;
+import org.structr.rest.logging.LogEventQuery;
+import org.structr.rest.logging.LogEventRecord;
+import org.structr.rest.logging.LogEventStore;
 
 /**
  *
@@ -142,60 +142,60 @@ public class LogResource extends Resource {
 	@Override
 	public Result doGet(PropertyKey sortKey, boolean sortDescending, int pageSize, int page, String offsetId) throws FrameworkException {
 
+		// the log event store does not record owners, so stored events can't be filtered by visibility
+		if (!securityContext.isSuperUser()) {
+
+			throw new NotAllowedException("Reading log events is restricted to admin users");
+		}
+
 		final HttpServletRequest request = securityContext.getRequest();
 		if (request != null) {
 
 			final String subjectId           = request.getParameter(subjectProperty.jsonName());
 			final String objectId            = request.getParameter(objectProperty.jsonName());
 			final GraphObjectMap overviewMap = new GraphObjectMap();
+			final LogEventStore store        = LogEventStore.getInstance();
 			final LogState logState          = new LogState(request);
 
 			if (StringUtils.isNotEmpty(subjectId) && StringUtils.isNotEmpty(objectId)) {
 
-				processData(logState, StructrApp.getInstance(securityContext)
-					.nodeQuery(LogEvent.class)
-					.and(LogEvent.subjectProperty, subjectId)
-					.and(LogEvent.objectProperty, objectId)
-					.and(LogEvent.actionProperty, logState.logAction)
-					.andRange(LogEvent.timestampProperty, new Date(logState.beginTimestamp()), new Date(logState.endTimestamp()))
-					.getAsList()
+				processData(logState, store, logState.query()
+					.subject(subjectId)
+					.object(objectId)
 				);
 
 			} else if (StringUtils.isNotEmpty(subjectId) && StringUtils.isEmpty(objectId)) {
 
-				processData(logState, StructrApp.getInstance(securityContext)
-					.nodeQuery(LogEvent.class)
-					.and(LogEvent.subjectProperty, subjectId)
-					.and(LogEvent.actionProperty, logState.logAction)
-					.andRange(LogEvent.timestampProperty, new Date(logState.beginTimestamp()), new Date(logState.endTimestamp()))
-					.getAsList()
+				processData(logState, store, logState.query()
+					.subject(subjectId)
 				);
 
 			} else if (StringUtils.isEmpty(subjectId) && StringUtils.isNotEmpty(objectId)) {
 
 				logState.inverse(true);
 
-				processData(logState, StructrApp.getInstance(securityContext)
-					.nodeQuery(LogEvent.class)
-					.and(LogEvent.objectProperty, objectId)
-					.and(LogEvent.actionProperty, logState.logAction)
-					.andRange(LogEvent.timestampProperty, new Date(logState.beginTimestamp()), new Date(logState.endTimestamp()))
-					.getAsList()
+				processData(logState, store, logState.query()
+					.object(objectId)
 				);
 
 			} else if (logState.doActionQuery()) {
 
-				processData(logState);
+				processData(logState, store);
 
 			} else {
 
-				// create overview of existing logs
+				// create overview of existing logs from the segment index
 				logState.overview(true);
 
-				processData(logState, StructrApp.getInstance(securityContext)
-					.nodeQuery(LogEvent.class)
-					.getAsList()
-				);
+				for (final Entry<String, Integer> entry : store.countActions().entrySet()) {
+
+					final String action = entry.getKey();
+
+					logState.countAction(action != null ? action : "null", entry.getValue());
+				}
+
+				logState.beginTimestamp(store.getFirstTimestamp(new LogEventQuery()));
+				logState.endTimestamp(store.getLastTimestamp(new LogEventQuery()));
 			}
 
 			if (logState.overview()) {
@@ -207,12 +207,7 @@ public class LogResource extends Resource {
 
 				return new Result(overviewMap, false);
 
-			} else if (logState.doHistogram()) {
-
-				// aggregate results
-				return histogram(logState);
-
-			} else if (logState.doAggregate()) {
+			} else if (logState.doHistogram() || logState.doAggregate()) {
 
 				// aggregate results
 				return aggregate(logState);
@@ -241,13 +236,7 @@ public class LogResource extends Resource {
 
 				final String filesPath = Services.getInstance().getConfigurationValue(Services.FILES_PATH);
 
-				try (final Context context  = new Context(1000)) {
-
-					collectFilesAndStore(context, new File(filesPath + SUBJECTS).toPath(), 0);
-
-				} catch (FrameworkException fex) {
-					logger.warn("", fex);
-				}
+				collectFilesAndStore(LogEventStore.getInstance(), new File(filesPath + SUBJECTS).toPath(), 0);
 
 				return new RestMethodResult(200);
 			}
@@ -259,27 +248,10 @@ public class LogResource extends Resource {
 
 			if (subjectId != null && objectId != null && action != null) {
 
-				final App app  = StructrApp.getInstance(securityContext);
-				LogEvent event = null;
-
-				try (final Tx tx = app.tx()) {
-
-					final PropertyMap properties = new PropertyMap();
-					properties.put(LogEvent.timestampProperty,           new Date());
-					properties.put(LogEvent.actionProperty,              action);
-					properties.put(LogEvent.subjectProperty,             subjectId);
-					properties.put(LogEvent.objectProperty,              objectId);
-					properties.put(LogEvent.messageProperty,             message);
-					properties.put(LogEvent.visibleToPublicUsers,        true);
-					properties.put(LogEvent.visibleToAuthenticatedUsers, true);
-
-					event = app.create(LogEvent.class, properties);
-
-					tx.success();
-				}
-
+				final LogEventRecord event    = LogEventStore.getInstance().append(System.currentTimeMillis(), subjectId, objectId, action, message);
 				final RestMethodResult result = new RestMethodResult(201);
-				result.addContent(event);
+
+				result.addContent(event.toGraphObject());
 
 				return result;
 
@@ -338,7 +310,7 @@ public class LogResource extends Resource {
 	}
 
 	// ----- private methods -----
-	private void collectFilesAndStore(final Context context, final Path dir, final int level) throws FrameworkException {
+	private void collectFilesAndStore(final LogEventStore store, final Path dir, final int level) throws FrameworkException {
 
 		if (level == 1) {
 			logger.info("Path {}", dir);
@@ -350,14 +322,11 @@ public class LogResource extends Resource {
 
 				if (Files.isDirectory(p)) {
 
-					collectFilesAndStore(context, p, level+1);
+					collectFilesAndStore(store, p, level+1);
 
 				} else {
 
-					context.update(storeLogEntry(p));
-
-					// update object count and commit
-					context.commit(true);
+					storeLogEntry(store, p);
 				}
 
 				Files.delete(p);
@@ -369,17 +338,12 @@ public class LogResource extends Resource {
 		}
 	}
 
-	private void processData(final LogState state) throws FrameworkException {
+	private void processData(final LogState state, final LogEventStore store) throws FrameworkException {
 
 		if (state.doCorrelate()) {
 
 			// get the basic correlation set (pds_click in the test case)
-			final List<LogEvent> correlationResult = StructrApp.getInstance(securityContext)
-				.nodeQuery(LogEvent.class)
-				.and(LogEvent.actionProperty, state.correlationAction)
-				.getAsList();
-
-			for (final LogEvent entry : correlationResult) {
+			store.scan(new LogEventQuery().action(state.correlationAction), (final LogEventRecord entry) -> {
 
 				final String pathSubjectId = state.inverse() ? entry.getObjectId() : entry.getSubjectId();
 				final String pathObjectId  = state.inverse() ? entry.getSubjectId() : entry.getObjectId();
@@ -398,28 +362,28 @@ public class LogResource extends Resource {
 					// fallback: subjectId and objectId
 					state.addCorrelationEntry(key(pathSubjectId, pathObjectId), entry);
 				}
-			}
+			});
 		}
 
 		logger.debug("No. of correlations: {}", state.getCorrelations().entrySet().size());
 
-		final List<LogEvent> result = StructrApp.getInstance(securityContext).nodeQuery(LogEvent.class)
-			.and(LogEvent.actionProperty, state.logAction)
-			.andRange(LogEvent.timestampProperty, new Date(state.beginTimestamp()), new Date(state.endTimestamp()))
-			.getAsList();
-
-		processData(state, result);
+		processData(state, store, state.query());
 	}
 
-	private void processData(final LogState state, final Iterable<LogEvent> result) throws FrameworkException {
+	private void processData(final LogState state, final LogEventStore store, final LogEventQuery query) throws FrameworkException {
 
-		int count = 0;
+		if (state.doHistogram() || state.doAggregate()) {
 
-		for (final LogEvent event : result) {
+			// buckets are aligned on the start of the requested range, or
+			// on the first segment that can contain matching events
+			final long first = state.range != null ? state.range.start : store.getFirstTimestamp(query);
+			if (first != Long.MAX_VALUE) {
 
-			if ((++count % 100000) == 0) {
-				System.out.println(count);
+				state.aggregation(new Aggregation(state, alignDateOnFormat(state.aggregate(), first), findInterval(state.aggregate())));
 			}
+		}
+
+		store.scan(query, (final LogEventRecord event) -> {
 
 			final String pathSubjectId = state.inverse() ? event.getObjectId() : event.getSubjectId();
 			final String pathObjectId  = state.inverse() ? event.getSubjectId() : event.getObjectId();
@@ -428,31 +392,24 @@ public class LogResource extends Resource {
 			final String entryMessage  = event.getMessage();
 
 			// determine first timestamp
-			if (timestamp <= state.beginTimestamp()) {
+			if (timestamp <= state.beginTimestamp) {
 				state.beginTimestamp(timestamp);
 			}
 
 			// determine last timestamp
-			if (timestamp >= state.endTimestamp()) {
+			if (timestamp >= state.endTimestamp) {
 				state.endTimestamp(timestamp);
 			}
 
-			if (state.overview()) {
+			// passes filter? action present or matching?
+			if (state.passesFilter(entryMessage) && state.correlates(pathSubjectId, pathObjectId, entryMessage)) {
 
-				if (entryAction != null) {
+				if (state.aggregation() != null) {
 
-					state.countAction(entryAction);
+					state.aggregation().count(timestamp, entryMessage);
 
 				} else {
 
-					state.countAction("null");
-				}
-
-			} else {
-
-				// passes filter? action present or matching?
-				if (state.passesFilter(entryMessage) && state.correlates(pathSubjectId, pathObjectId, entryMessage)) {
-
 					final Map<String, Object> map = new HashMap<>();
 
 					map.put(subjectProperty.jsonName(), pathSubjectId);
@@ -464,53 +421,43 @@ public class LogResource extends Resource {
 					state.addEntry(map);
 				}
 			}
-		}
+		});
 	}
 
-	private int storeLogEntry(final Path path) throws IOException, FrameworkException {
+	private void storeLogEntry(final LogEventStore store, final Path path) throws IOException, FrameworkException {
 
-		final App app          = StructrApp.getInstance(securityContext);
 		final String fileName  = path.getFileName().toString();
-		int count              = 0;
 
 		if (fileName.length() == 64) {
 
 			final String subjectId = fileName.substring(0, 32);
 			final String objectId  = fileName.substring(32, 64);
 
-			for (final String line : Files.readAllLines(path, Charset.forName("utf-8"))) {
-
-				final int pos1               = line.indexOf(",", 14);
+			try (final BufferedReader reader = Files.newBufferedReader(path, Charset.forName("utf-8"))) {
 
-				final String part0           = line.substring(0, 13);
-				final String part1           = line.substring(14, pos1);
-				final String part2           = line.substring(pos1 + 1);
+				String line = reader.readLine();
+				while (line != null) {
 
-				final long timestamp         = Long.valueOf(part0);
-				final String action          = part1;
-				final String message         = part2;
+					final int pos1               = line.indexOf(",", 14);
 
-				final PropertyMap properties = new PropertyMap();
+					final String part0           = line.substring(0, 13);
+					final String part1           = line.substring(14, pos1);
+					final String part2           = line.substring(pos1 + 1);
 
-				properties.put(LogEvent.messageProperty,             message);
-				properties.put(LogEvent.actionProperty,              action);
-				properties.put(LogEvent.subjectProperty,             subjectId);
-				properties.put(LogEvent.objectProperty,              objectId);
-				properties.put(LogEvent.timestampProperty,           new Date(timestamp));
-				properties.put(LogEvent.visibleToPublicUsers,        true);
-				properties.put(LogEvent.visibleToAuthenticatedUsers, true);
+					final long timestamp         = Long.valueOf(part0);
+					final String action          = part1;
+					final String message         = part2;
 
-				app.create(LogEvent.class, properties);
+					store.append(timestamp, subjectId, objectId, action, message);
 
-				count++;
+					line = reader.readLine();
+				}
 			}
 
 		} else {
 
-			System.out.println("Skipping entry " + fileName);
+			logger.info("Skipping entry {}", fileName);
 		}
-
-		return count;
 	}
 
 	private String getDirectoryPath(final String uuid, final int depth) {
@@ -531,99 +478,31 @@ public class LogResource extends Resource {
 
 	private Result aggregate(final LogState state) throws FrameworkException {
 
-		// sort entries before aggregation
-		state.sortEntries();
-
-		final long startTimestamp                         = state.beginTimestamp();
-		final long endTimestamp                           = state.endTimestamp();
-		final GraphObjectMap result                       = new GraphObjectMap();
-		final long interval                               = findInterval(state.aggregate());
-		final long start                                  = alignDateOnFormat(state.aggregate(), startTimestamp);
-		final TreeMap<Long, Map<String, Object>> countMap = toAggregatedCountMap(state);
-		final Set<String> countProperties                 = getCountProperties(countMap);
-
-		for (long current = start; current <= endTimestamp; current += interval) {
+		final GraphObjectMap result     = new GraphObjectMap();
+		final Aggregation aggregation   = state.aggregation();
 
-			final Map<Long, Map<String, Object>> counts = countMap.subMap(current, true, current + interval, false);
-			final GraphObjectMap sum = new GraphObjectMap();
+		if (aggregation == null || state.beginTimestamp() > state.endTimestamp()) {
 
-			// initialize interval sums with 0 (so each
-			// interval contains all keys regardless of
-			// whether there are actual values or not)
-			for (final String key : countProperties) {
-				sum.put(new IntProperty(key), 0);
-			}
-
-			// evaluate counts
-			for (final Map<String, Object> count : counts.values()) {
-
-				for (final String key : countProperties) {
-
-					final IntProperty prop = new IntProperty(key);
-					Integer sumValue = sum.get(prop);
-					if (sumValue == null) {
-						sumValue = 0;
-					}
-
-					Integer entryValue = (Integer) count.get(key);
-					if (entryValue == null) {
-						entryValue = 0;
-					}
-
-					sum.put(prop, sumValue + entryValue);
-				}
-			}
-
-			result.put(new GenericProperty(Long.toString(current)), sum);
+			// no matching events
+			return new Result(result, false);
 		}
 
-		return new Result(result, false);
-	}
-
-	private Result histogram(final LogState state) throws FrameworkException {
-
-		// sort entries before creating the histogram
-		state.sortEntries();
-
-		final String dateFormat = state.aggregate();
-		final long startTimestamp = state.beginTimestamp();
-		final long endTimestamp = state.endTimestamp();
-		final GraphObjectMap result = new GraphObjectMap();
-		final long interval = findInterval(dateFormat);
-		final long start = alignDateOnFormat(dateFormat, startTimestamp);
-		final TreeMap<Long, Map<String, Object>> countMap = toHistogramCountMap(state);
-		final Set<String> countProperties = getCountProperties(countMap);
+		final long endTimestamp         = state.endTimestamp();
+		final long start                = aggregation.bucket(alignDateOnFormat(state.aggregate(), state.beginTimestamp()));
 
-		for (long current = start; current <= endTimestamp; current += interval) {
+		for (long current = start; current <= endTimestamp; current += aggregation.interval) {
 
-			final Map<Long, Map<String, Object>> counts = countMap.subMap(current, true, current + interval, false);
-			final GraphObjectMap sum = new GraphObjectMap();
+			final Map<String, Integer> counts = aggregation.buckets.get(current);
+			final GraphObjectMap sum          = new GraphObjectMap();
 
 			// initialize interval sums with 0 (so each
 			// interval contains all keys regardless of
 			// whether there are actual values or not)
-			for (final String key : countProperties) {
-				sum.put(new IntProperty(key), 0);
-			}
-
-			// evaluate counts
-			for (final Map<String, Object> count : counts.values()) {
-
-				for (final String key : countProperties) {
+			for (final String key : aggregation.keys) {
 
-					final IntProperty prop = new IntProperty(key);
-					Integer sumValue = sum.get(prop);
-					if (sumValue == null) {
-						sumValue = 0;
-					}
-
-					Integer entryValue = (Integer) count.get(key);
-					if (entryValue == null) {
-						entryValue = 0;
-					}
+				final Integer value = counts != null ? counts.get(key) : null;
 
-					sum.put(prop, sumValue + entryValue);
-				}
+				sum.put(new IntProperty(key), value != null ? value : 0);
 			}
 
 			result.put(new GenericProperty(Long.toString(current)), sum);
@@ -678,139 +557,6 @@ public class LogResource extends Resource {
 		return max;
 	}
 
-	private TreeMap<Long, Map<String, Object>> toAggregatedCountMap(final LogState state) throws FrameworkException {
-
-		final TreeMap<Long, Map<String, Object>> countMap = new TreeMap<>();
-
-		for (final Map<String, Object> entry : state.entries()) {
-
-			final String message = (String) entry.get(messageProperty.jsonName());
-			final long timestamp = (Long) entry.get(timestampProperty.jsonName());
-			Map<String, Object> obj = countMap.get(timestamp);
-
-			if (obj == null) {
-				obj = new LinkedHashMap<>();
-			}
-
-			Integer count = (Integer) obj.get(totalProperty.jsonName());
-			if (count == null) {
-				count = 1;
-			} else {
-				count = count + 1;
-			}
-			obj.put(totalProperty.jsonName(), count);
-
-			// iterate over patterns
-			for (final Entry<String, Pattern> patternEntry : state.aggregationPatterns().entrySet()) {
-
-				if (patternEntry.getValue().matcher(message).matches()) {
-
-					final String key = patternEntry.getKey();
-
-					final int multiplier = getMultiplier(message, state);
-
-					Integer c = (Integer) obj.get(key);
-					if (c == null) {
-						c = multiplier;
-					} else {
-						c = c + multiplier;
-					}
-
-					obj.put(key, c);
-				}
-			}
-
-			countMap.put(timestamp, obj);
-		}
-
-		return countMap;
-	}
-
-	private TreeMap<Long, Map<String, Object>> toHistogramCountMap(final LogState state) throws FrameworkException {
-
-		final Pattern pattern = Pattern.compile(state.histogram());
-		final Matcher matcher = pattern.matcher("");
-		final TreeMap<Long, Map<String, Object>> countMap = new TreeMap<>();
-
-		for (final Map<String, Object> entry : state.entries()) {
-
-			final String message = (String) entry.get(messageProperty.jsonName());
-			final long timestamp = (Long) entry.get(timestampProperty.jsonName());
-			Map<String, Object> obj = countMap.get(timestamp);
-
-			if (obj == null) {
-				obj = new LinkedHashMap<>();
-			}
-
-			Integer count = (Integer) obj.get(totalProperty.jsonName());
-			if (count == null) {
-				count = 1;
-			} else {
-				count = count + 1;
-			}
-			obj.put(totalProperty.jsonName(), count);
-
-			// iterate over patterns
-			matcher.reset(message);
-			if (matcher.matches()) {
-
-				final String key = matcher.group(1);
-
-				final int multiplier = getMultiplier(message, state);
-
-				Integer c = (Integer) obj.get(key);
-				if (c == null) {
-					c = multiplier;
-				} else {
-					c = c + multiplier;
-				}
-
-				obj.put(key, c);
-			}
-
-			countMap.put(timestamp, obj);
-		}
-
-		return countMap;
-	}
-
-	private int getMultiplier(final String message, final LogState state) {
-
-		Integer multiplier = 1;
-
-		if (state.multiplier != null) {
-
-			final Matcher matcher = Pattern.compile(state.multiplier).matcher(message);
-
-			if (matcher.matches()) {
-				final String g = matcher.group(1);
-				multiplier = Integer.parseInt(g);
-			}
-
-		}
-
-		return multiplier;
-
-	}
-
-	private Set<String> getCountProperties(final Map<Long, Map<String, Object>> entries) {
-
-		final Set<String> result = new LinkedHashSet<>();
-
-		for (final Map<String, Object> obj : entries.values()) {
-
-			for (final Entry<String, Object> entry : obj.entrySet()) {
-
-				// collect the key names of integer values
-				if (entry.getValue() instanceof Integer) {
-					result.add(entry.getKey());
-				}
-			}
-		}
-
-		return result;
-	}
-
 	private List<GraphObjectMap> wrap(final List<Map<String, Object>> entries) {
 
 		final List<GraphObjectMap> result = new LinkedList<>();
@@ -861,8 +607,9 @@ public class LogResource extends Resource {
 
 		private final Map<String, Pattern> aggregationPatterns = new HashMap<>();
 		private final List<Map<String, Object>> entries        = new LinkedList<>();
-		private final Map<String, LinkedList<LogEvent>> correlations         = new ConcurrentHashMap<>();
+		private final Map<String, LinkedList<LogEventRecord>> correlations = new ConcurrentHashMap<>();
 		private final Map<String, Integer> actions             = new HashMap<>();
+		private final List<Pattern> filters                    = new LinkedList<>();
 
 		private long beginTimestamp                            = Long.MAX_VALUE;
 		private long endTimestamp                              = 0L;
@@ -874,7 +621,7 @@ public class LogResource extends Resource {
 		private String correlationAction                       = null;
 		private String correlationOp                           = null;
 		private Pattern correlationPattern                     = null;
-		private String[] filters                               = null;
+		private Aggregation aggregation                        = null;
 		private boolean inverse                                = false;
 		private boolean overview                               = false;
 		private Range range                                    = null;
@@ -890,9 +637,16 @@ public class LogResource extends Resource {
 			this.histogram  = request.getParameter("histogram");
 			this.correlate  = request.getParameter("correlate");
 			this.multiplier = request.getParameter("multiplier");
-			this.filters    = getFilterPatterns(request);
 			this.range      = getRange(request);
 
+			final String[] filterPatterns = getFilterPatterns(request);
+			if (filterPatterns != null) {
+
+				for (final String filter : filterPatterns) {
+					filters.add(Pattern.compile(filter));
+				}
+			}
+
 			if (StringUtils.isNotBlank(correlate)) {
 
 				final String[] parts = correlate.split(CORRELATION_SEPARATOR);
@@ -922,11 +676,11 @@ public class LogResource extends Resource {
 			entries.add(entry);
 		}
 
-		public void addCorrelationEntry(final String key, final LogEvent event) {
+		public void addCorrelationEntry(final String key, final LogEventRecord event) {
 
 			logger.debug("No. of correllation entry lists: {}, adding action: {} {}", new Object[]{correlations.keySet().size(), key, event.getMessage()});
 
-			LinkedList<LogEvent> existingEventList = correlations.get(key);
+			LinkedList<LogEventRecord> existingEventList = correlations.get(key);
 
 			if (existingEventList == null) {
 				existingEventList = new LinkedList<>();
@@ -937,7 +691,7 @@ public class LogResource extends Resource {
 			correlations.put(key, existingEventList);
 		}
 
-		public Map<String, LinkedList<LogEvent>> getCorrelations() {
+		public Map<String, LinkedList<LogEventRecord>> getCorrelations() {
 			return correlations;
 		}
 
@@ -949,19 +703,19 @@ public class LogResource extends Resource {
 			return aggregationPatterns;
 		}
 
-		public void countAction(final String action) {
+		public void countAction(final String action, final int count) {
 
 			Integer actionCount = actions.get(action);
 			if (actionCount == null) {
 
-				actions.put(action, 1);
+				actions.put(action, count);
 
 			} else {
 
-				actions.put(action, actionCount + 1);
+				actions.put(action, actionCount + count);
 			}
 
-			this.actionCount++;
+			this.actionCount += count;
 		}
 
 		public int actionCount() {
@@ -1026,20 +780,14 @@ public class LogResource extends Resource {
 
 		public boolean passesFilter(final String message) {
 
-			if (filters == null) {
-				return true;
-			}
-
-			boolean passes = true;
-
-			for (final String filter : filters) {
-
-				passes &= Pattern.compile(filter).matcher(message).matches();
+			for (final Pattern filter : filters) {
 
+				if (!filter.matcher(message != null ? message : "").matches()) {
+					return false;
+				}
 			}
 
-			return passes;
-
+			return true;
 		}
 
 		public boolean correlates(final String pathSubjectId, final String pathObjectId, final String message) {
@@ -1051,7 +799,7 @@ public class LogResource extends Resource {
 
 			}
 
-			LinkedList<LogEvent> correlationEntries;
+			LinkedList<LogEventRecord> correlationEntries;
 
 			if (correlationOp != null && correlationPattern != null) {
 
@@ -1073,7 +821,7 @@ public class LogResource extends Resource {
 
 							if (correlationEntries != null) {
 
-								for (LogEvent correlationEntry : correlationEntries) {
+								for (LogEventRecord correlationEntry : correlationEntries) {
 
 									if (correlationEntry.getSubjectId().equals(pathSubjectId)) {
 
@@ -1093,7 +841,7 @@ public class LogResource extends Resource {
 
 							if (correlationEntries != null) {
 
-								for (LogEvent correlationEntry : correlationEntries) {
+								for (LogEventRecord correlationEntry : correlationEntries) {
 
 									if (correlationEntry.getObjectId().equals(pathObjectId)) {
 
@@ -1162,6 +910,25 @@ public class LogResource extends Resource {
 			return range == null || range.contains(file.lastModified());
 		}
 
+		public Aggregation aggregation() {
+			return aggregation;
+		}
+
+		public void aggregation(final Aggregation aggregation) {
+			this.aggregation = aggregation;
+		}
+
+		public LogEventQuery query() {
+
+			final LogEventQuery query = new LogEventQuery().action(logAction);
+
+			if (range != null) {
+				query.range(range.start, range.end);
+			}
+
+			return query;
+		}
+
 		// ----- private methods -----
 		private Range getRange(final HttpServletRequest request) {
 
@@ -1237,79 +1004,132 @@ public class LogResource extends Resource {
 		return "NULLNULL";
 	}
 
-	private static class Range {
+	/**
+	 * Streaming aggregation of log events into buckets of a fixed interval,
+	 * so the memory needed only depends on the number of buckets, not on
+	 * the number of events.
+	 */
+	private static class Aggregation {
 
-		private long start = 0L;
-		private long end = 0L;
+		private final TreeMap<Long, Map<String, Integer>> buckets = new TreeMap<>();
+		private final Set<String> keys                            = new LinkedHashSet<>();
+		private final Map<String, Pattern> patterns               = new LinkedHashMap<>();
+		private Matcher histogramMatcher                          = null;
+		private Matcher multiplierMatcher                         = null;
+		private long origin                                       = 0L;
+		private long interval                                     = 0L;
 
-		public Range(final long start, final long end) {
-			this.start = start;
-			this.end = end;
+		public Aggregation(final LogState state, final long origin, final long interval) {
+
+			this.origin   = origin;
+			this.interval = interval;
+
+			if (StringUtils.isNotBlank(state.histogram())) {
+
+				histogramMatcher = Pattern.compile(state.histogram()).matcher("");
+
+			} else {
+
+				patterns.putAll(state.aggregationPatterns());
+			}
+
+			if (state.multiplier != null) {
+				multiplierMatcher = Pattern.compile(state.multiplier).matcher("");
+			}
+
+			keys.add(totalProperty.jsonName());
 		}
 
-		public boolean contains(final long timestamp) {
-			return timestamp >= start && timestamp <= end;
+		public long bucket(final long timestamp) {
+			return origin + Math.floorDiv(timestamp - origin, interval) * interval;
 		}
-	}
 
-	private static class TimestampComparator implements Comparator<Map<String, Object>> {
+		public void count(final long timestamp, final String message) {
 
-		@Override
-		public int compare(final Map<String, Object> o1, final Map<String, Object> o2) {
+			final long bucket           = bucket(timestamp);
+			Map<String, Integer> counts = buckets.get(bucket);
 
-			final Long timestamp1 = (Long) o1.get(timestampProperty.jsonName());
-			final Long timestamp2 = (Long) o2.get(timestampProperty.jsonName());
+			if (counts == null) {
 
-			return timestamp1.compareTo(timestamp2);
-		}
-	}
+				counts = new HashMap<>();
+				buckets.put(bucket, counts);
+			}
+
+			add(counts, totalProperty.jsonName(), 1);
 
-	private static class Context implements AutoCloseable {
+			if (message == null) {
+				return;
+			}
+
+			if (histogramMatcher != null) {
+
+				histogramMatcher.reset(message);
+				if (histogramMatcher.matches()) {
+
+					add(counts, histogramMatcher.group(1), getMultiplier(message));
+				}
+
+			} else {
 
-		private final App app   = StructrApp.getInstance();
-		private Tx tx           = null;
-		private int total       = 0;
-		private int count       = 0;
-		private int commitCount = 0;
+				// iterate over patterns
+				for (final Entry<String, Pattern> patternEntry : patterns.entrySet()) {
 
-		public Context(final int commitCount) {
+					if (patternEntry.getValue().matcher(message).matches()) {
 
-			this.commitCount = commitCount;
-			this.tx          = app.tx(false, false, false);
+						add(counts, patternEntry.getKey(), getMultiplier(message));
+					}
+				}
+			}
 		}
 
-		public void commit(final boolean intermediate) throws FrameworkException {
+		// ----- private methods -----
+		private void add(final Map<String, Integer> counts, final String key, final int value) {
 
-			if (count > commitCount) {
+			final Integer count = counts.get(key);
 
-				logger.info("Committing transaction after {} objects..", total);
+			counts.put(key, count != null ? count + value : value);
+			keys.add(key);
+		}
 
-				tx.success();
-				tx.close();
+		private int getMultiplier(final String message) {
 
-				if (intermediate) {
+			if (multiplierMatcher != null) {
 
-					tx = app.tx(false, false, false);
-				}
+				multiplierMatcher.reset(message);
+				if (multiplierMatcher.matches()) {
 
-				count = 0;
+					return Integer.parseInt(multiplierMatcher.group(1));
+				}
 			}
+
+			return 1;
 		}
+	}
+
+	private static class Range {
+
+		private long start = 0L;
+		private long end = 0L;
 
-		public int getTotal() {
-			return total;
+		public Range(final long start, final long end) {
+			this.start = start;
+			this.end = end;
 		}
 
-		public void update(final int count) {
-			this.count += count;
-			this.total += count;
+		public boolean contains(final long timestamp) {
+			return timestamp >= start && timestamp <= end;
 		}
+	}
+
+	private static class TimestampComparator implements Comparator<Map<String, Object>> {
 
 		@Override
-		public void close() throws FrameworkException {
+		public int compare(final Map<String, Object> o1, final Map<String, Object> o2) {
+
+			final Long timestamp1 = (Long) o1.get(timestampProperty.jsonName());
+			final Long timestamp2 = (Long) o2.get(timestampProperty.jsonName());
 
-			tx.success();
-			tx.close();
+			return timestamp1.compareTo(timestamp2);
 		}
 	}
 }
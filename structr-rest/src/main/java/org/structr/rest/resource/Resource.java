@@ -32,6 +32,7 @@ import org.structr.common.CaseHelper;
 import org.structr.common.GraphObjectComparator;
 import org.structr.common.Permission;
 import org.structr.common.SecurityContext;
+import org.structr.common.SortHelper;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
 import org.structr.core.Result;
@@ -249,7 +250,7 @@ public abstract class Resource {
 			}
 
 			if (sortKey != null) {
-				Collections.sort(list, new GraphObjectComparator(sortKey, finalSortOrder));
+				SortHelper.sort(list, sortKey, GraphObjectComparator.DESCENDING.equalsIgnoreCase(finalSortOrder));
 			}
 		}
 	}
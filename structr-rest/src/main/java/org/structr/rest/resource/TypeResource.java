@@ -39,6 +39,7 @@ import org.structr.core.app.StructrApp;
 import org.structr.core.entity.AbstractNode;
 import org.structr.core.entity.AbstractRelationship;
 import org.structr.core.entity.Relation;
+import org.structr.core.graph.NodeFactory;
 import org.structr.core.graph.NodeInterface;
 import org.structr.core.graph.RelationshipInterface;
 import org.structr.core.graph.search.SearchCommand;
@@ -121,8 +122,6 @@ public class TypeResource extends SortableResource {
 
 		boolean includeDeletedAndHidden        = true;
 		boolean publicOnly                     = false;
-		PropertyKey actualSortKey              = sortKey;
-		boolean actualSortOrder                = sortDescending;
 
 		if (rawType != null) {
 
@@ -132,30 +131,9 @@ public class TypeResource extends SortableResource {
 
 			collectSearchAttributes(query);
 
-			// default sort key & order
-			if (actualSortKey == null) {
+			final PropertyKey actualSortKey = getActualSortKey(sortKey);
+			final boolean actualSortOrder   = getActualSortOrder(sortKey, sortDescending);
 
-				try {
-
-					GraphObject templateEntity  = ((GraphObject)entityClass.newInstance());
-					PropertyKey sortKeyProperty = templateEntity.getDefaultSortKey();
-					actualSortOrder             = GraphObjectComparator.DESCENDING.equals(templateEntity.getDefaultSortOrder());
-
-					if (sortKeyProperty != null) {
-
-						actualSortKey = sortKeyProperty;
-
-					} else {
-
-						actualSortKey = AbstractNode.name;
-					}
-
-				} catch(Throwable t) {
-
-					// fallback to name
-					actualSortKey = AbstractNode.name;
-				}
-			}
 			if (virtualType != null) {
 
 				final Result untransformedResult = query
@@ -192,6 +170,34 @@ public class TypeResource extends SortableResource {
 		return new Result(emptyList, null, isCollectionResource(), isPrimitiveArray());
 	}
 
+	/**
+	 * Unpaged variant of {@link #doGet} that returns the objects as they
+	 * come off the database cursor instead of collecting them in a result
+	 * list first. Virtual types are transformed in memory and fall back
+	 * to the materialized result.
+	 *
+	 * @param sortKey
+	 * @param sortDescending
+	 * @return the (lazily evaluated) result
+	 * @throws FrameworkException
+	 */
+	public Iterable<GraphObject> doGetStream(final PropertyKey sortKey, final boolean sortDescending) throws FrameworkException {
+
+		if (rawType != null && entityClass != null && virtualType == null) {
+
+			collectSearchAttributes(query);
+
+			return query
+				.includeDeletedAndHidden(true)
+				.publicOnly(false)
+				.sort(getActualSortKey(sortKey))
+				.order(getActualSortOrder(sortKey, sortDescending))
+				.getResultStream();
+		}
+
+		return doGet(sortKey, sortDescending, NodeFactory.DEFAULT_PAGE_SIZE, NodeFactory.DEFAULT_PAGE, null).getResults();
+	}
+
 	@Override
 	public RestMethodResult doPost(final Map<String, Object> propertySet) throws FrameworkException {
 
@@ -272,8 +278,26 @@ public class TypeResource extends SortableResource {
 
 		if (entityClass != null) {
 
-			final App app                = StructrApp.getInstance(securityContext);
-			final PropertyMap properties = PropertyMap.inputTypeToJavaType(securityContext, entityClass, propertySet);
+			return createNode(PropertyMap.inputTypeToJavaType(securityContext, entityClass, propertySet));
+		}
+
+		throw new NotFoundException("Type " + rawType + " does not exist");
+	}
+
+	/**
+	 * Creates a node from properties that were already converted with the
+	 * input converters of this resource's entity class. A type property
+	 * selects the actual subtype, just like in {@link #doPost}.
+	 *
+	 * @param properties
+	 * @return the new node
+	 * @throws FrameworkException
+	 */
+	public NodeInterface createNode(final PropertyMap properties) throws FrameworkException {
+
+		if (entityClass != null) {
+
+			final App app = StructrApp.getInstance(securityContext);
 
 			return app.create(entityClass, properties);
 		}
@@ -281,6 +305,14 @@ public class TypeResource extends SortableResource {
 		throw new NotFoundException("Type " + rawType + " does not exist");
 	}
 
+	public boolean isNode() {
+		return isNode;
+	}
+
+	public boolean hasVirtualType() {
+		return virtualType != null;
+	}
+
 	@Override
 	public Resource tryCombineWith(Resource next) throws FrameworkException {
 
@@ -431,4 +463,41 @@ public class TypeResource extends SortableResource {
 			}
 		}
 	}
+
+	private PropertyKey getActualSortKey(final PropertyKey sortKey) {
+
+		if (sortKey != null) {
+			return sortKey;
+		}
+
+		// default sort key
+		try {
+
+			final PropertyKey sortKeyProperty = ((GraphObject)entityClass.newInstance()).getDefaultSortKey();
+			if (sortKeyProperty != null) {
+
+				return sortKeyProperty;
+			}
+
+		} catch(Throwable t) {}
+
+		// fallback to name
+		return AbstractNode.name;
+	}
+
+	private boolean getActualSortOrder(final PropertyKey sortKey, final boolean sortDescending) {
+
+		if (sortKey != null) {
+			return sortDescending;
+		}
+
+		// default sort order
+		try {
+
+			return GraphObjectComparator.DESCENDING.equals(((GraphObject)entityClass.newInstance()).getDefaultSortOrder());
+
+		} catch(Throwable t) {}
+
+		return sortDescending;
+	}
 }
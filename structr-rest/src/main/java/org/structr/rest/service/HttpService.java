@@ -52,7 +52,6 @@ import org.eclipse.jetty.server.handler.DefaultHandler;
 import org.eclipse.jetty.server.handler.HandlerCollection;
 import org.eclipse.jetty.server.handler.RequestLogHandler;
 import org.eclipse.jetty.server.handler.ResourceHandler;
-import org.eclipse.jetty.server.session.HashSessionManager;
 import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
@@ -72,7 +71,13 @@ import org.structr.core.Services;
 import org.structr.core.auth.SuperUserAuthenticator;
 import org.structr.rest.DefaultResourceProvider;
 import org.structr.rest.ResourceProvider;
+import org.structr.rest.logging.LogEventStore;
 import org.structr.rest.servlet.JsonRestServlet;
+import org.structr.rest.session.FileSessionStore;
+import org.structr.rest.session.MemorySessionStore;
+import org.structr.rest.session.SessionStore;
+import org.structr.rest.session.StructrSessionIdManager;
+import org.structr.rest.session.StructrSessionManager;
 import org.tuckey.web.filters.urlrewrite.UrlRewriteFilter;
 
 /**
@@ -96,6 +101,10 @@ public class HttpService implements RunnableService {
 	public static final String APPLICATION_HTTPS_ENABLED     = "application.https.enabled";
 	public static final String APPLICATION_KEYSTORE_PATH     = "application.keystore.path";
 	public static final String APPLICATION_KEYSTORE_PASSWORD = "application.keystore.password";
+	public static final String APPLICATION_COMPRESSION       = "application.compression.enabled";
+	public static final String APPLICATION_COMPRESSION_LEVEL = "application.compression.level";
+	public static final String APPLICATION_COMPRESSION_MIN   = "application.compression.minsize";
+	public static final String APPLICATION_SESSION_STORE     = "application.session.store";
 
 	// set of resource providers for this service
 	private Set<ResourceProvider> resourceProviders = new LinkedHashSet<>();
@@ -113,7 +122,7 @@ public class HttpService implements RunnableService {
 	private int httpPort           = 8082;
 	private int maxIdleTime        = 30000;
 	private int requestHeaderSize  = 8192;
-	private HashSessionManager hashSessionManager = null;
+	private StructrSessionManager sessionManager = null;
 
 	private HttpConfiguration httpConfig;
 	private HttpConfiguration httpsConfig;
@@ -165,6 +174,10 @@ public class HttpService implements RunnableService {
 		finalConfig.setProperty(APPLICATION_HTTPS_ENABLED, "false");
 		finalConfig.setProperty(APPLICATION_HTTPS_PORT, "8083");
 		finalConfig.setProperty(ASYNC, "true");
+		finalConfig.setProperty(APPLICATION_COMPRESSION, "true");
+		finalConfig.setProperty(APPLICATION_COMPRESSION_LEVEL, "5");
+		finalConfig.setProperty(APPLICATION_COMPRESSION_MIN, "1024");
+		finalConfig.setProperty(APPLICATION_SESSION_STORE, FileSessionStore.class.getName());
 		finalConfig.setProperty(SERVLETS, "JsonRestServlet");
 
 		finalConfig.setProperty("JsonRestServlet.class", JsonRestServlet.class.getName());
@@ -227,7 +240,9 @@ public class HttpService implements RunnableService {
 		final String logPrefix              = "structr";
 		final boolean enableRewriteFilter   = true; // configurationFile.getProperty(Services.
 		final boolean enableHttps           = Services.parseBoolean(finalConfig.getProperty(APPLICATION_HTTPS_ENABLED), false);
-		final boolean enableGzipCompression = true; //
+		final boolean enableGzipCompression = Services.parseBoolean(finalConfig.getProperty(APPLICATION_COMPRESSION), true);
+		final int compressionLevel          = Services.parseInt(finalConfig.getProperty(APPLICATION_COMPRESSION_LEVEL), 5);
+		final int compressionMinSize        = Services.parseInt(finalConfig.getProperty(APPLICATION_COMPRESSION_MIN), 1024);
 		final boolean logRequests           = false; //
 		final int httpsPort                 = Services.parseInt(finalConfig.getProperty(APPLICATION_HTTPS_PORT), 8083);
 
@@ -284,14 +299,13 @@ public class HttpService implements RunnableService {
 			logger.warn("", t);
 		}
 
-		hashSessionManager = new HashSessionManager();
-		try {
-			hashSessionManager.setStoreDirectory(new File(baseDir + "/sessions"));
-		} catch (IOException ex) {
-			logger.warn("Could not set custom session manager with session store directory {}/sessions", baseDir);
-		}
+		final StructrSessionIdManager sessionIdManager = new StructrSessionIdManager();
 
-		servletContext.getSessionHandler().setSessionManager(hashSessionManager);
+		sessionManager = new StructrSessionManager(createSessionStore(finalConfig.getProperty(APPLICATION_SESSION_STORE)), new File(baseDir + "/sessions"));
+		sessionManager.setSessionIdManager(sessionIdManager);
+
+		server.setSessionIdManager(sessionIdManager);
+		servletContext.getSessionHandler().setSessionManager(sessionManager);
 
 		if (enableRewriteFilter) {
 
@@ -305,8 +319,8 @@ public class HttpService implements RunnableService {
 			final FilterHolder gzipFilter = async ? new FilterHolder(AsyncGzipFilter.class) : new FilterHolder(GzipFilter.class);
 			gzipFilter.setInitParameter("mimeTypes", "text/html,text/plain,text/css,text/javascript,application/json");
 			gzipFilter.setInitParameter("bufferSize", "32768");
-			gzipFilter.setInitParameter("minGzipSize", "256");
-			gzipFilter.setInitParameter("deflateCompressionLevel", "9");
+			gzipFilter.setInitParameter("minGzipSize", Integer.toString(compressionMinSize));
+			gzipFilter.setInitParameter("deflateCompressionLevel", Integer.toString(compressionLevel));
 			gzipFilter.setInitParameter("methods", "GET,POST,PUT,HEAD,DELETE");
 			servletContext.addFilter(gzipFilter, "/*", EnumSet.of(DispatcherType.REQUEST, DispatcherType.FORWARD, DispatcherType.ASYNC));
 
@@ -494,6 +508,9 @@ public class HttpService implements RunnableService {
 			}
 		}
 
+		// close open log event segments
+		LogEventStore.shutdownInstance();
+
 		// send lifecycle event that the server has been stopped
 		sendLifecycleEvent(LifecycleEvent.Stopped);
 	}
@@ -512,11 +529,25 @@ public class HttpService implements RunnableService {
 		return resourceProviders;
 	}
 
-	public HashSessionManager getHashSessionManager() {
-		return hashSessionManager;
+	public StructrSessionManager getSessionManager() {
+		return sessionManager;
 	}
 
 	// ----- private methods -----
+	private SessionStore createSessionStore(final String className) {
+
+		try {
+
+			return (SessionStore)Class.forName(className).newInstance();
+
+		} catch (ClassNotFoundException | InstantiationException | IllegalAccessException | ClassCastException ex) {
+
+			logger.warn("Unable to instantiate session store {}, using in-memory sessions: {}", className, ex.getMessage());
+		}
+
+		return new MemorySessionStore();
+	}
+
 	private List<ContextHandler> collectResourceHandlers(final Properties properties) throws ClassNotFoundException, InstantiationException, IllegalAccessException {
 
 		final List<ContextHandler> resourceHandlers = new LinkedList<>();
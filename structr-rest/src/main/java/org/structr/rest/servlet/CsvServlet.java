@@ -20,15 +20,18 @@
 package org.structr.rest.servlet;
 
 import au.com.bytecode.opencsv.CSVParser;
+import au.com.bytecode.opencsv.CSVReader;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -57,10 +60,14 @@ import org.structr.core.app.App;
 import org.structr.core.app.StructrApp;
 import org.structr.core.auth.Authenticator;
 import org.structr.core.graph.NodeFactory;
+import org.structr.core.graph.TransactionCommand;
 import org.structr.core.graph.Tx;
+import org.structr.core.converter.PropertyConverter;
 import org.structr.core.property.PropertyKey;
+import org.structr.core.property.PropertyMap;
 import org.structr.rest.RestMethodResult;
 import org.structr.rest.resource.Resource;
+import org.structr.rest.resource.TypeResource;
 import org.structr.rest.service.HttpServiceServlet;
 import org.structr.rest.service.StructrHttpServiceConfig;
 
@@ -79,6 +86,21 @@ public class CsvServlet extends HttpServlet implements HttpServiceServlet {
 	private static final String REMOVE_LINE_BREAK_PARAM = "nolinebreaks";
 	private static final String WRITE_BOM = "bom";
 
+	// write rows as they come off the database cursor, ignores paging
+	private static final String STREAM_PARAM = "stream";
+
+	// parse input incrementally and commit every n rows
+	private static final String BATCH_SIZE_PARAM = "batchSize";
+
+	private static final int FLUSH_INTERVAL = 100;
+
+	static {
+
+		// request parameters of this servlet must not be interpreted as search attributes
+		JsonRestServlet.commonRequestParameters.add(STREAM_PARAM);
+		JsonRestServlet.commonRequestParameters.add(BATCH_SIZE_PARAM);
+	}
+
 	//~--- fields ---------------------------------------------------------
 	private final Map<Pattern, Class<? extends Resource>> resourceMap = new LinkedHashMap<>();
 	private Value<String> propertyView = null;
@@ -182,6 +204,26 @@ public class CsvServlet extends HttpServlet implements HttpServiceServlet {
 				// Should a leading BOM be written?
 				writeBom = StringUtils.equals(request.getParameter(WRITE_BOM), "1");
 
+				// stream unpaged collection directly from the database cursor
+				if (StringUtils.equals(request.getParameter(STREAM_PARAM), "1") && resource instanceof TypeResource) {
+
+					final Writer writer = response.getWriter();
+
+					response.setStatus(HttpServletResponse.SC_OK);
+
+					if (writeBom) {
+						writeUtf8Bom(writer);
+					}
+
+					writeCsv(((TypeResource)resource).doGetStream(sortKey, sortDescending), writer, propertyView.get(securityContext));
+
+					writer.flush();
+					writer.close();
+
+					tx.success();
+					return;
+				}
+
 				// do action
 				result = resource.doGet(sortKey, sortDescending, pageSize, page, offsetId);
 
@@ -295,7 +337,9 @@ public class CsvServlet extends HttpServlet implements HttpServiceServlet {
 			response.setContentType("application/json; charset=utf-8");
 
 			// get reader before initalizing security context
-			final String input = IOUtils.toString(request.getReader());
+			final BufferedReader reader = request.getReader();
+			final int batchSize         = Services.parseInt(request.getParameter(BATCH_SIZE_PARAM), 0);
+			final String input          = batchSize > 0 ? null : IOUtils.toString(reader);
 
 			// isolate request authentication in a transaction
 			try (final Tx tx = StructrApp.getInstance().tx()) {
@@ -316,6 +360,20 @@ public class CsvServlet extends HttpServlet implements HttpServiceServlet {
 					tx.success();
 				}
 
+				if (batchSize > 0) {
+
+					final int count = importStreaming(app, securityContext, resource, reader, batchSize);
+
+					// isolate write output
+					try (final Tx tx = app.tx()) {
+
+						new RestMethodResult(HttpServletResponse.SC_CREATED, "Imported " + count + " objects").commitResponse(gson.get(), response);
+						tx.success();
+					}
+
+					return;
+				}
+
 				// isolate doPost
 				boolean retry = true;
 				while (retry) {
@@ -334,6 +392,7 @@ public class CsvServlet extends HttpServlet implements HttpServiceServlet {
 							tx.success();
 
 						} catch (RetryException ddex) {
+							TransactionCommand.countRetry();
 							retry = true;
 						}
 
@@ -347,6 +406,7 @@ public class CsvServlet extends HttpServlet implements HttpServiceServlet {
 							}
 
 						} catch (RetryException ddex) {
+							TransactionCommand.countRetry();
 							retry = true;
 						}
 					}
@@ -487,12 +547,25 @@ public class CsvServlet extends HttpServlet implements HttpServiceServlet {
 	 * @throws IOException
 	 */
 	public static void writeCsv(final Result result, final Writer out, final String propertyView) throws IOException {
+		writeCsv(result.getResults(), out, propertyView);
+	}
+
+	/**
+	 * Write objects to output as they are returned by the given iterable,
+	 * so that lazily evaluated results are never held in memory at once.
+	 *
+	 * @param objects
+	 * @param out
+	 * @param propertyView
+	 * @throws IOException
+	 */
+	public static void writeCsv(final Iterable<? extends GraphObject> objects, final Writer out, final String propertyView) throws IOException {
 
-		final List<GraphObject> list = result.getResults();
 		final StringBuilder row      = new StringBuilder();
 		boolean headerWritten        = false;
+		int count                    = 0;
 
-		for (final GraphObject obj : list) {
+		for (final GraphObject obj : objects) {
 
 			// Write column headers
 			if (!headerWritten) {
@@ -537,10 +610,132 @@ public class CsvServlet extends HttpServlet implements HttpServiceServlet {
 			row.deleteCharAt(row.lastIndexOf(DELIMITER));
 			out.append(row).append("\r\n");
 
-			// flush each line
-			out.flush();
+			// flush in batches
+			if (++count % FLUSH_INTERVAL == 0) {
+				out.flush();
+			}
+		}
+
+		out.flush();
+	}
+
+	/**
+	 * Reads CSV rows from the given reader and creates one object per row,
+	 * committing a transaction every batchSize rows. Property keys and input
+	 * converters are resolved once per column if the target is a plain node
+	 * type, the converted rows are then created by the resource itself (so a
+	 * type column selects the subtype like in {@link Resource#doPost}).
+	 * Other resources receive each row via {@link Resource#doPost}.
+	 *
+	 * @return the number of rows imported
+	 */
+	private int importStreaming(final App app, final SecurityContext securityContext, final Resource resource, final Reader input, final int batchSize) throws FrameworkException, IOException {
+
+		final CSVReader reader       = new CSVReader(input);
+		final String[] propertyNames = reader.readNext();
+		final List<String[]> batch   = new ArrayList<>(batchSize);
+		int count                    = 0;
+
+		if (propertyNames == null) {
+			return 0;
+		}
+
+		PropertyKey[] keys             = null;
+		PropertyConverter[] converters = null;
+		TypeResource typeResource      = null;
+
+		if (resource instanceof TypeResource && resource.createPostTransaction()) {
+
+			final TypeResource candidate = (TypeResource)resource;
+
+			if (candidate.isNode() && !candidate.hasVirtualType() && candidate.getEntityClass() != null) {
+
+				final Class type = candidate.getEntityClass();
+
+				typeResource = candidate;
+				keys         = new PropertyKey[propertyNames.length];
+				converters   = new PropertyConverter[propertyNames.length];
+
+				for (int i=0; i<propertyNames.length; i++) {
+
+					keys[i]       = StructrApp.getConfiguration().getPropertyKeyForJSONName(type, propertyNames[i]);
+					converters[i] = keys[i].inputConverter(securityContext);
+				}
+			}
+		}
+
+		String[] columns = reader.readNext();
+		while (columns != null) {
+
+			// skip empty lines
+			if (columns.length > 1 || StringUtils.isNotBlank(columns[0])) {
+				batch.add(columns);
+			}
+
+			columns = reader.readNext();
+
+			if (batch.size() >= batchSize || (columns == null && !batch.isEmpty())) {
+
+				boolean retry = true;
+				while (retry) {
+
+					retry = false;
+
+					try (final Tx tx = resource.createPostTransaction() ? app.tx() : null) {
+
+						for (final String[] row : batch) {
+
+							final Map<String, Object> source = new LinkedHashMap<>();
+							final int len                    = Math.min(row.length, propertyNames.length);
+
+							for (int i=0; i<len; i++) {
+								source.put(propertyNames[i], row[i]);
+							}
+
+							if (typeResource != null) {
+
+								final PropertyMap properties = new PropertyMap();
+
+								for (int i=0; i<len; i++) {
+
+									final PropertyConverter converter = converters[i];
+									if (converter != null) {
+
+										converter.setContext(source);
+										properties.put(keys[i], converter.convert(row[i]));
+
+									} else {
+
+										properties.put(keys[i], row[i]);
+									}
+								}
+
+								typeResource.createNode(properties);
+
+							} else {
+
+								resource.doPost(source);
+							}
+						}
+
+						if (tx != null) {
+							tx.success();
+						}
+
+					} catch (RetryException ddex) {
+						TransactionCommand.countRetry();
+						retry = true;
+					}
+				}
+
+				count += batch.size();
+				batch.clear();
+
+				logger.debug("Imported {} rows", count);
+			}
 		}
 
+		return count;
 	}
 
 	private Iterable<JsonInput> cleanAndParseCSV(final String input) throws FrameworkException, IOException {
@@ -49,6 +49,7 @@ import org.structr.core.app.StructrApp;
 import org.structr.core.auth.Authenticator;
 import org.structr.core.entity.AbstractNode;
 import org.structr.core.graph.NodeFactory;
+import org.structr.core.graph.TransactionCommand;
 import org.structr.core.graph.Tx;
 import org.structr.core.graph.search.SearchCommand;
 import org.structr.core.property.PropertyKey;
@@ -194,6 +195,7 @@ public class JsonRestServlet extends HttpServlet implements HttpServiceServlet {
 					retry = false;
 
 				} catch (RetryException ddex) {
+					TransactionCommand.countRetry();
 					retry = true;
 				}
 			}
@@ -317,6 +319,7 @@ public class JsonRestServlet extends HttpServlet implements HttpServiceServlet {
 					retry = false;
 
 				} catch (RetryException ddex) {
+					TransactionCommand.countRetry();
 					retry = true;
 				}
 			}
@@ -435,6 +438,7 @@ public class JsonRestServlet extends HttpServlet implements HttpServiceServlet {
 							retry = false;
 
 						} catch (RetryException ddex) {
+							TransactionCommand.countRetry();
 							retry = true;
 						}
 
@@ -450,6 +454,7 @@ public class JsonRestServlet extends HttpServlet implements HttpServiceServlet {
 							retry = false;
 
 						} catch (RetryException ddex) {
+							TransactionCommand.countRetry();
 							retry = true;
 						}
 					}
@@ -616,6 +621,7 @@ public class JsonRestServlet extends HttpServlet implements HttpServiceServlet {
 						retry = false;
 
 					} catch (RetryException ddex) {
+						TransactionCommand.countRetry();
 						retry = true;
 					}
 				}
@@ -822,6 +828,7 @@ public class JsonRestServlet extends HttpServlet implements HttpServiceServlet {
 					retry = false;
 
 				} catch (RetryException ddex) {
+					TransactionCommand.countRetry();
 					retry = true;
 				}
 			}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.servlet;
+
+import java.io.IOException;
+import java.io.Writer;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.api.metrics.MetricsRegistry;
+import org.structr.common.SecurityContext;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.Services;
+import org.structr.core.app.StructrApp;
+import org.structr.core.graph.Tx;
+import org.structr.rest.service.HttpServiceServlet;
+import org.structr.rest.service.StructrHttpServiceConfig;
+
+/**
+ * Servlet that exposes the metrics of this instance in the Prometheus
+ * text exposition format. Only admin users can read the metrics, unless
+ * <code>MetricsServlet.allowAnonymousAccess</code> is set.
+ *
+ *
+ */
+public class MetricsServlet extends HttpServlet implements HttpServiceServlet {
+
+	private static final Logger logger                 = LoggerFactory.getLogger(MetricsServlet.class.getName());
+	public static final String ALLOW_ANONYMOUS_ACCESS  = "MetricsServlet.allowAnonymousAccess";
+	private static final String CONTENT_TYPE           = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final StructrHttpServiceConfig config      = new StructrHttpServiceConfig();
+
+	@Override
+	public StructrHttpServiceConfig getConfig() {
+		return config;
+	}
+
+	@Override
+	protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+
+		try {
+
+			if (!Services.parseBoolean(StructrApp.getConfigurationValue(ALLOW_ANONYMOUS_ACCESS), false)) {
+
+				final SecurityContext securityContext;
+
+				// isolate request authentication in a transaction
+				try (final Tx tx = StructrApp.getInstance().tx()) {
+					securityContext = config.getAuthenticator().initializeAndExamineRequest(request, response);
+					tx.success();
+				}
+
+				if (!securityContext.isSuperUser()) {
+
+					response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+					return;
+				}
+			}
+
+		} catch (FrameworkException fex) {
+
+			response.sendError(fex.getStatus(), fex.getMessage());
+			return;
+		}
+
+		response.setStatus(HttpServletResponse.SC_OK);
+		response.setContentType(CONTENT_TYPE);
+
+		try (final Writer writer = response.getWriter()) {
+
+			MetricsRegistry.getInstance().writeTo(writer);
+
+		} catch (IOException ioex) {
+			logger.warn("Unable to write metrics: {}", ioex.getMessage());
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.session;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Index of session ids ordered by expiry time. Not thread-safe, the
+ * stores synchronize access.
+ *
+ *
+ */
+class ExpiryIndex {
+
+	private final TreeSet<Entry> entries     = new TreeSet<>();
+	private final Map<String, Long> expiries = new HashMap<>();
+
+	public void update(final String id, final long expiry) {
+
+		remove(id);
+
+		// sessions without timeout are not indexed
+		if (expiry != Long.MAX_VALUE) {
+
+			entries.add(new Entry(expiry, id));
+			expiries.put(id, expiry);
+		}
+	}
+
+	public void remove(final String id) {
+
+		final Long expiry = expiries.remove(id);
+		if (expiry != null) {
+
+			entries.remove(new Entry(expiry, id));
+		}
+	}
+
+	/**
+	 * Removes and returns the ids of all sessions that expired before the
+	 * given time.
+	 *
+	 * @param now
+	 * @return the expired ids
+	 */
+	public List<String> poll(final long now) {
+
+		final List<String> expired = new LinkedList<>();
+
+		while (!entries.isEmpty() && entries.first().expiry < now) {
+
+			final Entry entry = entries.pollFirst();
+
+			expiries.remove(entry.id);
+			expired.add(entry.id);
+		}
+
+		return expired;
+	}
+
+	public void clear() {
+
+		entries.clear();
+		expiries.clear();
+	}
+
+	// ----- nested classes -----
+	private static class Entry implements Comparable<Entry> {
+
+		private long expiry = 0L;
+		private String id   = null;
+
+		public Entry(final long expiry, final String id) {
+
+			this.expiry = expiry;
+			this.id     = id;
+		}
+
+		@Override
+		public int compareTo(final Entry other) {
+
+			final int result = Long.compare(expiry, other.expiry);
+			if (result == 0) {
+
+				return id.compareTo(other.id);
+			}
+
+			return result;
+		}
+	}
+}
@@ -0,0 +1,482 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Session store that keeps sessions in a memory-mapped file.
+ *
+ * The file consists of a header and fixed-size slots, one per session.
+ * Each slot contains the id, the timestamps and the serialized attributes
+ * of a session. Attributes that don't fit into a slot are written to a
+ * separate file next to the store. Only the slot numbers and the expiry
+ * index are kept on the heap, the session data is paged in and out by
+ * the operating system. Attributes that are not serializable are not
+ * stored.
+ *
+ *
+ */
+public class FileSessionStore implements SessionStore {
+
+	private static final Logger logger        = LoggerFactory.getLogger(FileSessionStore.class.getName());
+
+	public static final String FILE_NAME      = "sessions.db";
+
+	private static final int MAGIC            = 0x53545353;
+	private static final int VERSION          = 1;
+	private static final int HEADER_SIZE      = 64;
+	private static final int SLOT_SIZE        = 1024;
+	private static final int INITIAL_SLOTS    = 1024;
+	private static final int MAX_GROWTH       = 65536;
+	private static final int MAX_ID_LENGTH    = 128;
+
+	private static final byte FREE            = 0;
+	private static final byte USED            = 1;
+
+	// slot layout
+	private static final int STATE            = 0;
+	private static final int ID_LENGTH        = 1;
+	private static final int ID               = 3;
+	private static final int CREATED          = ID + MAX_ID_LENGTH;
+	private static final int ACCESSED         = CREATED + 8;
+	private static final int MAX_INACTIVE     = ACCESSED + 8;
+	private static final int ATTR_LENGTH      = MAX_INACTIVE + 8;
+	private static final int ATTRIBUTES       = ATTR_LENGTH + 4;
+	private static final int ATTR_CAPACITY    = SLOT_SIZE - ATTRIBUTES;
+
+	private final Map<String, Integer> slots  = new HashMap<>();
+	private final ExpiryIndex index           = new ExpiryIndex();
+	private final BitSet used                 = new BitSet();
+	private RandomAccessFile file             = null;
+	private MappedByteBuffer buffer           = null;
+	private File directory                    = null;
+	private int slotCount                     = 0;
+
+	@Override
+	public synchronized void open(final File directory) throws IOException {
+
+		this.directory = directory;
+
+		directory.mkdirs();
+
+		final File storeFile = new File(directory, FILE_NAME);
+		final boolean exists = storeFile.exists() && storeFile.length() >= HEADER_SIZE;
+
+		file = new RandomAccessFile(storeFile, "rw");
+
+		if (exists) {
+
+			map(file.length());
+
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != SLOT_SIZE || HEADER_SIZE + (long)buffer.getInt(12) * SLOT_SIZE > file.length()) {
+
+				logger.warn("Session store {} has an incompatible format, discarding stored sessions", storeFile);
+				initialize();
+
+			} else {
+
+				slotCount = buffer.getInt(12);
+				restore();
+			}
+
+		} else {
+
+			initialize();
+		}
+
+		logger.info("Session store {} opened, {} sessions restored", storeFile, slots.size());
+	}
+
+	@Override
+	public synchronized void close() {
+
+		if (file != null) {
+
+			try {
+				buffer.force();
+				file.close();
+
+			} catch (IOException ioex) {
+				logger.warn("Unable to close session store: {}", ioex.getMessage());
+			}
+
+			slots.clear();
+			index.clear();
+			used.clear();
+
+			buffer = null;
+			file   = null;
+		}
+	}
+
+	@Override
+	public synchronized SessionData get(final String id) {
+
+		final Integer slot = slots.get(id);
+		if (slot != null) {
+
+			final int offset       = offset(slot);
+			final SessionData data = new SessionData(id, buffer.getLong(offset + CREATED), buffer.getLong(offset + ACCESSED), buffer.getLong(offset + MAX_INACTIVE));
+			final int length       = buffer.getInt(offset + ATTR_LENGTH);
+
+			try {
+
+				if (length < 0) {
+
+					readAttributes(Files.readAllBytes(overflowFile(id).toPath()), data.getAttributes());
+
+				} else if (length > 0) {
+
+					final byte[] bytes = new byte[length];
+					final ByteBuffer view = buffer.duplicate();
+
+					view.position(offset + ATTRIBUTES);
+					view.get(bytes);
+
+					readAttributes(bytes, data.getAttributes());
+				}
+
+			} catch (IOException ioex) {
+
+				logger.warn("Unable to read attributes of session {}: {}", id, ioex.getMessage());
+			}
+
+			return data;
+		}
+
+		return null;
+	}
+
+	@Override
+	public synchronized void put(final SessionData data) {
+
+		final String id     = data.getId();
+		final byte[] idData = id.getBytes(StandardCharsets.UTF_8);
+
+		if (idData.length > MAX_ID_LENGTH) {
+
+			logger.warn("Session id {} is too long to be stored", id);
+			return;
+		}
+
+		try {
+
+			final byte[] attributes = writeAttributes(data.getAttributes());
+			final boolean overflow  = attributes.length > ATTR_CAPACITY;
+			final File overflowFile = overflowFile(id);
+
+			if (overflow) {
+
+				Files.write(overflowFile.toPath(), attributes);
+
+			} else if (overflowFile.exists()) {
+
+				overflowFile.delete();
+			}
+
+			Integer slot = slots.get(id);
+			if (slot == null) {
+
+				slot = allocate();
+				slots.put(id, slot);
+			}
+
+			final int offset      = offset(slot);
+			final ByteBuffer view = buffer.duplicate();
+
+			// mark slot as free while it is being written
+			buffer.put(offset + STATE, FREE);
+
+			buffer.putShort(offset + ID_LENGTH, (short)idData.length);
+			view.position(offset + ID);
+			view.put(idData);
+
+			buffer.putLong(offset + CREATED, data.getCreated());
+			buffer.putLong(offset + ACCESSED, data.getAccessed());
+			buffer.putLong(offset + MAX_INACTIVE, data.getMaxInactiveMs());
+
+			if (overflow) {
+
+				buffer.putInt(offset + ATTR_LENGTH, -1);
+
+			} else {
+
+				buffer.putInt(offset + ATTR_LENGTH, attributes.length);
+				view.position(offset + ATTRIBUTES);
+				view.put(attributes);
+			}
+
+			buffer.put(offset + STATE, USED);
+
+			index.update(id, data.getExpiry());
+
+		} catch (IOException ioex) {
+
+			logger.warn("Unable to store session {}: {}", id, ioex.getMessage());
+		}
+	}
+
+	@Override
+	public synchronized void touch(final String id, final long accessed) {
+
+		final Integer slot = slots.get(id);
+		if (slot != null) {
+
+			final int offset = offset(slot);
+
+			buffer.putLong(offset + ACCESSED, accessed);
+			index.update(id, SessionData.getExpiry(accessed, buffer.getLong(offset + MAX_INACTIVE)));
+		}
+	}
+
+	@Override
+	public synchronized boolean remove(final String id) {
+
+		final Integer slot = slots.remove(id);
+		if (slot != null) {
+
+			release(id, slot);
+			return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public synchronized boolean contains(final String id) {
+		return slots.containsKey(id);
+	}
+
+	@Override
+	public synchronized List<String> expire(final long now) {
+
+		final List<String> expired = index.poll(now);
+
+		for (final String id : expired) {
+
+			final Integer slot = slots.remove(id);
+			if (slot != null) {
+
+				release(id, slot);
+			}
+		}
+
+		return expired;
+	}
+
+	@Override
+	public synchronized int size() {
+		return slots.size();
+	}
+
+	// ----- private methods -----
+	private void initialize() throws IOException {
+
+		map(HEADER_SIZE + (long)INITIAL_SLOTS * SLOT_SIZE);
+
+		for (int i=0; i<INITIAL_SLOTS; i++) {
+			buffer.put(offset(i) + STATE, FREE);
+		}
+
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, VERSION);
+		buffer.putInt(8, SLOT_SIZE);
+		buffer.putInt(12, INITIAL_SLOTS);
+
+		slotCount = INITIAL_SLOTS;
+	}
+
+	private void restore() {
+
+		final long now = System.currentTimeMillis();
+
+		for (int slot=0; slot<slotCount; slot++) {
+
+			final int offset = offset(slot);
+
+			if (buffer.get(offset + STATE) == USED) {
+
+				final byte[] idData   = new byte[buffer.getShort(offset + ID_LENGTH)];
+				final ByteBuffer view = buffer.duplicate();
+
+				view.position(offset + ID);
+				view.get(idData);
+
+				final String id   = new String(idData, StandardCharsets.UTF_8);
+				final long expiry = SessionData.getExpiry(buffer.getLong(offset + ACCESSED), buffer.getLong(offset + MAX_INACTIVE));
+
+				if (expiry < now) {
+
+					release(id, slot);
+
+				} else {
+
+					slots.put(id, slot);
+					used.set(slot);
+					index.update(id, expiry);
+				}
+			}
+		}
+	}
+
+	private int allocate() throws IOException {
+
+		int slot = used.nextClearBit(0);
+		if (slot >= slotCount) {
+
+			final int newCount = slotCount + Math.min(slotCount, MAX_GROWTH);
+
+			if ((long)HEADER_SIZE + (long)newCount * SLOT_SIZE > Integer.MAX_VALUE) {
+				throw new IOException("Session store is full");
+			}
+
+			map(HEADER_SIZE + (long)newCount * SLOT_SIZE);
+
+			for (int i=slotCount; i<newCount; i++) {
+				buffer.put(offset(i) + STATE, FREE);
+			}
+
+			buffer.putInt(12, newCount);
+			slotCount = newCount;
+		}
+
+		used.set(slot);
+
+		return slot;
+	}
+
+	private void release(final String id, final int slot) {
+
+		buffer.put(offset(slot) + STATE, FREE);
+		used.clear(slot);
+		index.remove(id);
+
+		final File overflowFile = overflowFile(id);
+		if (overflowFile.exists()) {
+
+			overflowFile.delete();
+		}
+	}
+
+	private void map(final long size) throws IOException {
+
+		if (buffer != null) {
+			buffer.force();
+		}
+
+		file.setLength(size);
+		buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+	}
+
+	private int offset(final int slot) {
+		return HEADER_SIZE + slot * SLOT_SIZE;
+	}
+
+	private File overflowFile(final String id) {
+		return new File(directory, id + ".attributes");
+	}
+
+	private byte[] writeAttributes(final Map<String, Object> attributes) throws IOException {
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final Map<String, byte[]> values  = new HashMap<>();
+
+		for (final Map.Entry<String, Object> entry : attributes.entrySet()) {
+
+			final Object value = entry.getValue();
+			if (value instanceof Serializable) {
+
+				try {
+
+					final ByteArrayOutputStream valueBytes = new ByteArrayOutputStream();
+
+					try (final ObjectOutputStream out = new ObjectOutputStream(valueBytes)) {
+						out.writeObject(value);
+					}
+
+					values.put(entry.getKey(), valueBytes.toByteArray());
+
+				} catch (IOException ioex) {
+
+					logger.debug("Session attribute {} is not serializable: {}", entry.getKey(), ioex.getMessage());
+				}
+			}
+		}
+
+		try (final DataOutputStream out = new DataOutputStream(bytes)) {
+
+			out.writeInt(values.size());
+
+			for (final Map.Entry<String, byte[]> entry : values.entrySet()) {
+
+				out.writeUTF(entry.getKey());
+				out.writeInt(entry.getValue().length);
+				out.write(entry.getValue());
+			}
+		}
+
+		return values.isEmpty() ? new byte[0] : bytes.toByteArray();
+	}
+
+	private void readAttributes(final byte[] data, final Map<String, Object> attributes) throws IOException {
+
+		try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+
+			final int count = in.readInt();
+
+			for (int i=0; i<count; i++) {
+
+				final String name  = in.readUTF();
+				final byte[] value = new byte[in.readInt()];
+
+				in.readFully(value);
+
+				try (final ObjectInputStream valueIn = new ObjectInputStream(new ByteArrayInputStream(value))) {
+
+					attributes.put(name, valueIn.readObject());
+
+				} catch (ClassNotFoundException | IOException ex) {
+
+					logger.debug("Unable to restore session attribute {}: {}", name, ex.getMessage());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.session;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Session store that keeps all sessions on the heap. Sessions do not
+ * survive a restart.
+ *
+ *
+ */
+public class MemorySessionStore implements SessionStore {
+
+	private final Map<String, SessionData> sessions = new HashMap<>();
+	private final ExpiryIndex index                 = new ExpiryIndex();
+
+	@Override
+	public void open(final File directory) {
+	}
+
+	@Override
+	public synchronized void close() {
+
+		sessions.clear();
+		index.clear();
+	}
+
+	@Override
+	public synchronized SessionData get(final String id) {
+		return sessions.get(id);
+	}
+
+	@Override
+	public synchronized void put(final SessionData data) {
+
+		sessions.put(data.getId(), data);
+		index.update(data.getId(), data.getExpiry());
+	}
+
+	@Override
+	public synchronized void touch(final String id, final long accessed) {
+
+		final SessionData data = sessions.get(id);
+		if (data != null) {
+
+			data.setAccessed(accessed);
+			index.update(id, data.getExpiry());
+		}
+	}
+
+	@Override
+	public synchronized boolean remove(final String id) {
+
+		index.remove(id);
+
+		return sessions.remove(id) != null;
+	}
+
+	@Override
+	public synchronized boolean contains(final String id) {
+		return sessions.containsKey(id);
+	}
+
+	@Override
+	public synchronized List<String> expire(final long now) {
+
+		final List<String> expired = index.poll(now);
+
+		for (final String id : expired) {
+			sessions.remove(id);
+		}
+
+		return expired;
+	}
+
+	@Override
+	public synchronized int size() {
+		return sessions.size();
+	}
+}
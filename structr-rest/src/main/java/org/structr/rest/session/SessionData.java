@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.session;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The persistent state of an HTTP session.
+ *
+ *
+ */
+public class SessionData {
+
+	private final Map<String, Object> attributes = new LinkedHashMap<>();
+	private String id                            = null;
+	private long created                         = 0L;
+	private long accessed                        = 0L;
+	private long maxInactiveMs                   = -1L;
+
+	public SessionData(final String id, final long created, final long accessed, final long maxInactiveMs) {
+
+		this.id            = id;
+		this.created       = created;
+		this.accessed      = accessed;
+		this.maxInactiveMs = maxInactiveMs;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public long getCreated() {
+		return created;
+	}
+
+	public long getAccessed() {
+		return accessed;
+	}
+
+	public void setAccessed(final long accessed) {
+		this.accessed = accessed;
+	}
+
+	public long getMaxInactiveMs() {
+		return maxInactiveMs;
+	}
+
+	/**
+	 * Returns the time after which this session is expired, or
+	 * Long.MAX_VALUE if the session never expires.
+	 *
+	 * @return the expiry time
+	 */
+	public long getExpiry() {
+		return getExpiry(accessed, maxInactiveMs);
+	}
+
+	public Map<String, Object> getAttributes() {
+		return attributes;
+	}
+
+	public static long getExpiry(final long accessed, final long maxInactiveMs) {
+		return maxInactiveMs > 0 ? accessed + maxInactiveMs : Long.MAX_VALUE;
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.session;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Storage backend for HTTP sessions.
+ *
+ * A session store holds the data of all sessions that are not in use by
+ * a request, and keeps an index of their expiry times so that expired
+ * sessions can be removed without iterating over all sessions.
+ * Implementations must be thread-safe.
+ *
+ *
+ */
+public interface SessionStore {
+
+	/**
+	 * Opens the store in the given directory, restoring all sessions a
+	 * persistent store contains.
+	 *
+	 * @param directory
+	 * @throws IOException
+	 */
+	void open(final File directory) throws IOException;
+
+	/**
+	 * Writes all pending changes and releases the resources of this store.
+	 */
+	void close();
+
+	/**
+	 * Returns the data of the session with the given id, or null if there
+	 * is no such session.
+	 *
+	 * @param id
+	 * @return the session data or null
+	 */
+	SessionData get(final String id);
+
+	/**
+	 * Stores the given session data, replacing an existing session with
+	 * the same id.
+	 *
+	 * @param data
+	 */
+	void put(final SessionData data);
+
+	/**
+	 * Updates the access time of the session with the given id without
+	 * writing its attributes.
+	 *
+	 * @param id
+	 * @param accessed
+	 */
+	void touch(final String id, final long accessed);
+
+	/**
+	 * Removes the session with the given id.
+	 *
+	 * @param id
+	 * @return whether the session existed
+	 */
+	boolean remove(final String id);
+
+	boolean contains(final String id);
+
+	/**
+	 * Removes all sessions that expired before the given time and returns
+	 * their ids. The cost depends on the number of expired sessions only.
+	 *
+	 * @param now
+	 * @return the ids of the removed sessions
+	 */
+	List<String> expire(final long now);
+
+	int size();
+}
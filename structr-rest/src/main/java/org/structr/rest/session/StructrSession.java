@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.session;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.http.HttpServletRequest;
+import org.eclipse.jetty.server.session.AbstractSession;
+
+/**
+ * HTTP session that is backed by a {@link SessionStore}.
+ *
+ * The session is written back to the store when the last request that
+ * uses it completes. Attribute changes outside of a request, e.g. from
+ * a WebSocket connection, are written immediately.
+ *
+ *
+ */
+public class StructrSession extends AbstractSession {
+
+	private final Map<String, Object> attributes = new HashMap<>();
+	private final AtomicInteger lookups          = new AtomicInteger();
+	private StructrSessionManager manager        = null;
+	private volatile long lookedUp               = 0L;
+	private boolean dirty                        = false;
+	private boolean removed                      = false;
+
+	protected StructrSession(final StructrSessionManager manager, final HttpServletRequest request) {
+
+		super(manager, request);
+
+		this.manager = manager;
+		this.dirty   = true;
+	}
+
+	protected StructrSession(final StructrSessionManager manager, final SessionData data) {
+
+		super(manager, data.getCreated(), data.getAccessed(), data.getId());
+
+		this.manager = manager;
+
+		attributes.putAll(data.getAttributes());
+
+		super.setMaxInactiveInterval(data.getMaxInactiveMs() > 0 ? (int)(data.getMaxInactiveMs() / 1000L) : -1);
+
+		// restored sessions are not used by any request yet
+		setRequests(0);
+	}
+
+	@Override
+	public Map<String, Object> getAttributeMap() {
+		return attributes;
+	}
+
+	@Override
+	public synchronized int getAttributes() {
+		return attributes.size();
+	}
+
+	@Override
+	public synchronized Set<String> getNames() {
+		return new HashSet<>(attributes.keySet());
+	}
+
+	@Override
+	public synchronized Enumeration<String> doGetAttributeNames() {
+		return Collections.enumeration(new ArrayList<>(attributes.keySet()));
+	}
+
+	@Override
+	public synchronized Object doGet(final String name) {
+		return attributes.get(name);
+	}
+
+	@Override
+	public synchronized Object doPutOrRemove(final String name, final Object value) {
+
+		final Object previous = value != null ? attributes.put(name, value) : attributes.remove(name);
+
+		changed();
+
+		return previous;
+	}
+
+	@Override
+	public void clearAttributes() {
+
+		while (!attributes.isEmpty()) {
+
+			final List<String> names;
+
+			synchronized (this) {
+				names = new ArrayList<>(attributes.keySet());
+			}
+
+			for (final String name : names) {
+
+				final Object value;
+
+				synchronized (this) {
+					value = doPutOrRemove(name, null);
+				}
+
+				unbindValue(name, value);
+				manager.doSessionAttributeListeners(this, name, value, null);
+			}
+		}
+	}
+
+	@Override
+	public void setMaxInactiveInterval(final int seconds) {
+
+		super.setMaxInactiveInterval(seconds);
+
+		synchronized (this) {
+			changed();
+		}
+	}
+
+	@Override
+	protected boolean access(final long time) {
+
+		try {
+
+			if (super.access(time)) {
+
+				manager.activate(this);
+				return true;
+			}
+
+			return false;
+
+		} finally {
+
+			// the request is counted now, release the lookup from getSession()
+			lookups.updateAndGet(value -> value > 0 ? value - 1 : 0);
+		}
+	}
+
+	@Override
+	protected void complete() {
+
+		super.complete();
+
+		manager.passivate(this);
+	}
+
+	// ----- package-private methods -----
+	void renewId(final String clusterId, final String nodeId) {
+
+		setClusterId(clusterId);
+		setNodeId(nodeId);
+
+		dirty = true;
+	}
+
+	void lookup(final long time) {
+
+		lookups.incrementAndGet();
+		lookedUp = time;
+	}
+
+	/**
+	 * Indicates whether the session was returned by getSession() but not
+	 * yet accessed by the request that looked it up. Lookups that happened
+	 * before the given time are considered abandoned.
+	 */
+	boolean isLookedUp(final long abandonedBefore) {
+		return lookups.get() > 0 && lookedUp >= abandonedBefore;
+	}
+
+	void expire() {
+		timeout();
+	}
+
+	boolean isDirty() {
+		return dirty;
+	}
+
+	void setDirty(final boolean dirty) {
+		this.dirty = dirty;
+	}
+
+	boolean isRemoved() {
+		return removed;
+	}
+
+	void setRemoved() {
+		this.removed = true;
+	}
+
+	SessionData toData() {
+
+		final long maxInactiveMs = getMaxInactiveInterval() > 0 ? getMaxInactiveInterval() * 1000L : -1L;
+		final SessionData data   = new SessionData(getClusterId(), getCreationTime(), getAccessed(), maxInactiveMs);
+
+		data.getAttributes().putAll(attributes);
+
+		return data;
+	}
+
+	// ----- private methods -----
+	private void changed() {
+
+		dirty = true;
+
+		// sessions that are not used by a request are written immediately
+		if (manager != null && getRequests() <= 0) {
+
+			manager.save(this);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.session;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import org.eclipse.jetty.server.session.AbstractSessionIdManager;
+
+/**
+ * Session id manager for {@link StructrSessionManager}. Session ids are
+ * looked up in the session stores instead of a map of all sessions.
+ *
+ *
+ */
+public class StructrSessionIdManager extends AbstractSessionIdManager {
+
+	private final Set<StructrSessionManager> sessionManagers = new CopyOnWriteArraySet<>();
+
+	public void addSessionManager(final StructrSessionManager sessionManager) {
+		sessionManagers.add(sessionManager);
+	}
+
+	public void removeSessionManager(final StructrSessionManager sessionManager) {
+		sessionManagers.remove(sessionManager);
+	}
+
+	@Override
+	public boolean idInUse(final String id) {
+
+		if (id != null) {
+
+			final String clusterId = getClusterId(id);
+
+			for (final StructrSessionManager sessionManager : sessionManagers) {
+
+				if (sessionManager.containsSession(clusterId)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public void addSession(final HttpSession session) {
+		// sessions are registered in the session store
+	}
+
+	@Override
+	public void removeSession(final HttpSession session) {
+		// sessions are registered in the session store
+	}
+
+	@Override
+	public void invalidateAll(final String id) {
+
+		for (final StructrSessionManager sessionManager : sessionManagers) {
+			sessionManager.invalidateSession(id);
+		}
+	}
+
+	@Override
+	public void renewSessionId(final String oldClusterId, final String oldNodeId, final HttpServletRequest request) {
+
+		final String newClusterId = newSessionId(request.hashCode());
+
+		for (final StructrSessionManager sessionManager : sessionManagers) {
+			sessionManager.renewSessionId(oldClusterId, oldNodeId, newClusterId, getNodeId(newClusterId, request));
+		}
+	}
+}
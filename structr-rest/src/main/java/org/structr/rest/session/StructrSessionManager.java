@@ -0,0 +1,329 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.session;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import org.eclipse.jetty.server.session.AbstractSession;
+import org.eclipse.jetty.server.session.AbstractSessionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Jetty session manager that keeps sessions in a {@link SessionStore}.
+ *
+ * Only the sessions that are in use by a request are held on the heap,
+ * all other sessions are loaded from the store when they are requested.
+ * Expired sessions are removed periodically using the expiry index of
+ * the store.
+ *
+ *
+ */
+public class StructrSessionManager extends AbstractSessionManager {
+
+	private static final Logger logger                         = LoggerFactory.getLogger(StructrSessionManager.class.getName());
+
+	private final ConcurrentMap<String, StructrSession> active = new ConcurrentHashMap<>();
+	private ScheduledExecutorService scavenger                 = null;
+	private SessionStore store                                 = null;
+	private File directory                                     = null;
+	private int scavengePeriod                                 = 60;
+
+	public StructrSessionManager(final SessionStore store, final File directory) {
+
+		this.store     = store;
+		this.directory = directory;
+	}
+
+	@Override
+	public void doStart() throws Exception {
+
+		store.open(directory);
+
+		super.doStart();
+
+		if (_sessionIdManager instanceof StructrSessionIdManager) {
+			((StructrSessionIdManager)_sessionIdManager).addSessionManager(this);
+		}
+
+		scavenger = Executors.newSingleThreadScheduledExecutor((final Runnable runnable) -> {
+
+			final Thread thread = new Thread(runnable, "SessionScavenger");
+			thread.setDaemon(true);
+
+			return thread;
+		});
+
+		scavenger.scheduleWithFixedDelay(() -> {
+
+			try {
+				scavenge();
+
+			} catch (Throwable t) {
+				logger.warn("Unable to remove expired sessions: {}", t.getMessage());
+			}
+
+		}, scavengePeriod, scavengePeriod, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public void doStop() throws Exception {
+
+		if (scavenger != null) {
+
+			scavenger.shutdownNow();
+			scavenger = null;
+		}
+
+		if (_sessionIdManager instanceof StructrSessionIdManager) {
+			((StructrSessionIdManager)_sessionIdManager).removeSessionManager(this);
+		}
+
+		super.doStop();
+
+		store.close();
+	}
+
+	@Override
+	public AbstractSession getSession(final String clusterId) {
+
+		if (clusterId == null) {
+			return null;
+		}
+
+		final long now = System.currentTimeMillis();
+
+		// concurrent requests for the same session must share one instance,
+		// otherwise the attribute changes of all but one of them are lost.
+		// The lookup is recorded atomically so that the session is not
+		// released before the request has accessed it.
+		return active.compute(clusterId, (final String id, final StructrSession existing) -> {
+
+			if (existing != null) {
+
+				existing.lookup(now);
+				return existing;
+			}
+
+			final SessionData data = store.get(id);
+			if (data != null) {
+
+				if (data.getExpiry() < now) {
+
+					store.remove(id);
+					return null;
+				}
+
+				final StructrSession session = new StructrSession(this, data);
+
+				session.lookup(now);
+
+				return session;
+			}
+
+			return null;
+		});
+	}
+
+	@Override
+	public boolean removeSession(final AbstractSession session, final boolean invalidate) {
+
+		// prevent a concurrent passivate() from writing the session back
+		synchronized (session) {
+			((StructrSession)session).setRemoved();
+		}
+
+		return super.removeSession(session, invalidate);
+	}
+
+	@Override
+	public void renewSessionId(final String oldClusterId, final String oldNodeId, final String newClusterId, final String newNodeId) {
+
+		StructrSession session = active.remove(oldClusterId);
+		if (session == null) {
+
+			session = (StructrSession)getSession(oldClusterId);
+		}
+
+		if (session != null) {
+
+			synchronized (session) {
+
+				store.remove(oldClusterId);
+				session.renewId(newClusterId, newNodeId);
+
+				if (session.getRequests() > 0) {
+					active.put(newClusterId, session);
+				}
+
+				save(session);
+			}
+
+			super.renewSessionId(oldClusterId, oldNodeId, newClusterId, newNodeId);
+		}
+	}
+
+	public SessionStore getSessionStore() {
+		return store;
+	}
+
+	public int getScavengePeriod() {
+		return scavengePeriod;
+	}
+
+	public void setScavengePeriod(final int seconds) {
+		this.scavengePeriod = seconds;
+	}
+
+	/**
+	 * Removes all expired sessions from the store. Sessions that are in
+	 * use by a request are kept and written back when the request
+	 * completes. Sessions that were looked up but not accessed by a
+	 * request within one scavenge period are released.
+	 */
+	public void scavenge() {
+
+		final long now = System.currentTimeMillis();
+
+		for (final String id : store.expire(now)) {
+
+			final StructrSession session = active.get(id);
+			if (session != null && session.getRequests() <= 0) {
+
+				session.expire();
+			}
+		}
+
+		for (final StructrSession session : active.values()) {
+			passivate(session, now - scavengePeriod * 1000L);
+		}
+	}
+
+	// ----- package-private methods -----
+	boolean containsSession(final String clusterId) {
+		return active.containsKey(clusterId) || store.contains(clusterId);
+	}
+
+	void invalidateSession(final String clusterId) {
+
+		final StructrSession session = active.get(clusterId);
+		if (session != null && session.isValid()) {
+
+			session.invalidate();
+		}
+	}
+
+	void activate(final StructrSession session) {
+
+		// the session is normally registered by getSession() already
+		active.putIfAbsent(session.getClusterId(), session);
+	}
+
+	void passivate(final StructrSession session) {
+		passivate(session, 0L);
+	}
+
+	void passivate(final StructrSession session, final long abandonedBefore) {
+
+		synchronized (session) {
+
+			if (session.getRequests() <= 0) {
+
+				// removed or invalidated sessions must not be written back
+				if (!session.isRemoved() && session.isValid()) {
+					save(session);
+				}
+
+				// keep sessions that were looked up by a request which has not accessed them yet
+				active.computeIfPresent(session.getClusterId(), (final String id, final StructrSession existing) -> {
+
+					if (existing == session && existing.getRequests() <= 0 && !existing.isLookedUp(abandonedBefore)) {
+						return null;
+					}
+
+					return existing;
+				});
+			}
+		}
+	}
+
+	void save(final StructrSession session) {
+
+		synchronized (session) {
+
+			if (session.isRemoved() || !session.isValid()) {
+				return;
+			}
+
+			final String id = session.getClusterId();
+
+			if (session.isDirty() || !store.contains(id)) {
+
+				store.put(session.toData());
+				session.setDirty(false);
+
+			} else {
+
+				store.touch(id, session.getAccessed());
+			}
+		}
+	}
+
+	// ----- protected methods -----
+	@Override
+	protected void addSession(final AbstractSession session) {
+
+		final StructrSession structrSession = (StructrSession)session;
+
+		if (structrSession.getRequests() > 0) {
+			active.put(structrSession.getClusterId(), structrSession);
+		}
+
+		save(structrSession);
+	}
+
+	@Override
+	protected void shutdownSessions() throws Exception {
+
+		// sessions are kept in the store, not invalidated
+		for (final StructrSession session : active.values()) {
+			save(session);
+		}
+
+		active.clear();
+	}
+
+	@Override
+	protected AbstractSession newSession(final HttpServletRequest request) {
+		return new StructrSession(this, request);
+	}
+
+	@Override
+	protected boolean removeSession(final String clusterId) {
+
+		final boolean wasActive = active.remove(clusterId) != null;
+
+		return store.remove(clusterId) || wasActive;
+	}
+}
@@ -21,14 +21,21 @@ package org.structr.csv.test;
 import com.jayway.restassured.RestAssured;
 import com.jayway.restassured.filter.log.ResponseLoggingFilter;
 import com.jayway.restassured.internal.RestAssuredResponseImpl;
+import com.jayway.restassured.path.json.JsonPath;
 import static junit.framework.TestCase.assertEquals;
 import org.apache.commons.lang3.StringEscapeUtils;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.graph.NodeInterface;
+import org.structr.core.graph.Tx;
 import org.structr.rest.service.HttpServiceServlet;
+import org.structr.rest.entity.TestOne;
 import org.structr.rest.servlet.CsvServlet;
 
 /**
@@ -39,6 +46,24 @@ public class CsvTest extends StructrCsvTest {
 
 	private static final Logger logger = LoggerFactory.getLogger(CsvTest.class.getName());
 
+	@After
+	public void cleanDatabase() {
+
+		// the tests compare complete CSV output, so objects of other tests must be removed
+		try (final Tx tx = app.tx()) {
+
+			for (final NodeInterface node : app.nodeQuery(TestOne.class).getAsList()) {
+				app.delete(node);
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			logger.warn("", fex);
+		}
+	}
+
+	@Test
 	public void test01InitServlet() {
 
 		try {
@@ -58,6 +83,7 @@ public class CsvTest extends StructrCsvTest {
 	/**
 	 * Test CSV output
 	 */
+	@Test
 	public void test02CsvOutput() {
 
 		// create some objects
@@ -189,4 +215,123 @@ public class CsvTest extends StructrCsvTest {
 		assertEquals(expected, resultString);
 	}
 
+	/**
+	 * Test batched CSV import and streaming CSV output
+	 */
+	@Test
+	public void test03StreamingImportAndOutput() {
+
+		final StringBuilder input = new StringBuilder("name,anInt,aLong\n");
+
+		for (int i=0; i<25; i++) {
+			input.append("TestOne-").append(String.format("%02d", i)).append(",").append(i).append(",").append(i * 10).append("\n");
+		}
+
+		RestAssured
+
+			.given()
+				.contentType("text/csv; charset=UTF-8")
+				.body(input.toString())
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(422))
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(500))
+			.expect()
+				.statusCode(201)
+			.when()
+				.post("http://" + host + ":" + httpPort + csvUrl + "/test_one?batchSize=10");
+
+		final String resultString = RestAssured
+
+			.given()
+				.contentType("application/csv; charset=UTF-8")
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(500))
+			.expect()
+				.statusCode(200)
+			.when()
+				.get("http://" + host + ":" + httpPort + csvUrl + "/test_one?sort=name&stream=1")
+				.asString();
+
+		final String[] lines = resultString.split("\r\n");
+
+		assertEquals(26, lines.length);
+		assertEquals("\"id\";\"type\";\"name\";\"anInt\";\"aLong\";\"aDate\"", lines[0]);
+
+		for (int i=0; i<25; i++) {
+
+			final String line = lines[i + 1];
+
+			assertTrue(line.endsWith("\"TestOne\";\"TestOne-" + String.format("%02d", i) + "\";\"" + i + "\";\"" + (i * 10) + "\";\"\""));
+		}
+	}
+
+	/**
+	 * Test that batched and regular CSV import create the same objects
+	 */
+	@Test
+	public void test04StreamingImportMatchesRegularImport() {
+
+		createEntity("/SchemaNode", "{ name: CsvBase, __public: \"name, type, aNumber\", _aNumber: Integer }");
+		createEntity("/SchemaNode", "{ name: CsvSub, __public: \"name, type, aNumber\", extendsClass: 'org.structr.dynamic.CsvBase', _subNumber: Integer }");
+
+		RestAssured
+
+			.given()
+				.contentType("text/csv; charset=UTF-8")
+				.body(getSubtypeInput("Regular"))
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(422))
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(500))
+			.expect()
+				.statusCode(201)
+			.when()
+				.post("http://" + host + ":" + httpPort + csvUrl + "/csv_base");
+
+		RestAssured
+
+			.given()
+				.contentType("text/csv; charset=UTF-8")
+				.body(getSubtypeInput("Streaming"))
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(422))
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(500))
+			.expect()
+				.statusCode(201)
+			.when()
+				.post("http://" + host + ":" + httpPort + csvUrl + "/csv_base?batchSize=2");
+
+		final JsonPath result = RestAssured
+
+			.given()
+				.contentType("application/json; charset=UTF-8")
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(500))
+			.expect()
+				.statusCode(200)
+			.when()
+				.get("/csv_base?sort=name")
+				.jsonPath();
+
+		assertEquals(6, result.getInt("result_count"));
+
+		for (int i=0; i<3; i++) {
+
+			final String regular   = "result[" + i + "].";
+			final String streaming = "result[" + (i + 3) + "].";
+
+			assertEquals("Regular-" + i, result.getString(regular + "name"));
+			assertEquals("Streaming-" + i, result.getString(streaming + "name"));
+			assertEquals(result.getString(regular + "type"), result.getString(streaming + "type"));
+			assertEquals(result.getInt(regular + "aNumber"), result.getInt(streaming + "aNumber"));
+		}
+
+		assertEquals("CsvSub", result.getString("result[0].type"));
+		assertEquals("CsvBase", result.getString("result[1].type"));
+		assertEquals("CsvSub", result.getString("result[2].type"));
+		assertEquals(1, result.getInt("result[0].aNumber"));
+	}
+
+	// ----- private methods -----
+	private String getSubtypeInput(final String prefix) {
+
+		return "name,type,aNumber\n"
+			+ prefix + "-0,CsvSub,1\n"
+			+ prefix + "-1,CsvBase,2\n"
+			+ prefix + "-2,CsvSub,3\n";
+	}
 }
@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.logging;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import org.structr.common.error.FrameworkException;
+
+/**
+ *
+ *
+ */
+public class LogEventStoreTest {
+
+	private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+	private static final long BASE = 1460000000000L - (1460000000000L % HOUR);
+
+	private File directory = null;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("structr-events").toFile();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(directory);
+	}
+
+	@Test
+	public void testAppendAndScan() throws IOException, FrameworkException {
+
+		final LogEventStore store = new LogEventStore(directory);
+
+		// three hours with two events each
+		for (int i=0; i<3; i++) {
+
+			store.append(BASE + i * HOUR + 10, "subject1", "object1", "view", "message " + i);
+			store.append(BASE + i * HOUR + 20, "subject2", "object1", "click", "message " + i);
+		}
+
+		assertEquals("Invalid number of segments", 3, directory.listFiles((dir, name) -> name.endsWith(".events")).length);
+
+		assertEquals(6, scan(store, new LogEventQuery()).size());
+		assertEquals(3, scan(store, new LogEventQuery().subject("subject1")).size());
+		assertEquals(3, scan(store, new LogEventQuery().action("click")).size());
+		assertEquals(6, scan(store, new LogEventQuery().object("object1")).size());
+		assertEquals(0, scan(store, new LogEventQuery().subject("unknown")).size());
+		assertEquals(0, scan(store, new LogEventQuery().subject("subject1").action("click")).size());
+
+		// range over the last two hours
+		final List<LogEventRecord> range = scan(store, new LogEventQuery().subject("subject2").range(BASE + HOUR, BASE + 3 * HOUR));
+
+		assertEquals(2, range.size());
+		assertEquals(BASE + HOUR + 20, range.get(0).getTimestamp());
+		assertEquals("subject2", range.get(0).getSubjectId());
+		assertEquals("object1", range.get(0).getObjectId());
+		assertEquals("click", range.get(0).getAction());
+		assertEquals("message 1", range.get(0).getMessage());
+
+		assertEquals(BASE + 10, store.getFirstTimestamp(new LogEventQuery()));
+		assertEquals(BASE + 2 * HOUR + 20, store.getLastTimestamp(new LogEventQuery()));
+		assertEquals(Long.MAX_VALUE, store.getFirstTimestamp(new LogEventQuery().subject("unknown")));
+
+		final Map<String, Integer> actions = store.countActions();
+
+		assertEquals(Integer.valueOf(3), actions.get("view"));
+		assertEquals(Integer.valueOf(3), actions.get("click"));
+
+		store.shutdown();
+	}
+
+	@Test
+	public void testPersistenceAndRecovery() throws IOException, FrameworkException {
+
+		LogEventStore store = new LogEventStore(directory);
+
+		for (int i=0; i<100; i++) {
+			store.append(BASE + i * 1000, "subject" + (i % 10), "object", i % 2 == 0 ? "even" : "odd", null);
+		}
+
+		store.shutdown();
+
+		// simulate an unclean shutdown: missing index and incomplete event
+		final File segment = directory.listFiles((dir, name) -> name.endsWith(".events"))[0];
+
+		assertTrue(new File(directory, segment.getName() + ".idx").delete());
+
+		try (final FileOutputStream out = new FileOutputStream(segment, true)) {
+			out.write(new byte[] { 1, 2, 3 });
+		}
+
+		store = new LogEventStore(directory);
+
+		assertEquals(100, scan(store, new LogEventQuery()).size());
+		assertEquals(10, scan(store, new LogEventQuery().subject("subject3")).size());
+		assertEquals(50, scan(store, new LogEventQuery().action("even")).size());
+		assertEquals(BASE + 99000, store.getLastTimestamp(new LogEventQuery()));
+
+		// appending continues after the last complete event
+		store.append(BASE + 100000, "subject3", "object", "even", "last");
+
+		final List<LogEventRecord> events = scan(store, new LogEventQuery().subject("subject3"));
+
+		assertEquals(11, events.size());
+		assertEquals("last", events.get(10).getMessage());
+
+		store.shutdown();
+	}
+
+	// ----- private methods -----
+	private List<LogEventRecord> scan(final LogEventStore store, final LogEventQuery query) throws FrameworkException {
+
+		final List<LogEventRecord> result = new LinkedList<>();
+
+		store.scan(query, (final LogEventRecord event) -> {
+			result.add(event);
+		});
+
+		return result;
+	}
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.resource;
+
+import com.jayway.restassured.RestAssured;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.structr.common.AccessMode;
+import org.structr.common.SecurityContext;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.graph.NodeAttribute;
+import org.structr.core.graph.Tx;
+import org.structr.rest.common.StructrRestTest;
+import org.structr.rest.entity.TestUser;
+import org.structr.rest.logging.LogEventStore;
+import org.structr.rest.logging.entity.LogEvent;
+import org.structr.rest.maintenance.MigrateLogEventsCommand;
+
+/**
+ *
+ *
+ */
+public class LogResourceTest extends StructrRestTest {
+
+	@Test
+	public void testLogEvents() {
+
+		for (int i=0; i<10; i++) {
+
+			RestAssured
+				.given()
+					.contentType("application/json; charset=UTF-8")
+					.body("{ \"subject\": \"subject" + (i % 2) + "\", \"object\": \"object1\", \"action\": \"" + (i < 6 ? "view" : "click") + "\", \"message\": \"item " + i + "\" }")
+				.expect()
+					.statusCode(201)
+				.when()
+					.post("/log");
+		}
+
+		// overview
+		RestAssured
+			.given()
+				.contentType("application/json; charset=UTF-8")
+			.expect()
+				.statusCode(200)
+				.body("result[0].entryCount", equalTo(10))
+			.when()
+				.get("/log");
+
+		// events of a subject
+		RestAssured
+			.given()
+				.contentType("application/json; charset=UTF-8")
+				.param("subject", "subject0")
+			.expect()
+				.statusCode(200)
+				.body("result_count",         equalTo(5))
+				.body("result[0].subject",    equalTo("subject0"))
+				.body("result[0].message",    equalTo("item 0"))
+			.when()
+				.get("/log");
+
+		// events of an object, subject and object are swapped
+		RestAssured
+			.given()
+				.contentType("application/json; charset=UTF-8")
+				.param("object", "object1")
+				.param("action", "click")
+			.expect()
+				.statusCode(200)
+				.body("result_count",         equalTo(4))
+				.body("result[0].subject",    equalTo("object1"))
+			.when()
+				.get("/log");
+
+		// aggregation of all events into a single bucket
+		RestAssured
+			.given()
+				.contentType("application/json; charset=UTF-8")
+				.param("action", "view")
+				.param("aggregate", "yyyy")
+				.param("odd", "item [135]")
+			.expect()
+				.statusCode(200)
+				.body("result[0].values()[0].total", equalTo(6))
+				.body("result[0].values()[0].odd",   equalTo(3))
+			.when()
+				.get("/log");
+	}
+
+	@Test
+	public void testMigrateLogEventNodes() {
+
+		final long timestamp = 1451606400000L;
+
+		try (final Tx tx = app.tx()) {
+
+			for (int i=0; i<3; i++) {
+
+				app.create(LogEvent.class,
+					new NodeAttribute<>(LogEvent.subjectProperty,   "legacy"),
+					new NodeAttribute<>(LogEvent.objectProperty,    "object1"),
+					new NodeAttribute<>(LogEvent.actionProperty,    "view"),
+					new NodeAttribute<>(LogEvent.messageProperty,   "legacy " + i),
+					new NodeAttribute<>(LogEvent.timestampProperty, new Date(timestamp + i))
+				);
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try {
+
+			// an earlier run appended the first event, but its transaction was rolled back
+			LogEventStore.getInstance().append(timestamp, "legacy", "object1", "view", "legacy 0");
+
+			app.command(MigrateLogEventsCommand.class).execute(new LinkedHashMap<>());
+
+			// nothing left to do
+			app.command(MigrateLogEventsCommand.class).execute(new LinkedHashMap<>());
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// the nodes are removed from the graph..
+		try (final Tx tx = app.tx()) {
+
+			assertEquals(0, app.nodeQuery(LogEvent.class).getAsList().size());
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// ..and can be queried from the log event store, without duplicates
+		RestAssured
+			.given()
+				.contentType("application/json; charset=UTF-8")
+				.param("subject", "legacy")
+			.expect()
+				.statusCode(200)
+				.body("result_count",      equalTo(3))
+				.body("result[0].message", equalTo("legacy 0"))
+				.body("result[2].message", equalTo("legacy 2"))
+			.when()
+				.get("/log");
+	}
+
+	@Test
+	public void testLogEventsRestrictedToAdmins() {
+
+		SecurityContext userContext = null;
+
+		try (final Tx tx = app.tx()) {
+
+			userContext = SecurityContext.getInstance(app.create(TestUser.class, "tester"), AccessMode.Backend);
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			final LogResource resource = new LogResource();
+
+			resource.checkAndConfigure(LogResource.LOG_RESOURCE_URI, userContext, null);
+			resource.doGet(null, false, 10, 1, null);
+
+			fail("Non-admin users must not be able to read log events.");
+
+		} catch (FrameworkException fex) {
+
+			assertEquals(403, fex.getStatus());
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.session;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ */
+public class SessionStoreTest {
+
+	private File directory = null;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("structr-sessions").toFile();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(directory);
+	}
+
+	@Test
+	public void testMemorySessionStore() throws IOException {
+
+		final SessionStore store = new MemorySessionStore();
+
+		store.open(directory);
+		testStore(store);
+		store.close();
+	}
+
+	@Test
+	public void testFileSessionStore() throws IOException {
+
+		final SessionStore store = new FileSessionStore();
+
+		store.open(directory);
+		testStore(store);
+		store.close();
+	}
+
+	@Test
+	public void testFileSessionStorePersistence() throws IOException {
+
+		final long now       = System.currentTimeMillis();
+		final String large   = StringUtils.repeat("x", 4096);
+		SessionStore store   = new FileSessionStore();
+
+		store.open(directory);
+
+		// more sessions than the initial capacity of the file
+		for (int i=0; i<3000; i++) {
+
+			final SessionData data = new SessionData("session" + i, now, now, 3600000L);
+			data.getAttributes().put("index", i);
+
+			store.put(data);
+		}
+
+		final SessionData data = new SessionData("large", now, now, -1L);
+
+		data.getAttributes().put("large", large);
+		data.getAttributes().put("unserializable", new Object());
+
+		store.put(data);
+		store.put(new SessionData("expired", now - 7200000L, now - 7200000L, 3600000L));
+		store.remove("session0");
+		store.close();
+
+		// all sessions survive the restart, expired sessions are removed
+		store = new FileSessionStore();
+		store.open(directory);
+
+		assertEquals(3000, store.size());
+		assertNull(store.get("session0"));
+		assertNull(store.get("expired"));
+		assertEquals(2999, store.get("session2999").getAttributes().get("index"));
+
+		final SessionData restored = store.get("large");
+
+		assertNotNull(restored);
+		assertEquals(large, restored.getAttributes().get("large"));
+		assertFalse(restored.getAttributes().containsKey("unserializable"));
+		assertEquals(Long.MAX_VALUE, restored.getExpiry());
+
+		store.remove("large");
+		store.close();
+
+		assertFalse(new File(directory, "large.attributes").exists());
+	}
+
+	// ----- private methods -----
+	private void testStore(final SessionStore store) {
+
+		final long now = System.currentTimeMillis();
+
+		store.put(new SessionData("a", now, now, 1000L));
+		store.put(new SessionData("b", now, now, 2000L));
+		store.put(new SessionData("c", now, now, 3000L));
+		store.put(new SessionData("d", now, now, -1L));
+
+		final SessionData data = new SessionData("e", now, now, 500L);
+		data.getAttributes().put("key", "value");
+		store.put(data);
+
+		assertEquals(5, store.size());
+		assertTrue(store.contains("a"));
+		assertEquals("value", store.get("e").getAttributes().get("key"));
+		assertEquals(now, store.get("a").getCreated());
+		assertEquals(1000L, store.get("a").getMaxInactiveMs());
+
+		// touching a session moves it to the end of the expiry index
+		store.touch("a", now + 5000L);
+		assertEquals(now + 5000L, store.get("a").getAccessed());
+
+		assertTrue(store.expire(now).isEmpty());
+
+		final List<String> expired = store.expire(now + 2500L);
+
+		assertEquals(Arrays.asList("e", "b"), expired);
+		assertFalse(store.contains("b"));
+		assertFalse(store.contains("e"));
+		assertEquals(3, store.size());
+
+		// sessions without timeout never expire
+		assertEquals(Arrays.asList("c", "a"), store.expire(Long.MAX_VALUE));
+		assertTrue(store.contains("d"));
+
+		assertTrue(store.remove("d"));
+		assertFalse(store.remove("d"));
+		assertEquals(0, store.size());
+	}
+}
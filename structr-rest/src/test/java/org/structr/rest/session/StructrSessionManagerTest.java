@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.session;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ */
+public class StructrSessionManagerTest {
+
+	private StructrSessionManager manager = null;
+	private SessionStore store            = null;
+	private File directory                = null;
+
+	@Before
+	public void setUp() throws IOException {
+
+		directory = Files.createTempDirectory("structr-sessions").toFile();
+		store     = new MemorySessionStore();
+		manager   = new StructrSessionManager(store, directory);
+
+		manager.setSessionIdManager(new StructrSessionIdManager());
+		store.open(directory);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+
+		store.close();
+		FileUtils.deleteDirectory(directory);
+	}
+
+	@Test
+	public void testConcurrentRequestsShareSession() {
+
+		final long now = System.currentTimeMillis();
+
+		store.put(new SessionData("session1", now, now, 60000L));
+
+		final StructrSession session1 = (StructrSession)manager.getSession("session1");
+		final StructrSession session2 = (StructrSession)manager.getSession("session1");
+
+		assertNotNull(session1);
+		assertSame("Concurrent requests must use the same session instance", session1, session2);
+
+		assertTrue(session1.access(now));
+		assertTrue(session2.access(now));
+
+		session1.setAttribute("first", "1");
+		session2.setAttribute("second", "2");
+
+		session1.complete();
+		session2.complete();
+
+		final SessionData data = store.get("session1");
+
+		assertNotNull(data);
+		assertEquals("1", data.getAttributes().get("first"));
+		assertEquals("2", data.getAttributes().get("second"));
+	}
+
+	@Test
+	public void testRemovedSessionIsNotWrittenBack() {
+
+		final long now = System.currentTimeMillis();
+
+		store.put(new SessionData("session2", now, now, 60000L));
+
+		final StructrSession session = (StructrSession)manager.getSession("session2");
+
+		assertTrue(session.access(now));
+
+		session.setAttribute("key", "value");
+
+		// the session is removed while the request is still running
+		manager.removeSession(session, false);
+
+		session.complete();
+
+		assertFalse(store.contains("session2"));
+		assertFalse(manager.containsSession("session2"));
+	}
+
+	@Test
+	public void testLookedUpSessionIsNotReleased() throws InterruptedException {
+
+		final long now = System.currentTimeMillis();
+
+		store.put(new SessionData("session3", now, now, 60000L));
+
+		// the first request looks up the session, the scavenger runs before it accesses the session
+		final StructrSession session1 = (StructrSession)manager.getSession("session3");
+
+		manager.scavenge();
+
+		final StructrSession session2 = (StructrSession)manager.getSession("session3");
+
+		assertSame("Session that was looked up must not be released", session1, session2);
+
+		// the second request completes before the first one has accessed the session
+		assertTrue(session2.access(now));
+		session2.complete();
+
+		assertSame("Session that was looked up must not be released", session1, manager.getSession("session3"));
+
+		assertTrue(session1.access(now));
+		session1.setAttribute("key", "value");
+		session1.complete();
+
+		// the lookup from above was never followed by a request, it is released after one scavenge period
+		manager.setScavengePeriod(0);
+		Thread.sleep(10);
+		manager.scavenge();
+
+		final StructrSession session3 = (StructrSession)manager.getSession("session3");
+
+		assertNotSame(session1, session3);
+		assertEquals("value", session3.getAttribute("key"));
+
+		// sessions without pending lookups are released when the request completes
+		assertTrue(session3.access(now));
+		session3.complete();
+
+		assertNotSame(session3, manager.getSession("session3"));
+	}
+}
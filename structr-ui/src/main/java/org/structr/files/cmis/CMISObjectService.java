@@ -66,6 +66,7 @@ import org.structr.dynamic.File;
 import org.structr.files.cmis.wrapper.CMISContentStream;
 import org.structr.files.cmis.wrapper.CMISPagingListWrapper;
 import org.structr.web.common.FileHelper;
+import org.structr.web.common.FilePathCache;
 import org.structr.web.entity.AbstractFile;
 import org.structr.web.entity.FileBase;
 import org.structr.web.entity.Folder;
@@ -341,7 +342,7 @@ public class CMISObjectService extends AbstractStructrCmisService implements Obj
 
 		try (final Tx tx = app.tx()) {
 
-			final AbstractFile file = app.nodeQuery(AbstractFile.class).and(AbstractFile.path, path).getFirst();
+			final AbstractFile file = FilePathCache.getInstance().getFileByPath(SecurityContext.getSuperUserInstance(), path);
 			if (file != null) {
 
 				result = CMISObjectWrapper.wrap(file, propertyFilter, includeAllowableActions);
@@ -0,0 +1,337 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.structr.common.PathHelper;
+import org.structr.common.SecurityContext;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.GraphObject;
+import org.structr.core.StructrCacheListener;
+import org.structr.core.TransactionSource;
+import org.structr.core.app.App;
+import org.structr.core.app.StructrApp;
+import org.structr.core.entity.Principal;
+import org.structr.core.entity.SuperUser;
+import org.structr.core.graph.ModificationEvent;
+import org.structr.core.graph.NodeInterface;
+import org.structr.core.graph.TransactionCommand;
+import org.structr.core.property.PropertyKey;
+import org.structr.web.entity.AbstractFile;
+import org.structr.web.entity.FileBase;
+import org.structr.web.entity.Linkable;
+import org.structr.web.entity.dom.Page;
+
+/**
+ * In-memory index of all pages and files with HTTP Basic Authentication
+ * enabled, and a short-lived cache for successfully authenticated
+ * Authorization headers.
+ *
+ * Requests for resources that are not protected are answered from the
+ * index without touching the database. The index is rebuilt on the next
+ * lookup after a transaction that created, modified or deleted a protected
+ * resource (or enabled Basic Auth for one), including deployment imports
+ * and other transactions without notifications. Cached credentials are keyed
+ * by a SHA-256 hash of the header and dropped when the principal changes.
+ *
+ *
+ */
+public class BasicAuthIndex implements StructrCacheListener {
+
+	private static final long CREDENTIALS_TTL                  = TimeUnit.SECONDS.toMillis(30);
+	private static final int MAX_CREDENTIALS                   = 1000;
+	private static BasicAuthIndex instance                     = null;
+
+	private final Map<String, CachedPrincipal> credentials      = new ConcurrentHashMap<>();
+	private final AtomicLong generation                        = new AtomicLong();
+	private volatile Index index                               = null;
+
+	private BasicAuthIndex() {
+
+		TransactionCommand.registerTransactionListener(this);
+	}
+
+	public static synchronized BasicAuthIndex getInstance() {
+
+		if (instance == null) {
+			instance = new BasicAuthIndex();
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Returns the protected page or file for the given path, using the
+	 * same lookup order as page resolution: page by path, page by name,
+	 * file by path and file by name. The result is loaded as superuser.
+	 *
+	 * @param path
+	 * @return the protected resource or null
+	 * @throws FrameworkException
+	 */
+	public Linkable getProtectedResource(final String path) throws FrameworkException {
+
+		final Index current = getIndex();
+		if (current.isEmpty()) {
+
+			// the common case: no Basic Auth at all
+			return null;
+		}
+
+		final App app     = StructrApp.getInstance();
+		final String name = PathHelper.getName(path);
+
+		Linkable resource = getFirst(app, current.pagesByPath.get(path));
+		if (resource == null) {
+
+			resource = getFirst(app, current.pagesByName.get(name));
+		}
+
+		if (resource == null && !current.fileIds.isEmpty()) {
+
+			final AbstractFile file = FilePathCache.getInstance().getFileByPath(SecurityContext.getSuperUserInstance(), path);
+			if (file != null && current.fileIds.contains(file.getUuid())) {
+
+				resource = (Linkable)file;
+			}
+		}
+
+		if (resource == null) {
+
+			resource = getFirst(app, current.filesByName.get(name));
+		}
+
+		return resource;
+	}
+
+	/**
+	 * Returns the principal for a previously successful authentication
+	 * with the given Authorization header, or null.
+	 *
+	 * @param authHeader
+	 * @return principal or null
+	 * @throws FrameworkException
+	 */
+	public Principal getCachedPrincipal(final String authHeader) throws FrameworkException {
+
+		final String key              = hash(authHeader);
+		final CachedPrincipal cached  = credentials.get(key);
+
+		if (cached != null) {
+
+			if (cached.expires > System.currentTimeMillis()) {
+
+				return StructrApp.getInstance().get(Principal.class, cached.principalId);
+			}
+
+			credentials.remove(key);
+		}
+
+		return null;
+	}
+
+	public void cachePrincipal(final String authHeader, final Principal principal) {
+
+		// superuser has no node in the database
+		if (principal == null || principal instanceof SuperUser) {
+			return;
+		}
+
+		if (credentials.size() >= MAX_CREDENTIALS) {
+
+			final long now = System.currentTimeMillis();
+
+			credentials.values().removeIf(cached -> cached.expires <= now);
+
+			if (credentials.size() >= MAX_CREDENTIALS) {
+				credentials.clear();
+			}
+		}
+
+		credentials.put(hash(authHeader), new CachedPrincipal(principal.getUuid(), System.currentTimeMillis() + CREDENTIALS_TTL));
+	}
+
+	public void clear() {
+
+		generation.incrementAndGet();
+		credentials.clear();
+		index = null;
+	}
+
+	// ----- interface StructrTransactionListener -----
+	@Override
+	public void beforeCommit(final SecurityContext securityContext, final Collection<ModificationEvent> modificationEvents, final TransactionSource source) throws FrameworkException {
+	}
+
+	@Override
+	public void afterCommit(final SecurityContext securityContext, final Collection<ModificationEvent> modificationEvents, final TransactionSource source) {
+
+		for (final ModificationEvent event : modificationEvents) {
+
+			if (event.isNode()) {
+
+				final GraphObject obj = event.getGraphObject();
+				final String uuid     = event.getUuid();
+
+				if (obj instanceof Page || obj instanceof FileBase) {
+
+					final Index current = index;
+
+					if (hasChanged(event, Linkable.enableBasicAuth) || (current != null && current.contains(uuid))) {
+
+						generation.incrementAndGet();
+						index = null;
+					}
+
+				} else if (obj instanceof Principal) {
+
+					credentials.values().removeIf(cached -> uuid.equals(cached.principalId));
+				}
+			}
+		}
+	}
+
+	// ----- private methods -----
+	private Index getIndex() throws FrameworkException {
+
+		Index current = index;
+
+		if (current == null) {
+
+			final long currentGeneration = generation.get();
+			final App app                = StructrApp.getInstance();
+
+			current = new Index(
+				app.nodeQuery(Page.class).and(Page.enableBasicAuth, true).getAsList(),
+				app.nodeQuery(FileBase.class).and(FileBase.enableBasicAuth, true).getAsList()
+			);
+
+			if (currentGeneration == generation.get()) {
+				index = current;
+			}
+		}
+
+		return current;
+	}
+
+	private Linkable getFirst(final App app, final List<String> ids) throws FrameworkException {
+
+		if (ids != null) {
+
+			for (final String id : ids) {
+
+				final Linkable linkable = app.get(Linkable.class, id);
+				if (linkable != null && linkable.getProperty(Linkable.enableBasicAuth)) {
+
+					return linkable;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	private boolean hasChanged(final ModificationEvent event, final PropertyKey key) {
+		return event.getModifiedProperties().containsKey(key) || event.getRemovedProperties().containsKey(key);
+	}
+
+	private String hash(final String value) {
+		return DigestUtils.sha256Hex(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// ----- nested classes -----
+	private static class CachedPrincipal {
+
+		private String principalId = null;
+		private long expires       = 0L;
+
+		public CachedPrincipal(final String principalId, final long expires) {
+
+			this.principalId = principalId;
+			this.expires     = expires;
+		}
+	}
+
+	private static class Index {
+
+		private final Map<String, List<String>> pagesByPath = new HashMap<>();
+		private final Map<String, List<String>> pagesByName = new HashMap<>();
+		private final Map<String, List<String>> filesByName = new HashMap<>();
+		private final Set<String> pageIds                   = new HashSet<>();
+		private final Set<String> fileIds                   = new HashSet<>();
+
+		public Index(final List<Page> pages, final List<FileBase> files) {
+
+			final List<Page> sortedPages = new ArrayList<>(pages);
+
+			Collections.sort(sortedPages, Comparator.comparing((Page p) -> p.getProperty(Page.position), Comparator.nullsLast(Comparator.naturalOrder())));
+
+			for (final Page page : sortedPages) {
+
+				add(pagesByPath, page.getPath(), page);
+				add(pagesByName, page.getName(), page);
+
+				pageIds.add(page.getUuid());
+			}
+
+			for (final FileBase file : files) {
+
+				add(filesByName, file.getName(), file);
+
+				fileIds.add(file.getUuid());
+			}
+		}
+
+		public boolean isEmpty() {
+			return pageIds.isEmpty() && fileIds.isEmpty();
+		}
+
+		public boolean contains(final String uuid) {
+			return pageIds.contains(uuid) || fileIds.contains(uuid);
+		}
+
+		private void add(final Map<String, List<String>> map, final String key, final NodeInterface node) {
+
+			if (key != null) {
+
+				List<String> list = map.get(key);
+				if (list == null) {
+
+					list = new ArrayList<>(1);
+					map.put(key, list);
+				}
+
+				list.add(node.getUuid());
+			}
+		}
+	}
+}
@@ -0,0 +1,342 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.core.Services;
+import org.structr.core.app.StructrApp;
+import org.structr.rest.service.HttpService;
+import org.structr.web.entity.FileBase;
+
+/**
+ * Stores precompressed variants of file contents next to the binary.
+ *
+ * Variants are named after the file on disk, the checksum of the content
+ * they were created from and the content encoding, so a content change
+ * automatically invalidates all existing variants. Variants are created
+ * with the best compression level on the first request after a change,
+ * outdated variants are removed when the content of a file changes or
+ * when the file is deleted.
+ *
+ *
+ */
+public class CompressedFileCache {
+
+	private static final Logger logger                = LoggerFactory.getLogger(CompressedFileCache.class.getName());
+	private static final String[] COMPRESSIBLE_TYPES  = { "text/", "application/javascript", "application/x-javascript", "application/json", "application/xml", "image/svg+xml" };
+	private static final Pattern VARIANT_PATTERN      = Pattern.compile("(.+)\\.[0-9]+\\.(gz|deflate)");
+	private static CompressedFileCache instance       = null;
+
+	private boolean enabled                           = true;
+	private long minSize                              = 1024L;
+
+	public enum Encoding {
+
+		gzip(".gz"), deflate(".deflate");
+
+		private String suffix = null;
+
+		Encoding(final String suffix) {
+			this.suffix = suffix;
+		}
+
+		public String getSuffix() {
+			return suffix;
+		}
+	}
+
+	private CompressedFileCache() {
+
+		this.enabled = Services.parseBoolean(StructrApp.getConfigurationValue(HttpService.APPLICATION_COMPRESSION), true);
+		this.minSize = Services.parseInt(StructrApp.getConfigurationValue(HttpService.APPLICATION_COMPRESSION_MIN), 1024);
+	}
+
+	public static synchronized CompressedFileCache getInstance() {
+
+		if (instance == null) {
+			instance = new CompressedFileCache();
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Indicates whether the content of the given file is worth being
+	 * compressed, based on its content type and size.
+	 *
+	 * @param file
+	 * @return whether the file is compressible
+	 */
+	public boolean isCompressible(final FileBase file) {
+
+		final String contentType = file.getContentType();
+		final Long size          = file.getSize();
+
+		if (!enabled || contentType == null || size == null || size < minSize) {
+			return false;
+		}
+
+		for (final String type : COMPRESSIBLE_TYPES) {
+
+			if (StringUtils.startsWithIgnoreCase(contentType, type)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns the preferred encoding from the given Accept-Encoding header,
+	 * or null if the client does not accept any of the supported encodings.
+	 *
+	 * @param acceptEncoding
+	 * @return the encoding or null
+	 */
+	public static Encoding negotiate(final String acceptEncoding) {
+
+		if (StringUtils.isBlank(acceptEncoding)) {
+			return null;
+		}
+
+		boolean gzip    = false;
+		boolean deflate = false;
+
+		for (final String part : acceptEncoding.split(",")) {
+
+			final String[] params = part.trim().split(";");
+			final String coding   = params[0].trim().toLowerCase();
+			double quality        = 1.0;
+
+			for (int i=1; i<params.length; i++) {
+
+				final String param = params[i].trim();
+				if (param.startsWith("q=")) {
+
+					try {
+						quality = Double.parseDouble(param.substring(2));
+
+					} catch (NumberFormatException nex) {
+						quality = 0.0;
+					}
+				}
+			}
+
+			if (quality > 0.0) {
+
+				switch (coding) {
+
+					case "gzip":
+					case "x-gzip":
+						gzip = true;
+						break;
+
+					case "deflate":
+						deflate = true;
+						break;
+
+					case "*":
+						gzip = true;
+						break;
+				}
+			}
+		}
+
+		if (gzip) {
+			return Encoding.gzip;
+		}
+
+		if (deflate) {
+			return Encoding.deflate;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the variant of the given file in the given encoding, creating
+	 * it if it does not exist yet. Returns null if the file has no content
+	 * on disk or the variant could not be created.
+	 *
+	 * @param file
+	 * @param encoding
+	 * @return the compressed variant or null
+	 */
+	public File getVariant(final FileBase file, final Encoding encoding) {
+
+		final File source    = file.getFileOnDisk();
+		final Long checksum  = file.getChecksum();
+
+		if (source == null || checksum == null || !source.isFile()) {
+			return null;
+		}
+
+		final File variant = new File(source.getPath() + "." + checksum + encoding.getSuffix());
+		if (variant.isFile()) {
+
+			return variant;
+		}
+
+		final File tmp = new File(variant.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+
+		try {
+
+			try (final InputStream in = new FileInputStream(source); final OutputStream out = createStream(new FileOutputStream(tmp), encoding)) {
+
+				IOUtils.copyLarge(in, out);
+			}
+
+			// do not keep variants that are not smaller than the original
+			if (tmp.length() >= source.length()) {
+
+				Files.deleteIfExists(tmp.toPath());
+				return null;
+			}
+
+			try {
+				Files.move(tmp.toPath(), variant.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+			} catch (AtomicMoveNotSupportedException amnex) {
+				Files.move(tmp.toPath(), variant.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			removeVariants(source, encoding, variant);
+
+			return variant;
+
+		} catch (IOException ioex) {
+
+			logger.warn("Unable to create {} variant of {}: {}", new Object[] { encoding, source, ioex.getMessage() });
+
+			tmp.delete();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Creates all compressed variants of the given file if it is
+	 * compressible.
+	 *
+	 * @param file
+	 */
+	public void precompress(final FileBase file) {
+
+		if (isCompressible(file)) {
+
+			for (final Encoding encoding : Encoding.values()) {
+
+				getVariant(file, encoding);
+			}
+		}
+	}
+
+	/**
+	 * Removes all compressed variants of the given file.
+	 *
+	 * @param file
+	 */
+	public void invalidate(final FileBase file) {
+
+		final File source = file.getFileOnDisk();
+		if (source != null) {
+
+			for (final Encoding encoding : Encoding.values()) {
+
+				removeVariants(source, encoding, null);
+			}
+		}
+	}
+
+	/**
+	 * Returns the path of the file the given path is a compressed variant
+	 * of, or null if the given path does not denote a compressed variant.
+	 *
+	 * @param path
+	 * @return the path of the source file or null
+	 */
+	public static String getSourcePath(final String path) {
+
+		if (path != null) {
+
+			final Matcher matcher = VARIANT_PATTERN.matcher(path);
+			if (matcher.matches()) {
+
+				return matcher.group(1);
+			}
+		}
+
+		return null;
+	}
+
+	// ----- private methods -----
+	private OutputStream createStream(final OutputStream out, final Encoding encoding) throws IOException {
+
+		switch (encoding) {
+
+			case deflate:
+				return new DeflaterOutputStream(out, new Deflater(Deflater.BEST_COMPRESSION), 8192);
+
+			default:
+				return new GZIPOutputStream(out, 8192) {
+
+					{
+						def.setLevel(Deflater.BEST_COMPRESSION);
+					}
+				};
+		}
+	}
+
+	private void removeVariants(final File source, final Encoding encoding, final File keep) {
+
+		final File parent = source.getParentFile();
+		final String name = source.getName() + ".";
+
+		if (parent != null) {
+
+			final File[] variants = parent.listFiles((dir, fileName) -> fileName.startsWith(name) && fileName.endsWith(encoding.getSuffix()));
+			if (variants != null) {
+
+				for (final File variant : variants) {
+
+					if (!variant.equals(keep)) {
+						variant.delete();
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.Adapter;
+import org.structr.core.app.StructrApp;
+
+/**
+ * Memory-bounded LRU cache for markup conversions.
+ *
+ * Caches the HTML output of the content converters (Markdown, Textile,
+ * AsciiDoc etc.) keyed by content type and a SHA-256 hash of the source
+ * after all template expressions have been replaced. The size of the
+ * cache is limited by the approximate memory of the cached strings, the
+ * least recently used entries are evicted first.
+ *
+ *
+ */
+public class ContentConversionCache {
+
+	public static final String CACHE_SIZE_KEY          = "Content.conversionCacheSizeMB";
+
+	private static final int ENTRY_OVERHEAD            = 128;
+	private static ContentConversionCache instance     = null;
+
+	private final LinkedHashMap<String, String> cache  = new LinkedHashMap<>(256, 0.75f, true);
+	private long maxSize                               = 0L;
+	private long size                                  = 0L;
+
+	private ContentConversionCache() {
+
+		this.maxSize = NumberUtils.toLong(StructrApp.getConfigurationValue(CACHE_SIZE_KEY, "32"), 32L) * 1024L * 1024L;
+	}
+
+	public static synchronized ContentConversionCache getInstance() {
+
+		if (instance == null) {
+			instance = new ContentConversionCache();
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Returns the converted source, either from the cache or from the
+	 * given converter.
+	 *
+	 * @param contentType
+	 * @param source
+	 * @param converter
+	 * @return the converted source
+	 * @throws FrameworkException
+	 */
+	public String convert(final String contentType, final String source, final Adapter<String, String> converter) throws FrameworkException {
+
+		if (source == null || maxSize <= 0) {
+			return converter.adapt(source);
+		}
+
+		final String key = contentType.concat(":").concat(DigestUtils.sha256Hex(source.getBytes(StandardCharsets.UTF_8)));
+		String result    = null;
+
+		synchronized (cache) {
+			result = cache.get(key);
+		}
+
+		if (result == null) {
+
+			// conversion happens outside of the lock
+			result = converter.adapt(source);
+
+			if (result != null) {
+				put(key, result);
+			}
+		}
+
+		return result;
+	}
+
+	public void clear() {
+
+		synchronized (cache) {
+
+			cache.clear();
+			size = 0L;
+		}
+	}
+
+	public long getSize() {
+
+		synchronized (cache) {
+			return size;
+		}
+	}
+
+	// ----- private methods -----
+	private void put(final String key, final String value) {
+
+		final long weight = weight(key, value);
+
+		// don't let a single huge document evict everything else
+		if (weight > maxSize / 4) {
+			return;
+		}
+
+		synchronized (cache) {
+
+			final String previous = cache.put(key, value);
+			if (previous != null) {
+
+				size -= weight(key, previous);
+			}
+
+			size += weight;
+
+			final Iterator<Map.Entry<String, String>> iterator = cache.entrySet().iterator();
+			while (size > maxSize && iterator.hasNext()) {
+
+				final Map.Entry<String, String> eldest = iterator.next();
+
+				size -= weight(eldest.getKey(), eldest.getValue());
+				iterator.remove();
+			}
+		}
+	}
+
+	private long weight(final String key, final String value) {
+		return ENTRY_OVERHEAD + 2L * (key.length() + value.length());
+	}
+}
@@ -211,6 +211,7 @@ public class FileHelper {
 	 */
 	public static void setFileData(final FileBase file, final byte[] fileData, final String contentType) throws FrameworkException, IOException {
 
+		CompressedFileCache.getInstance().invalidate(file);
 		FileHelper.writeToFile(file, fileData);
 
 		final PropertyMap map = new PropertyMap();
@@ -505,7 +506,7 @@ public class FileHelper {
 
 		try {
 
-			return StructrApp.getInstance(securityContext).nodeQuery(AbstractFile.class).and(AbstractFile.path, absolutePath).getFirst();
+			return FilePathCache.getInstance().getFileByPath(securityContext, absolutePath);
 
 		} catch (FrameworkException ex) {
 			logger.warn("File not found: {}", new Object[] { absolutePath });
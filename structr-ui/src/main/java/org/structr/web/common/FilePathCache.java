@@ -0,0 +1,310 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang3.StringUtils;
+import org.structr.common.SecurityContext;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.GraphObject;
+import org.structr.core.StructrCacheListener;
+import org.structr.core.TransactionSource;
+import org.structr.core.app.App;
+import org.structr.core.app.StructrApp;
+import org.structr.core.entity.relationship.AbstractChildren;
+import org.structr.core.graph.ModificationEvent;
+import org.structr.core.graph.TransactionCommand;
+import org.structr.core.property.PropertyKey;
+import org.structr.web.entity.AbstractFile;
+
+/**
+ * Shared path cache for the virtual file system.
+ *
+ * Maps absolute paths to the ids of files and folders in a concurrent
+ * trie and caches the ids of all top-level entries, so that FTP, SSH,
+ * CMIS and the HtmlServlet don't need to query the database for every
+ * path they resolve. Cached ids are always resolved in the security
+ * context of the caller. Entries are invalidated from the modification
+ * events of each committed transaction (including deployment imports and
+ * other transactions without notifications), renaming, moving or deleting a
+ * folder drops the whole subtree below it.
+ *
+ *
+ */
+public class FilePathCache implements StructrCacheListener {
+
+	private static final int MAX_ENTRIES              = 100000;
+	private static FilePathCache instance             = null;
+
+	private final Map<String, String> pathsById       = new ConcurrentHashMap<>();
+	private final AtomicLong generation               = new AtomicLong();
+	private final TrieNode root                       = new TrieNode();
+	private volatile List<String> rootIds             = null;
+
+	private FilePathCache() {
+
+		TransactionCommand.registerTransactionListener(this);
+	}
+
+	public static synchronized FilePathCache getInstance() {
+
+		if (instance == null) {
+			instance = new FilePathCache();
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Returns the file or folder with the given absolute path, or null if
+	 * there is no such file or it is not visible in the given security
+	 * context.
+	 *
+	 * @param securityContext
+	 * @param path
+	 * @return the file or folder
+	 * @throws FrameworkException
+	 */
+	public AbstractFile getFileByPath(final SecurityContext securityContext, final String path) throws FrameworkException {
+
+		final App app = StructrApp.getInstance(securityContext);
+
+		// only absolute paths can be cached
+		if (path == null || !path.startsWith("/")) {
+			return app.nodeQuery(AbstractFile.class).and(AbstractFile.path, path).getFirst();
+		}
+
+		final String id = lookup(path);
+		if (id != null) {
+
+			// verify the cached entry, it could stem from a transaction that was rolled back
+			final AbstractFile file = app.get(AbstractFile.class, id);
+			if (file != null && path.equals(file.getProperty(AbstractFile.path))) {
+
+				if (isHiddenOrDeleted(file)) {
+
+					invalidate(id);
+					return null;
+				}
+
+				return file;
+			}
+		}
+
+		final long current      = generation.get();
+		final AbstractFile file = app.nodeQuery(AbstractFile.class).and(AbstractFile.path, path).getFirst();
+
+		if (file == null || isHiddenOrDeleted(file)) {
+			return null;
+		}
+
+		if (current == generation.get()) {
+			put(path, file.getUuid());
+		}
+
+		return file;
+	}
+
+	/**
+	 * Returns all top-level entries of the given type that are visible in
+	 * the given security context.
+	 *
+	 * @param <T>
+	 * @param securityContext
+	 * @param type
+	 * @return the top-level files and/or folders
+	 * @throws FrameworkException
+	 */
+	public <T extends AbstractFile> List<T> getRootEntries(final SecurityContext securityContext, final Class<T> type) throws FrameworkException {
+
+		final App app      = StructrApp.getInstance(securityContext);
+		final List<T> list = new LinkedList<>();
+		List<String> ids   = rootIds;
+
+		if (ids == null) {
+
+			final long current = generation.get();
+
+			ids = new LinkedList<>();
+
+			for (final AbstractFile file : StructrApp.getInstance().nodeQuery(AbstractFile.class).and(AbstractFile.hasParent, false).getAsList()) {
+				ids.add(file.getUuid());
+			}
+
+			if (current == generation.get()) {
+				rootIds = ids;
+			}
+		}
+
+		for (final String id : ids) {
+
+			final AbstractFile file = app.get(AbstractFile.class, id);
+			if (type.isInstance(file) && !isHiddenOrDeleted(file)) {
+
+				list.add(type.cast(file));
+			}
+		}
+
+		return list;
+	}
+
+	public void clear() {
+
+		generation.incrementAndGet();
+
+		root.children.clear();
+		pathsById.clear();
+		rootIds = null;
+	}
+
+	// ----- interface StructrTransactionListener -----
+	@Override
+	public void beforeCommit(final SecurityContext securityContext, final Collection<ModificationEvent> modificationEvents, final TransactionSource source) throws FrameworkException {
+	}
+
+	@Override
+	public void afterCommit(final SecurityContext securityContext, final Collection<ModificationEvent> modificationEvents, final TransactionSource source) {
+
+		for (final ModificationEvent event : modificationEvents) {
+
+			final GraphObject obj = event.getGraphObject();
+
+			if (event.isNode()) {
+
+				if (obj instanceof AbstractFile) {
+
+					if (event.isDeleted() || hasChanged(event, AbstractFile.name) || hasChanged(event, AbstractFile.hidden) || hasChanged(event, AbstractFile.deleted)) {
+
+						invalidate(event.getUuid());
+						invalidateRootEntries();
+
+					} else if (event.isCreated() || hasChanged(event, AbstractFile.hasParent)) {
+
+						invalidateRootEntries();
+					}
+				}
+
+			} else if (obj instanceof AbstractChildren && AbstractFile.class.isAssignableFrom(((AbstractChildren)obj).getTargetType())) {
+
+				// file or folder was moved
+				invalidate(((AbstractChildren)obj).getTargetNodeId());
+				invalidateRootEntries();
+			}
+		}
+	}
+
+	// ----- private methods -----
+	private boolean isHiddenOrDeleted(final AbstractFile file) {
+		return Boolean.TRUE.equals(file.getProperty(AbstractFile.hidden)) || Boolean.TRUE.equals(file.getProperty(AbstractFile.deleted));
+	}
+
+	private boolean hasChanged(final ModificationEvent event, final PropertyKey key) {
+		return event.getModifiedProperties().containsKey(key) || event.getRemovedProperties().containsKey(key);
+	}
+
+	private String lookup(final String path) {
+
+		TrieNode node = root;
+
+		for (final String part : StringUtils.split(path, "/")) {
+
+			node = node.children.get(part);
+			if (node == null) {
+
+				return null;
+			}
+		}
+
+		return node.id;
+	}
+
+	private void put(final String path, final String id) {
+
+		if (pathsById.size() >= MAX_ENTRIES) {
+			clear();
+		}
+
+		TrieNode node = root;
+
+		for (final String part : StringUtils.split(path, "/")) {
+			node = node.children.computeIfAbsent(part, k -> new TrieNode());
+		}
+
+		node.id = id;
+		pathsById.put(id, path);
+	}
+
+	private void invalidate(final String id) {
+
+		if (id == null) {
+			return;
+		}
+
+		generation.incrementAndGet();
+
+		final String path = pathsById.remove(id);
+		if (path != null) {
+
+			final String[] parts = StringUtils.split(path, "/");
+			TrieNode parent      = root;
+
+			for (int i=0; i<parts.length - 1 && parent != null; i++) {
+				parent = parent.children.get(parts[i]);
+			}
+
+			if (parent != null && parts.length > 0) {
+
+				final TrieNode removed = parent.children.remove(parts[parts.length - 1]);
+				if (removed != null) {
+
+					removeIds(removed);
+				}
+			}
+		}
+	}
+
+	private void invalidateRootEntries() {
+
+		generation.incrementAndGet();
+		rootIds = null;
+	}
+
+	private void removeIds(final TrieNode node) {
+
+		if (node.id != null) {
+			pathsById.remove(node.id);
+		}
+
+		for (final TrieNode child : node.children.values()) {
+			removeIds(child);
+		}
+	}
+
+	// ----- nested classes -----
+	private static class TrieNode {
+
+		private final Map<String, TrieNode> children = new ConcurrentHashMap<>();
+		private volatile String id                   = null;
+	}
+}
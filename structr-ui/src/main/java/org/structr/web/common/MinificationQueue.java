@@ -0,0 +1,392 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.common.SecurityContext;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.Services;
+import org.structr.core.app.App;
+import org.structr.core.app.StructrApp;
+import org.structr.core.graph.Tx;
+import org.structr.web.entity.AbstractMinifiedFile;
+
+/**
+ * Runs the minification of {@link AbstractMinifiedFile}s in the background.
+ *
+ * Minification jobs are scheduled while a transaction is running and are
+ * submitted to a single worker thread once that transaction has been
+ * committed, so the writing transaction never waits for the minifier. The
+ * minified file keeps its previous content until the new result is ready.
+ *
+ * Results are stored on disk under a key that is computed from the type of
+ * the minified file, its minification settings and the names and contents
+ * of its ordered sources, so identical builds are reused across files and
+ * restarts.
+ *
+ *
+ */
+public class MinificationQueue {
+
+	private static final Logger logger                  = LoggerFactory.getLogger(MinificationQueue.class.getName());
+	private static final ThreadLocal<Set<String>> local = ThreadLocal.withInitial(LinkedHashSet::new);
+	private static final String DATA_SUFFIX             = ".min";
+	private static final String PROPERTIES_SUFFIX       = ".properties";
+	private static MinificationQueue instance           = null;
+
+	private final Set<String> queued                    = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger outstanding             = new AtomicInteger();
+	private ExecutorService executor                    = null;
+	private volatile File cacheDirectory                = null;
+
+	private MinificationQueue(final File cacheDirectory) {
+
+		this.cacheDirectory = cacheDirectory;
+		this.executor       = Executors.newSingleThreadExecutor((final Runnable runnable) -> {
+
+			final Thread thread = new Thread(runnable, "MinificationWorker");
+			thread.setDaemon(true);
+
+			return thread;
+		});
+
+		cacheDirectory.mkdirs();
+	}
+
+	public static synchronized MinificationQueue getInstance() {
+
+		String path = StructrApp.getConfigurationValue(Services.MINIFICATION_CACHE_PATH);
+		if (StringUtils.isBlank(path)) {
+
+			path = StructrApp.getConfigurationValue(Services.BASE_PATH, ".") + "/minification";
+		}
+
+		final File directory = new File(path);
+
+		if (instance == null) {
+
+			instance = new MinificationQueue(directory);
+
+		} else if (!directory.equals(instance.cacheDirectory)) {
+
+			// configuration has changed (e.g. after a restart of the services)
+			directory.mkdirs();
+			instance.cacheDirectory = directory;
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Schedules the minification of the file with the given uuid. The job
+	 * is only submitted when {@link #submitScheduled()} is called after the
+	 * current transaction has been committed.
+	 *
+	 * @param uuid the uuid of the minified file
+	 */
+	public static void schedule(final String uuid) {
+		local.get().add(uuid);
+	}
+
+	/**
+	 * Submits all minification jobs that were scheduled in the current
+	 * thread. Files that are already waiting in the queue are not queued
+	 * a second time.
+	 */
+	public static void submitScheduled() {
+
+		final Set<String> scheduled = local.get();
+		if (!scheduled.isEmpty()) {
+
+			getInstance().submit(scheduled);
+
+			scheduled.clear();
+		}
+	}
+
+	/**
+	 * Waits until all submitted minification jobs are finished.
+	 *
+	 * @param timeout the maximum time to wait in milliseconds
+	 * @return whether the queue is idle
+	 */
+	public boolean awaitIdle(final long timeout) {
+
+		final long end = System.currentTimeMillis() + timeout;
+
+		while (outstanding.get() > 0 && System.currentTimeMillis() < end) {
+
+			try { Thread.sleep(10); } catch (InterruptedException iex) {
+				return false;
+			}
+		}
+
+		return outstanding.get() == 0;
+	}
+
+	/**
+	 * Returns the cached result for the given key, or minifies the given
+	 * sources and stores the result.
+	 *
+	 * @param key the cache key
+	 * @param sources the ordered minification sources
+	 * @param minifier the minifier
+	 * @return the minification result
+	 * @throws IOException
+	 */
+	public Result getOrCreate(final String key, final List<Source> sources, final Minifier minifier) throws IOException {
+
+		Result result = load(key);
+		if (result == null) {
+
+			result = minifier.minify(sources);
+
+			store(key, result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Computes the cache key for the given type, settings and sources.
+	 *
+	 * @param type the type of the minified file
+	 * @param settings the minification settings
+	 * @param sources the ordered minification sources
+	 * @return the cache key
+	 */
+	public static String getKey(final Class type, final String settings, final List<Source> sources) {
+
+		final MessageDigest digest = DigestUtils.getSha256Digest();
+
+		update(digest, type.getName());
+		update(digest, settings);
+
+		for (final Source source : sources) {
+
+			update(digest, source.getName());
+			update(digest, source.getContent());
+		}
+
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	// ----- private methods -----
+	private void submit(final Set<String> uuids) {
+
+		for (final String uuid : uuids) {
+
+			if (queued.add(uuid)) {
+
+				outstanding.incrementAndGet();
+				executor.submit(() -> {
+
+					try {
+
+						queued.remove(uuid);
+						run(uuid);
+
+					} catch (Throwable t) {
+
+						logger.warn("Unable to minify file {}: {}", uuid, t.getMessage());
+
+					} finally {
+
+						outstanding.decrementAndGet();
+					}
+				});
+			}
+		}
+	}
+
+	private void run(final String uuid) throws FrameworkException, IOException {
+
+		final App app = StructrApp.getInstance(SecurityContext.getSuperUserInstance());
+		final List<Source> sources;
+		final Minifier minifier;
+		final String key;
+
+		try (final Tx tx = app.tx(true, false, false)) {
+
+			final AbstractMinifiedFile file = app.get(AbstractMinifiedFile.class, uuid);
+			if (file == null) {
+				return;
+			}
+
+			sources  = file.getMinificationSourceList();
+			minifier = file.getMinifier();
+			key      = getKey(file.getClass(), file.getMinificationSettings(), sources);
+
+			tx.success();
+
+			// current output is up to date
+			if (key.equals(file.getProperty(AbstractMinifiedFile.minificationKey))) {
+				return;
+			}
+		}
+
+		final Result result = getOrCreate(key, sources, minifier);
+
+		try (final Tx tx = app.tx()) {
+
+			final AbstractMinifiedFile file = app.get(AbstractMinifiedFile.class, uuid);
+			if (file != null) {
+
+				file.applyMinificationResult(key, result);
+			}
+
+			tx.success();
+		}
+	}
+
+	private Result load(final String key) throws IOException {
+
+		final File data       = new File(cacheDirectory, key + DATA_SUFFIX);
+		final File properties = new File(cacheDirectory, key + PROPERTIES_SUFFIX);
+
+		if (data.exists() && properties.exists()) {
+
+			final Properties props = new Properties();
+
+			try (final InputStream in = new FileInputStream(properties)) {
+				props.load(in);
+			}
+
+			final Map<String, String> map = new LinkedHashMap<>();
+			for (final String name : props.stringPropertyNames()) {
+
+				map.put(name, props.getProperty(name));
+			}
+
+			return new Result(FileUtils.readFileToByteArray(data), map);
+		}
+
+		return null;
+	}
+
+	private void store(final String key, final Result result) throws IOException {
+
+		final Properties props = new Properties();
+		props.putAll(result.getProperties());
+
+		// write to temporary files first so that concurrent readers never see partial results
+		final File data = File.createTempFile(key, DATA_SUFFIX, cacheDirectory);
+		final File properties = File.createTempFile(key, PROPERTIES_SUFFIX, cacheDirectory);
+
+		FileUtils.writeByteArrayToFile(data, result.getData());
+
+		try (final OutputStream out = new FileOutputStream(properties)) {
+			props.store(out, null);
+		}
+
+		Files.move(data.toPath(), new File(cacheDirectory, key + DATA_SUFFIX).toPath(), StandardCopyOption.REPLACE_EXISTING);
+		Files.move(properties.toPath(), new File(cacheDirectory, key + PROPERTIES_SUFFIX).toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static void update(final MessageDigest digest, final String value) {
+
+		final byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+
+		// length prefix keeps the boundaries between the individual values unambiguous
+		digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+		digest.update((byte)0);
+		digest.update(bytes);
+	}
+
+	// ----- nested classes -----
+	/**
+	 * Minifies a list of sources.
+	 */
+	public interface Minifier {
+
+		public Result minify(final List<Source> sources) throws IOException;
+	}
+
+	/**
+	 * Name and content of a minification source.
+	 */
+	public static class Source {
+
+		private String name    = null;
+		private String content = null;
+
+		public Source(final String name, final String content) {
+
+			this.name    = name;
+			this.content = content;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getContent() {
+			return content;
+		}
+	}
+
+	/**
+	 * The minified data and the values of additional string properties
+	 * (like warnings or errors) of the minified file.
+	 */
+	public static class Result {
+
+		private Map<String, String> properties = null;
+		private byte[] data                    = null;
+
+		public Result(final byte[] data, final Map<String, String> properties) {
+
+			this.data       = data;
+			this.properties = properties;
+		}
+
+		public byte[] getData() {
+			return data;
+		}
+
+		public Map<String, String> getProperties() {
+			return properties;
+		}
+	}
+}
@@ -0,0 +1,392 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.http.HttpServletRequest;
+import org.apache.commons.lang3.StringUtils;
+import org.structr.common.PathHelper;
+import org.structr.common.SecurityContext;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.GraphObject;
+import org.structr.core.StructrCacheListener;
+import org.structr.core.TransactionSource;
+import org.structr.core.app.App;
+import org.structr.core.app.StructrApp;
+import org.structr.core.graph.ModificationEvent;
+import org.structr.core.graph.TransactionCommand;
+import org.structr.web.entity.Site;
+import org.structr.web.entity.dom.Page;
+import org.structr.web.entity.relation.Pages;
+
+/**
+ * In-memory routing table for page resolution in the HtmlServlet.
+ *
+ * Maps page paths, names and ids to the matching pages (in position order)
+ * together with the hostname and port of their site, so that resolving a
+ * URL doesn't require loading and sorting all pages. The table is built on
+ * first use, modified pages are reloaded individually on the next lookup
+ * after a transaction that touched them was committed (with or without
+ * notifications, e.g. in a deployment import), modifications of
+ * sites rebuild the whole table. Pages are always loaded in the security
+ * context of the caller.
+ *
+ *
+ */
+public class PageRoutingTable implements StructrCacheListener {
+
+	private static final Comparator<Route> positionComparator = Comparator.comparing((Route r) -> r.position, Comparator.nullsLast(Comparator.naturalOrder()));
+	private static PageRoutingTable instance                  = null;
+
+	private final Set<String> modifiedPages = ConcurrentHashMap.newKeySet();
+	private final AtomicLong generation     = new AtomicLong();
+	private volatile Table table            = null;
+
+	private PageRoutingTable() {
+
+		TransactionCommand.registerTransactionListener(this);
+	}
+
+	public static synchronized PageRoutingTable getInstance() {
+
+		if (instance == null) {
+			instance = new PageRoutingTable();
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Find a page with matching path, falling back to name and id lookup.
+	 *
+	 * @param securityContext
+	 * @param request
+	 * @param path
+	 * @param ignoreSite
+	 * @return page
+	 * @throws FrameworkException
+	 */
+	public Page findPage(final SecurityContext securityContext, final HttpServletRequest request, final String path, final boolean ignoreSite) throws FrameworkException {
+
+		final Table current = getTable();
+		final String name   = PathHelper.getName(path);
+
+		Page page = findFirst(securityContext, request, current.byPath.get(path), ignoreSite);
+		if (page == null) {
+
+			page = findFirst(securityContext, request, current.byName.get(name), ignoreSite);
+		}
+
+		if (page == null) {
+
+			page = findFirst(securityContext, request, current.byId.get(name), ignoreSite);
+		}
+
+		return page;
+	}
+
+	/**
+	 * Find the page with the lowest non-empty position value which is visible
+	 * in the given security context and for the site of the given request.
+	 *
+	 * @param securityContext
+	 * @param request
+	 * @param ignoreSite
+	 * @return page
+	 * @throws FrameworkException
+	 */
+	public Page findIndexPage(final SecurityContext securityContext, final HttpServletRequest request, final boolean ignoreSite) throws FrameworkException {
+
+		final App app = StructrApp.getInstance(securityContext);
+
+		for (final Route route : getTable().routes) {
+
+			if (route.position != null) {
+
+				final Page page = getPage(app, route.id);
+				if (page != null && securityContext.isVisible(page) && ((ignoreSite || route.matches(request)) || (page.getProperty(Page.enableBasicAuth) && page.getProperty(Page.visibleToAuthenticatedUsers)))) {
+
+					return page;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns all pages with the given path that are visible in the given
+	 * security context.
+	 *
+	 * @param securityContext
+	 * @param path
+	 * @return pages
+	 * @throws FrameworkException
+	 */
+	public List<Page> getPagesByPath(final SecurityContext securityContext, final String path) throws FrameworkException {
+
+		final App app           = StructrApp.getInstance(securityContext);
+		final List<Page> pages  = new LinkedList<>();
+		final List<Route> list  = getTable().byPath.get(path);
+
+		if (list != null) {
+
+			for (final Route route : list) {
+
+				final Page page = getPage(app, route.id);
+				if (page != null) {
+
+					pages.add(page);
+				}
+			}
+		}
+
+		return pages;
+	}
+
+	public void clear() {
+
+		generation.incrementAndGet();
+		table = null;
+	}
+
+	// ----- interface StructrTransactionListener -----
+	@Override
+	public void beforeCommit(final SecurityContext securityContext, final Collection<ModificationEvent> modificationEvents, final TransactionSource source) throws FrameworkException {
+	}
+
+	@Override
+	public void afterCommit(final SecurityContext securityContext, final Collection<ModificationEvent> modificationEvents, final TransactionSource source) {
+
+		for (final ModificationEvent event : modificationEvents) {
+
+			final GraphObject obj = event.getGraphObject();
+
+			if (obj instanceof Page) {
+
+				modifiedPages.add(event.getUuid());
+
+			} else if (obj instanceof Pages) {
+
+				// site assignment changed
+				modifiedPages.add(((Pages)obj).getTargetNodeId());
+
+			} else if (obj instanceof Site) {
+
+				clear();
+			}
+		}
+	}
+
+	// ----- private methods -----
+	private Page getPage(final App app, final String id) throws FrameworkException {
+
+		final Page page = app.get(Page.class, id);
+
+		// lookup by id includes deleted and hidden nodes, the page query doesn't
+		if (page != null && !page.isDeleted() && !page.isHidden()) {
+
+			return page;
+		}
+
+		return null;
+	}
+
+	private Page findFirst(final SecurityContext securityContext, final HttpServletRequest request, final List<Route> routes, final boolean ignoreSite) throws FrameworkException {
+
+		if (routes != null) {
+
+			final App app = StructrApp.getInstance(securityContext);
+
+			for (final Route route : routes) {
+
+				if (ignoreSite || route.matches(request)) {
+
+					final Page page = getPage(app, route.id);
+					if (page != null) {
+
+						return page;
+					}
+				}
+			}
+		}
+
+		return null;
+	}
+
+	private Table getTable() throws FrameworkException {
+
+		final App app  = StructrApp.getInstance();
+		Table current  = table;
+
+		if (current == null) {
+
+			final long currentGeneration = generation.get();
+			final List<Route> routes     = new ArrayList<>();
+
+			// pages modified from now on will be updated on the next lookup
+			modifiedPages.clear();
+
+			for (final Page page : app.nodeQuery(Page.class).getAsList()) {
+				routes.add(new Route(page));
+			}
+
+			current = new Table(routes);
+
+			if (currentGeneration == generation.get()) {
+				table = current;
+			}
+
+			return current;
+		}
+
+		if (!modifiedPages.isEmpty()) {
+
+			synchronized (this) {
+
+				current = table;
+
+				if (current != null && !modifiedPages.isEmpty()) {
+
+					final Set<String> ids    = new HashSet<>(modifiedPages);
+					final List<Route> routes = new ArrayList<>();
+
+					modifiedPages.removeAll(ids);
+
+					for (final Route route : current.routes) {
+
+						if (!ids.contains(route.id)) {
+							routes.add(route);
+						}
+					}
+
+					for (final String id : ids) {
+
+						final Page page = getPage(app, id);
+						if (page != null) {
+
+							routes.add(new Route(page));
+						}
+					}
+
+					current = new Table(routes);
+					table   = current;
+
+				} else if (current == null) {
+
+					return getTable();
+				}
+			}
+		}
+
+		return current;
+	}
+
+	// ----- nested classes -----
+	private static class Route {
+
+		private String id       = null;
+		private String path     = null;
+		private String name     = null;
+		private Integer position = null;
+		private String hostname = null;
+		private Integer port    = null;
+		private boolean hasSite = false;
+
+		public Route(final Page page) {
+
+			final Site site = page.getProperty(Page.site);
+
+			this.id       = page.getUuid();
+			this.path     = page.getPath();
+			this.name     = page.getName();
+			this.position = page.getProperty(Page.position);
+
+			if (site != null) {
+
+				this.hasSite  = true;
+				this.hostname = site.getProperty(Site.hostname);
+				this.port     = site.getProperty(Site.port);
+			}
+		}
+
+		public boolean matches(final HttpServletRequest request) {
+
+			if (!hasSite) {
+				return true;
+			}
+
+			final String serverName = request.getServerName();
+
+			if (StringUtils.isNotBlank(serverName) && !serverName.equals(hostname)) {
+				return false;
+			}
+
+			return port == null || request.getServerPort() == port;
+		}
+	}
+
+	private static class Table {
+
+		private final Map<String, List<Route>> byPath = new LinkedHashMap<>();
+		private final Map<String, List<Route>> byName = new LinkedHashMap<>();
+		private final Map<String, List<Route>> byId   = new LinkedHashMap<>();
+		private final List<Route> routes;
+
+		public Table(final List<Route> routes) {
+
+			Collections.sort(routes, positionComparator);
+
+			this.routes = routes;
+
+			for (final Route route : routes) {
+
+				add(byPath, route.path, route);
+				add(byName, route.name, route);
+				add(byId,   route.id,   route);
+			}
+		}
+
+		private void add(final Map<String, List<Route>> map, final String key, final Route route) {
+
+			if (key != null) {
+
+				List<Route> list = map.get(key);
+				if (list == null) {
+
+					list = new ArrayList<>(1);
+					map.put(key, list);
+				}
+
+				list.add(route);
+			}
+		}
+	}
+}
@@ -0,0 +1,378 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.structr.common.SecurityContext;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.GraphObject;
+import org.structr.core.StructrCacheListener;
+import org.structr.core.TransactionSource;
+import org.structr.core.entity.Principal;
+import org.structr.core.graph.ModificationEvent;
+import org.structr.core.graph.RelationshipInterface;
+import org.structr.core.graph.TransactionCommand;
+import org.structr.web.entity.dom.DOMNode;
+
+/**
+ * Render output cache for DOM subtrees.
+ *
+ * Caches the output of DOM nodes with a positive renderCacheSeconds value,
+ * keyed by node, page, depth, edit mode, locale, user, request parameters
+ * and the data objects of the render context. While a node is rendered,
+ * the render context records the ids of all DOM nodes and data objects
+ * and the types of all list sources it encounters. Entries are dropped
+ * when a committed transaction modifies one of those objects (or a
+ * relationship attached to it), or creates or deletes an object of one
+ * of those types, regardless of whether the transaction sends
+ * notifications (deployment imports and maintenance commands don't).
+ * Data read by other means (e.g. find() in a template expression) is
+ * only refreshed when the entry expires.
+ *
+ *
+ */
+public class RenderCache implements StructrCacheListener {
+
+	public static final String ANY_TYPE                         = "*";
+
+	private static final int MAX_ENTRIES                        = 10000;
+	private static RenderCache instance                         = null;
+
+	private final Map<String, Set<String>> keysById             = new ConcurrentHashMap<>();
+	private final Map<String, Set<String>> keysByType           = new ConcurrentHashMap<>();
+	private final Map<String, Entry> entries                    = new ConcurrentHashMap<>();
+	private final Set<Dependencies> inFlight                    = ConcurrentHashMap.newKeySet();
+
+	private RenderCache() {
+
+		TransactionCommand.registerTransactionListener(this);
+	}
+
+	public static synchronized RenderCache getInstance() {
+
+		if (instance == null) {
+			instance = new RenderCache();
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Creates the cache key for the given node in the given render context.
+	 *
+	 * @param node
+	 * @param renderContext
+	 * @param depth
+	 * @return the key
+	 */
+	public String getKey(final DOMNode node, final RenderContext renderContext, final int depth) {
+
+		final HttpServletRequest request = renderContext.getRequest();
+		final Principal user             = renderContext.getSecurityContext().getUser(false);
+		final StringBuilder buf          = new StringBuilder();
+
+		buf.append(node.getUuid());
+		buf.append("|").append(renderContext.getPageId());
+		buf.append("|").append(depth);
+		buf.append("|").append(renderContext.getEditMode(user));
+		buf.append("|").append(renderContext.getLocale());
+		buf.append("|").append(user != null ? user.getUuid() : "public");
+		buf.append("|").append(getUuid(renderContext.getDetailsDataObject()));
+		buf.append("|").append(getUuid(renderContext.getDataObject()));
+
+		for (final Map.Entry<String, GraphObject> entry : renderContext.getDataObjects().entrySet()) {
+			buf.append("|").append(entry.getKey()).append("=").append(getUuid(entry.getValue()));
+		}
+
+		if (request != null) {
+
+			for (final Map.Entry<String, String[]> entry : new TreeMap<>(request.getParameterMap()).entrySet()) {
+
+				buf.append("|").append(entry.getKey());
+
+				for (final String value : entry.getValue()) {
+					buf.append("=").append(value);
+				}
+			}
+		}
+
+		return DigestUtils.sha256Hex(buf.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns the cached entry for the given key, or null if there is
+	 * no entry or it has expired.
+	 *
+	 * @param key
+	 * @return entry or null
+	 */
+	public Entry get(final String key) {
+
+		final Entry entry = entries.get(key);
+		if (entry != null) {
+
+			if (entry.expires > System.currentTimeMillis()) {
+
+				return entry;
+			}
+
+			entries.remove(key);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Starts recording the dependencies of a new cache entry. Objects that
+	 * are modified before the entry is stored mark it as stale.
+	 *
+	 * @return the dependencies
+	 */
+	public Dependencies begin() {
+
+		final Dependencies dependencies = new Dependencies();
+
+		inFlight.add(dependencies);
+
+		return dependencies;
+	}
+
+	/**
+	 * Stores the rendered output with the recorded dependencies, unless
+	 * one of them was modified while rendering.
+	 *
+	 * @param key
+	 * @param dependencies
+	 * @param output
+	 * @param renderContext the render context after rendering
+	 * @param seconds
+	 */
+	public void put(final String key, final Dependencies dependencies, final String output, final RenderContext renderContext, final int seconds) {
+
+		inFlight.remove(dependencies);
+
+		if (dependencies.stale) {
+			return;
+		}
+
+		if (entries.size() >= MAX_ENTRIES) {
+			clear();
+		}
+
+		for (final String id : dependencies.ids) {
+			keysById.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(key);
+		}
+
+		for (final String type : dependencies.types) {
+			keysByType.computeIfAbsent(type, k -> ConcurrentHashMap.newKeySet()).add(key);
+		}
+
+		entries.put(key, new Entry(output, dependencies, renderContext.inBody(), renderContext.appLibRendered(), System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(seconds)));
+
+		// a transaction may have been committed while indexing the entry
+		if (dependencies.stale) {
+			entries.remove(key);
+		}
+	}
+
+	/**
+	 * Stops recording without storing an entry, e.g. after an error.
+	 *
+	 * @param dependencies
+	 */
+	public void cancel(final Dependencies dependencies) {
+		inFlight.remove(dependencies);
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public void clear() {
+
+		for (final Dependencies dependencies : inFlight) {
+			dependencies.stale = true;
+		}
+
+		entries.clear();
+		keysById.clear();
+		keysByType.clear();
+	}
+
+	// ----- interface StructrTransactionListener -----
+	@Override
+	public void beforeCommit(final SecurityContext securityContext, final Collection<ModificationEvent> modificationEvents, final TransactionSource source) throws FrameworkException {
+	}
+
+	@Override
+	public void afterCommit(final SecurityContext securityContext, final Collection<ModificationEvent> modificationEvents, final TransactionSource source) {
+
+		for (final ModificationEvent event : modificationEvents) {
+
+			final GraphObject obj = event.getGraphObject();
+
+			if (event.isNode()) {
+
+				invalidateId(event.getUuid());
+
+				if (event.isCreated() || event.isDeleted()) {
+
+					invalidateType(ANY_TYPE);
+
+					Class type = obj.getClass();
+					while (type != null && !Object.class.equals(type)) {
+
+						invalidateType(type.getSimpleName());
+						type = type.getSuperclass();
+					}
+				}
+
+			} else if (obj instanceof RelationshipInterface) {
+
+				final RelationshipInterface rel = (RelationshipInterface)obj;
+
+				invalidateId(rel.getSourceNodeId());
+				invalidateId(rel.getTargetNodeId());
+			}
+		}
+	}
+
+	// ----- private methods -----
+	private void invalidateId(final String id) {
+
+		if (id != null) {
+
+			for (final Dependencies dependencies : inFlight) {
+
+				if (dependencies.ids.contains(id)) {
+					dependencies.stale = true;
+				}
+			}
+
+			remove(keysById.remove(id));
+		}
+	}
+
+	private void invalidateType(final String type) {
+
+		for (final Dependencies dependencies : inFlight) {
+
+			if (dependencies.types.contains(type)) {
+				dependencies.stale = true;
+			}
+		}
+
+		remove(keysByType.remove(type));
+	}
+
+	private void remove(final Set<String> keys) {
+
+		if (keys != null) {
+
+			for (final String key : keys) {
+				entries.remove(key);
+			}
+		}
+	}
+
+	private String getUuid(final GraphObject obj) {
+		return obj != null ? obj.getUuid() : null;
+	}
+
+	// ----- nested classes -----
+	/**
+	 * The ids and types a cache entry depends on.
+	 */
+	public static class Dependencies {
+
+		private final Set<String> ids   = ConcurrentHashMap.newKeySet();
+		private final Set<String> types = ConcurrentHashMap.newKeySet();
+		private volatile boolean stale  = false;
+
+		public void addId(final String id) {
+
+			if (id != null) {
+				ids.add(id);
+			}
+		}
+
+		public void addType(final String type) {
+			types.add(type);
+		}
+
+		public void addAll(final Dependencies other) {
+
+			ids.addAll(other.ids);
+			types.addAll(other.types);
+		}
+
+		public Set<String> getIds() {
+			return Collections.unmodifiableSet(ids);
+		}
+
+		public Set<String> getTypes() {
+			return Collections.unmodifiableSet(types);
+		}
+	}
+
+	/**
+	 * A cached render output.
+	 */
+	public static class Entry {
+
+		private Dependencies dependencies = new Dependencies();
+		private String output             = null;
+		private boolean inBody            = false;
+		private boolean appLibRendered    = false;
+		private long expires              = 0L;
+
+		public Entry(final String output, final Dependencies dependencies, final boolean inBody, final boolean appLibRendered, final long expires) {
+
+			this.dependencies.addAll(dependencies);
+
+			this.output         = output;
+			this.inBody         = inBody;
+			this.appLibRendered = appLibRendered;
+			this.expires        = expires;
+		}
+
+		/**
+		 * Writes the cached output to the given render context and
+		 * restores the state the original rendering left behind.
+		 *
+		 * @param renderContext
+		 */
+		public void apply(final RenderContext renderContext) {
+
+			renderContext.getBuffer().append(output);
+			renderContext.setInBody(inBody);
+			renderContext.setAppLibRendered(appLibRendered);
+			renderContext.recordDependencies(dependencies);
+		}
+	}
+}
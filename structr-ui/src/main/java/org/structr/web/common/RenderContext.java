@@ -18,9 +18,11 @@
  */
 package org.structr.web.common;
 
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.lang3.StringUtils;
@@ -68,6 +70,8 @@ public class RenderContext extends ActionContext {
 	private Result result                              = null;
 	private boolean anyChildNodeCreatesNewLine         = false;
 	private boolean indentHtml                         = true;
+	private RenderCache.Dependencies dependencies      = null;
+	private Map<String, Result> dataSourceResults      = new ConcurrentHashMap<>();
 
 	public enum EditMode {
 
@@ -107,6 +111,8 @@ public class RenderContext extends ActionContext {
 		this.anyChildNodeCreatesNewLine = other.anyChildNodeCreatesNewLine;
 		this.locale = other.locale;
 		this.indentHtml = other.indentHtml;
+		this.dependencies = other.dependencies;
+		this.dataSourceResults = other.dataSourceResults;
 
 	}
 
@@ -138,6 +144,7 @@ public class RenderContext extends ActionContext {
 
 	public void setDetailsDataObject(GraphObject detailsDataObject) {
 		this.detailsDataObject = detailsDataObject;
+		recordDependency(detailsDataObject);
 	}
 
 	public GraphObject getDetailsDataObject() {
@@ -146,6 +153,7 @@ public class RenderContext extends ActionContext {
 
 	public void setDataObject(GraphObject currentDataObject) {
 		this.currentDataObject = currentDataObject;
+		recordDependency(currentDataObject);
 	}
 
 	public GraphObject getDataObject() {
@@ -154,6 +162,7 @@ public class RenderContext extends ActionContext {
 
 	public void setSourceDataObject(GraphObject sourceDataObject) {
 		this.sourceDataObject = sourceDataObject;
+		recordDependency(sourceDataObject);
 	}
 
 	public GraphObject getSourceDataObject() {
@@ -162,6 +171,7 @@ public class RenderContext extends ActionContext {
 
 	public void setListSource(Iterable<GraphObject> listSource) {
 		this.listSource = listSource;
+		recordListDependencies(listSource);
 	}
 
 	public void setResult(Result result) {
@@ -336,6 +346,39 @@ public class RenderContext extends ActionContext {
 		return dataObjects.containsKey(key);
 	}
 
+	public Map<String, GraphObject> getDataObjects() {
+		return dataObjects;
+	}
+
+	/**
+	 * Installs the dependency recorder of a render cache entry. All DOM
+	 * nodes and data objects that are used while rendering are recorded
+	 * until the recorder is removed again.
+	 *
+	 * @param dependencies the recorder, or null
+	 */
+	public void setDependencies(final RenderCache.Dependencies dependencies) {
+		this.dependencies = dependencies;
+	}
+
+	public RenderCache.Dependencies getDependencies() {
+		return dependencies;
+	}
+
+	public void recordDependency(final GraphObject obj) {
+
+		if (dependencies != null && obj != null) {
+			dependencies.addId(obj.getUuid());
+		}
+	}
+
+	public void recordDependencies(final RenderCache.Dependencies other) {
+
+		if (dependencies != null) {
+			dependencies.addAll(other);
+		}
+	}
+
 	public void setPage(final Page page) {
 		this.page = page;
 	}
@@ -348,6 +391,29 @@ public class RenderContext extends ActionContext {
 		return (page != null ? page.getUuid() : null);
 	}
 
+	/**
+	 * Returns the memoized result of the given data source query, or null
+	 * if the query was not evaluated in this rendering run yet.
+	 *
+	 * @param query the query
+	 * @return the result or null
+	 */
+	public Result getDataSourceResult(final String query) {
+
+		if (query != null) {
+			return dataSourceResults.get(query);
+		}
+
+		return null;
+	}
+
+	public void setDataSourceResult(final String query, final Result result) {
+
+		if (query != null && result != null) {
+			dataSourceResults.put(query, result);
+		}
+	}
+
 	public Result getResult() {
 		return result;
 	}
@@ -520,6 +586,29 @@ public class RenderContext extends ActionContext {
 
 	}
 
+	private void recordListDependencies(final Iterable<GraphObject> list) {
+
+		if (dependencies != null) {
+
+			if (list instanceof Collection && !((Collection)list).isEmpty()) {
+
+				for (final GraphObject obj : list) {
+
+					if (obj != null) {
+
+						dependencies.addId(obj.getUuid());
+						dependencies.addType(obj.getClass().getSimpleName());
+					}
+				}
+
+			} else {
+
+				// list membership can change with any new object
+				dependencies.addType(RenderCache.ANY_TYPE);
+			}
+		}
+	}
+
 	public boolean shouldIndentHtml() {
 		return indentHtml;
 	}
@@ -31,6 +31,7 @@ import org.apache.commons.collections.iterators.IteratorEnumeration;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.util.FixedSizeCache;
 import org.structr.common.PagingHelper;
 import org.structr.common.PropertyView;
 import org.structr.common.SecurityContext;
@@ -62,7 +63,8 @@ import org.structr.web.entity.dom.DOMNode;
  */
 public class RestDataSource implements GraphDataSource<List<GraphObject>> {
 
-	private static final Logger logger = LoggerFactory.getLogger(RestDataSource.class.getName());
+	private static final Logger logger                                  = LoggerFactory.getLogger(RestDataSource.class.getName());
+	private static final FixedSizeCache<String, CompiledQuery> compiled = new FixedSizeCache<>(1000);
 
 	@Override
 	public List<GraphObject> getData(final RenderContext renderContext, AbstractNode referenceNode) throws FrameworkException {
@@ -78,8 +80,19 @@ public class RestDataSource implements GraphDataSource<List<GraphObject>> {
 	// FIXME: this method is needed by the websocket search command because there is no reference node for the above method
 	public List<GraphObject> getData(final RenderContext renderContext, final String restQuery) throws FrameworkException {
 
-		final Map<Pattern, Class<? extends Resource>> resourceMap = new LinkedHashMap<>();
-		final SecurityContext securityContext                     = renderContext.getSecurityContext();
+		final SecurityContext securityContext = renderContext.getSecurityContext();
+
+		// identical queries within one rendering run return the same result
+		final Result cachedResult = renderContext.getDataSourceResult(restQuery);
+		if (cachedResult != null) {
+
+			securityContext.ignoreResultCount(true);
+			renderContext.setResult(cachedResult);
+
+			final List<GraphObject> res = cachedResult.getResults();
+
+			return res != null ? res : Collections.EMPTY_LIST;
+		}
 
 		ResourceProvider resourceProvider = renderContext.getResourceProvider();
 		if (resourceProvider == null) {
@@ -91,8 +104,7 @@ public class RestDataSource implements GraphDataSource<List<GraphObject>> {
 			}
 		}
 
-		// inject resources
-		resourceMap.putAll(resourceProvider.getResources());
+		final CompiledQuery query = getCompiledQuery(resourceProvider, restQuery);
 
 		Value<String> propertyView = new ThreadLocalPropertyView();
 		propertyView.set(securityContext, PropertyView.Ui);
@@ -124,25 +136,17 @@ public class RestDataSource implements GraphDataSource<List<GraphObject>> {
 
 			@Override
 			public Map<String, String[]> getParameterMap() {
-				String[] parts = StringUtils.split(getQueryString(), "&");
-				Map<String, String[]> parameterMap = new HashMap();
-				for (String p : parts) {
-					String[] kv = StringUtils.split(p, "=");
-					if (kv.length > 1) {
-						parameterMap.put(kv[0], new String[]{kv[1]});
-					}
-				}
-				return parameterMap;
+				return query.parameterMap;
 			}
 
 			@Override
 			public String getQueryString() {
-				return StringUtils.substringAfter(restQuery, "?");
+				return query.queryString;
 			}
 
 			@Override
 			public String getPathInfo() {
-				return StringUtils.substringBefore(restQuery, "?");
+				return query.pathInfo;
 			}
 
 			@Override
@@ -161,7 +165,7 @@ public class RestDataSource implements GraphDataSource<List<GraphObject>> {
 		Resource resource = null;
 		try {
 
-			resource = ResourceHelper.applyViewTransformation(wrappedRequest, securityContext, ResourceHelper.optimizeNestedResourceChain(securityContext, wrappedRequest, resourceMap, propertyView), propertyView);
+			resource = ResourceHelper.applyViewTransformation(wrappedRequest, securityContext, ResourceHelper.optimizeNestedResourceChain(securityContext, wrappedRequest, query.resourceMap, propertyView), propertyView);
 
 		} catch (IllegalPathException | NotFoundException e) {
 
@@ -232,12 +236,36 @@ public class RestDataSource implements GraphDataSource<List<GraphObject>> {
 
 		if (renderContext != null) {
 			renderContext.setResult(result);
+			renderContext.setDataSourceResult(restQuery, result);
 		}
 
 		return res != null ? res : Collections.EMPTY_LIST;
 
 	}
 
+	/**
+	 * Returns the compiled form of the given REST query, i.e. the parsed
+	 * request parameters and a resource map that only contains the
+	 * patterns that match at least one part of the query path.
+	 *
+	 * @param resourceProvider the resource provider
+	 * @param restQuery the REST query
+	 * @return the compiled query
+	 */
+	private static CompiledQuery getCompiledQuery(final ResourceProvider resourceProvider, final String restQuery) {
+
+		final String key    = resourceProvider.getClass().getName() + ":" + restQuery;
+		CompiledQuery query = compiled.get(key);
+
+		if (query == null) {
+
+			query = new CompiledQuery(resourceProvider.getResources(), restQuery);
+			compiled.put(key, query);
+		}
+
+		return query;
+	}
+
 	/**
 	 * Tries to parse the given String to an int value, returning
 	 * defaultValue on error.
@@ -261,6 +289,47 @@ public class RestDataSource implements GraphDataSource<List<GraphObject>> {
 		return defaultValue;
 	}
 
+	private static class CompiledQuery {
+
+		private final Map<Pattern, Class<? extends Resource>> resourceMap = new LinkedHashMap<>();
+		private Map<String, String[]> parameterMap                        = null;
+		private String queryString                                        = null;
+		private String pathInfo                                           = null;
+
+		public CompiledQuery(final Map<Pattern, Class<? extends Resource>> resources, final String restQuery) {
+
+			this.queryString = StringUtils.substringAfter(restQuery, "?");
+			this.pathInfo    = StringUtils.substringBefore(restQuery, "?");
+
+			final Map<String, String[]> parameters = new HashMap<>();
+			for (final String p : StringUtils.split(queryString, "&")) {
+
+				final String[] kv = StringUtils.split(p, "=");
+				if (kv.length > 1) {
+
+					parameters.put(kv[0], new String[]{kv[1]});
+				}
+			}
+
+			this.parameterMap = Collections.unmodifiableMap(parameters);
+
+			// keep only the patterns that can match a part of the path, in their original order
+			final String[] pathParts = StringUtils.isNotBlank(pathInfo) ? pathInfo.split("[/]+") : new String[0];
+
+			for (final Map.Entry<Pattern, Class<? extends Resource>> entry : resources.entrySet()) {
+
+				for (final String part : pathParts) {
+
+					if (part.trim().length() > 0 && entry.getKey().matcher(part).matches()) {
+
+						resourceMap.put(entry.getKey(), entry.getValue());
+						break;
+					}
+				}
+			}
+		}
+	}
+
 	private static class ThreadLocalPropertyView extends ThreadLocal<String> implements Value<String> {
 
 		@Override
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,23 +30,37 @@ import org.structr.common.SecurityContext;
 import org.structr.common.error.ErrorBuffer;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.Export;
+import org.structr.core.app.StructrApp;
 import org.structr.core.graph.ModificationEvent;
 import org.structr.core.graph.ModificationQueue;
 import org.structr.core.property.EndNodes;
 import org.structr.core.property.Property;
+import org.structr.core.property.PropertyKey;
 import org.structr.core.property.PropertyMap;
+import org.structr.core.property.StringProperty;
 import org.structr.dynamic.File;
+import org.structr.web.common.CompressedFileCache;
+import org.structr.web.common.FileHelper;
+import org.structr.web.common.MinificationQueue;
+import org.structr.web.common.MinificationQueue.Minifier;
+import org.structr.web.common.MinificationQueue.Result;
+import org.structr.web.common.MinificationQueue.Source;
 import org.structr.web.entity.relation.MinificationSource;
 
 /**
  * Base class for minifiable files in structr
  *
+ * Modifications of the minification settings or of one of the sources
+ * schedule a background job in the {@link MinificationQueue}, the file
+ * keeps its previous content until the job is finished.
+ *
  */
 public abstract class AbstractMinifiedFile extends File {
 
 	private static final Logger logger = LoggerFactory.getLogger(AbstractMinifiedFile.class.getName());
 
 	public static final Property<List<FileBase>> minificationSources = new EndNodes<>("minificationSources", MinificationSource.class);
+	public static final Property<String> minificationKey             = new StringProperty("minificationKey");
 
 	@Override
 	public boolean onModification(final SecurityContext securityContext, final ErrorBuffer errorBuffer, final ModificationQueue modificationQueue) throws FrameworkException {
@@ -66,22 +81,71 @@ public abstract class AbstractMinifiedFile extends File {
 
 		if (shouldMinify) {
 
-			try {
-				this.minify();
-			} catch (IOException ex) {
-				logger.warn("Could not automatically minify file", ex);
-			}
-
+			MinificationQueue.schedule(myUUID);
 		}
 
 		return super.onModification(securityContext, errorBuffer, modificationQueue);
 	}
 
+	/**
+	 * Minifies the sources of this file synchronously, using the cached
+	 * result if the sources and settings did not change.
+	 *
+	 * @throws FrameworkException
+	 * @throws IOException
+	 */
 	@Export
-	public abstract void minify() throws FrameworkException, IOException;
+	public void minify() throws FrameworkException, IOException {
+
+		logger.info("Running minify: {}", this.getUuid());
+
+		final List<Source> sources = getMinificationSourceList();
+		final String key           = MinificationQueue.getKey(getClass(), getMinificationSettings(), sources);
+
+		applyMinificationResult(key, MinificationQueue.getInstance().getOrCreate(key, sources, getMinifier()));
+	}
 
 	public abstract boolean shouldModificationTriggerMinifcation(ModificationEvent modState);
 
+	/**
+	 * Returns the settings of this file that affect the minification
+	 * result. They are part of the key of the cached result.
+	 *
+	 * @return the minification settings
+	 */
+	public abstract String getMinificationSettings();
+
+	/**
+	 * Returns a minifier with the current settings of this file. The
+	 * minifier is called outside of the transaction.
+	 *
+	 * @return the minifier
+	 */
+	public abstract Minifier getMinifier();
+
+	public void applyMinificationResult(final String key, final Result result) throws FrameworkException, IOException {
+
+		FileHelper.setFileData(this, result.getData(), getProperty(contentType));
+
+		// minified files are static assets, so compress them right away
+		CompressedFileCache.getInstance().precompress(this);
+
+		final PropertyMap changedProperties = new PropertyMap();
+
+		for (final Map.Entry<String, String> entry : result.getProperties().entrySet()) {
+
+			final PropertyKey propertyKey = StructrApp.getConfiguration().getPropertyKeyForJSONName(getClass(), entry.getKey(), false);
+			if (propertyKey != null) {
+
+				changedProperties.put(propertyKey, entry.getValue());
+			}
+		}
+
+		changedProperties.put(minificationKey, key);
+
+		setProperties(securityContext, changedProperties);
+	}
+
 	public int getMaxPosition () {
 		int max = -1;
 		for (final MinificationSource neighbor : getOutgoingRelationships(MinificationSource.class)) {
@@ -93,13 +157,25 @@ public abstract class AbstractMinifiedFile extends File {
 	public String getConcatenatedSource () throws FrameworkException, IOException {
 
 		final StringBuilder concatenatedSource = new StringBuilder();
+
+		for (final Source source : getMinificationSourceList()) {
+
+			concatenatedSource.append(source.getContent());
+		}
+
+		return concatenatedSource.toString();
+	}
+
+	public List<Source> getMinificationSourceList() throws FrameworkException, IOException {
+
+		final List<Source> sourceList = new ArrayList<>();
 		int cnt = 0;
 
 		for (MinificationSource rel : getSortedRelationships()) {
 
 			final FileBase src = rel.getTargetNode();
 
-			concatenatedSource.append(FileUtils.readFileToString(src.getFileOnDisk()));
+			sourceList.add(new Source(src.getProperty(FileBase.name), FileUtils.readFileToString(src.getFileOnDisk())));
 
 			// compact the relationships (if necessary)
 			if (rel.getProperty(MinificationSource.position) != cnt) {
@@ -109,7 +185,7 @@ public abstract class AbstractMinifiedFile extends File {
 			cnt++;
 		}
 
-		return concatenatedSource.toString();
+		return sourceList;
 	}
 
 	public List<MinificationSource> getSortedRelationships() {
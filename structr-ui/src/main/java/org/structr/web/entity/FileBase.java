@@ -69,7 +69,9 @@ import org.structr.core.property.StartNodes;
 import org.structr.core.property.StringProperty;
 import org.structr.files.cmis.config.StructrFileActions;
 import org.structr.schema.action.JavaScriptSource;
+import org.structr.web.common.CompressedFileCache;
 import org.structr.web.common.FileHelper;
+import org.structr.web.common.MinificationQueue;
 import org.structr.web.common.ImageHelper;
 import org.structr.web.entity.relation.Folders;
 import org.structr.web.entity.relation.MinificationSource;
@@ -183,6 +185,8 @@ public class FileBase extends AbstractFile implements Indexable, Linkable, JavaS
 
 			if (path != null) {
 
+				CompressedFileCache.getInstance().invalidate(this);
+
 				filePath = FileHelper.getFilePath(path);
 
 				java.io.File toDelete = new java.io.File(filePath);
@@ -201,6 +205,15 @@ public class FileBase extends AbstractFile implements Indexable, Linkable, JavaS
 
 	}
 
+	@Override
+	public void afterModification(SecurityContext securityContext) {
+
+		super.afterModification(securityContext);
+
+		// minification jobs must only be started when the new source data is committed
+		MinificationQueue.submitScheduled();
+	}
+
 	@Override
 	public void afterCreation(SecurityContext securityContext) {
 
@@ -360,12 +373,7 @@ public class FileBase extends AbstractFile implements Indexable, Linkable, JavaS
 
 				for (AbstractMinifiedFile minifiedFile : targets) {
 
-					try {
-						minifiedFile.minify();
-					} catch (IOException ex) {
-						logger.warn("Could not automatically update minification target: ".concat(minifiedFile.getName()), ex);
-					}
-
+					MinificationQueue.schedule(minifiedFile.getUuid());
 				}
 
 			}
@@ -444,6 +452,9 @@ public class FileBase extends AbstractFile implements Indexable, Linkable, JavaS
 
 							super.close();
 
+							// compressed variants of the previous content are outdated now
+							CompressedFileCache.getInstance().invalidate(FileBase.this);
+
 							final String _contentType = FileHelper.getContentMimeType(FileBase.this);
 
 							final PropertyMap changedProperties = new PropertyMap();
@@ -18,30 +18,27 @@
  */
 package org.structr.web.entity;
 
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import org.apache.commons.io.FileUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.structr.common.PropertyView;
 import org.structr.common.View;
-import org.structr.common.error.FrameworkException;
 import org.structr.core.graph.ModificationEvent;
 import org.structr.core.property.IntProperty;
 import org.structr.core.property.Property;
-import org.structr.web.common.FileHelper;
+import org.structr.web.common.MinificationQueue.Minifier;
+import org.structr.web.common.MinificationQueue.Result;
+import org.structr.web.common.MinificationQueue.Source;
 
 public class MinifiedCssFile extends AbstractMinifiedFile {
 
-	private static final Logger logger = LoggerFactory.getLogger(MinifiedCssFile.class.getName());
-
 	public static final Property<Integer> lineBreak = new IntProperty("lineBreak").defaultValue(-1);
 
 	public static final View defaultView = new View(MinifiedJavaScriptFile.class, PropertyView.Public, minificationSources, lineBreak);
@@ -55,26 +52,31 @@ public class MinifiedCssFile extends AbstractMinifiedFile {
 	}
 
 	@Override
-	public void minify() throws FrameworkException, IOException {
+	public String getMinificationSettings() {
+		return String.valueOf(getProperty(lineBreak));
+	}
 
-		logger.info("Running minify: {}", this.getUuid());
+	@Override
+	public Minifier getMinifier() {
 
-		FileHelper.setFileData(this, getConcatenatedSource().getBytes(), null);
+		final int selectedLineBreak = getProperty(lineBreak);
 
-		try (FileReader in = new FileReader(this.getFileOnDisk())) {
-			final java.io.File temp = java.io.File.createTempFile("structr-minify", ".tmp");
+		return (final List<Source> sources) -> {
 
-			try (OutputStreamWriter out = new OutputStreamWriter(new FileOutputStream(temp))) {
-				final CssCompressor compressor = new CssCompressor(in);
-				compressor.compress(out, getProperty(lineBreak));
-			}
+			final StringBuilder concatenatedSource = new StringBuilder();
+			for (final Source source : sources) {
 
-			FileHelper.setFileData(this, FileUtils.readFileToString(temp).getBytes(), null);
-		}
-	}
+				concatenatedSource.append(source.getContent());
+			}
 
+			final StringWriter out         = new StringWriter();
+			final CssCompressor compressor = new CssCompressor(new StringReader(concatenatedSource.toString()));
 
+			compressor.compress(out, selectedLineBreak);
 
+			return new Result(out.toString().getBytes(), Collections.emptyMap());
+		};
+	}
 
 	/*
 		Because of a dependency conflict with different Rhino versions and because Structr only uses
@@ -93,7 +95,7 @@ public class MinifiedCssFile extends AbstractMinifiedFile {
 	 * The copyrights embodied in the content of this file are licensed
 	 * by Yahoo! Inc. under the BSD (revised) open source license.
 	 */
-	private class CssCompressor {
+	private static class CssCompressor {
 
 		private StringBuffer srcsb = new StringBuffer();
 
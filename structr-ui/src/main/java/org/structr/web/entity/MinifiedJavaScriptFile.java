@@ -27,22 +27,22 @@ import com.google.javascript.jscomp.CompilerOptions;
 import com.google.javascript.jscomp.JSError;
 import com.google.javascript.jscomp.SourceFile;
 import com.google.javascript.jscomp.parsing.parser.util.format.SimpleFormat;
-import java.io.IOException;
 import java.util.ArrayList;
-import org.apache.commons.io.FileUtils;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.common.PropertyView;
 import org.structr.common.View;
-import org.structr.common.error.FrameworkException;
 import org.structr.core.graph.ModificationEvent;
 import org.structr.core.property.EnumProperty;
 import org.structr.core.property.Property;
-import org.structr.core.property.PropertyMap;
 import org.structr.core.property.StringProperty;
-import org.structr.web.common.FileHelper;
-import org.structr.web.entity.relation.MinificationSource;
+import org.structr.web.common.MinificationQueue.Minifier;
+import org.structr.web.common.MinificationQueue.Result;
+import org.structr.web.common.MinificationQueue.Source;
 
 public class MinifiedJavaScriptFile extends AbstractMinifiedFile {
 
@@ -63,65 +63,56 @@ public class MinifiedJavaScriptFile extends AbstractMinifiedFile {
 	}
 
 	@Override
-	public void minify() throws FrameworkException, IOException {
+	public String getMinificationSettings() {
+		return getProperty(optimizationLevel).name();
+	}
 
-		logger.info("Running minify: {}", this.getUuid());
+	@Override
+	public Minifier getMinifier() {
 
-		final Compiler compiler = new Compiler();
-		final CompilerOptions options = new CompilerOptions();
 		final CompilationLevel selectedLevel = getProperty(optimizationLevel);
-		selectedLevel.setOptionsForCompilationLevel(options);
-
-		compiler.setErrorManager(new BasicErrorManager() {
-			@Override
-			public void println(CheckLevel level, JSError error) {
-//				if (level != CheckLevel.OFF) {
-//					logger.log((level == CheckLevel.ERROR) ? Level.SEVERE : Level.WARNING, error.toString());
-//				}
-			}
-
-			@Override
-			protected void printSummary() {
-				if (getTypedPercent() > 0) {
-					if (getErrorCount() + getWarningCount() == 0) {
-						logger.info(SimpleFormat.format("%d error(s), %d warning(s), %.1f%% typed", getErrorCount(), getWarningCount(), getTypedPercent()));
-					} else {
-						logger.warn(SimpleFormat.format("%d error(s), %d warning(s), %.1f%% typed", getErrorCount(), getWarningCount(), getTypedPercent()));
-					}
-				} else if (getErrorCount() + getWarningCount() > 0) {
-					logger.warn(SimpleFormat.format("%d error(s), %d warning(s)", getErrorCount(), getWarningCount()));
-				}
-			}
-		});
-		compiler.compile(CommandLineRunner.getBuiltinExterns(options), getSourceFileList(), options);
 
-		FileHelper.setFileData(this, compiler.toSource().getBytes(), getProperty(contentType));
+		return (final List<Source> sources) -> {
 
-		final PropertyMap changedProperties = new PropertyMap();
-		changedProperties.put(warnings, StringUtils.join(compiler.getWarnings(), System.lineSeparator()));
-		changedProperties.put(errors, StringUtils.join(compiler.getErrors(), System.lineSeparator()));
-		setProperties(securityContext, changedProperties);
+			final Compiler compiler = new Compiler();
+			final CompilerOptions options = new CompilerOptions();
+			selectedLevel.setOptionsForCompilationLevel(options);
 
-	}
-
-	private ArrayList<SourceFile> getSourceFileList() throws FrameworkException, IOException {
+			compiler.setErrorManager(new BasicErrorManager() {
+				@Override
+				public void println(CheckLevel level, JSError error) {
+//					if (level != CheckLevel.OFF) {
+//						logger.log((level == CheckLevel.ERROR) ? Level.SEVERE : Level.WARNING, error.toString());
+//					}
+				}
 
-		ArrayList<SourceFile> sourceList = new ArrayList();
+				@Override
+				protected void printSummary() {
+					if (getTypedPercent() > 0) {
+						if (getErrorCount() + getWarningCount() == 0) {
+							logger.info(SimpleFormat.format("%d error(s), %d warning(s), %.1f%% typed", getErrorCount(), getWarningCount(), getTypedPercent()));
+						} else {
+							logger.warn(SimpleFormat.format("%d error(s), %d warning(s), %.1f%% typed", getErrorCount(), getWarningCount(), getTypedPercent()));
+						}
+					} else if (getErrorCount() + getWarningCount() > 0) {
+						logger.warn(SimpleFormat.format("%d error(s), %d warning(s)", getErrorCount(), getWarningCount()));
+					}
+				}
+			});
 
-		int cnt = 0;
-		for (MinificationSource rel : getSortedRelationships()) {
+			final List<SourceFile> sourceList = new ArrayList<>();
+			for (final Source source : sources) {
 
-			final FileBase src = rel.getTargetNode();
+				sourceList.add(SourceFile.fromCode(source.getName(), source.getContent()));
+			}
 
-			sourceList.add(SourceFile.fromCode(src.getProperty(FileBase.name), FileUtils.readFileToString(src.getFileOnDisk())));
+			compiler.compile(CommandLineRunner.getBuiltinExterns(options), sourceList, options);
 
-			// compact the relationships (if necessary)
-			if (rel.getProperty(MinificationSource.position) != cnt) {
-				rel.setProperties(securityContext, new PropertyMap(MinificationSource.position, cnt));
-			}
-			cnt++;
-		}
+			final Map<String, String> properties = new LinkedHashMap<>();
+			properties.put(warnings.jsonName(), StringUtils.join(compiler.getWarnings(), System.lineSeparator()));
+			properties.put(errors.jsonName(), StringUtils.join(compiler.getErrors(), System.lineSeparator()));
 
-		return sourceList;
+			return new Result(compiler.toSource().getBytes(), properties);
+		};
 	}
 }
@@ -47,6 +47,7 @@ import org.structr.core.property.PropertyMap;
 import org.structr.core.property.StringProperty;
 import org.structr.schema.NonIndexed;
 import org.structr.web.common.AsyncBuffer;
+import org.structr.web.common.ContentConversionCache;
 import org.structr.web.common.RenderContext;
 import org.structr.web.common.RenderContext.EditMode;
 import static org.structr.web.entity.dom.DOMNode.hideOnDetail;
@@ -85,7 +86,7 @@ public class Content extends DOMNode implements Text, NonIndexed, Favoritable {
 
 	public static final org.structr.common.View uiView                                   = new org.structr.common.View(Content.class, PropertyView.Ui,
 		content, contentType, parent, pageId, syncedNodes, sharedComponent, dataKey, restQuery, cypherQuery, xpathQuery, functionQuery,
-		hideOnDetail, hideOnIndex, showForLocales, hideForLocales, showConditions, hideConditions, isContent, isDOMNode, isFavoritable
+		hideOnDetail, hideOnIndex, showForLocales, hideForLocales, showConditions, hideConditions, renderCacheSeconds, isContent, isDOMNode, isFavoritable
 	);
 
 	public static final org.structr.common.View publicView                               = new org.structr.common.View(Content.class, PropertyView.Public,
@@ -359,8 +360,8 @@ public class Content extends DOMNode implements Text, NonIndexed, Favoritable {
 
 					try {
 
-						// apply adapter
-						_content = converter.adapt(_content);
+						// apply adapter, unchanged content is converted only once
+						_content = ContentConversionCache.getInstance().convert(_contentType, _content, converter);
 					} catch (FrameworkException fex) {
 
 						logger.warn("Unable to convert content: {}", fex.getMessage());
@@ -175,7 +175,7 @@ public class DOMElement extends DOMNode implements Element, NamedNodeMap, NonInd
 
 	public static final org.structr.common.View uiView = new org.structr.common.View(DOMElement.class, PropertyView.Ui, name, tag, pageId, path, parent, children, childrenIds, owner,
 		restQuery, cypherQuery, xpathQuery, functionQuery, partialUpdateKey, dataKey, syncedNodes, sharedComponent, sharedComponentConfiguration,
-		isDOMNode, renderDetails, hideOnIndex, hideOnDetail, showForLocales, hideForLocales, showConditions, hideConditions,
+		isDOMNode, renderDetails, hideOnIndex, hideOnDetail, showForLocales, hideForLocales, showConditions, hideConditions, renderCacheSeconds,
 		_reload, _confirm, _action, _attributes, _attr, _fieldName, _hide, _rawValue, _class, _id, mostUsedTagsProperty
 	);
 
@@ -380,6 +380,7 @@ public class DOMElement extends DOMNode implements Element, NamedNodeMap, NonInd
 						final DOMElement _syncedNode = (DOMElement) getProperty(sharedComponent);
 						if (_syncedNode != null) {
 
+							renderContext.recordDependency(_syncedNode);
 							rels.addAll(_syncedNode.getChildRelationships());
 						}
 					}
@@ -73,6 +73,7 @@ import org.structr.core.property.StringProperty;
 import org.structr.core.script.Scripting;
 import org.structr.web.common.AsyncBuffer;
 import org.structr.web.common.GraphDataSource;
+import org.structr.web.common.RenderCache;
 import org.structr.web.common.RenderContext;
 import org.structr.web.common.RenderContext.EditMode;
 import org.structr.web.common.StringRenderBuffer;
@@ -177,6 +178,7 @@ public abstract class DOMNode extends LinkedTreeNode<DOMChildren, DOMSiblings, D
 	public static final Property<String> hideForLocales               = new StringProperty("hideForLocales").indexed();
 	public static final Property<String> showConditions               = new StringProperty("showConditions").indexed();
 	public static final Property<String> hideConditions               = new StringProperty("hideConditions").indexed();
+	public static final Property<Integer> renderCacheSeconds          = new IntProperty("renderCacheSeconds");
 
 	public static final Property<DOMNode> parent                      = new StartNode<>("parent", DOMChildren.class);
 	public static final Property<String> parentId                     = new EntityIdProperty("parentId", parent);
@@ -228,7 +230,7 @@ public abstract class DOMNode extends LinkedTreeNode<DOMChildren, DOMSiblings, D
 	}
 
 	public static final Property[] rawProps = new Property[] {
-		dataKey, restQuery, cypherQuery, xpathQuery, functionQuery, hideOnIndex, hideOnDetail, showForLocales, hideForLocales, showConditions, hideConditions
+		dataKey, restQuery, cypherQuery, xpathQuery, functionQuery, hideOnIndex, hideOnDetail, showForLocales, hideForLocales, showConditions, hideConditions, renderCacheSeconds
 	};
 
 	// a simple cache for data-* properties
@@ -375,6 +377,71 @@ public abstract class DOMNode extends LinkedTreeNode<DOMChildren, DOMSiblings, D
 
 		final EditMode editMode = renderContext.getEditMode(securityContext.getUser(false));
 
+		renderContext.recordDependency(this);
+
+		final Integer _renderCacheSeconds = getProperty(renderCacheSeconds);
+		if (_renderCacheSeconds != null && _renderCacheSeconds > 0 && EditMode.NONE.equals(editMode)) {
+
+			renderCached(renderContext, depth, _renderCacheSeconds);
+
+		} else {
+
+			renderNode(renderContext, depth, editMode, details);
+		}
+	}
+
+	/**
+	 * Render this node using the render output cache. On a cache miss,
+	 * the node is rendered into a separate buffer, recording all nodes
+	 * and data objects it depends on.
+	 *
+	 * @param renderContext
+	 * @param depth
+	 * @param seconds the maximum age of the cached output
+	 * @throws FrameworkException
+	 */
+	private void renderCached(final RenderContext renderContext, final int depth, final int seconds) throws FrameworkException {
+
+		final RenderCache cache           = RenderCache.getInstance();
+		final String key                  = cache.getKey(this, renderContext, depth);
+		final RenderCache.Entry entry     = cache.get(key);
+
+		if (entry != null) {
+
+			entry.apply(renderContext);
+			return;
+		}
+
+		final RenderCache.Dependencies dependencies = cache.begin();
+		final RenderContext innerContext            = new RenderContext(renderContext);
+
+		innerContext.setDependencies(dependencies);
+		dependencies.addId(getUuid());
+
+		try {
+
+			renderNode(innerContext, depth, EditMode.NONE, renderContext.getDetailsDataObject());
+
+		} catch (Throwable t) {
+
+			cache.cancel(dependencies);
+			throw t;
+		}
+
+		final String output = StringUtils.join(innerContext.getBuffer().getQueue(), "");
+
+		renderContext.getBuffer().append(output);
+		renderContext.setInBody(innerContext.inBody());
+		renderContext.setAppLibRendered(innerContext.appLibRendered());
+		renderContext.recordDependencies(dependencies);
+
+		cache.put(key, dependencies, output, innerContext, seconds);
+	}
+
+	private void renderNode(final RenderContext renderContext, final int depth, final EditMode editMode, final GraphObject details) throws FrameworkException {
+
+		final boolean detailMode = details != null;
+
 		if (EditMode.RAW.equals(editMode) || EditMode.WIDGET.equals(editMode) || EditMode.DEPLOYMENT.equals(editMode)) {
 
 			renderContent(renderContext, depth);
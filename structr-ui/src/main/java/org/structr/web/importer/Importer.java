@@ -111,9 +111,6 @@ public class Importer {
 
 	private static final Map<String, String> contentTypeForExtension = new HashMap<>();
 
-	private static App app;
-	private static ConfigurationProvider config;
-
 	private final static String DATA_STRUCTR_PREFIX = "data-structr-";
 	private final static String DATA_META_PREFIX    = "data-structr-meta-";
 
@@ -128,6 +125,8 @@ public class Importer {
 
 	private final StringBuilder commentSource = new StringBuilder();
 	private final SecurityContext securityContext;
+	private final ConfigurationProvider config;
+	private final App app;
 	private final boolean publicVisible;
 	private final boolean authVisible;
 	private CommentHandler commentHandler;
@@ -161,6 +160,7 @@ public class Importer {
 		this.publicVisible   = publicVisible;
 		this.authVisible     = authVisible;
 		this.config          = StructrApp.getConfiguration();
+		this.app             = StructrApp.getInstance(securityContext);
 
 		if (address != null && !address.endsWith("/") && !address.endsWith(".html")) {
 			this.address = this.address.concat("/");
@@ -178,10 +178,6 @@ public class Importer {
 		}
 	}
 
-	private void init() {
-		app = StructrApp.getInstance(securityContext);
-	}
-
 	public void setCommentHandler(final CommentHandler handler) {
 		this.commentHandler = handler;
 	}
@@ -205,8 +201,6 @@ public class Importer {
 	 */
 	public boolean parse(final boolean fragment) throws FrameworkException {
 
-		init();
-
 		if (StringUtils.isNotBlank(code)) {
 
 			if (!isDeployment) {
@@ -40,6 +40,7 @@ import org.structr.core.graph.MaintenanceCommand;
 import org.structr.core.graph.NodeServiceCommand;
 import org.structr.core.graph.Tx;
 import org.structr.rest.resource.MaintenanceParameterResource;
+import org.structr.web.common.CompressedFileCache;
 import org.structr.web.entity.FileBase;
 
 //~--- classes ----------------------------------------------------------------
@@ -139,9 +140,11 @@ public class BulkMoveUnusedFilesCommand extends NodeServiceCommand implements Ma
 
 				final String filePath = file.toString();
 				final String relPath = StringUtils.stripStart(filePath.substring(filesLocation.length()), "/");
+				final String srcPath = CompressedFileCache.getSourcePath(relPath);
 
 				//System.out.println("files location: " + filesLocation + ", file path: " + filePath + ", rel path: " + relPath);
-				if (!filePaths.contains(relPath)) {
+				// compressed variants belong to their source file
+				if (!filePaths.contains(relPath) && (srcPath == null || !filePaths.contains(srcPath))) {
 
 					if (mode.equals("log")) {
 
@@ -28,20 +28,25 @@ import java.io.Reader;
 import java.io.Writer;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Pattern;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -92,6 +97,7 @@ import org.structr.web.entity.relation.UserFavoriteFavoritable;
 import org.structr.web.entity.relation.UserFavoriteFile;
 import org.structr.web.entity.relation.UserWorkDir;
 import org.structr.web.maintenance.deploy.ComponentImportVisitor;
+import org.structr.web.maintenance.deploy.DeploymentManifest;
 import org.structr.web.maintenance.deploy.FileImportVisitor;
 import org.structr.web.maintenance.deploy.PageImportVisitor;
 import org.structr.web.maintenance.deploy.SchemaImportVisitor;
@@ -105,6 +111,8 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 	private static final Logger logger                   = LoggerFactory.getLogger(DeployCommand.class.getName());
 	private static final Pattern pattern                 = Pattern.compile("[a-f0-9]{32}");
 	private static final Set<String> exportFileTypes     = new HashSet<>(Arrays.asList(new String[] { "File", "Folder", "Image" } ));
+	private static final int PAGE_BATCH_SIZE             = 20;
+	private static final int MAX_PARSER_THREADS          = 8;
 
 	static {
 
@@ -166,6 +174,9 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 		final Map<String, Object> templatesConf  = new HashMap<>();
 		final Map<String, Object> pagesConf      = new HashMap<>();
 		final Map<String, Object> filesConf      = new HashMap<>();
+		final Map<String, Long> timings          = new LinkedHashMap<>();
+		final boolean force                      = isTrue(attributes.get("force"));
+		long t0                                  = System.currentTimeMillis();
 
 		if (StringUtils.isBlank(path)) {
 
@@ -257,6 +268,8 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 			templatesConf.putAll(readConfigMap(templatesConfFile));
 		}
 
+		t0 = timing(timings, "configuration", t0);
+
 		// import schema
 		final Path schema = source.resolve("schema");
 		if (Files.exists(schema)) {
@@ -264,13 +277,15 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 			try {
 
 				info("Importing data from schema/ directory..");
-				Files.walkFileTree(schema, new SchemaImportVisitor(schema));
+				Files.walkFileTree(schema, new SchemaImportVisitor(schema, force));
 
 			} catch (IOException ioex) {
 				logger.warn("Exception while importing schema", ioex);
 			}
 		}
 
+		t0 = timing(timings, "schema", t0);
+
 		// import files
 		final Path files = source.resolve("files");
 		if (Files.exists(files)) {
@@ -285,58 +300,161 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 			}
 		}
 
-		// remove all DOMNodes from the database (clean webapp for import)
-		try (final Tx tx = app.tx(true, true, false)) {
+		t0 = timing(timings, "files", t0);
 
-			info("Removing pages, templates and components..");
-			for (final DOMNode node : app.nodeQuery(DOMNode.class)) {
+		final Path templates                      = source.resolve("templates");
+		final Path components                     = source.resolve("components");
+		final Path pages                          = source.resolve("pages");
+		final PageImportVisitor pageImportVisitor = new PageImportVisitor(pages, pagesConf);
+		final DeploymentManifest manifest         = DeploymentManifest.load();
+		final Set<String> templateNames           = getTemplateNames(templates);
+		final Map<String, String> unmodifiedPages = new LinkedHashMap<>();
+		final Map<String, String> pageHashes      = new LinkedHashMap<>();
+		final ExecutorService executor            = Executors.newFixedThreadPool(Math.max(1, Math.min(MAX_PARSER_THREADS, Runtime.getRuntime().availableProcessors())));
 
-				app.delete(node);
-			}
+		try {
 
-			tx.success();
-		}
+			// collect pages
+			if (Files.exists(pages)) {
 
-		// import templates, must be done before pages so the templates exist
-		final Path templates = source.resolve("templates");
-		if (Files.exists(templates)) {
+				try {
 
-			try {
+					Files.walkFileTree(pages, pageImportVisitor);
 
-				info("Importing templates..");
-				Files.walkFileTree(templates, new TemplateImportVisitor(templatesConf));
+					for (final Entry<String, Path> entry : pageImportVisitor.getPageFiles().entrySet()) {
 
-			} catch (IOException ioex) {
-				logger.warn("Exception while importing templates", ioex);
+						pageHashes.put(entry.getKey(), DeploymentManifest.hash(entry.getValue(), pagesConf.get(entry.getKey())));
+					}
+
+				} catch (IOException ioex) {
+					logger.warn("Exception while reading pages", ioex);
+				}
 			}
-		}
 
-		// import components, must be done before pages so the shared components exist
-		final Path components = source.resolve("components");
-		if (Files.exists(components)) {
+			// templates and shared components are only kept if neither the sources nor the nodes in the database have changed
+			final String sharedHash       = DeploymentManifest.hash(templates, components, templatesConfFile, componentsConfFile);
+			final boolean sharedUnchanged = !force && manifest.matches("shared", sharedHash) && manifest.matches("shared-nodes", getSharedNodesHash(app, templateNames));
 
-			try {
+			if (sharedUnchanged) {
 
-				info("Importing shared components..");
-				Files.walkFileTree(components, new ComponentImportVisitor(componentsConf));
+				try (final Tx tx = app.tx(true, true, false)) {
 
-			} catch (IOException ioex) {
-				logger.warn("Exception while importing shared components", ioex);
+					for (final Entry<String, String> entry : pageHashes.entrySet()) {
+
+						final String name = entry.getKey();
+						final Page page   = app.nodeQuery(Page.class).andName(name).getFirst();
+
+						// pages that were edited in the database since the last import are imported again
+						if (page != null && manifest.matches("page:" + name, entry.getValue()) && manifest.matches("page-id:" + name, page.getUuid()) && manifest.matches("page-nodes:" + name, getPageNodesHash(page))) {
+
+							unmodifiedPages.put(name, page.getUuid());
+						}
+					}
+
+					final Set<String> unmodifiedPageIds = new HashSet<>(unmodifiedPages.values());
+
+					info("Templates and shared components are unmodified, removing modified pages..");
+					for (final Page page : app.nodeQuery(Page.class).getAsList()) {
+
+						if (!(page instanceof ShadowDocument) && !unmodifiedPageIds.contains(page.getUuid())) {
+
+							deletePage(app, page, templateNames);
+						}
+					}
+
+					tx.success();
+				}
+
+			} else {
+
+				// remove all DOMNodes from the database (clean webapp for import)
+				try (final Tx tx = app.tx(true, true, false)) {
+
+					info("Removing pages, templates and components..");
+					for (final DOMNode node : app.nodeQuery(DOMNode.class)) {
+
+						app.delete(node);
+					}
+
+					tx.success();
+				}
+
+				// import templates, must be done before pages so the templates exist
+				if (Files.exists(templates)) {
+
+					try {
+
+						info("Importing templates..");
+						Files.walkFileTree(templates, new TemplateImportVisitor(templatesConf));
+
+					} catch (IOException ioex) {
+						logger.warn("Exception while importing templates", ioex);
+					}
+				}
+
+				// import components, must be done before pages so the shared components exist
+				if (Files.exists(components)) {
+
+					try {
+
+						final ComponentImportVisitor componentImportVisitor = new ComponentImportVisitor(componentsConf);
+
+						info("Importing shared components..");
+						Files.walkFileTree(components, componentImportVisitor);
+
+						componentImportVisitor.importComponents(executor);
+
+					} catch (IOException ioex) {
+						logger.warn("Exception while importing shared components", ioex);
+					}
+				}
 			}
-		}
 
-		// import pages
-		final Path pages = source.resolve("pages");
-		if (Files.exists(pages)) {
+			t0 = timing(timings, "templates and components", t0);
 
-			try {
+			// import pages
+			final List<String> modifiedPages = new LinkedList<>(pageHashes.keySet());
+			modifiedPages.removeAll(unmodifiedPages.keySet());
 
-				info("Importing pages..");
-				Files.walkFileTree(pages, new PageImportVisitor(pages, pagesConf));
+			info("Importing {} pages, {} pages are unmodified..", modifiedPages.size(), unmodifiedPages.size());
+			final Map<String, String> importedPages = pageImportVisitor.importPages(modifiedPages, executor, PAGE_BATCH_SIZE);
 
-			} catch (IOException ioex) {
-				logger.warn("Exception while importing pages", ioex);
+			t0 = timing(timings, "pages", t0);
+
+			// record the state of this import
+			manifest.removeAll("page:");
+			manifest.removeAll("page-id:");
+			manifest.removeAll("page-nodes:");
+
+			importedPages.putAll(unmodifiedPages);
+
+			try (final Tx tx = app.tx()) {
+
+				for (final Entry<String, String> entry : importedPages.entrySet()) {
+
+					final Page page = app.get(Page.class, entry.getValue());
+					if (page != null) {
+
+						manifest.put("page:" + entry.getKey(), pageHashes.get(entry.getKey()));
+						manifest.put("page-id:" + entry.getKey(), entry.getValue());
+						manifest.put("page-nodes:" + entry.getKey(), getPageNodesHash(page));
+					}
+				}
+
+				tx.success();
 			}
+
+			manifest.put("shared", sharedHash);
+			manifest.put("shared-nodes", getSharedNodesHash(app, templateNames));
+			manifest.save();
+
+		} catch (IOException ioex) {
+
+			logger.warn("Exception while importing pages", ioex);
+
+		} finally {
+
+			executor.shutdownNow();
 		}
 
 		// apply configuration
@@ -357,7 +475,150 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 			}
 		}
 
-		info("Import from {} done.", source.toString());
+		timing(timings, "post-deploy", t0);
+
+		final StringBuilder buf = new StringBuilder();
+		for (final Entry<String, Long> entry : timings.entrySet()) {
+
+			if (buf.length() > 0) {
+				buf.append(", ");
+			}
+
+			buf.append(entry.getKey()).append(": ").append(entry.getValue()).append(" ms");
+		}
+
+		info("Import from {} done ({}).", source.toString(), buf.toString());
+	}
+
+	private long timing(final Map<String, Long> timings, final String phase, final long start) {
+
+		final long now = System.currentTimeMillis();
+
+		timings.put(phase, now - start);
+
+		return now;
+	}
+
+	private boolean isTrue(final Object value) {
+		return value != null && Boolean.valueOf(value.toString());
+	}
+
+	private Set<String> getTemplateNames(final Path templates) {
+
+		final Set<String> names = new HashSet<>();
+
+		if (Files.exists(templates)) {
+
+			try (final DirectoryStream<Path> stream = Files.newDirectoryStream(templates, "*.html")) {
+
+				for (final Path file : stream) {
+
+					names.add(StringUtils.substringBeforeLast(file.getFileName().toString(), ".html"));
+				}
+
+			} catch (IOException ioex) {
+				logger.warn("Exception while reading templates", ioex);
+			}
+		}
+
+		return names;
+	}
+
+	private boolean isImportedTemplate(final DOMNode node, final Set<String> templateNames) {
+
+		return node instanceof Template
+			&& node.getProperty(DOMNode.sharedComponent) == null
+			&& (templateNames.contains(node.getUuid()) || templateNames.contains(node.getProperty(AbstractNode.name)));
+	}
+
+	/**
+	 * Deletes the given page and its elements. Templates imported from the
+	 * templates/ directory are only detached from the page, so the pages
+	 * that are imported afterwards can use them again.
+	 */
+	private void deletePage(final App app, final Page page, final Set<String> templateNames) throws FrameworkException {
+
+		for (final DOMNode element : page.getProperty(Page.elements)) {
+
+			if (isImportedTemplate(element, templateNames)) {
+
+				element.setProperty(DOMNode.ownerDocument, null);
+
+			} else {
+
+				app.delete(element);
+			}
+		}
+
+		app.delete(page);
+	}
+
+	/**
+	 * Computes a hash of the UUIDs of all shared components and imported
+	 * templates, to detect changes in the database since the last import.
+	 */
+	private String getSharedNodesHash(final App app, final Set<String> templateNames) throws FrameworkException {
+
+		final List<String> ids = new LinkedList<>();
+
+		try (final Tx tx = app.tx()) {
+
+			for (final ShadowDocument shadowDocument : app.nodeQuery(ShadowDocument.class).getAsList()) {
+
+				for (final DOMNode element : shadowDocument.getProperty(Page.elements)) {
+
+					ids.add(getNodeState(element));
+				}
+			}
+
+			for (final Template template : app.nodeQuery(Template.class).getAsList()) {
+
+				if (isImportedTemplate(template, templateNames)) {
+
+					ids.add(getNodeState(template));
+				}
+			}
+
+			tx.success();
+		}
+
+		Collections.sort(ids);
+
+		return DeploymentManifest.hash(ids);
+	}
+
+	/**
+	 * Hashes the DOM tree of the given page in document order, so that
+	 * any modification of a node (which updates its last modification
+	 * date) and any added, removed or moved node changes the hash.
+	 */
+	private String getPageNodesHash(final Page page) {
+
+		final List<String> nodes = new LinkedList<>();
+
+		collectNodeStates(page, nodes);
+
+		return DeploymentManifest.hash(nodes);
+	}
+
+	private void collectNodeStates(final DOMNode node, final List<String> nodes) {
+
+		nodes.add(getNodeState(node));
+
+		for (final DOMNode child : node.getProperty(DOMNode.children)) {
+
+			collectNodeStates(child, nodes);
+		}
+
+		// close the child list so that moving a node to another level changes the hash
+		nodes.add("/");
+	}
+
+	private String getNodeState(final DOMNode node) {
+
+		final Date lastModified = node.getProperty(AbstractNode.lastModifiedDate);
+
+		return node.getUuid() + ":" + (lastModified != null ? lastModified.getTime() : 0L);
 	}
 
 	private void doExport(final Map<String, Object> attributes) throws FrameworkException {
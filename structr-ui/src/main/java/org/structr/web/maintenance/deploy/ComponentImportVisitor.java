@@ -25,7 +25,12 @@ import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,9 +40,7 @@ import org.structr.core.GraphObject;
 import org.structr.core.app.App;
 import org.structr.core.app.StructrApp;
 import org.structr.core.entity.AbstractNode;
-import static org.structr.core.graph.NodeInterface.name;
 import org.structr.core.graph.Tx;
-import org.structr.core.property.PropertyKey;
 import org.structr.core.property.PropertyMap;
 import org.structr.web.entity.dom.DOMNode;
 import org.structr.web.entity.dom.ShadowDocument;
@@ -53,6 +56,7 @@ public class ComponentImportVisitor implements FileVisitor<Path> {
 
 	private static final Logger logger       = LoggerFactory.getLogger(ComponentImportVisitor.class.getName());
 
+	private final List<Path> componentFiles   = new LinkedList<>();
 	private Map<String, Object> configuration = null;
 	private SecurityContext securityContext   = null;
 	private App app                           = null;
@@ -77,14 +81,8 @@ public class ComponentImportVisitor implements FileVisitor<Path> {
 			final String fileName = file.getFileName().toString();
 			if (fileName.endsWith(".html")) {
 
-				try {
-
-					createComponent(file, fileName);
-
-				} catch (FrameworkException fex) {
-					fex.printStackTrace();
-					logger.warn("Exception while importing shared component {}: {}", new Object[] { name, fex.getMessage() });
-				}
+				// components are imported in importComponents()
+				componentFiles.add(file);
 			}
 
 		} else {
@@ -107,6 +105,34 @@ public class ComponentImportVisitor implements FileVisitor<Path> {
 		return FileVisitResult.CONTINUE;
 	}
 
+	/**
+	 * Parses the components found by this visitor with the given executor
+	 * and creates them in the order of the file tree walk, so components
+	 * can reference components that were imported before.
+	 *
+	 * @param executor the executor for parsing
+	 */
+	public void importComponents(final ExecutorService executor) {
+
+		final List<Future<ParsedComponent>> futures = new LinkedList<>();
+
+		for (final Path file : componentFiles) {
+
+			futures.add(executor.submit(() -> parseComponent(file)));
+		}
+
+		for (final Future<ParsedComponent> future : futures) {
+
+			try {
+
+				createComponent(future.get());
+
+			} catch (InterruptedException | ExecutionException | FrameworkException ex) {
+				logger.warn("Exception while importing shared component: {}", ex.getMessage());
+			}
+		}
+	}
+
 	// ----- private methods -----
 	private DOMNode getExistingComponent(final String name) {
 
@@ -172,23 +198,51 @@ public class ComponentImportVisitor implements FileVisitor<Path> {
 		return null;
 	}
 
-	private <T> T get(final PropertyMap src, final PropertyKey<T> key, final T defaultValue) {
+	private ParsedComponent parseComponent(final Path file) throws IOException, FrameworkException {
+
+		final String fileName           = file.getFileName().toString();
+		final String name               = StringUtils.substringBeforeLast(fileName, ".html");
+		final Map<String, Object> data  = getRawPropertiesForComponent(name);
+		final String src                = new String (Files.readAllBytes(file),Charset.forName("UTF-8"));
+		final boolean visibleToPublic   = getRaw(data, GraphObject.visibleToPublicUsers.jsonName(), false);
+		final boolean visibleToAuth     = getRaw(data, GraphObject.visibleToAuthenticatedUsers.jsonName(), false);
+		final Importer importer         = new Importer(securityContext, src, null, name, visibleToPublic, visibleToAuth);
+
+		// enable literal import of href attributes
+		importer.setIsDeployment(true);
+
+		return new ParsedComponent(name, fileName, importer, importer.parse(false));
+	}
+
+	private Map<String, Object> getRawPropertiesForComponent(final String name) {
+
+		final Object data = configuration.get(name);
+		if (data != null && data instanceof Map) {
+
+			return (Map<String, Object>)data;
+		}
+
+		return null;
+	}
+
+	private <T> T getRaw(final Map<String, Object> src, final String key, final T defaultValue) {
 
 		if (src != null) {
 
-			final T t = src.get(key);
-			if (t != null) {
+			final Object value = src.get(key);
+			if (value != null && defaultValue.getClass().isAssignableFrom(value.getClass())) {
 
-				return t;
+				return (T)value;
 			}
 		}
 
 		return defaultValue;
 	}
 
-	private void createComponent(final Path file, final String fileName) throws IOException, FrameworkException {
+	private void createComponent(final ParsedComponent parsedComponent) throws FrameworkException {
 
-		final String name               = StringUtils.substringBeforeLast(fileName, ".html");
+		final String name               = parsedComponent.name;
+		final Importer importer         = parsedComponent.importer;
 		final DOMNode existingComponent = getExistingComponent(name);
 		final boolean byId              = DeployCommand.isUuid(name);
 
@@ -209,18 +263,9 @@ public class ComponentImportVisitor implements FileVisitor<Path> {
 				}
 			}
 
-			final String src        = new String (Files.readAllBytes(file),Charset.forName("UTF-8"));
-			boolean visibleToPublic = get(properties, GraphObject.visibleToPublicUsers, false);
-			boolean visibleToAuth   = get(properties, GraphObject.visibleToAuthenticatedUsers, false);
-			final Importer importer = new Importer(securityContext, src, null, name, visibleToPublic, visibleToAuth);
-
-			// enable literal import of href attributes
-			importer.setIsDeployment(true);
+			if (parsedComponent.parseOk) {
 
-			final boolean parseOk = importer.parse(false);
-			if (parseOk) {
-
-				logger.info("Importing component {} from {}..", new Object[] { name, fileName } );
+				logger.info("Importing component {} from {}..", new Object[] { name, parsedComponent.fileName } );
 
 				// set comment handler that can parse and apply special Structr comments in HTML source files
 				importer.setCommentHandler(new DeploymentCommentHandler());
@@ -253,4 +298,21 @@ public class ComponentImportVisitor implements FileVisitor<Path> {
 			tx.success();
 		}
 	}
+
+	// ----- nested classes -----
+	private static class ParsedComponent {
+
+		private Importer importer = null;
+		private String fileName   = null;
+		private String name       = null;
+		private boolean parseOk   = false;
+
+		public ParsedComponent(final String name, final String fileName, final Importer importer, final boolean parseOk) {
+
+			this.name     = name;
+			this.fileName = fileName;
+			this.importer = importer;
+			this.parseOk  = parseOk;
+		}
+	}
 }
@@ -0,0 +1,232 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.maintenance.deploy;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.core.Services;
+import org.structr.core.app.StructrApp;
+
+/**
+ * Content hashes of the last deployment import.
+ *
+ * The manifest is stored in <code>deployment/manifest.json</code> in the
+ * base path of this instance and allows the deployment import to skip
+ * entries that did not change since the last import.
+ */
+public class DeploymentManifest {
+
+	private static final Logger logger        = LoggerFactory.getLogger(DeploymentManifest.class.getName());
+	private static final Gson gson            = new GsonBuilder().setPrettyPrinting().create();
+
+	private final Map<String, String> entries = new TreeMap<>();
+	private Path path                         = null;
+
+	private DeploymentManifest(final Path path) {
+		this.path = path;
+	}
+
+	public static DeploymentManifest load() {
+
+		final Path path                   = Paths.get(StructrApp.getConfigurationValue(Services.BASE_PATH, "."), "deployment", "manifest.json");
+		final DeploymentManifest manifest = new DeploymentManifest(path);
+
+		if (Files.exists(path)) {
+
+			try (final Reader reader = Files.newBufferedReader(path, Charset.forName("utf-8"))) {
+
+				final Map<String, Object> data = gson.fromJson(reader, Map.class);
+				if (data != null) {
+
+					for (final Map.Entry<String, Object> entry : data.entrySet()) {
+
+						manifest.entries.put(entry.getKey(), String.valueOf(entry.getValue()));
+					}
+				}
+
+			} catch (Throwable t) {
+				logger.warn("Unable to read deployment manifest {}: {}", path, t.getMessage());
+			}
+		}
+
+		return manifest;
+	}
+
+	public void save() {
+
+		try {
+
+			Files.createDirectories(path.getParent());
+
+			try (final Writer writer = Files.newBufferedWriter(path, Charset.forName("utf-8"))) {
+
+				gson.toJson(entries, writer);
+			}
+
+		} catch (IOException ioex) {
+			logger.warn("Unable to write deployment manifest {}: {}", path, ioex.getMessage());
+		}
+	}
+
+	public String get(final String key) {
+		return entries.get(key);
+	}
+
+	public void put(final String key, final String value) {
+		entries.put(key, value);
+	}
+
+	public void remove(final String key) {
+		entries.remove(key);
+	}
+
+	public boolean matches(final String key, final String value) {
+		return value != null && value.equals(entries.get(key));
+	}
+
+	/**
+	 * Removes all entries whose key starts with the given prefix.
+	 *
+	 * @param prefix
+	 */
+	public void removeAll(final String prefix) {
+		entries.keySet().removeIf(key -> key.startsWith(prefix));
+	}
+
+	// ----- public static methods -----
+	/**
+	 * Computes a SHA-256 hash of the given files. Directories are included
+	 * recursively, with the relative path of each file as part of the hash.
+	 * Missing files are ignored.
+	 *
+	 * @param paths
+	 * @return the hash
+	 * @throws IOException
+	 */
+	public static String hash(final Path... paths) throws IOException {
+
+		final MessageDigest digest = DigestUtils.getSha256Digest();
+
+		for (final Path path : paths) {
+
+			if (Files.isDirectory(path)) {
+
+				final List<Path> files;
+
+				try (final Stream<Path> stream = Files.walk(path)) {
+					files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+				}
+
+				for (final Path file : files) {
+
+					update(digest, path.relativize(file).toString());
+					update(digest, file);
+				}
+
+			} else if (Files.exists(path)) {
+
+				update(digest, path.getFileName().toString());
+				update(digest, path);
+			}
+		}
+
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	/**
+	 * Computes a SHA-256 hash of the given file and values.
+	 *
+	 * @param file
+	 * @param values
+	 * @return the hash
+	 * @throws IOException
+	 */
+	public static String hash(final Path file, final Object... values) throws IOException {
+
+		final MessageDigest digest = DigestUtils.getSha256Digest();
+
+		update(digest, file);
+
+		for (final Object value : values) {
+			update(digest, value != null ? gson.toJson(value) : "");
+		}
+
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	/**
+	 * Computes a SHA-256 hash of the given values in the given order.
+	 *
+	 * @param values
+	 * @return the hash
+	 */
+	public static String hash(final Collection<String> values) {
+
+		final MessageDigest digest = DigestUtils.getSha256Digest();
+
+		for (final String value : values) {
+			update(digest, value);
+		}
+
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	// ----- private static methods -----
+	private static void update(final MessageDigest digest, final Path file) throws IOException {
+
+		final byte[] buffer = new byte[8192];
+
+		try (final InputStream in = Files.newInputStream(file)) {
+
+			int count = 0;
+
+			while ((count = in.read(buffer)) > 0) {
+				digest.update(buffer, 0, count);
+			}
+		}
+
+		digest.update((byte)0);
+	}
+
+	private static void update(final MessageDigest digest, final String value) {
+
+		digest.update(value.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte)0);
+	}
+}
@@ -25,7 +25,15 @@ import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,9 +42,7 @@ import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
 import org.structr.core.app.App;
 import org.structr.core.app.StructrApp;
-import static org.structr.core.graph.NodeInterface.name;
 import org.structr.core.graph.Tx;
-import org.structr.core.property.PropertyKey;
 import org.structr.core.property.PropertyMap;
 import org.structr.web.common.FileHelper;
 import org.structr.web.entity.dom.DOMNode;
@@ -53,6 +59,7 @@ public class PageImportVisitor implements FileVisitor<Path> {
 	private static final Logger logger        = LoggerFactory.getLogger(PageImportVisitor.class.getName());
 	private static final String DoctypeString = "<!DOCTYPE";
 
+	private final Map<String, Path> pageFiles      = new LinkedHashMap<>();
 	private Map<String, Object> pagesConfiguration = null;
 	private SecurityContext securityContext        = null;
 	private Path basePath                          = null;
@@ -85,13 +92,8 @@ public class PageImportVisitor implements FileVisitor<Path> {
 				final String fileName = file.getFileName().toString();
 				if (fileName.endsWith(".html")) {
 
-					try {
-
-						createPage(file, fileName);
-
-					} catch (FrameworkException fex) {
-						logger.warn("Exception while importing page {}: {}", new Object[] { name, fex.getMessage() });
-					}
+					// pages are imported in importPages()
+					pageFiles.put(StringUtils.substringBeforeLast(fileName, ".html"), file);
 				}
 			}
 
@@ -115,7 +117,119 @@ public class PageImportVisitor implements FileVisitor<Path> {
 		return FileVisitResult.CONTINUE;
 	}
 
+	/**
+	 * Returns the page files found by this visitor, in the order of the
+	 * file tree walk, by page name.
+	 *
+	 * @return the page files
+	 */
+	public Map<String, Path> getPageFiles() {
+		return pageFiles;
+	}
+
+	/**
+	 * Parses the given pages with the given executor and creates them in
+	 * transactions of up to <code>batchSize</code> pages. If a batch fails,
+	 * its pages are parsed again and created in separate transactions.
+	 *
+	 * @param names the names of the pages to import
+	 * @param executor the executor for parsing
+	 * @param batchSize the maximum number of pages per transaction
+	 *
+	 * @return the UUIDs of the imported pages by page name
+	 */
+	public Map<String, String> importPages(final Collection<String> names, final ExecutorService executor, final int batchSize) {
+
+		final Map<String, String> importedPages = new LinkedHashMap<>();
+		final List<Future<ParsedPage>> futures  = new LinkedList<>();
+
+		for (final String name : names) {
+
+			final Path file = pageFiles.get(name);
+			if (file != null) {
+
+				futures.add(executor.submit(() -> parsePage(file, name)));
+			}
+		}
+
+		final List<ParsedPage> batch = new LinkedList<>();
+
+		for (final Future<ParsedPage> future : futures) {
+
+			try {
+
+				final ParsedPage parsedPage = future.get();
+				if (parsedPage != null) {
+
+					batch.add(parsedPage);
+				}
+
+			} catch (InterruptedException | ExecutionException ex) {
+				logger.warn("Exception while parsing page: {}", ex.getMessage());
+			}
+
+			if (batch.size() >= batchSize) {
+
+				createPages(batch, importedPages);
+				batch.clear();
+			}
+		}
+
+		createPages(batch, importedPages);
+
+		return importedPages;
+	}
+
 	// ----- private methods -----
+	private void createPages(final List<ParsedPage> batch, final Map<String, String> importedPages) {
+
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		final Map<String, String> created = new LinkedHashMap<>();
+
+		try (final Tx tx = app.tx(true, false, false)) {
+
+			for (final ParsedPage parsedPage : batch) {
+
+				created.put(parsedPage.name, createPage(parsedPage));
+			}
+
+			tx.success();
+
+		} catch (Throwable t) {
+
+			if (batch.size() == 1) {
+
+				logger.warn("Exception while importing page {}: {}", new Object[] { batch.get(0).name, t.getMessage() });
+				return;
+			}
+
+			logger.info("Exception while importing a batch of {} pages, retrying one by one: {}", batch.size(), t.getMessage());
+
+			for (final ParsedPage parsedPage : batch) {
+
+				try {
+
+					// importers can only be used once, so the page must be parsed again
+					final ParsedPage reparsed = parsePage(pageFiles.get(parsedPage.name), parsedPage.name);
+					if (reparsed != null) {
+
+						createPages(Collections.singletonList(reparsed), importedPages);
+					}
+
+				} catch (IOException | FrameworkException ex) {
+					logger.warn("Exception while parsing page {}: {}", new Object[] { parsedPage.name, ex.getMessage() });
+				}
+			}
+
+			return;
+		}
+
+		importedPages.putAll(created);
+	}
+
 	private Page getExistingPage(final String name) throws FrameworkException {
 		return StructrApp.getInstance().nodeQuery(Page.class).andName(name).getFirst();
 	}
@@ -150,20 +264,6 @@ public class PageImportVisitor implements FileVisitor<Path> {
 		return null;
 	}
 
-	private <T> T get(final PropertyMap src, final PropertyKey<T> key, final T defaultValue) {
-
-		if (src != null) {
-
-			final T t = src.get(key);
-			if (t != null) {
-
-				return t;
-			}
-		}
-
-		return defaultValue;
-	}
-
 	private void createFolder(final Path file) {
 
 		try (final Tx tx = app.tx(true, false, false)) {
@@ -178,83 +278,102 @@ public class PageImportVisitor implements FileVisitor<Path> {
 		}
 	}
 
-	private void createPage(final Path file, final String fileName) throws IOException, FrameworkException {
+	private ParsedPage parsePage(final Path file, final String name) throws IOException, FrameworkException {
 
-		final String name = StringUtils.substringBeforeLast(fileName, ".html");
+		final Map<String, Object> data = getRawPropertiesForPage(name);
+		final String src               = new String(Files.readAllBytes(file),Charset.forName("UTF-8"));
+		final String contentType       = getRaw(data, Page.contentType.jsonName(), "text/html");
+		final boolean visibleToPublic  = getRaw(data, GraphObject.visibleToPublicUsers.jsonName(), false);
+		final boolean visibleToAuth    = getRaw(data, GraphObject.visibleToAuthenticatedUsers.jsonName(), false);
+		final Importer importer        = new Importer(securityContext, src, null, name, visibleToPublic, visibleToAuth);
 
-		try (final Tx tx = app.tx(true, false, false)) {
+		// enable literal import of href attributes
+		importer.setIsDeployment(true);
 
-			final PropertyMap properties = getPropertiesForPage(name);
-			final Page existingPage      = getExistingPage(name);
+		// Import documents that start with a <!DOCTYPE> definition are treated as HTML
+		// documents, all others are assumed to be templates or shared components.
+		final boolean fullPage = StringUtils.startsWithIgnoreCase(src, DoctypeString) && "text/html".equals(contentType);
 
-			if (existingPage != null) {
+		if (importer.parse(!fullPage)) {
 
-				deletePage(app, name);
-			}
+			return new ParsedPage(name, file.getFileName().toString(), importer, fullPage);
+		}
 
-			final String src         = new String(Files.readAllBytes(file),Charset.forName("UTF-8"));
-			final String contentType = get(properties, Page.contentType, "text/html");
+		return null;
+	}
 
-			boolean visibleToPublic = get(properties, GraphObject.visibleToPublicUsers, false);
-			boolean visibleToAuth   = get(properties, GraphObject.visibleToAuthenticatedUsers, false);
-			final Importer importer = new Importer(securityContext, src, null, name, visibleToPublic, visibleToAuth);
+	private String createPage(final ParsedPage parsedPage) throws FrameworkException {
 
-			// enable literal import of href attributes
-			importer.setIsDeployment(true);
+		final String name            = parsedPage.name;
+		final Importer importer      = parsedPage.importer;
+		final PropertyMap properties = getPropertiesForPage(name);
+		final Page existingPage      = getExistingPage(name);
 
-			if (StringUtils.startsWithIgnoreCase(src, DoctypeString) && "text/html".equals(contentType)) {
+		if (existingPage != null) {
 
-				// Import document starts with <!DOCTYPE> definition, so we treat it as an HTML
-				// document and use the Structr HTML importer.
+			deletePage(app, name);
+		}
 
-				final boolean parseOk = importer.parse();
-				if (parseOk) {
+		logger.info("Importing page {} from {}..", new Object[] { name, parsedPage.fileName } );
 
-					logger.info("Importing page {} from {}..", new Object[] { name, fileName } );
+		// set comment handler that can parse and apply special Structr comments in HTML source files
+		importer.setCommentHandler(new DeploymentCommentHandler());
 
-					// set comment handler that can parse and apply special Structr comments in HTML source files
-					importer.setCommentHandler(new DeploymentCommentHandler());
+		final Page newPage;
 
-					// parse page
-					final Page newPage = importer.readPage();
+		if (parsedPage.fullPage) {
 
-					// remove duplicate elements
-					fixDocumentElements(newPage);
+			// parse page
+			newPage = importer.readPage();
 
-					// store properties from pages.json if present
-					if (properties != null) {
-						newPage.setProperties(securityContext, properties);
-					}
-				}
+			// remove duplicate elements
+			fixDocumentElements(newPage);
 
-			} else {
+			// store properties from pages.json if present
+			if (properties != null) {
+				newPage.setProperties(securityContext, properties);
+			}
 
-				// Import document does NOT start with a <!DOCTYPE> definition, so we assume a
-				// template or shared component that we need to parse.
+		} else {
 
-				final boolean parseOk = importer.parse(true);
-				if (parseOk) {
+			// parse page
+			newPage = app.create(Page.class, name);
 
-					logger.info("Importing page {} from {}..", new Object[] { name, fileName } );
+			// store properties from pages.json if present
+			if (properties != null) {
+				newPage.setProperties(securityContext, properties);
+			}
 
-					// set comment handler that can parse and apply special Structr comments in HTML source files
-					importer.setCommentHandler(new DeploymentCommentHandler());
+			// add children
+			importer.createChildNodes(newPage, newPage);
+		}
 
-					// parse page
-					final Page newPage = app.create(Page.class, name);
+		return newPage.getUuid();
+	}
 
-					// store properties from pages.json if present
-					if (properties != null) {
-						newPage.setProperties(securityContext, properties);
-					}
+	private Map<String, Object> getRawPropertiesForPage(final String name) {
 
-					// add children
-					importer.createChildNodes(newPage, newPage);
-				}
-			}
+		final Object data = pagesConfiguration.get(name);
+		if (data != null && data instanceof Map) {
 
-			tx.success();
+			return (Map<String, Object>)data;
 		}
+
+		return null;
+	}
+
+	private <T> T getRaw(final Map<String, Object> src, final String key, final T defaultValue) {
+
+		if (src != null) {
+
+			final Object value = src.get(key);
+			if (value != null && defaultValue.getClass().isAssignableFrom(value.getClass())) {
+
+				return (T)value;
+			}
+		}
+
+		return defaultValue;
 	}
 
 	/**
@@ -301,4 +420,21 @@ public class PageImportVisitor implements FileVisitor<Path> {
 			}
 		}
 	}
+
+	// ----- nested classes -----
+	private static class ParsedPage {
+
+		private Importer importer = null;
+		private String fileName   = null;
+		private String name       = null;
+		private boolean fullPage  = false;
+
+		public ParsedPage(final String name, final String fileName, final Importer importer, final boolean fullPage) {
+
+			this.name     = name;
+			this.fileName = fileName;
+			this.importer = importer;
+			this.fullPage = fullPage;
+		}
+	}
 }
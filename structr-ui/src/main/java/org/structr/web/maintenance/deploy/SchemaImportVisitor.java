@@ -24,19 +24,32 @@ import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.structr.core.app.App;
 import org.structr.core.app.StructrApp;
+import org.structr.core.graph.Tx;
 import org.structr.schema.export.StructrSchema;
+import org.structr.schema.json.JsonSchema;
 
 /**
  *
  */
 public class SchemaImportVisitor implements FileVisitor<Path> {
 
+	private static final Logger logger = LoggerFactory.getLogger(SchemaImportVisitor.class.getName());
+
 	private Path basePath = null;
+	private boolean force = false;
 
 	public SchemaImportVisitor(final Path basePath) {
+		this(basePath, false);
+	}
+
+	public SchemaImportVisitor(final Path basePath, final boolean force) {
+
 		this.basePath = basePath;
+		this.force    = force;
 	}
 
 	@Override
@@ -56,7 +69,16 @@ public class SchemaImportVisitor implements FileVisitor<Path> {
 
 				try (final FileReader reader = new FileReader(file.toFile())) {
 
-					StructrSchema.replaceDatabaseSchema(app, StructrSchema.createFromSource(reader));
+					final JsonSchema schema = StructrSchema.createFromSource(reader);
+
+					if (!force && isUnchanged(app, schema)) {
+
+						logger.info("Schema in {} is unmodified, skipping schema import.", fileName);
+
+					} else {
+
+						StructrSchema.replaceDatabaseSchema(app, schema);
+					}
 
 				} catch (Throwable t) {
 					t.printStackTrace();
@@ -77,4 +99,21 @@ public class SchemaImportVisitor implements FileVisitor<Path> {
 		return FileVisitResult.CONTINUE;
 	}
 
+	// ----- private methods -----
+	private boolean isUnchanged(final App app, final JsonSchema schema) {
+
+		try (final Tx tx = app.tx()) {
+
+			final boolean unchanged = schema.toString().equals(StructrSchema.createFromDatabase(app).toString());
+
+			tx.success();
+
+			return unchanged;
+
+		} catch (Throwable t) {
+			logger.warn("Unable to compare schema with database schema: {}", t.getMessage());
+		}
+
+		return false;
+	}
 }
@@ -18,6 +18,7 @@
  */
 package org.structr.web.servlet;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
@@ -31,6 +32,7 @@ import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -55,8 +57,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.metrics.Histogram;
+import org.structr.api.metrics.MetricFamily;
+import org.structr.api.metrics.MetricsRegistry;
 import org.structr.common.AccessMode;
-import org.structr.common.GraphObjectComparator;
 import org.structr.common.PathHelper;
 import org.structr.common.SecurityContext;
 import org.structr.common.ThreadLocalMatcher;
@@ -82,7 +86,12 @@ import org.structr.rest.service.StructrHttpServiceConfig;
 import org.structr.schema.ConfigurationProvider;
 import org.structr.util.Base64;
 import org.structr.web.auth.UiAuthenticator;
+import org.structr.web.common.BasicAuthIndex;
+import org.structr.web.common.CompressedFileCache;
+import org.structr.web.common.CompressedFileCache.Encoding;
 import org.structr.web.common.FileHelper;
+import org.structr.web.common.FilePathCache;
+import org.structr.web.common.PageRoutingTable;
 import org.structr.web.common.RenderContext;
 import org.structr.web.common.RenderContext.EditMode;
 import org.structr.web.common.StringRenderBuffer;
@@ -126,6 +135,7 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 
 	private static final ThreadLocalMatcher threadLocalUUIDMatcher = new ThreadLocalMatcher("[a-fA-F0-9]{32}");
 	private static final ExecutorService threadPool = Executors.newCachedThreadPool();
+	private static final MetricFamily<Histogram> renderDuration = MetricsRegistry.getInstance().histograms("structr_page_render_duration_seconds", "Duration of page rendering per page", "page");
 
 	private final StructrHttpServiceConfig config = new StructrHttpServiceConfig();
 	private final Set<String> possiblePropertyNamesForEntityResolving   = new LinkedHashSet<>();
@@ -173,7 +183,6 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 	protected void doGet(final HttpServletRequest request, final HttpServletResponse response) {
 
 		final Authenticator auth        = getConfig().getAuthenticator();
-		List<Page> pages                = null;
 		boolean requestUriContainsUuids = false;
 
 		SecurityContext securityContext;
@@ -247,7 +256,7 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 				if ((uriParts == null) || (uriParts.length == 0)) {
 
 					// find a visible page
-					rootElement = findIndexPage(securityContext, pages, edit);
+					rootElement = findIndexPage(securityContext, edit);
 
 					logger.debug("No path supplied, trying to find index page");
 
@@ -255,7 +264,7 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 
 					if (rootElement == null) {
 
-						rootElement = findPage(securityContext, pages, path, edit);
+						rootElement = findPage(securityContext, path, edit);
 
 					} else {
 						dontCache = true;
@@ -315,7 +324,7 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 						// clear possible entry points
 						request.removeAttribute(POSSIBLE_ENTRY_POINTS_KEY);
 
-						rootElement = findPage(securityContext, pages, StringUtils.substringBeforeLast(path, PathHelper.PATH_SEP), edit);
+						rootElement = findPage(securityContext, StringUtils.substringBeforeLast(path, PathHelper.PATH_SEP), edit);
 
 						renderContext.setDetailsDataObject(dataNode);
 
@@ -440,13 +449,14 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 
 									try (final Tx tx = app.tx()) {
 
-										//final long start = System.currentTimeMillis();
+										final long start = System.nanoTime();
+
 										// render
 										rootNode.render(renderContext, 0);
 										finished.set(true);
 
-										//final long end = System.currentTimeMillis();
-										//System.out.println("Done in " + (end-start) + " ms");
+										recordRenderTime(rootNode, start);
+
 										tx.success();
 
 									} catch (Throwable t) {
@@ -520,9 +530,13 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 							final StringRenderBuffer buffer = new StringRenderBuffer();
 							renderContext.setBuffer(buffer);
 
+							final long start = System.nanoTime();
+
 							// render
 							rootElement.render(renderContext, 0);
 
+							recordRenderTime(rootElement, start);
+
 							try {
 
 								response.getOutputStream().write(buffer.getBuffer().toString().getBytes("utf-8"));
@@ -560,7 +574,6 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 
 		final Authenticator auth = getConfig().getAuthenticator();
 		SecurityContext securityContext;
-		List<Page> pages                = null;
 		boolean requestUriContainsUuids = false;
 		final App app;
 
@@ -621,7 +634,7 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 				if ((uriParts == null) || (uriParts.length == 0)) {
 
 					// find a visible page
-					rootElement = findIndexPage(securityContext, pages, edit);
+					rootElement = findIndexPage(securityContext, edit);
 
 					logger.debug("No path supplied, trying to find index page");
 
@@ -629,7 +642,7 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 
 					if (rootElement == null) {
 
-						rootElement = findPage(securityContext, pages, path, edit);
+						rootElement = findPage(securityContext, path, edit);
 
 					} else {
 						dontCache = true;
@@ -679,7 +692,7 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 						// clear possible entry points
 						request.removeAttribute(POSSIBLE_ENTRY_POINTS_KEY);
 
-						rootElement = findPage(securityContext, pages, StringUtils.substringBeforeLast(path, PathHelper.PATH_SEP), edit);
+						rootElement = findPage(securityContext, StringUtils.substringBeforeLast(path, PathHelper.PATH_SEP), edit);
 
 						renderContext.setDetailsDataObject(dataNode);
 
@@ -985,43 +998,14 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 	 * To be compatible with older versions, fallback to name-only lookup.
 	 *
 	 * @param securityContext
-	 * @param pages
 	 * @param path
 	 * @param edit
 	 * @return page
 	 * @throws FrameworkException
 	 */
-	private Page findPage(final SecurityContext securityContext, List<Page> pages, final String path, final EditMode edit) throws FrameworkException {
-
-		if (pages == null) {
-			pages = StructrApp.getInstance(securityContext).nodeQuery(Page.class).getAsList();
-			Collections.sort(pages, new GraphObjectComparator(Page.position, GraphObjectComparator.ASCENDING));
-		}
-
-		for (final Page page : pages) {
-			final String pagePath = page.getPath();
-			if (pagePath != null && pagePath.equals(path) && (EditMode.CONTENT.equals(edit) || isVisibleForSite(securityContext.getRequest(), page))) {
-				return page;
-			}
-		}
-		
-		final String name     = PathHelper.getName(path);
-		
-		for (final Page page : pages) {
-			final String pageName = page.getName();
-			if (pageName != null && pageName.equals(name) && (EditMode.CONTENT.equals(edit) || isVisibleForSite(securityContext.getRequest(), page))) {
-				return page;
-			}
-		}
-
-		for (final Page page : pages) {
-			final String pageUuid = page.getUuid();
-			if (pageUuid != null && pageUuid.equals(name) && (EditMode.CONTENT.equals(edit) || isVisibleForSite(securityContext.getRequest(), page))) {
-				return page;
-			}
-		}
+	private Page findPage(final SecurityContext securityContext, final String path, final EditMode edit) throws FrameworkException {
 
-		return null;
+		return PageRoutingTable.getInstance().findPage(securityContext, securityContext.getRequest(), path, EditMode.CONTENT.equals(edit));
 	}
 
 	/**
@@ -1029,27 +1013,13 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 	 * current security context and for the given site.
 	 *
 	 * @param securityContext
-	 * @param pages
 	 * @param edit
 	 * @return page
 	 * @throws FrameworkException
 	 */
-	private Page findIndexPage(final SecurityContext securityContext, List<Page> pages, final EditMode edit) throws FrameworkException {
-
-		if (pages == null) {
-			pages = StructrApp.getInstance(securityContext).nodeQuery(Page.class).getAsList();
-			Collections.sort(pages, new GraphObjectComparator(Page.position, GraphObjectComparator.ASCENDING));
-		}
+	private Page findIndexPage(final SecurityContext securityContext, final EditMode edit) throws FrameworkException {
 
-		for (Page page : pages) {
-
-			if (securityContext.isVisible(page) && page.getProperty(Page.position) != null && ((EditMode.CONTENT.equals(edit) || isVisibleForSite(securityContext.getRequest(), page)) || (page.getProperty(Page.enableBasicAuth) && page.getProperty(Page.visibleToAuthenticatedUsers)))) {
-
-				return page;
-			}
-		}
-
-		return null;
+		return PageRoutingTable.getInstance().findIndexPage(securityContext, securityContext.getRequest(), EditMode.CONTENT.equals(edit));
 	}
 
 	/**
@@ -1230,20 +1200,17 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 
 			logger.debug("Requested path: {}", path);
 
-			final Query pageQuery = StructrApp.getInstance(securityContext).nodeQuery();
+			final List<Page> pages  = PageRoutingTable.getInstance().getPagesByPath(securityContext, path);
+			final AbstractFile file = FilePathCache.getInstance().getFileByPath(securityContext, path);
 
-			pageQuery.and(Page.path, path).andType(Page.class);
-			final Result pages = pageQuery.getResult();
+			logger.debug("Found {} pages and {} file", new Object[] { pages.size(), file });
 
-			final Query fileQuery = StructrApp.getInstance(securityContext).nodeQuery();
-			fileQuery.and(AbstractFile.path, path).andTypes(File.class);
+			final List<Linkable> linkables = new LinkedList<>(pages);
 
-			final Result files = fileQuery.getResult();
-
-			logger.debug("Found {} pages and {} files/folders", new Object[] { pages.size(), files.size() });
-
-			final List<Linkable> linkables = (List<Linkable>) pages.getResults();
-			linkables.addAll(files.getResults());
+			// dynamic types are replaced on schema changes, so check for the static base class
+			if (file instanceof FileBase) {
+				linkables.add((FileBase)file);
+			}
 
 			request.setAttribute(POSSIBLE_ENTRY_POINTS_KEY, linkables);
 
@@ -1419,9 +1386,21 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 
 			} else {
 
-				// 2b: stream file to response
-				final InputStream in = file.getInputStream();
-				final String contentType = file.getContentType();
+				// 2b: stream file to response, preferably from a precompressed variant
+				final CompressedFileCache compressedFiles = CompressedFileCache.getInstance();
+				final boolean compressible                = compressedFiles.isCompressible(file);
+				final Encoding encoding                   = compressible ? CompressedFileCache.negotiate(request.getHeader("Accept-Encoding")) : null;
+				final java.io.File variant                = encoding != null ? compressedFiles.getVariant(file, encoding) : null;
+				final InputStream in                      = variant != null ? new FileInputStream(variant) : file.getInputStream();
+				final String contentType                  = file.getContentType();
+
+				if (compressible) {
+					response.setHeader("Vary", "Accept-Encoding");
+				}
+
+				if (variant != null) {
+					response.setHeader("Content-Encoding", encoding.name());
+				}
 
 				if (contentType != null) {
 
@@ -1439,7 +1418,8 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 
 					if (StringUtils.isNotEmpty(range)) {
 
-						final long len = file.getSize();
+						// ranges refer to the encoded content
+						final long len = variant != null ? variant.length() : file.getSize();
 						long start     = 0;
 						long end       = len - 1;
 
@@ -1469,6 +1449,10 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 
 					} else {
 
+						if (variant != null) {
+							response.setHeader("Content-Length", Long.toString(variant.length()));
+						}
+
 						response.setStatus(HttpServletResponse.SC_OK);
 						callbackMap.put("statusCode", HttpServletResponse.SC_OK);
 
@@ -1558,6 +1542,13 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 
 	}
 
+	private void recordRenderTime(final DOMNode rootElement, final long start) {
+
+		final String name = rootElement.getProperty(AbstractNode.name);
+
+		renderDuration.get(name != null ? name : rootElement.getUuid()).record(System.nanoTime() - start);
+	}
+
 	private void resolvePossiblePropertyNamesForObjectResolution(final ConfigurationProvider config, final Query query, final String name) {
 
 		for (final String possiblePropertyName : possiblePropertyNamesForEntityResolving) {
@@ -1620,24 +1611,7 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 		// Look for renderable objects using a SuperUserSecurityContext,
 		// but dont actually render the page. We're only interested in
 		// the authentication settings.
-		Linkable possiblePage = null;
-
-		// try the different methods..
-		if (possiblePage == null) {
-			possiblePage = StructrApp.getInstance().nodeQuery(Page.class).and(Page.path, path).and(Page.enableBasicAuth, true).sort(Page.position).getFirst();
-		}
-
-		if (possiblePage == null) {
-			possiblePage = StructrApp.getInstance().nodeQuery(Page.class).and(Page.name, PathHelper.getName(path)).and(Page.enableBasicAuth, true).sort(Page.position).getFirst();
-		}
-
-		if (possiblePage == null) {
-			possiblePage = StructrApp.getInstance().nodeQuery(File.class).and(File.path, path).and(File.enableBasicAuth, true).getFirst();
-		}
-
-		if (possiblePage == null) {
-			possiblePage = StructrApp.getInstance().nodeQuery(File.class).and(File.name, PathHelper.getName(path)).and(File.enableBasicAuth, true).getFirst();
-		}
+		final Linkable possiblePage = BasicAuthIndex.getInstance().getProtectedResource(path);
 
 		if (possiblePage != null) {
 
@@ -1684,6 +1658,16 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 
 		if (authHeader != null) {
 
+			try {
+
+				final Principal cached = BasicAuthIndex.getInstance().getCachedPrincipal(authHeader);
+				if (cached != null) {
+
+					return cached;
+				}
+
+			} catch (FrameworkException ignore) { }
+
 			final String[] authParts = authHeader.split(" ");
 			if (authParts.length == 2) {
 
@@ -1707,7 +1691,11 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 				if (StringUtils.isNoneBlank(username, password)) {
 
 					try {
-						return AuthHelper.getPrincipalForPassword(Principal.name, username, password);
+						final Principal principal = AuthHelper.getPrincipalForPassword(Principal.name, username, password);
+
+						BasicAuthIndex.getInstance().cachePrincipal(authHeader, principal);
+
+						return principal;
 
 					} catch (Throwable t) {
 						// ignore
@@ -53,6 +53,7 @@ import org.structr.core.app.StructrApp;
 import org.structr.core.auth.exception.AuthenticationException;
 import org.structr.core.entity.AbstractNode;
 import org.structr.core.graph.NodeInterface;
+import org.structr.core.graph.TransactionCommand;
 import org.structr.core.graph.Tx;
 import org.structr.core.property.PropertyMap;
 import org.structr.rest.service.HttpServiceServlet;
@@ -308,6 +309,7 @@ public class UploadServlet extends HttpServlet implements HttpServiceServlet {
 								tx.success();
 
 							} catch (RetryException rex) {
+								TransactionCommand.countRetry();
 								retry = true;
 							}
 						}
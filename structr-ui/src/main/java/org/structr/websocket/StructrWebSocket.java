@@ -20,6 +20,7 @@ package org.structr.websocket;
 
 import com.google.gson.Gson;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
@@ -43,6 +44,7 @@ import org.structr.rest.auth.SessionHelper;
 import org.structr.web.entity.FileBase;
 import org.structr.web.entity.User;
 import org.structr.websocket.command.AbstractCommand;
+import org.structr.websocket.command.ChunkCommand;
 import org.structr.websocket.command.FileUploadHandler;
 import org.structr.websocket.command.LoginCommand;
 import org.structr.websocket.message.MessageBuilder;
@@ -367,7 +369,7 @@ public class StructrWebSocket implements WebSocketListener {
 
 	}
 
-	public void handleFileChunk(final String uuid, final int sequenceNumber, final int chunkSize, final byte[] data, final int chunks) throws IOException {
+	public FileUploadHandler handleFileChunk(final String uuid, final int sequenceNumber, final int chunkSize, final ByteBuffer data, final int chunks) throws IOException {
 
 		FileUploadHandler upload = uploads.get(uuid);
 
@@ -382,6 +384,7 @@ public class StructrWebSocket implements WebSocketListener {
 
 		}
 
+		return upload;
 	}
 
 	private void authenticate(final String sessionId) {
@@ -522,8 +525,40 @@ public class StructrWebSocket implements WebSocketListener {
 	}
 
 	@Override
-	public void onWebSocketBinary(final byte[] bytes, int i, int i1) {
-		throw new UnsupportedOperationException("Not supported yet.");
+	public void onWebSocketBinary(final byte[] bytes, final int offset, final int length) {
+
+		final Services servicesInstance = Services.getInstance();
+
+		// wait for service layer to be initialized
+		while (!servicesInstance.isInitialized()) {
+			try { Thread.sleep(1000); } catch(InterruptedException iex) { }
+		}
+
+		// binary frames are only used for file chunks, see ChunkCommand
+		final App app = StructrApp.getInstance(securityContext);
+
+		try (final Tx tx = app.tx()) {
+
+			if (!isAuthenticated()) {
+
+				// send 401 Authentication Required
+				send(MessageBuilder.status().code(401).message("").build(), true);
+
+			} else {
+
+				final ChunkCommand command = new ChunkCommand();
+
+				command.setWebSocket(this);
+				command.setSession(session);
+				command.processBinaryMessage(bytes, offset, length);
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("Unable to process binary message.", fex);
+		}
 	}
 
 	@Override
@@ -19,6 +19,8 @@
 package org.structr.websocket.command;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.common.Permission;
@@ -42,6 +44,15 @@ public class ChunkCommand extends AbstractCommand {
 
 	private static final Logger logger = LoggerFactory.getLogger(ChunkCommand.class.getName());
 
+	/**
+	 * Binary chunk frames start with a fixed-size header: one byte protocol
+	 * version, 32 bytes file uuid (ASCII), followed by chunk id, chunk size
+	 * and number of chunks as big-endian integers. The remainder of the frame
+	 * is the raw chunk payload.
+	 */
+	public static final byte BINARY_PROTOCOL_VERSION = 1;
+	public static final int BINARY_HEADER_SIZE       = 1 + 32 + 4 + 4 + 4;
+
 	static {
 
 		StructrWebSocket.addCommand(ChunkCommand.class);
@@ -53,8 +64,6 @@ public class ChunkCommand extends AbstractCommand {
 	@Override
 	public void processMessage(final WebSocketMessage webSocketData) {
 
-		final SecurityContext securityContext = getWebSocket().getSecurityContext();
-
 		try {
 
 			int sequenceNumber = ((Long) webSocketData.getNodeData().get("chunkId")).intValue();
@@ -79,52 +88,112 @@ public class ChunkCommand extends AbstractCommand {
 
 			}
 
-			final FileBase file = (FileBase) getNode(uuid);
+			processChunk(uuid, sequenceNumber, chunkSize, data != null ? ByteBuffer.wrap(data) : ByteBuffer.allocate(0), chunks);
 
-			if (!file.isGranted(Permission.write, securityContext)) {
+		} catch (IOException | FrameworkException ex) {
 
-				logger.warn("No write permission for {} on {}", new Object[] {getWebSocket().getCurrentUser().toString(), file.toString()});
-				getWebSocket().send(MessageBuilder.status().message("No write permission").code(400).build(), true);
-				return;
+			sendError(ex);
+		}
+	}
 
-			}
+	/**
+	 * Processes a binary chunk frame. The payload is written to the file
+	 * without decoding or copying the data.
+	 *
+	 * @param payload
+	 * @param offset
+	 * @param length
+	 */
+	public void processBinaryMessage(final byte[] payload, final int offset, final int length) {
+
+		if (length < BINARY_HEADER_SIZE || payload[offset] != BINARY_PROTOCOL_VERSION) {
+
+			getWebSocket().send(MessageBuilder.status().code(400).message("Could not process chunk data: invalid binary frame").build(), true);
+			return;
+		}
 
-			getWebSocket().handleFileChunk(uuid, sequenceNumber, chunkSize, data, chunks);
+		try {
 
-			if (sequenceNumber+1 == chunks) {
+			final ByteBuffer buffer = ByteBuffer.wrap(payload, offset, length);
 
-				final long checksum = FileHelper.getChecksum(file);
-				final long size     = FileHelper.getSize(file);
+			// skip version byte
+			buffer.get();
 
-				final PropertyMap changedProperties = new PropertyMap();
-				changedProperties.put(FileBase.checksum, checksum);
-				changedProperties.put(FileBase.size, size);
+			final String uuid        = new String(payload, buffer.position(), 32, StandardCharsets.US_ASCII);
+			buffer.position(buffer.position() + 32);
 
-				file.unlockSystemPropertiesOnce();
-				file.setProperties(securityContext, changedProperties);
+			final int sequenceNumber = buffer.getInt();
+			final int chunkSize      = buffer.getInt();
+			final int chunks         = buffer.getInt();
 
-				file.increaseVersion();
+			processChunk(uuid, sequenceNumber, chunkSize, buffer.slice(), chunks);
 
-				getWebSocket().removeFileUploadHandler(uuid);
+		} catch (IOException | FrameworkException ex) {
 
-				logger.debug("File upload finished. Checksum: {}, size: {}", new Object[]{ checksum, size });
+			sendError(ex);
+		}
+	}
 
-			}
+	//~--- private methods ------------------------------------------------
+
+	private void processChunk(final String uuid, final int sequenceNumber, final int chunkSize, final ByteBuffer data, final int chunks) throws IOException, FrameworkException {
 
-			final long currentSize = (long)(sequenceNumber * chunkSize) + data.length;
+		final SecurityContext securityContext = getWebSocket().getSecurityContext();
+		final FileBase file                   = (FileBase) getNode(uuid);
+		final int length                      = data.remaining();
 
-			// This should trigger setting of lastModifiedDate in any case
-			getWebSocket().send(MessageBuilder.status().code(200).message("{\"id\":\"" + file.getUuid() + "\", \"name\":\"" + file.getName() + "\",\"size\":" + currentSize + "}").build(), true);
+		if (file == null) {
 
-		} catch (IOException | FrameworkException ex) {
+			getWebSocket().send(MessageBuilder.status().message("File not found").code(404).build(), true);
+			return;
+		}
+
+		if (!file.isGranted(Permission.write, securityContext)) {
+
+			logger.warn("No write permission for {} on {}", new Object[] {getWebSocket().getCurrentUser().toString(), file.toString()});
+			getWebSocket().send(MessageBuilder.status().message("No write permission").code(400).build(), true);
+			return;
+
+		}
+
+		final FileUploadHandler handler = getWebSocket().handleFileChunk(uuid, sequenceNumber, chunkSize, data, chunks);
+
+		if (sequenceNumber+1 == chunks) {
+
+			// use the checksum computed during upload if available
+			final Long uploadChecksum = handler != null ? handler.getChecksum() : null;
+			final long checksum       = uploadChecksum != null ? uploadChecksum : FileHelper.getChecksum(file);
+			final long size           = FileHelper.getSize(file);
+
+			final PropertyMap changedProperties = new PropertyMap();
+			changedProperties.put(FileBase.checksum, checksum);
+			changedProperties.put(FileBase.size, size);
 
-			String msg = ex.toString();
+			file.unlockSystemPropertiesOnce();
+			file.setProperties(securityContext, changedProperties);
+
+			file.increaseVersion();
+
+			getWebSocket().removeFileUploadHandler(uuid);
+
+			logger.debug("File upload finished. Checksum: {}, size: {}", new Object[]{ checksum, size });
 
-			// return error message
-			getWebSocket().send(MessageBuilder.status().code(400).message("Could not process chunk data: ".concat((msg != null)
-				? msg
-				: "")).build(), true);
 		}
+
+		final long currentSize = ((long)sequenceNumber * chunkSize) + length;
+
+		// This should trigger setting of lastModifiedDate in any case
+		getWebSocket().send(MessageBuilder.status().code(200).message("{\"id\":\"" + file.getUuid() + "\", \"name\":\"" + file.getName() + "\",\"size\":" + currentSize + "}").build(), true);
+	}
+
+	private void sendError(final Exception ex) {
+
+		String msg = ex.toString();
+
+		// return error message
+		getWebSocket().send(MessageBuilder.status().code(400).message("Could not process chunk data: ".concat((msg != null)
+			? msg
+			: "")).build(), true);
 	}
 
 	//~--- get methods ----------------------------------------------------
@@ -22,6 +22,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.common.error.FrameworkException;
@@ -42,9 +43,12 @@ public class FileUploadHandler {
 
 	//~--- fields ---------------------------------------------------------
 
+	private final CRC32 checksum           = new CRC32();
 	private FileBase file                  = null;
 	private FileChannel privateFileChannel = null;
 	private Long size                      = 0L;
+	private long written                   = 0L;
+	private boolean checksumValid          = true;
 
 	//~--- constructors ---------------------------------------------------
 
@@ -74,13 +78,51 @@ public class FileUploadHandler {
 	//~--- methods --------------------------------------------------------
 
 	public void handleChunk(int sequenceNumber, int chunkSize, byte[] data, int chunks) throws IOException {
+		handleChunk(sequenceNumber, chunkSize, ByteBuffer.wrap(data), chunks);
+	}
+
+	/**
+	 * Writes the given chunk to the file. The checksum of the file is
+	 * updated while writing, as long as the chunks arrive in order.
+	 *
+	 * @param sequenceNumber
+	 * @param chunkSize
+	 * @param data
+	 * @param chunks
+	 * @throws IOException
+	 */
+	public void handleChunk(int sequenceNumber, int chunkSize, ByteBuffer data, int chunks) throws IOException {
 
 		FileChannel channel = getChannel(sequenceNumber > 0);
 
 		if (channel != null) {
 
-			channel.position(sequenceNumber * chunkSize);
-			channel.write(ByteBuffer.wrap(data));
+			final long position         = (long)sequenceNumber * chunkSize;
+			final ByteBuffer checksumed = data.duplicate();
+
+			if (sequenceNumber == 0) {
+
+				// a new upload starts, the file was truncated
+				checksum.reset();
+				checksumValid = true;
+				written       = 0L;
+			}
+
+			channel.position(position);
+
+			while (data.hasRemaining()) {
+				channel.write(data);
+			}
+
+			if (checksumValid && position == written) {
+
+				checksum.update(checksumed);
+				written = channel.position();
+
+			} else {
+
+				checksumValid = false;
+			}
 
 			if (this.size == null) {
 
@@ -119,6 +161,21 @@ public class FileUploadHandler {
 
 	}
 
+	/**
+	 * Returns the CRC32 checksum of the uploaded data, or null if the
+	 * chunks did not arrive in order.
+	 *
+	 * @return the checksum or null
+	 */
+	public Long getChecksum() {
+
+		if (checksumValid) {
+			return checksum.getValue();
+		}
+
+		return null;
+	}
+
 	/**
 	 * Called when the WebSocket connection is closed
 	 */
@@ -41,7 +41,8 @@ import org.structr.websocket.message.WebSocketMessage;
  */
 public class WebSocketServlet extends org.eclipse.jetty.websocket.servlet.WebSocketServlet implements HttpServiceServlet {
 
-	private static final int MAX_TEXT_MESSAGE_SIZE = 1024 * 1024;
+	private static final int MAX_TEXT_MESSAGE_SIZE   = 1024 * 1024;
+	private static final int MAX_BINARY_MESSAGE_SIZE = 1024 * 1024;
 
 	private final StructrHttpServiceConfig config = new StructrHttpServiceConfig();
 
@@ -85,6 +86,7 @@ public class WebSocketServlet extends org.eclipse.jetty.websocket.servlet.WebSoc
 		factory.getExtensionFactory().unregister("permessage-deflate");
 
 		factory.getPolicy().setMaxTextMessageSize(MAX_TEXT_MESSAGE_SIZE);
+		factory.getPolicy().setMaxBinaryMessageSize(MAX_BINARY_MESSAGE_SIZE);
 
 	}
 }
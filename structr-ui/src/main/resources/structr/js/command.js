@@ -963,6 +963,28 @@ var Command = {
 		_Logger.log(_LogType.WS[obj.command], 'chunk()', obj);
 		return sendObj(obj);
 	},
+	/**
+	 * Send a chunk of binary data as a binary frame.
+	 *
+	 * The frame starts with a 45 byte header (version, file id,
+	 * chunk id, chunk size, number of chunks), followed by the raw
+	 * chunk data. See ChunkCommand.processBinaryMessage.
+	 */
+	binaryChunk: function(id, chunkId, chunkSize, chunk, chunks) {
+		var headerSize = 45;
+		var buffer     = new ArrayBuffer(headerSize + chunk.byteLength);
+		var view       = new DataView(buffer);
+		view.setUint8(0, 1);
+		for (var i = 0; i < 32; i++) {
+			view.setUint8(1 + i, id.charCodeAt(i));
+		}
+		view.setInt32(33, chunkId);
+		view.setInt32(37, chunkSize);
+		view.setInt32(41, chunks);
+		new Uint8Array(buffer, headerSize).set(new Uint8Array(chunk));
+		_Logger.log(_LogType.WS['CHUNK'], 'binaryChunk()', id, chunkId);
+		return sendBinary(buffer);
+	},
 	/**
 	 * Send a CREATE command to the server.
 	 *
@@ -388,8 +388,12 @@ var _Files = {
 			for (var c = 0; c < chunks; c++) {
 				var start = c * chunkSize;
 				var end = (c + 1) * chunkSize;
-				var chunk = window.btoa(String.fromCharCode.apply(null, new Uint8Array(binaryContent.slice(start, end))));
-				Command.chunk(file.id, c, chunkSize, chunk, chunks);
+				if (file.id.length === 32) {
+					Command.binaryChunk(file.id, c, chunkSize, binaryContent.slice(start, end), chunks);
+				} else {
+					var chunk = window.btoa(String.fromCharCode.apply(null, new Uint8Array(binaryContent.slice(start, end))));
+					Command.chunk(file.id, c, chunkSize, chunk, chunks);
+				}
 			}
 			var typeIcon = Structr.node(file.id).parent().find('.typeIcon');
 			var iconSrc = typeIcon.prop('src');
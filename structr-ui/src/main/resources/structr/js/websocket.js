@@ -526,6 +526,17 @@ function sendObj(obj, callback) {
 	return true;
 }
 
+function sendBinary(buffer) {
+
+	try {
+		ws.send(buffer);
+		_Logger.log(_LogType.WEBSOCKET, 'Sent binary frame of ' + buffer.byteLength + ' bytes');
+	} catch (exception) {
+		_Logger.log(_LogType.WEBSOCKET, 'Error in sendBinary(): ' + exception);
+	}
+	return true;
+}
+
 function send(text) {
 
 	_Logger.log(_LogType.WEBSOCKET, 'Sending text: "' + text + '" - ws.readyState=' + ws.readyState);
@@ -0,0 +1,266 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import com.jayway.restassured.RestAssured;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.structr.common.error.ErrorBuffer;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.app.StructrApp;
+import org.structr.core.entity.Principal;
+import org.structr.core.graph.NodeAttribute;
+import org.structr.core.graph.Tx;
+import org.structr.schema.SchemaService;
+import org.structr.util.Base64;
+import org.structr.web.entity.FileBase;
+import org.structr.web.entity.Linkable;
+import org.structr.web.entity.User;
+import org.structr.web.entity.dom.Page;
+import org.structr.web.maintenance.DeployCommand;
+
+/**
+ *
+ *
+ */
+public class BasicAuthIndexTest extends StructrUiTest {
+
+	@Test
+	public void testProtectedPagesAndCachedCredentials() {
+
+		final BasicAuthIndex index = BasicAuthIndex.getInstance();
+		final String authHeader    = "Basic " + Base64.encodeToString("tester:test".getBytes(StandardCharsets.UTF_8), false);
+		String protectedId         = null;
+
+		try (final Tx tx = app.tx()) {
+
+			final Page page1 = Page.createNewPage(securityContext, "public");
+			final Page page2 = Page.createNewPage(securityContext, "protected");
+
+			page1.setProperty(Page.visibleToPublicUsers, true);
+			page2.setProperty(Page.visibleToAuthenticatedUsers, true);
+			page2.setProperty(Page.enableBasicAuth, true);
+
+			createTestNode(User.class, new NodeAttribute<>(Principal.name, "tester"), new NodeAttribute<>(Principal.password, "test"));
+
+			protectedId = page2.getUuid();
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertNull(index.getProtectedResource("/public"));
+			assertEquals(protectedId, index.getProtectedResource("/protected").getUuid());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		RestAssured.basePath = htmlUrl;
+
+		RestAssured.given().expect().statusCode(200).when().get("/public");
+		RestAssured.given().expect().statusCode(401).when().get("/protected");
+		RestAssured.given().header("Authorization", authHeader).expect().statusCode(200).when().get("/protected");
+
+		// successful authentication is cached
+		try (final Tx tx = app.tx()) {
+
+			assertNotNull(index.getCachedPrincipal(authHeader));
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// disabling Basic Auth and modifying the principal invalidates both caches
+		try (final Tx tx = app.tx()) {
+
+			app.get(Page.class, protectedId).setProperty(Page.enableBasicAuth, false);
+			app.nodeQuery(User.class).andName("tester").getFirst().setProperty(Principal.password, "changed");
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertNull(index.getProtectedResource("/protected"));
+			assertNull(index.getCachedPrincipal(authHeader));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
+
+	@Test
+	public void testProtectedFileAfterSchemaReload() {
+
+		final BasicAuthIndex index = BasicAuthIndex.getInstance();
+		final Class fileType       = StructrApp.getConfiguration().getNodeEntityClass("File");
+		String fileId              = null;
+
+		try (final Tx tx = app.tx()) {
+
+			fileId = FileHelper.createFile(securityContext, "test".getBytes(), "text/plain", fileType, "test.txt").getUuid();
+
+			tx.success();
+
+		} catch (FrameworkException | IOException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// populate the index before the file type is replaced
+		try (final Tx tx = app.tx()) {
+
+			assertNull(index.getProtectedResource("/test.txt"));
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// schema reload replaces the dynamic File class
+		assertTrue(SchemaService.reloadSchema(new ErrorBuffer()));
+
+		try (final Tx tx = app.tx()) {
+
+			app.get(FileBase.class, fileId).setProperty(Linkable.enableBasicAuth, true);
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			final Linkable resource = index.getProtectedResource("/test.txt");
+
+			assertNotNull(resource);
+			assertEquals(fileId, resource.getUuid());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
+
+	@Test
+	public void testDeployedProtectedPage() {
+
+		final BasicAuthIndex index = BasicAuthIndex.getInstance();
+		final DeployCommand cmd    = app.command(DeployCommand.class);
+		Path tmp                   = null;
+
+		try {
+
+			tmp = Files.createTempDirectory("structr-basic-auth-test");
+
+			try (final Tx tx = app.tx()) {
+
+				final Page page = Page.createNewPage(securityContext, "deployed");
+				page.setProperty(Page.enableBasicAuth, true);
+				page.appendChild(page.createElement("html"));
+
+				tx.success();
+			}
+
+			final Map<String, Object> exportParams = new HashMap<>();
+			exportParams.put("mode", "export");
+			exportParams.put("target", tmp.toString());
+
+			cmd.execute(exportParams);
+
+			try (final Tx tx = app.tx()) {
+
+				app.delete(app.nodeQuery(Page.class).andName("deployed").getFirst());
+				tx.success();
+			}
+
+			// build the index before the import
+			try (final Tx tx = app.tx()) {
+
+				assertNull(index.getProtectedResource("/deployed"));
+				tx.success();
+			}
+
+			// the import commits without notifications
+			final Map<String, Object> importParams = new HashMap<>();
+			importParams.put("source", tmp.toString());
+
+			cmd.execute(importParams);
+
+			try (final Tx tx = app.tx()) {
+
+				assertNotNull("Deployed page must be protected", index.getProtectedResource("/deployed"));
+				tx.success();
+			}
+
+		} catch (FrameworkException | IOException ex) {
+
+			ex.printStackTrace();
+			fail("Unexpected exception.");
+
+		} finally {
+
+			if (tmp != null) {
+				FileUtils.deleteQuietly(tmp.toFile());
+			}
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.graph.Tx;
+import org.structr.web.common.CompressedFileCache.Encoding;
+import org.structr.web.entity.FileBase;
+
+/**
+ *
+ *
+ */
+public class CompressedFileCacheTest extends StructrUiTest {
+
+	@Test
+	public void testNegotiation() {
+
+		assertNull(CompressedFileCache.negotiate(null));
+		assertNull(CompressedFileCache.negotiate("identity"));
+		assertNull(CompressedFileCache.negotiate("gzip;q=0, deflate;q=0"));
+
+		assertEquals(Encoding.gzip,    CompressedFileCache.negotiate("gzip, deflate, br"));
+		assertEquals(Encoding.gzip,    CompressedFileCache.negotiate("*"));
+		assertEquals(Encoding.deflate, CompressedFileCache.negotiate("gzip;q=0, deflate"));
+
+		assertEquals("a/b/c/d/abcd", CompressedFileCache.getSourcePath("a/b/c/d/abcd.12345.gz"));
+		assertEquals("a/b/c/d/abcd", CompressedFileCache.getSourcePath("a/b/c/d/abcd.12345.deflate"));
+		assertNull(CompressedFileCache.getSourcePath("a/b/c/d/abcd"));
+	}
+
+	@Test
+	public void testPrecompressedFiles() {
+
+		final String content  = StringUtils.repeat("body { color: red; }\n", 500);
+		final String modified = StringUtils.repeat("body { color: blue; }\n", 500);
+		FileBase file         = null;
+
+		try (final Tx tx = app.tx()) {
+
+			file = FileHelper.createFile(securityContext, content.getBytes(StandardCharsets.UTF_8), "text/css", org.structr.dynamic.File.class, "test.css");
+			file.setProperty(FileBase.visibleToPublicUsers, true);
+
+			tx.success();
+
+		} catch (FrameworkException | IOException ex) {
+
+			ex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try {
+
+			assertEquals(content, request("gzip", "gzip"));
+			assertEquals(content, request("deflate", "deflate"));
+			assertEquals(content, request(null, null));
+
+			// ranges refer to the encoded content
+			final HttpURLConnection connection = connect("gzip, deflate");
+			connection.setRequestProperty("Range", "bytes=0-9");
+
+			assertEquals(206, connection.getResponseCode());
+			assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+			assertEquals(10, IOUtils.toByteArray(connection.getInputStream()).length);
+
+		} catch (IOException ioex) {
+
+			ioex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		final java.io.File fileOnDisk = file.getFileOnDisk();
+		assertTrue(variants(fileOnDisk).length > 0);
+
+		// changing the content removes the outdated variants
+		try (final Tx tx = app.tx()) {
+
+			FileHelper.setFileData(file, modified.getBytes(StandardCharsets.UTF_8), "text/css");
+			tx.success();
+
+		} catch (FrameworkException | IOException ex) {
+
+			ex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		assertEquals(0, variants(fileOnDisk).length);
+
+		try {
+
+			assertEquals(modified, request("gzip", "gzip"));
+
+		} catch (IOException ioex) {
+
+			ioex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// deleting the file removes all variants
+		try (final Tx tx = app.tx()) {
+
+			app.delete(file);
+			tx.success();
+
+		} catch (FrameworkException ex) {
+
+			ex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		assertFalse(fileOnDisk.exists());
+		assertEquals(0, variants(fileOnDisk).length);
+	}
+
+	// ----- private methods -----
+	private String request(final String acceptEncoding, final String expectedEncoding) throws IOException {
+
+		final HttpURLConnection connection = connect(acceptEncoding);
+
+		assertEquals(200, connection.getResponseCode());
+		assertEquals(expectedEncoding, connection.getHeaderField("Content-Encoding"));
+		assertNotNull(connection.getHeaderField("Vary"));
+
+		InputStream in = connection.getInputStream();
+
+		if ("gzip".equals(expectedEncoding)) {
+			in = new GZIPInputStream(in);
+		}
+
+		if ("deflate".equals(expectedEncoding)) {
+			in = new InflaterInputStream(in);
+		}
+
+		return IOUtils.toString(in, StandardCharsets.UTF_8);
+	}
+
+	private HttpURLConnection connect(final String acceptEncoding) throws IOException {
+
+		final HttpURLConnection connection = (HttpURLConnection)new URL(baseUri + "test.css").openConnection();
+
+		if (acceptEncoding != null) {
+			connection.setRequestProperty("Accept-Encoding", acceptEncoding);
+		}
+
+		return connection;
+	}
+
+	private java.io.File[] variants(final java.io.File fileOnDisk) {
+
+		final java.io.File[] files = fileOnDisk.getParentFile().listFiles((dir, name) -> name.startsWith(fileOnDisk.getName() + "."));
+		return files != null ? files : new java.io.File[0];
+	}
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.Adapter;
+
+/**
+ *
+ *
+ */
+public class ContentConversionCacheTest extends StructrUiTest {
+
+	@Test
+	public void testCachedConversion() {
+
+		final ContentConversionCache cache    = ContentConversionCache.getInstance();
+		final AtomicInteger count             = new AtomicInteger();
+		final Adapter<String, String> adapter = (String s) -> {
+
+			count.incrementAndGet();
+			return "<p>" + s + "</p>";
+		};
+
+		cache.clear();
+
+		try {
+
+			assertEquals("<p>test</p>", cache.convert("text/markdown", "test", adapter));
+			assertEquals("<p>test</p>", cache.convert("text/markdown", "test", adapter));
+			assertEquals(1, count.get());
+
+			// same source, different content type
+			assertEquals("<p>test</p>", cache.convert("text/textile", "test", adapter));
+			assertEquals(2, count.get());
+
+			// changed source
+			assertEquals("<p>test2</p>", cache.convert("text/markdown", "test2", adapter));
+			assertEquals(3, count.get());
+
+			assertTrue(cache.getSize() > 0);
+
+			cache.clear();
+
+			assertEquals(0, cache.getSize());
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
+}
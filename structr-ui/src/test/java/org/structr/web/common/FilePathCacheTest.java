@@ -0,0 +1,295 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.io.IOException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.app.StructrApp;
+import org.structr.core.graph.Tx;
+import org.structr.web.entity.AbstractFile;
+import org.structr.web.entity.FileBase;
+import org.structr.web.entity.Folder;
+
+/**
+ *
+ *
+ */
+public class FilePathCacheTest extends StructrUiTest {
+
+	@Test
+	public void testPathResolutionAndInvalidation() {
+
+		final FilePathCache cache = FilePathCache.getInstance();
+		String fileId             = null;
+		String folderId           = null;
+
+		try (final Tx tx = app.tx()) {
+
+			final Folder folder = FileHelper.createFolderPath(securityContext, "/a/b");
+			final FileBase file = FileHelper.createFile(securityContext, "test".getBytes(), "text/plain", org.structr.dynamic.File.class, "c.txt");
+
+			file.setProperty(AbstractFile.parent, folder);
+
+			fileId   = file.getUuid();
+			folderId = folder.getUuid();
+
+			tx.success();
+
+		} catch (FrameworkException | IOException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			// first lookup queries the database, second one is served from the cache
+			assertEquals(fileId, cache.getFileByPath(securityContext, "/a/b/c.txt").getUuid());
+			assertEquals(fileId, cache.getFileByPath(securityContext, "/a/b/c.txt").getUuid());
+			assertEquals(folderId, cache.getFileByPath(securityContext, "/a/b").getUuid());
+
+			assertTrue(cache.getRootEntries(securityContext, FileBase.class).isEmpty());
+			assertEquals(1, cache.getRootEntries(securityContext, Folder.class).size());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// renaming a folder invalidates the subtree
+		try (final Tx tx = app.tx()) {
+
+			app.get(Folder.class, folderId).setProperty(AbstractFile.name, "x");
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertNull(cache.getFileByPath(securityContext, "/a/b/c.txt"));
+			assertEquals(fileId, cache.getFileByPath(securityContext, "/a/x/c.txt").getUuid());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// moving a file to the root folder
+		try (final Tx tx = app.tx()) {
+
+			app.get(FileBase.class, fileId).setProperty(AbstractFile.parent, null);
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertNull(cache.getFileByPath(securityContext, "/a/x/c.txt"));
+			assertEquals(fileId, cache.getFileByPath(securityContext, "/c.txt").getUuid());
+			assertEquals(1, cache.getRootEntries(securityContext, FileBase.class).size());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// hiding a file removes it from the cache
+		try (final Tx tx = app.tx()) {
+
+			app.get(FileBase.class, fileId).setProperty(AbstractFile.hidden, true);
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertNull(cache.getFileByPath(securityContext, "/c.txt"));
+			assertTrue(cache.getRootEntries(securityContext, FileBase.class).isEmpty());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// unhiding it makes it visible again, marking it as deleted hides it
+		try (final Tx tx = app.tx()) {
+
+			app.get(FileBase.class, fileId).setProperty(AbstractFile.hidden, false);
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertEquals(fileId, cache.getFileByPath(securityContext, "/c.txt").getUuid());
+
+			app.get(FileBase.class, fileId).setProperty(AbstractFile.deleted, true);
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertNull(cache.getFileByPath(securityContext, "/c.txt"));
+
+			app.get(FileBase.class, fileId).setProperty(AbstractFile.deleted, false);
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// deletion
+		try (final Tx tx = app.tx()) {
+
+			app.delete(app.get(FileBase.class, fileId));
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertNull(cache.getFileByPath(securityContext, "/c.txt"));
+
+			for (final AbstractFile file : cache.getRootEntries(securityContext, AbstractFile.class)) {
+				assertFalse(fileId.equals(file.getUuid()));
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
+
+	@Test
+	public void testInvalidationWithoutNotifications() {
+
+		final FilePathCache cache = FilePathCache.getInstance();
+		final Class fileType      = StructrApp.getConfiguration().getNodeEntityClass("File");
+		String fileId             = null;
+
+		// populate the cached root entries
+		try (final Tx tx = app.tx()) {
+
+			assertTrue(cache.getRootEntries(securityContext, FileBase.class).isEmpty());
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// file import commits without callbacks and notifications
+		try (final Tx tx = app.tx(true, false, false)) {
+
+			fileId = FileHelper.createFile(securityContext, "test".getBytes(), "text/plain", fileType, "imported.txt").getUuid();
+			tx.success();
+
+		} catch (FrameworkException | IOException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertEquals(1, cache.getRootEntries(securityContext, FileBase.class).size());
+			assertEquals(fileId, cache.getFileByPath(securityContext, "/imported.txt").getUuid());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx(true, false, false)) {
+
+			app.get(FileBase.class, fileId).setProperty(AbstractFile.hidden, true);
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertTrue(cache.getRootEntries(securityContext, FileBase.class).isEmpty());
+			assertNull(cache.getFileByPath(securityContext, "/imported.txt"));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
+}
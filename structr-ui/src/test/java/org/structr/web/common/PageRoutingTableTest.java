@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.graph.Tx;
+import org.structr.web.entity.dom.Page;
+
+/**
+ *
+ *
+ */
+public class PageRoutingTableTest extends StructrUiTest {
+
+	@Test
+	public void testPageResolutionAndInvalidation() {
+
+		final PageRoutingTable table = PageRoutingTable.getInstance();
+		String page1Id               = null;
+		String page2Id               = null;
+
+		try (final Tx tx = app.tx()) {
+
+			final Page page1 = Page.createNewPage(securityContext, "page1");
+			final Page page2 = Page.createNewPage(securityContext, "page2");
+
+			page1.setProperty(Page.path, "/one");
+			page1.setProperty(Page.position, 20);
+			page2.setProperty(Page.position, 10);
+
+			page1Id = page1.getUuid();
+			page2Id = page2.getUuid();
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertEquals(page1Id, table.findPage(securityContext, null, "/one", true).getUuid());
+			assertEquals(page1Id, table.findPage(securityContext, null, "/page1", true).getUuid());
+			assertEquals(page2Id, table.findPage(securityContext, null, "/page2", true).getUuid());
+			assertEquals(page2Id, table.findPage(securityContext, null, "/" + page2Id, true).getUuid());
+			assertNull(table.findPage(securityContext, null, "/two", true));
+
+			assertEquals(page2Id, table.findIndexPage(securityContext, null, true).getUuid());
+			assertEquals(1, table.getPagesByPath(securityContext, "/one").size());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// modified pages are reloaded on the next lookup
+		try (final Tx tx = app.tx()) {
+
+			final Page page2 = app.get(Page.class, page2Id);
+
+			page2.setProperty(Page.path, "/two");
+			page2.setProperty(Page.position, 30);
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertEquals(page2Id, table.findPage(securityContext, null, "/two", true).getUuid());
+			assertEquals(page1Id, table.findIndexPage(securityContext, null, true).getUuid());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// deleted pages are removed
+		try (final Tx tx = app.tx()) {
+
+			app.delete(app.get(Page.class, page1Id));
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertNull(table.findPage(securityContext, null, "/one", true));
+			assertTrue(table.getPagesByPath(securityContext, "/one").isEmpty());
+			assertEquals(page2Id, table.findIndexPage(securityContext, null, true).getUuid());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
+
+	@Test
+	public void testInvalidationWithoutNotifications() {
+
+		final PageRoutingTable table = PageRoutingTable.getInstance();
+		String pageId                = null;
+
+		// build the table
+		try (final Tx tx = app.tx()) {
+
+			assertNull(table.findPage(securityContext, null, "/imported", true));
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// deployment imports commit without callbacks and notifications
+		try (final Tx tx = app.tx(true, false, false)) {
+
+			pageId = Page.createNewPage(securityContext, "imported").getUuid();
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertEquals(pageId, table.findPage(securityContext, null, "/imported", true).getUuid());
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx(true, false, false)) {
+
+			app.delete(app.get(Page.class, pageId));
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertNull(table.findPage(securityContext, null, "/imported", true));
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
+}
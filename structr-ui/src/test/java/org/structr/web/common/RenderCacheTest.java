@@ -0,0 +1,169 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import org.apache.commons.lang3.StringUtils;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.graph.Tx;
+import org.structr.web.entity.Folder;
+import org.structr.web.entity.dom.Content;
+import org.structr.web.entity.dom.DOMElement;
+import org.structr.web.entity.dom.DOMNode;
+import org.structr.web.entity.dom.Page;
+
+/**
+ *
+ *
+ */
+public class RenderCacheTest extends StructrUiTest {
+
+	@Test
+	public void testCachedOutputAndInvalidation() {
+
+		String pageId    = null;
+		String contentId = null;
+		String folderId  = null;
+
+		try (final Tx tx = app.tx()) {
+
+			final Page page        = Page.createNewPage(securityContext, "test");
+			final DOMElement html  = (DOMElement)page.createElement("html");
+			final DOMElement body  = (DOMElement)page.createElement("body");
+			final DOMElement div   = (DOMElement)page.createElement("div");
+			final DOMElement list  = (DOMElement)page.createElement("ul");
+			final DOMElement item  = (DOMElement)page.createElement("li");
+			final Content heading  = (Content)page.createTextNode("Folders:");
+			final Content name     = (Content)page.createTextNode("${folder.name}");
+
+			page.appendChild(html);
+			html.appendChild(body);
+			body.appendChild(div);
+			div.appendChild(heading);
+			div.appendChild(list);
+			list.appendChild(item);
+			item.appendChild(name);
+
+			item.setProperty(DOMNode.functionQuery, "find('Folder')");
+			item.setProperty(DOMNode.dataKey, "folder");
+			div.setProperty(DOMNode.renderCacheSeconds, 60);
+
+			folderId  = app.create(Folder.class, "folder1").getUuid();
+			pageId    = page.getUuid();
+			contentId = heading.getUuid();
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		final String output1 = render(pageId);
+
+		assertTrue(output1.contains("Folders:"));
+		assertTrue(output1.contains("folder1"));
+		assertTrue(RenderCache.getInstance().size() > 0);
+
+		// second rendering is served from the cache
+		assertEquals(output1, render(pageId));
+
+		// modification of a data object
+		try (final Tx tx = app.tx()) {
+
+			app.get(Folder.class, folderId).setProperty(Folder.name, "renamed");
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		assertTrue(render(pageId).contains("renamed"));
+
+		// new object of a list source type
+		try (final Tx tx = app.tx()) {
+
+			app.create(Folder.class, "folder2");
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		assertTrue(render(pageId).contains("folder2"));
+
+		// modification of a DOM node
+		try (final Tx tx = app.tx()) {
+
+			app.get(Content.class, contentId).setProperty(Content.content, "Directories:");
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		assertTrue(render(pageId).contains("Directories:"));
+
+		// modification without callbacks and notifications (deployment, maintenance commands)
+		try (final Tx tx = app.tx(true, false, false)) {
+
+			app.get(Content.class, contentId).setProperty(Content.content, "Imported:");
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		assertTrue(render(pageId).contains("Imported:"));
+	}
+
+	private String render(final String pageId) {
+
+		try (final Tx tx = app.tx()) {
+
+			final RenderContext renderContext = new RenderContext(securityContext);
+			final Page page                   = app.get(Page.class, pageId);
+
+			page.render(renderContext, 0);
+
+			tx.success();
+
+			return StringUtils.join(renderContext.getBuffer().getQueue(), "");
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		return null;
+	}
+}
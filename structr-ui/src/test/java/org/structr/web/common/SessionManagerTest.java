@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import com.jayway.restassured.RestAssured;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.Services;
+import org.structr.core.entity.Principal;
+import org.structr.core.graph.NodeAttribute;
+import org.structr.core.graph.Tx;
+import org.structr.rest.auth.SessionHelper;
+import org.structr.rest.service.HttpService;
+import org.structr.rest.session.StructrSessionManager;
+import org.structr.web.entity.User;
+
+/**
+ *
+ *
+ */
+public class SessionManagerTest extends StructrUiTest {
+
+	@Test
+	public void testSessionsSurviveRestart() {
+
+		try (final Tx tx = app.tx()) {
+
+			createTestNode(User.class, new NodeAttribute<>(Principal.name, "admin"), new NodeAttribute<>(Principal.password, "admin"), new NodeAttribute<>(Principal.isAdmin, true));
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		grant("_login", 64, true);
+
+		final StructrSessionManager sessionManager = Services.getInstance().getService(HttpService.class).getSessionManager();
+
+		final String sessionId = RestAssured
+
+			.given()
+				.contentType("application/json; charset=UTF-8")
+				.body("{ name: admin, password: admin }")
+
+			.expect()
+				.statusCode(200)
+
+			.when()
+				.post("/login")
+				.getCookie("JSESSIONID");
+
+		assertNotNull(sessionId);
+		assertTrue(sessionManager.getSessionStore().size() > 0);
+
+		RestAssured.given().cookie("JSESSIONID", sessionId).expect().statusCode(200).when().get("/users");
+
+		// restart the session manager, the session is restored from the store
+		try {
+
+			sessionManager.stop();
+			sessionManager.start();
+
+		} catch (Exception ex) {
+
+			ex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		RestAssured.given().cookie("JSESSIONID", sessionId).expect().statusCode(200).when().get("/users");
+
+		// invalidate the session outside of a request
+		try (final Tx tx = app.tx()) {
+
+			SessionHelper.invalidateSession(SessionHelper.getSessionBySessionId(sessionId));
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		assertNull(sessionManager.getSession(sessionId));
+
+		RestAssured.given().cookie("JSESSIONID", sessionId).expect().statusCode(401).when().get("/users");
+	}
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright (C) 2010-2016 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.commons.io.FileUtils;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.graph.NodeAttribute;
+import org.structr.core.graph.Tx;
+import org.structr.web.common.FileHelper;
+import org.structr.web.common.MinificationQueue;
+import org.structr.web.common.StructrUiTest;
+
+/**
+ *
+ *
+ */
+public class MinificationTest extends StructrUiTest {
+
+	@Test
+	public void testBackgroundMinification() {
+
+		String minifiedId = null;
+		String source1Id  = null;
+
+		try (final Tx tx = app.tx()) {
+
+			final FileBase source1 = FileHelper.createFile(securityContext, ".a { color: red; }\n".getBytes(), "text/css", org.structr.dynamic.File.class, "a.css");
+			final FileBase source2 = FileHelper.createFile(securityContext, ".b { color: blue; }\n".getBytes(), "text/css", org.structr.dynamic.File.class, "b.css");
+
+			final MinifiedCssFile minified = app.create(MinifiedCssFile.class,
+				new NodeAttribute<>(MinifiedCssFile.name, "all.min.css"),
+				new NodeAttribute<>(MinifiedCssFile.minificationSources, Arrays.asList(source1, source2))
+			);
+
+			minifiedId = minified.getUuid();
+			source1Id  = source1.getUuid();
+
+			tx.success();
+
+		} catch (FrameworkException | IOException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// changing the settings of the minified file triggers a background job
+		try (final Tx tx = app.tx()) {
+
+			app.get(MinifiedCssFile.class, minifiedId).setProperty(MinifiedCssFile.lineBreak, 0);
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		assertTrue("Minification did not finish in time", MinificationQueue.getInstance().awaitIdle(30000));
+
+		final String firstKey = assertContent(minifiedId, ".a{color:red}", ".b{color:blue}");
+
+		// modifying a source triggers a background job as well
+		try (final Tx tx = app.tx()) {
+
+			final FileBase source1 = app.get(FileBase.class, source1Id);
+
+			FileUtils.writeStringToFile(source1.getFileOnDisk(), ".c { color: green; }\n");
+			source1.increaseVersion();
+
+			tx.success();
+
+		} catch (FrameworkException | IOException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		assertTrue("Minification did not finish in time", MinificationQueue.getInstance().awaitIdle(30000));
+
+		final String secondKey = assertContent(minifiedId, ".c{color:green}", ".b{color:blue}");
+
+		assertFalse("Cache key must change when a source changes", firstKey.equals(secondKey));
+
+		// results are cached by key
+		assertTrue(new File(basePath + "/minification/" + firstKey + ".min").exists());
+		assertTrue(new File(basePath + "/minification/" + secondKey + ".min").exists());
+	}
+
+	@Test
+	public void testCachedMinificationIsReused() {
+
+		try (final Tx tx = app.tx()) {
+
+			final FileBase source = FileHelper.createFile(securityContext, ".a { color: red; }\n".getBytes(), "text/css", org.structr.dynamic.File.class, "a.css");
+
+			final MinifiedCssFile minified1 = app.create(MinifiedCssFile.class,
+				new NodeAttribute<>(MinifiedCssFile.name, "one.min.css"),
+				new NodeAttribute<>(MinifiedCssFile.minificationSources, Arrays.asList(source))
+			);
+
+			final MinifiedCssFile minified2 = app.create(MinifiedCssFile.class,
+				new NodeAttribute<>(MinifiedCssFile.name, "two.min.css"),
+				new NodeAttribute<>(MinifiedCssFile.minificationSources, Arrays.asList(source))
+			);
+
+			minified1.minify();
+			minified2.minify();
+
+			final String key = minified1.getProperty(AbstractMinifiedFile.minificationKey);
+
+			assertNotNull(key);
+			assertEquals("Identical sources and settings must result in the same key", key, minified2.getProperty(AbstractMinifiedFile.minificationKey));
+			assertEquals(FileUtils.readFileToString(minified1.getFileOnDisk()), FileUtils.readFileToString(minified2.getFileOnDisk()));
+
+			tx.success();
+
+		} catch (FrameworkException | IOException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
+
+	// ----- private methods -----
+	private String assertContent(final String uuid, final String... expected) {
+
+		try (final Tx tx = app.tx()) {
+
+			final MinifiedCssFile minified = app.get(MinifiedCssFile.class, uuid);
+			final String content           = FileUtils.readFileToString(minified.getFileOnDisk());
+			final String key               = minified.getProperty(AbstractMinifiedFile.minificationKey);
+
+			for (final String part : expected) {
+				assertTrue("Minified content should contain " + part + ", was: " + content, content.contains(part));
+			}
+
+			assertNotNull(key);
+
+			tx.success();
+
+			return key;
+
+		} catch (FrameworkException | IOException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		return null;
+	}
+}
@@ -1483,6 +1483,124 @@ public class DeploymentTest extends StructrUiTest {
 		compare(calculateHash(), true);
 	}
 
+	@Test
+	public void test33IncrementalImport() {
+
+		// setup
+		try (final Tx tx = app.tx()) {
+
+			for (final String name : new String[] { "test33a", "test33b" }) {
+
+				final Page page = Page.createNewPage(securityContext, name);
+				final Html html = createElement(page, page, "html");
+				final Head head = createElement(page, html, "head");
+				createElement(page, head, "title", name);
+
+				final Body body = createElement(page, html, "body");
+				final Div div1  = createElement(page, body, "div");
+				createElement(page, div1, "h1", "content of " + name);
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fail("Unexpected exception.");
+		}
+
+		final DeployCommand cmd = app.command(DeployCommand.class);
+		final Path tmp          = Paths.get("/tmp/structr-deployment-test" + System.currentTimeMillis() + System.nanoTime());
+
+		try {
+
+			final Map<String, Object> exportParams = new HashMap<>();
+			exportParams.put("mode", "export");
+			exportParams.put("target", tmp.toString());
+
+			cmd.execute(exportParams);
+
+			cleanDatabase();
+
+			final Map<String, Object> importParams = new HashMap<>();
+			importParams.put("source", tmp.toString());
+
+			// initial import
+			cmd.execute(importParams);
+
+			final String a1 = getPageId("test33a");
+			final String b1 = getPageId("test33b");
+
+			Assert.assertNotNull("Page was not imported", a1);
+			Assert.assertNotNull("Page was not imported", b1);
+
+			// unmodified pages must not be imported again
+			cmd.execute(importParams);
+
+			Assert.assertEquals("Unmodified page was imported again", a1, getPageId("test33a"));
+			Assert.assertEquals("Unmodified page was imported again", b1, getPageId("test33b"));
+
+			// modify one page in the database
+			try (final Tx tx = app.tx()) {
+
+				app.nodeQuery(Content.class).and(Content.content, "content of test33a").getFirst().setProperty(Content.content, "edited in the database");
+				tx.success();
+			}
+
+			cmd.execute(importParams);
+
+			final String a2 = getPageId("test33a");
+
+			Assert.assertNotEquals("Page modified in the database was not imported again", a1, a2);
+			Assert.assertEquals("Unmodified page was imported again", b1, getPageId("test33b"));
+
+			try (final Tx tx = app.tx()) {
+
+				Assert.assertEquals("Page modified in the database was not imported again", 0, app.nodeQuery(Content.class).and(Content.content, "edited in the database").getAsList().size());
+				tx.success();
+			}
+
+			// modify one page
+			final Path pageFile = tmp.resolve("pages/test33b.html");
+			final String source = new String(Files.readAllBytes(pageFile), "utf-8");
+
+			Files.write(pageFile, source.replace("content of test33b", "modified content").getBytes("utf-8"));
+
+			cmd.execute(importParams);
+
+			final String b2 = getPageId("test33b");
+
+			Assert.assertEquals("Unmodified page was imported again", a2, getPageId("test33a"));
+			Assert.assertNotNull("Modified page was not imported", b2);
+			Assert.assertNotEquals("Modified page was not imported", b1, b2);
+
+			try (final Tx tx = app.tx()) {
+
+				Assert.assertEquals("Modified page was not imported", 1, app.nodeQuery(Content.class).and(Content.content, "modified content").getAsList().size());
+				tx.success();
+			}
+
+			// force re-import of all pages
+			importParams.put("force", true);
+			cmd.execute(importParams);
+
+			Assert.assertNotEquals("Page was not imported again", a2, getPageId("test33a"));
+			Assert.assertNotEquals("Page was not imported again", b2, getPageId("test33b"));
+
+		} catch (IOException | FrameworkException ex) {
+
+			ex.printStackTrace();
+			fail("Unexpected exception.");
+
+		} finally {
+
+			try {
+				// clean directories
+				Files.walkFileTree(tmp, new DeletingFileVisitor());
+				Files.delete(tmp);
+
+			} catch (IOException ioex) {}
+		}
+	}
+
 	// ----- private methods -----
 	private void compare(final String sourceHash, final boolean deleteTestDirectory) {
 		compare(sourceHash, deleteTestDirectory, true);
@@ -1506,6 +1624,23 @@ public class DeploymentTest extends StructrUiTest {
 		}
 	}
 
+	private String getPageId(final String name) {
+
+		try (final Tx tx = app.tx()) {
+
+			final Page page = app.nodeQuery(Page.class).andName(name).getFirst();
+
+			tx.success();
+
+			return page != null ? page.getUuid() : null;
+
+		} catch (FrameworkException fex) {
+			fail("Unexpected exception.");
+		}
+
+		return null;
+	}
+
 	private void doImportExportRoundtrip(final boolean deleteTestDirectory) {
 		doImportExportRoundtrip(deleteTestDirectory, true, null);
 	}